@@ -64,13 +64,22 @@ public class BRouter extends BaseRoutingService {
     private static final String DIRECTORY_PREFERENCE = "directory";
     private static final String PROFILES_BASE_URL_PREFERENCE = "profilesBaseUrl";
     private static final String SEGMENTS_BASE_URL_PREFERENCE = "segmentsBaseUrl";
+    private static final String PROFILE_CACHE_SIZE_PREFERENCE = "profileCacheSize";
     private static final TravelMode MOPED = new TravelMode("moped");
+    private static final double METERS_PER_MICRO_DEGREE = 6371000.0 * Math.PI / 180.0 / 1000000.0;
 
     private final DownloadManager downloadManager;
     private DataSource profiles, segments;
 
     public BRouter(DownloadManager downloadManager) {
         this.downloadManager = downloadManager;
+        // keep the compiled profiles of several travel modes and concurrent requests instead of only the last one,
+        // BRouter hands out an entry to one request at a time and compiles a profile again once its file changes
+        ProfileCache.setSize(getProfileCacheSize());
+    }
+
+    static int getProfileCacheSize() {
+        return preferences.getInt(PROFILE_CACHE_SIZE_PREFERENCE, 8);
     }
 
     public String getName() {
@@ -209,6 +218,32 @@ public class BRouter extends BaseRoutingService {
         return result;
     }
 
+    private File getProfile(TravelMode travelMode) {
+        File profile = new File(getProfilesDirectory(), travelMode.getName() + ".brf");
+        if (!profile.exists()) {
+            profile = new File(getProfilesDirectory(), getPreferredTravelMode().getName() + ".brf");
+            log.warning(format("Failed to find profile for travel mode %s; using preferred travel mode %s", travelMode, getPreferredTravelMode()));
+        }
+        if (!profile.exists()) {
+            List<TravelMode> availableTravelModes = getAvailableTravelModes();
+            if (availableTravelModes.size() == 0)
+                return null;
+
+            TravelMode firstTravelMode = availableTravelModes.get(0);
+            profile = new File(getProfilesDirectory(), firstTravelMode.getName() + ".brf");
+            log.warning(format("Failed to find profile for travel mode %s; using first travel mode %s", travelMode, firstTravelMode));
+        }
+        return profile;
+    }
+
+    private long getRoutingTimeout(NavigationPosition from, NavigationPosition to) {
+        double bearing = Bearing.calculateBearing(from.getLongitude(), from.getLatitude(),
+                to.getLongitude(), to.getLatitude()).getDistance();
+        long routingTimeout = (long) (3000L + bearing / 20.0);
+        log.fine(format("Distance %f results to default routing timeout %d milliseconds", bearing, routingTimeout));
+        return routingTimeout;
+    }
+
     public RoutingResult getRouteBetween(NavigationPosition from, NavigationPosition to, TravelMode travelMode) {
         SecondCounter secondCounter = new SecondCounter() {
             protected void second(int second) {
@@ -219,32 +254,18 @@ public class BRouter extends BaseRoutingService {
 
         long start = currentTimeMillis();
         try {
-            File profile = new File(getProfilesDirectory(), travelMode.getName() + ".brf");
-            if (!profile.exists()) {
-                profile = new File(getProfilesDirectory(), getPreferredTravelMode().getName() + ".brf");
-                log.warning(format("Failed to find profile for travel mode %s; using preferred travel mode %s", travelMode, getPreferredTravelMode()));
-            }
-            if (!profile.exists()) {
-                List<TravelMode> availableTravelModes = getAvailableTravelModes();
-                if (availableTravelModes.size() == 0) {
-                    log.warning(format("Cannot route between %s and %s: no travel modes found in %s", from, to, getProfilesDirectory()));
-                    return new RoutingResult(asList(from, to), new DistanceAndTime(calculateBearing(from.getLongitude(), from.getLatitude(), to.getLongitude(), to.getLatitude()).getDistance(), null), Invalid);
-                }
-
-                TravelMode firstTravelMode = availableTravelModes.get(0);
-                profile = new File(getProfilesDirectory(), firstTravelMode.getName() + ".brf");
-                log.warning(format("Failed to find profile for travel mode %s; using first travel mode %s", travelMode, firstTravelMode));
+            File profile = getProfile(travelMode);
+            if (profile == null) {
+                log.warning(format("Cannot route between %s and %s: no travel modes found in %s", from, to, getProfilesDirectory()));
+                return new RoutingResult(asList(from, to), new DistanceAndTime(calculateBearing(from.getLongitude(), from.getLatitude(), to.getLongitude(), to.getLatitude()).getDistance(), null), Invalid);
             }
 
-            double bearing = Bearing.calculateBearing(from.getLongitude(), from.getLatitude(),
-                    to.getLongitude(), to.getLatitude()).getDistance();
-            long routingTimeout = (long) (3000L + bearing / 20.0);
-            log.fine(format("Distance %f results to default routing timeout %d milliseconds", bearing, routingTimeout));
+            long routingTimeout = getRoutingTimeout(from, to);
 
             RoutingContext routingContext = new RoutingContext();
             routingContext.localFunction = profile.getPath();
 
-            RoutingEngine routingEngine = new RoutingEngine(null, null, getSegmentsDirectory().getPath(), createWaypoints(from, to), routingContext);
+            RoutingEngine routingEngine = new RoutingEngine(null, null, getSegmentsDirectory().getPath(), createWaypoints(asList(from, to)), routingContext);
             routingEngine.quite = true;
             routingEngine.doRun(preferences.getLong("routingTimeout", routingTimeout));
 
@@ -254,7 +275,7 @@ public class BRouter extends BaseRoutingService {
             OsmTrack track = routingEngine.getFoundTrack();
             double distance = routingEngine.getDistance();
             Validity validity = routingEngine.getErrorMessage() == null ? Valid : Invalid;
-            return new RoutingResult(asPositions(track), new DistanceAndTime(distance, getTime(track)), validity);
+            return new RoutingResult(asPositions(track.nodes), new DistanceAndTime(distance, getTime(track.nodes)), validity);
         } finally {
             secondCounter.stop();
 
@@ -263,15 +284,139 @@ public class BRouter extends BaseRoutingService {
         }
     }
 
-    private long getTime(OsmTrack track) {
-        float s = track.nodes.size() < 2 ? 0 : track.nodes.get(track.nodes.size() - 1).getTime() - track.nodes.get(0).getTime();
+    public List<RoutingResult> getRouteAlong(List<NavigationPosition> positions, TravelMode travelMode) {
+        if (positions.size() < 3)
+            return super.getRouteAlong(positions, travelMode);
+
+        List<RoutingResult> result = calculateRouteAlong(positions, travelMode);
+        // route pairwise to find out which legs are not valid
+        return result != null ? result : super.getRouteAlong(positions, travelMode);
+    }
+
+    private List<RoutingResult> calculateRouteAlong(List<NavigationPosition> positions, TravelMode travelMode) {
+        File profile = getProfile(travelMode);
+        if (profile == null)
+            return null;
+
+        SecondCounter secondCounter = new SecondCounter() {
+            protected void second(int second) {
+                fireRouting(second);
+            }
+        };
+        secondCounter.start();
+
+        long start = currentTimeMillis();
+        try {
+            long routingTimeout = 0;
+            for (int i = 0; i < positions.size() - 1; i++) {
+                routingTimeout += getRoutingTimeout(positions.get(i), positions.get(i + 1));
+            }
+
+            // one engine run with all waypoints parses the profile and opens the segments only once
+            RoutingContext routingContext = new RoutingContext();
+            routingContext.localFunction = profile.getPath();
+
+            RoutingEngine routingEngine = new RoutingEngine(null, null, getSegmentsDirectory().getPath(), createWaypoints(positions), routingContext);
+            routingEngine.quite = true;
+            routingEngine.doRun(preferences.getLong("routingTimeout", routingTimeout));
+
+            if (routingEngine.getErrorMessage() != null) {
+                log.warning(format("Error while routing along %d positions: %s", positions.size(), routingEngine.getErrorMessage()));
+                return null;
+            }
+
+            return asRoutingResults(routingEngine.getFoundTrack(), positions);
+        } finally {
+            secondCounter.stop();
+
+            long end = currentTimeMillis();
+            log.info("Routing along " + positions.size() + " positions took " + (end - start) + " milliseconds");
+        }
+    }
+
+    private List<RoutingResult> asRoutingResults(OsmTrack track, List<NavigationPosition> positions) {
+        List<RoutingResult> result = new ArrayList<>();
+        List<OsmPathElement> nodes = track.nodes;
+        double maximumSplitDistance = getMaximumSplitDistance();
+        int startIndex = 0;
+        boolean startMatches = getDistance(nodes.get(0), positions.get(0)) <= maximumSplitDistance;
+        for (int i = 1; i < positions.size(); i++) {
+            NavigationPosition position = positions.get(i);
+            // leave at least one node for each of the following legs
+            int endIndex = i < positions.size() - 1 ?
+                    findSplitNode(nodes, startIndex, nodes.size() - (positions.size() - 1 - i), position, maximumSplitDistance) :
+                    nodes.size() - 1;
+            boolean endMatches = getDistance(nodes.get(endIndex), position) <= maximumSplitDistance;
+
+            List<OsmPathElement> leg = nodes.subList(startIndex, endIndex + 1);
+            Validity validity = startMatches && endMatches ? Valid : Invalid;
+            result.add(new RoutingResult(asPositions(leg), new DistanceAndTime(getDistance(leg), getTime(leg)), validity));
+
+            startIndex = endIndex;
+            startMatches = endMatches;
+        }
+        return result;
+    }
+
+    private double getMaximumSplitDistance() {
+        return preferences.getDouble("maximumSplitDistance", 500.0);
+    }
+
+    private int findSplitNode(List<OsmPathElement> nodes, int startIndex, int endIndex, NavigationPosition position,
+                              double maximumSplitDistance) {
+        // the track passes the matched waypoint, so a planar distance on the integer coordinates suffices
+        int longitude = asLongitude(position.getLongitude());
+        int latitude = asLatitude(position.getLatitude());
+        double longitudeFactor = Math.cos(Math.toRadians(position.getLatitude()));
+        double maximum = maximumSplitDistance / METERS_PER_MICRO_DEGREE;
+        maximum *= maximum;
+
+        // take the closest node of the first pass near the waypoint, since a later pass near it belongs to
+        // a later leg of a tour; only if the track never gets near it, take the closest node of the range
+        int result = startIndex;
+        double minimum = Double.MAX_VALUE;
+        for (int i = startIndex; i < endIndex; i++) {
+            OsmPathElement node = nodes.get(i);
+            double deltaLongitude = (node.getILon() - longitude) * longitudeFactor;
+            double deltaLatitude = node.getILat() - latitude;
+            double distance = deltaLongitude * deltaLongitude + deltaLatitude * deltaLatitude;
+            if (distance < minimum) {
+                minimum = distance;
+                result = i;
+                if (distance == 0.0)
+                    break;
+            } else if (minimum <= maximum && distance > maximum)
+                break;
+        }
+        return result;
+    }
+
+    private double getDistance(OsmPathElement node, NavigationPosition position) {
+        return calculateBearing(asLongitude(node.getILon()), asLatitude(node.getILat()),
+                position.getLongitude(), position.getLatitude()).getDistance();
+    }
+
+    private double getDistance(List<OsmPathElement> nodes) {
+        double result = 0.0;
+        for (int i = 1; i < nodes.size(); i++) {
+            OsmPathElement from = nodes.get(i - 1);
+            OsmPathElement to = nodes.get(i);
+            result += calculateBearing(asLongitude(from.getILon()), asLatitude(from.getILat()),
+                    asLongitude(to.getILon()), asLatitude(to.getILat())).getDistance();
+        }
+        return result;
+    }
+
+    private long getTime(List<OsmPathElement> nodes) {
+        float s = nodes.size() < 2 ? 0 : nodes.get(nodes.size() - 1).getTime() - nodes.get(0).getTime();
         return (long)((s + 0.5) * 1000);
     }
 
-    private List<OsmNodeNamed> createWaypoints(NavigationPosition from, NavigationPosition to) {
+    private List<OsmNodeNamed> createWaypoints(List<NavigationPosition> positions) {
         List<OsmNodeNamed> result = new ArrayList<>();
-        result.add(asOsmNodeNamed(from.getDescription(), from.getLongitude(), from.getLatitude()));
-        result.add(asOsmNodeNamed(to.getDescription(), to.getLongitude(), to.getLatitude()));
+        for (NavigationPosition position : positions) {
+            result.add(asOsmNodeNamed(position.getDescription(), position.getLongitude(), position.getLatitude()));
+        }
         return result;
     }
 
@@ -291,9 +436,9 @@ public class BRouter extends BaseRoutingService {
         return latitude != null ? (int) ((latitude + 90.0) * 1000000.0 + 0.5) : 0;
     }
 
-    private List<NavigationPosition> asPositions(OsmTrack track) {
+    private List<NavigationPosition> asPositions(List<OsmPathElement> nodes) {
         List<NavigationPosition> result = new ArrayList<>();
-        for (OsmPathElement element : track.nodes) {
+        for (OsmPathElement element : nodes) {
             result.add(new SimpleNavigationPosition(asLongitude(element.getILon()), asLatitude(element.getILat()), element.getElev(), null));
         }
         return result;
@@ -328,23 +473,7 @@ public class BRouter extends BaseRoutingService {
 
 
     private Collection<Downloadable> getDownloadablesFor(BoundingBox boundingBox) {
-        Collection<Downloadable> result = new HashSet<>();
-
-        double longitude = boundingBox.getSouthWest().getLongitude();
-        while (longitude < boundingBox.getNorthEast().getLongitude()) {
-
-            double latitude = boundingBox.getSouthWest().getLatitude();
-            while (latitude < boundingBox.getNorthEast().getLatitude()) {
-                String key = createFileKey(longitude, latitude);
-                Downloadable downloadable = getSegments().getDownloadable(key);
-                if (downloadable != null)
-                    result.add(downloadable);
-                latitude += 1.0;
-            }
-
-            longitude += 1.0;
-        }
-        return result;
+        return getSegments().getDownloadablesFor(boundingBox);
     }
 
     private Collection<Downloadable> getDownloadablesFor(List<BoundingBox> boundingBoxes) {
@@ -19,6 +19,8 @@
 */
 package slash.navigation.brouter;
 
+import btools.router.ProfileCache;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import slash.navigation.common.LongitudeAndLatitude;
@@ -34,8 +36,13 @@ import slash.navigation.routing.TravelMode;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
+import java.util.logging.Logger;
 
 import static java.io.File.createTempFile;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.mock;
@@ -45,8 +52,10 @@ import static slash.common.io.Externalization.extractFile;
 import static slash.navigation.routing.RoutingResult.Validity.Valid;
 
 public class BRouterIT {
+    private static final Logger log = Logger.getLogger(BRouterIT.class.getName());
     private static final NavigationPosition FROM = new SimpleNavigationPosition(10.18587, 53.40451);
     private static final NavigationPosition TO = new SimpleNavigationPosition(10.06767, 53.49249);
+    private static final NavigationPosition VIA = new SimpleNavigationPosition(10.12210, 53.44590);
     private static final String CAR_PROFILE_URI = "car-eco.brf";
     private static final String TREKKING_PROFILE_URI = "trekking.brf";
     private static final String SEGMENT_URI = "E10_N50.rd5";
@@ -83,6 +92,11 @@ public class BRouterIT {
             future.download();
     }
 
+    @After
+    public void tearDown() {
+        ProfileCache.setSize(BRouter.getProfileCacheSize());
+    }
+
     private void prepareFile(String directory, String fileName) throws IOException {
         File src = extractFile("slash/navigation/brouter/" + fileName);
         assertNotNull(src);
@@ -116,4 +130,45 @@ public class BRouterIT {
         assertEquals(13899.0, result.getDistanceAndTime().getDistance(), 25.0);
         assertEquals(2332890, result.getDistanceAndTime().getTimeInMillis(), 1000);
     }
+
+    @Test
+    public void testGetRouteAlongByCar() {
+        TravelMode car = getTravelMode("car-eco");
+        List<RoutingResult> along = router.getRouteAlong(asList(FROM, VIA, TO), car);
+        assertEquals(2, along.size());
+        RoutingResult first = router.getRouteBetween(FROM, VIA, car);
+        RoutingResult second = router.getRouteBetween(VIA, TO, car);
+        assertEquals(Valid, along.get(0).getValidity());
+        assertEquals(Valid, along.get(1).getValidity());
+        assertEquals(first.getDistanceAndTime().getDistance(), along.get(0).getDistanceAndTime().getDistance(), 100.0);
+        assertEquals(second.getDistanceAndTime().getDistance(), along.get(1).getDistanceAndTime().getDistance(), 100.0);
+    }
+
+    private long routeAlternatingTravelModes(int count) {
+        TravelMode car = getTravelMode("car-eco");
+        TravelMode trekking = getTravelMode("trekking");
+        long start = currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            RoutingResult result = router.getRouteBetween(FROM, VIA, i % 2 == 0 ? car : trekking);
+            assertEquals(Valid, result.getValidity());
+        }
+        return currentTimeMillis() - start;
+    }
+
+    @Test
+    public void testRepeatedRoutesPerformance() {
+        int count = 20;
+        // warm up
+        routeAlternatingTravelModes(2);
+
+        // the default of BRouter keeps only the last compiled profile
+        ProfileCache.setSize(1);
+        long single = routeAlternatingTravelModes(count);
+
+        ProfileCache.setSize(BRouter.getProfileCacheSize());
+        long cached = routeAlternatingTravelModes(count);
+
+        log.info(format("Routing %d times with alternating travel modes took %d ms with one cached profile, %d ms with %d cached profiles",
+                count, single, cached, BRouter.getProfileCacheSize()));
+    }
 }
@@ -0,0 +1,42 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gui.events;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+
+/**
+ * A {@link TableModelListener} that is notified once with all rows that have been
+ * inserted, updated or deleted during a batch of changes instead of once per range.
+ * Deleted rows are given with the indices before, inserted and updated rows with
+ * the indices after the batch. Batches that mix insertions and deletions are
+ * reported with regular {@link TableModelEvent}s.
+ *
+ * @author Christian Pesch
+ * @see RangeSet
+ */
+
+public interface BulkTableModelListener extends TableModelListener {
+    void tableRowsInserted(TableModel source, RangeSet rows);
+    void tableRowsUpdated(TableModel source, RangeSet rows, int columnIndex);
+    void tableRowsDeleted(TableModel source, RangeSet rows);
+}
@@ -20,10 +20,12 @@
 
 package slash.navigation.gui.events;
 
+import javax.swing.event.TableModelEvent;
 import java.util.List;
 
 import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static javax.swing.event.TableModelEvent.UPDATE;
 import static slash.navigation.gui.events.Range.asContinuousMonotonicallyDecreasingRanges;
 import static slash.navigation.gui.events.Range.asContinuousMonotonicallyIncreasingRanges;
 
@@ -37,6 +39,11 @@ import static slash.navigation.gui.events.Range.asContinuousMonotonicallyIncreas
  */
 
 public class ContinousRange {
+    /**
+     * The column of the update that follows the events of all continuous ranges.
+     */
+    public static final int CONTINOUS_RANGE_FINAL_EVENT = -2;
+
     private final int[] indices;
     private final RangeOperation operation;
 
@@ -75,4 +82,8 @@ public class ContinousRange {
                 return;
         }
     }
+
+    public static boolean isContinousRangeFinalEvent(TableModelEvent e) {
+        return e.getType() == UPDATE && e.getColumn() == CONTINOUS_RANGE_FINAL_EVENT;
+    }
 }
@@ -0,0 +1,149 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gui.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.Integer.MAX_VALUE;
+
+/**
+ * Collects row indices as a sorted set of disjoint ranges, merging overlapping
+ * and adjacent ranges. Used to coalesce notifications that Swing UI Models fire.
+ *
+ * @author Christian Pesch
+ * @see ContinousRange
+ */
+
+public class RangeSet {
+    private final TreeMap<Integer, Integer> firstToLast = new TreeMap<>();
+
+    public void add(int firstIndex, int lastIndex) {
+        if (firstIndex > lastIndex)
+            return;
+
+        Map.Entry<Integer, Integer> before = firstToLast.floorEntry(firstIndex);
+        if (before != null && (before.getValue() == MAX_VALUE || before.getValue() + 1 >= firstIndex)) {
+            if (before.getValue() >= lastIndex)
+                return;
+            firstIndex = before.getKey();
+        }
+
+        Map.Entry<Integer, Integer> after = firstToLast.ceilingEntry(firstIndex);
+        while (after != null && (lastIndex == MAX_VALUE || after.getKey() <= lastIndex + 1)) {
+            lastIndex = Math.max(lastIndex, after.getValue());
+            firstToLast.remove(after.getKey());
+            after = firstToLast.higherEntry(after.getKey());
+        }
+        firstToLast.put(firstIndex, lastIndex);
+    }
+
+    /**
+     * Moves all indices from the given index on by the given delta, splitting
+     * a range that contains the given index.
+     */
+    public void shift(int fromIndex, int delta) {
+        if (delta == 0)
+            return;
+
+        TreeMap<Integer, Integer> shifted = new TreeMap<>(firstToLast.headMap(fromIndex));
+        Map.Entry<Integer, Integer> spanning = firstToLast.lowerEntry(fromIndex);
+        if (spanning != null && spanning.getValue() >= fromIndex) {
+            shifted.put(spanning.getKey(), fromIndex - 1);
+            shifted.put(fromIndex + delta, shiftIndex(spanning.getValue(), delta));
+        }
+        for (Map.Entry<Integer, Integer> entry : firstToLast.tailMap(fromIndex).entrySet())
+            shifted.put(entry.getKey() + delta, shiftIndex(entry.getValue(), delta));
+        firstToLast.clear();
+        firstToLast.putAll(shifted);
+    }
+
+    private static int shiftIndex(int index, int delta) {
+        return index == MAX_VALUE ? MAX_VALUE : index + delta;
+    }
+
+    /**
+     * Returns the index that the given index would have if the indices of this set were
+     * not skipped, i.e. the index-th index that is not contained in this set.
+     */
+    public int skip(int index) {
+        for (Map.Entry<Integer, Integer> entry : firstToLast.entrySet()) {
+            if (entry.getKey() > index)
+                break;
+            index += entry.getValue() - entry.getKey() + 1;
+        }
+        return index;
+    }
+
+    public boolean isEmpty() {
+        return firstToLast.isEmpty();
+    }
+
+    public void clear() {
+        firstToLast.clear();
+    }
+
+    public int getRangeCount() {
+        return firstToLast.size();
+    }
+
+    public int getFirstIndex() {
+        return firstToLast.firstKey();
+    }
+
+    public int getLastIndex() {
+        return firstToLast.lastEntry().getValue();
+    }
+
+    /**
+     * Returns a copy of this set with all ranges cut off before the given index.
+     */
+    public RangeSet headSet(int toIndex) {
+        RangeSet result = new RangeSet();
+        for (Map.Entry<Integer, Integer> entry : firstToLast.headMap(toIndex).entrySet())
+            result.add(entry.getKey(), Math.min(entry.getValue(), toIndex - 1));
+        return result;
+    }
+
+    /**
+     * Returns the ranges as pairs of first and last index in ascending order.
+     */
+    public List<int[]> getRanges() {
+        List<int[]> result = new ArrayList<>(firstToLast.size());
+        for (Map.Entry<Integer, Integer> entry : firstToLast.entrySet())
+            result.add(new int[]{entry.getKey(), entry.getValue()});
+        return result;
+    }
+
+    public void performOnRanges(RangeOperation operation) {
+        for (Map.Entry<Integer, Integer> entry : firstToLast.entrySet()) {
+            if (operation.isInterrupted())
+                break;
+            operation.performOnRange(entry.getKey(), entry.getValue());
+        }
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + firstToLast;
+    }
+}
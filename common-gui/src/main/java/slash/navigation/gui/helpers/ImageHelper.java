@@ -20,14 +20,19 @@
 package slash.navigation.gui.helpers;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Iterator;
 
 import static java.awt.RenderingHints.KEY_RENDERING;
 import static java.awt.RenderingHints.VALUE_RENDER_QUALITY;
 import static java.awt.Transparency.TRANSLUCENT;
+import static java.lang.Math.max;
 
 /**
  * A helper for simplified {@link BufferedImage} operations.
@@ -45,14 +50,32 @@ public class ImageHelper {
     }
 
     public static BufferedImage resize(File file, int height) {
-        try {
-            BufferedImage image = ImageIO.read(file);
-            if (image == null)
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null)
                 return null;
-            double factor = (double) height / image.getHeight();
-            return resize(image, (int) (image.getWidth() * factor), height);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                // decode only every n-th pixel instead of the full resolution image
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = max(1, reader.getHeight(0) / height);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return resize(image, height);
+            } finally {
+                reader.dispose();
+            }
         } catch (IOException e) {
             throw new IllegalArgumentException(e);
         }
     }
+
+    public static BufferedImage resize(BufferedImage image, int height) {
+        double factor = (double) height / image.getHeight();
+        return resize(image, max(1, (int) (image.getWidth() * factor)), height);
+    }
 }
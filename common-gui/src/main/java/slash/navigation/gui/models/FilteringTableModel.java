@@ -23,12 +23,14 @@ import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
-import static slash.common.io.Transfer.toArray;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.copyOf;
+import static javax.swing.event.TableModelEvent.*;
+import static slash.navigation.gui.events.ContinousRange.isContinousRangeFinalEvent;
 
 /**
  * Acts as a {@link TableModel} that filters {@link E}s
@@ -39,7 +41,8 @@ import static slash.common.io.Transfer.toArray;
 public class FilteringTableModel<E> extends AbstractTableModel {
     private final TableModel delegate;
     private FilterPredicate<E> predicate;
-    private Map<Integer, Integer> mapping;
+    private int[] mapping = new int[0];
+    private int size;
 
     public FilteringTableModel(TableModel delegate, FilterPredicate<E> predicate) {
         this.delegate = delegate;
@@ -47,37 +50,160 @@ public class FilteringTableModel<E> extends AbstractTableModel {
         initializeMapping();
         delegate.addTableModelListener(new TableModelListener() {
             public void tableChanged(TableModelEvent e) {
-                initializeMapping();
-                fireTableDataChanged();
+                handleDelegateChange(e);
             }
         });
     }
 
+    private boolean shouldInclude(int delegateRow) {
+        @SuppressWarnings("unchecked")
+        E element = (E) delegate.getValueAt(delegateRow, 0);
+        return predicate.shouldInclude(element);
+    }
+
     private void initializeMapping() {
-        mapping = new HashMap<>();
-        for (int i = 0, c = delegate.getRowCount(); i < c; i++) {
-            @SuppressWarnings("unchecked")
-            E element = (E) delegate.getValueAt(i, 0);
-            if (predicate.shouldInclude(element)) {
-                int mappedRow = mapping.size();
-                mapping.put(mappedRow, i);
-            }
+        int rowCount = delegate.getRowCount();
+        mapping = new int[rowCount];
+        size = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (shouldInclude(i))
+                mapping[size++] = i;
+        }
+    }
+
+    private void handleDelegateChange(TableModelEvent e) {
+        // the ranges have been handled already, only pass on the signal
+        if (isContinousRangeFinalEvent(e)) {
+            fireTableChanged(new TableModelEvent(this, e.getFirstRow(), e.getLastRow(), e.getColumn(), UPDATE));
+            return;
+        }
+
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (firstRow == HEADER_ROW || lastRow == Integer.MAX_VALUE || firstRow < 0 || lastRow < firstRow) {
+            initializeMapping();
+            fireTableDataChanged();
+            return;
+        }
+
+        switch (e.getType()) {
+            case INSERT:
+                handleRowsInserted(firstRow, lastRow);
+                break;
+            case DELETE:
+                handleRowsDeleted(firstRow, lastRow);
+                break;
+            case UPDATE:
+                handleRowsUpdated(firstRow, min(lastRow, delegate.getRowCount() - 1), e.getColumn());
+                break;
+            default:
+                throw new IllegalArgumentException("Event type " + e.getType() + " is not supported");
+        }
+    }
+
+    private void handleRowsInserted(int firstRow, int lastRow) {
+        int count = lastRow - firstRow + 1;
+        int from = lowerBound(firstRow);
+        for (int i = from; i < size; i++)
+            mapping[i] += count;
+
+        int[] inserted = filterRows(firstRow, lastRow);
+        if (inserted.length > 0) {
+            insertMapping(from, inserted);
+            fireTableRowsInserted(from, from + inserted.length - 1);
+        }
+    }
+
+    private void handleRowsDeleted(int firstRow, int lastRow) {
+        int count = lastRow - firstRow + 1;
+        int from = lowerBound(firstRow);
+        int to = lowerBound(lastRow + 1);
+        for (int i = to; i < size; i++)
+            mapping[i] -= count;
+
+        if (to > from) {
+            removeMapping(from, to);
+            fireTableRowsDeleted(from, to - 1);
+        }
+    }
+
+    private void handleRowsUpdated(int firstRow, int lastRow, int columnIndex) {
+        if (lastRow < firstRow)
+            return;
+
+        int from = lowerBound(firstRow);
+        int to = lowerBound(lastRow + 1);
+        int[] updated = filterRows(firstRow, lastRow);
+        if (updated.length == to - from && isMapped(updated, from)) {
+            if (to > from)
+                fireTableChanged(new TableModelEvent(this, from, to - 1, columnIndex, UPDATE));
+            return;
+        }
+
+        if (to > from) {
+            removeMapping(from, to);
+            fireTableRowsDeleted(from, to - 1);
+        }
+        if (updated.length > 0) {
+            insertMapping(from, updated);
+            fireTableRowsInserted(from, from + updated.length - 1);
         }
     }
 
+    private int[] filterRows(int firstRow, int lastRow) {
+        int[] result = new int[lastRow - firstRow + 1];
+        int count = 0;
+        for (int i = firstRow; i <= lastRow; i++) {
+            if (shouldInclude(i))
+                result[count++] = i;
+        }
+        return copyOf(result, count);
+    }
+
+    private boolean isMapped(int[] rows, int from) {
+        for (int i = 0; i < rows.length; i++) {
+            if (mapping[from + i] != rows[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int lowerBound(int delegateRow) {
+        int index = binarySearch(mapping, 0, size, delegateRow);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    private void insertMapping(int index, int[] rows) {
+        if (size + rows.length > mapping.length)
+            mapping = copyOf(mapping, max(size + rows.length, mapping.length * 3 / 2));
+        arraycopy(mapping, index, mapping, index + rows.length, size - index);
+        arraycopy(rows, 0, mapping, index, rows.length);
+        size += rows.length;
+    }
+
+    private void removeMapping(int from, int to) {
+        arraycopy(mapping, to, mapping, from, size - to);
+        size -= to - from;
+    }
+
     protected int mapRow(int rowIndex) {
-        Integer integer = mapping.get(rowIndex);
-        return integer != null ? integer : -1;
+        return rowIndex >= 0 && rowIndex < size ? mapping[rowIndex] : -1;
+    }
+
+    protected int unmapRow(int delegateRow) {
+        int index = binarySearch(mapping, 0, size, delegateRow);
+        return index >= 0 ? index : -1;
     }
 
     public int[] mapRows(int[] rowIndices) {
-        List<Integer> result = new ArrayList<>();
+        int[] result = new int[rowIndices.length];
+        int count = 0;
         for (int rowIndex : rowIndices) {
             int mappedRow = mapRow(rowIndex);
             if (mappedRow != -1)
-                result.add(mappedRow);
+                result[count++] = mappedRow;
         }
-        return toArray(result);
+        return copyOf(result, count);
     }
 
     protected TableModel getDelegate() {
@@ -91,7 +217,7 @@ public class FilteringTableModel<E> extends AbstractTableModel {
     }
 
     public int getRowCount() {
-        return mapping.size();
+        return size;
     }
 
     public int getColumnCount() {
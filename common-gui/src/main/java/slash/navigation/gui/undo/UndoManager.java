@@ -35,11 +35,12 @@ import java.util.prefs.Preferences;
 
 public class UndoManager {
     private static final Preferences preferences = Preferences.userNodeForPackage(UndoManager.class);
-    private final javax.swing.undo.UndoManager delegate = new javax.swing.undo.UndoManager();
+    private final MemoryLimitedUndoManager delegate = new MemoryLimitedUndoManager();
     private final EventListenerList listenerList = new EventListenerList();
 
     public UndoManager() {
         delegate.setLimit(preferences.getInt("undoLimit", -1));
+        delegate.setMemoryLimit(preferences.getLong("undoMemoryLimit", 64 * 1024 * 1024));
     }
 
     public boolean canUndo() {
@@ -90,4 +91,36 @@ public class UndoManager {
     public void addChangeListener(ChangeListener l) {
         listenerList.add(ChangeListener.class, l);
     }
+
+    private static class MemoryLimitedUndoManager extends javax.swing.undo.UndoManager {
+        private long memoryLimit = -1;
+
+        public synchronized void setMemoryLimit(long memoryLimit) {
+            this.memoryLimit = memoryLimit;
+            trimForMemoryLimit();
+        }
+
+        public synchronized boolean addEdit(UndoableEdit anEdit) {
+            boolean result = super.addEdit(anEdit);
+            trimForMemoryLimit();
+            return result;
+        }
+
+        private void trimForMemoryLimit() {
+            if (memoryLimit < 0)
+                return;
+
+            // discard the oldest edits that exceed the limit but always keep the latest edit
+            long size = 0;
+            for (int i = edits.size() - 1; i >= 0; i--) {
+                UndoableEdit edit = edits.elementAt(i);
+                if (edit instanceof SizedUndoableEdit)
+                    size += ((SizedUndoableEdit) edit).getSize();
+                if (size > memoryLimit && i < edits.size() - 1) {
+                    trimEdits(0, i);
+                    return;
+                }
+            }
+        }
+    }
 }
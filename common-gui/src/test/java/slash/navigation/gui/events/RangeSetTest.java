@@ -0,0 +1,100 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gui.events;
+
+import org.junit.Test;
+
+import static java.lang.Integer.MAX_VALUE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.TestCase.assertIntArrayEquals;
+
+public class RangeSetTest {
+    @Test
+    public void testMergeOverlappingAndAdjacentRanges() {
+        RangeSet set = new RangeSet();
+        set.add(5, 7);
+        set.add(1, 2);
+        set.add(3, 4);
+        set.add(10, 12);
+        set.add(6, 9);
+        assertEquals(1, set.getRangeCount());
+        assertEquals(1, set.getFirstIndex());
+        assertEquals(12, set.getLastIndex());
+    }
+
+    @Test
+    public void testKeepDisjointRanges() {
+        RangeSet set = new RangeSet();
+        set.add(8, 9);
+        set.add(1, 2);
+        set.add(4, 5);
+        set.add(4, 4);
+        assertEquals(3, set.getRangeCount());
+        assertIntArrayEquals(new int[]{1, 2}, set.getRanges().get(0));
+        assertIntArrayEquals(new int[]{4, 5}, set.getRanges().get(1));
+        assertIntArrayEquals(new int[]{8, 9}, set.getRanges().get(2));
+    }
+
+    @Test
+    public void testMaximumValue() {
+        RangeSet set = new RangeSet();
+        set.add(5, MAX_VALUE);
+        set.add(MAX_VALUE, MAX_VALUE);
+        set.add(2, 4);
+        assertEquals(1, set.getRangeCount());
+        assertIntArrayEquals(new int[]{2, MAX_VALUE}, set.getRanges().get(0));
+    }
+
+    @Test
+    public void testHeadSet() {
+        RangeSet set = new RangeSet();
+        set.add(1, 2);
+        set.add(4, 8);
+        set.add(10, 12);
+        RangeSet head = set.headSet(6);
+        assertEquals(2, head.getRangeCount());
+        assertIntArrayEquals(new int[]{4, 5}, head.getRanges().get(1));
+        assertTrue(set.headSet(0).isEmpty());
+    }
+
+    @Test
+    public void testShift() {
+        RangeSet set = new RangeSet();
+        set.add(1, 2);
+        set.add(4, 6);
+        set.shift(5, 2);
+        assertEquals("RangeSet{1=2, 4=4, 7=8}", set.toString());
+        set.shift(0, 1);
+        assertEquals("RangeSet{2=3, 5=5, 8=9}", set.toString());
+    }
+
+    @Test
+    public void testSkip() {
+        RangeSet set = new RangeSet();
+        set.add(1, 1);
+        set.add(3, 4);
+        assertEquals(0, set.skip(0));
+        assertEquals(2, set.skip(1));
+        assertEquals(5, set.skip(2));
+        assertEquals(6, set.skip(3));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.gui.models;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static javax.swing.event.TableModelEvent.*;
+import static org.junit.Assert.assertEquals;
+import static slash.common.TestCase.assertIntArrayEquals;
+
+public class FilteringTableModelTest {
+    private static final FilterPredicate<Integer> EVEN = new FilterPredicate<Integer>() {
+        public String getName() {
+            return "Even";
+        }
+
+        public boolean shouldInclude(Integer element) {
+            return element % 2 == 0;
+        }
+    };
+
+    private DefaultTableModel delegate = new DefaultTableModel(0, 1);
+    private FilteringTableModel<Integer> model;
+    private List<TableModelEvent> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 10; i++)
+            delegate.addRow(new Object[]{i});
+        model = new FilteringTableModel<>(delegate, EVEN);
+        model.addTableModelListener(events::add);
+    }
+
+    private int[] getMapping() {
+        int[] result = new int[model.getRowCount()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = model.mapRow(i);
+        return result;
+    }
+
+    private void assertEvent(int type, int firstRow, int lastRow, TableModelEvent event) {
+        assertEquals(type, event.getType());
+        assertEquals(firstRow, event.getFirstRow());
+        assertEquals(lastRow, event.getLastRow());
+    }
+
+    @Test
+    public void testInsert() {
+        delegate.insertRow(3, new Object[]{4});
+        assertIntArrayEquals(new int[]{0, 2, 3, 5, 7, 9}, getMapping());
+        delegate.insertRow(0, new Object[]{1});
+        assertIntArrayEquals(new int[]{1, 3, 4, 6, 8, 10}, getMapping());
+
+        assertEquals(1, events.size());
+        assertEvent(INSERT, 2, 2, events.get(0));
+    }
+
+    @Test
+    public void testDelete() {
+        delegate.removeRow(4);
+        assertIntArrayEquals(new int[]{0, 2, 5, 7}, getMapping());
+        delegate.removeRow(0);
+        assertIntArrayEquals(new int[]{1, 4, 6}, getMapping());
+        delegate.removeRow(0);
+        assertIntArrayEquals(new int[]{0, 3, 5}, getMapping());
+
+        assertEquals(2, events.size());
+        assertEvent(DELETE, 2, 2, events.get(0));
+        assertEvent(DELETE, 0, 0, events.get(1));
+    }
+
+    @Test
+    public void testUpdate() {
+        delegate.setValueAt(6, 6, 0);
+        assertIntArrayEquals(new int[]{0, 2, 4, 6, 8}, getMapping());
+        delegate.setValueAt(5, 2, 0);
+        assertIntArrayEquals(new int[]{0, 4, 6, 8}, getMapping());
+        delegate.setValueAt(7, 7, 0);
+        delegate.setValueAt(2, 7, 0);
+        assertIntArrayEquals(new int[]{0, 4, 6, 7, 8}, getMapping());
+
+        assertEquals(3, events.size());
+        assertEvent(UPDATE, 3, 3, events.get(0));
+        assertEquals(0, events.get(0).getColumn());
+        assertEvent(DELETE, 1, 1, events.get(1));
+        assertEvent(INSERT, 3, 3, events.get(2));
+    }
+
+    @Test
+    public void testDataChanged() {
+        delegate.setValueAt(1, 0, 0);
+        delegate.fireTableDataChanged();
+        assertIntArrayEquals(new int[]{2, 4, 6, 8}, getMapping());
+        assertEquals(2, events.size());
+        assertEvent(UPDATE, 0, Integer.MAX_VALUE, events.get(1));
+    }
+
+    @Test
+    public void testMapAndUnmapRows() {
+        assertIntArrayEquals(new int[]{2, 6}, model.mapRows(new int[]{1, 3, 7}));
+        assertEquals(-1, model.mapRow(5));
+        assertEquals(2, model.unmapRow(4));
+        assertEquals(-1, model.unmapRow(5));
+    }
+}
@@ -56,6 +56,10 @@ public class ThreadHelper {
         return Executors.newSingleThreadExecutor(new NamedThreadFactory(namePrefix));
     }
 
+    public static ExecutorService createFixedThreadPool(String namePrefix, int numberOfThreads) {
+        return Executors.newFixedThreadPool(numberOfThreads, new NamedThreadFactory(namePrefix));
+    }
+
     private static class NamedThreadFactory implements ThreadFactory {
         private String namePrefix;
         private int number = 1;
@@ -0,0 +1,93 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+   RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.logging.Logger;
+
+import static java.nio.charset.CodingErrorAction.REPORT;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static slash.common.io.InputOutput.DEFAULT_BUFFER_SIZE;
+
+/**
+ * A reader that decodes UTF-8 and falls back to ISO Latin1 for the rest of the input
+ * once it finds a malformed sequence. Thus the input doesn't need to be read twice.
+ *
+ * @author Christian Pesch
+ */
+
+public class IsoLatin1FallbackReader extends Reader {
+    private static final Logger log = Logger.getLogger(IsoLatin1FallbackReader.class.getName());
+
+    private final InputStream source;
+    private final ByteBuffer bytes = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+    private CharsetDecoder decoder = UTF_8.newDecoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT);
+    private boolean endOfInput = false;
+    private long position = 0;
+
+    public IsoLatin1FallbackReader(InputStream source) {
+        this.source = source;
+        bytes.flip();
+    }
+
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if (length == 0)
+            return 0;
+
+        CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (result.isError()) {
+                log.info("Found malformed UTF-8 at byte " + (position + bytes.position()) + "; reading ISO Latin1 from there on");
+                decoder = ISO_8859_1.newDecoder();
+                continue;
+            }
+
+            int count = chars.position() - offset;
+            if (count > 0 || result.isOverflow())
+                return count;
+            if (endOfInput)
+                return -1;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        position += bytes.position();
+        bytes.compact();
+        int count = source.read(bytes.array(), bytes.position(), bytes.remaining());
+        if (count == -1)
+            endOfInput = true;
+        else
+            bytes.position(bytes.position() + count);
+        bytes.flip();
+    }
+
+    public void close() throws IOException {
+        source.close();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+   RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.common.io;
+
+import java.io.*;
+import java.util.logging.Logger;
+
+import static java.io.File.createTempFile;
+import static java.lang.Math.min;
+import static org.apache.commons.io.IOUtils.copyLarge;
+import static slash.common.io.Directories.getTemporaryDirectory;
+import static slash.common.io.InputOutput.DEFAULT_BUFFER_SIZE;
+
+/**
+ * An input which may be read from its beginning several times without buffering
+ * all of its content in the heap. Files are opened again for every stream, other
+ * inputs are kept in memory up to a threshold and spooled to a temporary file beyond.
+ *
+ * @author Christian Pesch
+ */
+
+public abstract class RewindableInput implements Closeable {
+    private static final Logger log = Logger.getLogger(RewindableInput.class.getName());
+
+    /**
+     * Opens a new {@link InputStream} which starts at the beginning of the input and supports marks.
+     */
+    public abstract InputStream open() throws IOException;
+
+    public abstract long getSize();
+
+    public void close() throws IOException {
+    }
+
+    public static RewindableInput fromFile(File file) {
+        return new FileInput(file);
+    }
+
+    /**
+     * Reads the source till its end without closing it.
+     */
+    public static RewindableInput spool(InputStream source, int threshold) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream(min(threshold, DEFAULT_BUFFER_SIZE * 16));
+        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        int count;
+        while ((count = source.read(buffer)) != -1) {
+            memory.write(buffer, 0, count);
+            if (memory.size() > threshold)
+                return spoolToFile(memory, source, buffer);
+        }
+        return new MemoryInput(memory.toByteArray());
+    }
+
+    private static RewindableInput spoolToFile(ByteArrayOutputStream memory, InputStream source, byte[] buffer) throws IOException {
+        File file = createTempFile("rewindable", ".tmp", getTemporaryDirectory());
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            memory.writeTo(output);
+            copyLarge(source, output, buffer);
+        } catch (IOException e) {
+            delete(file);
+            throw e;
+        }
+        log.fine("Spooled input of " + file.length() + " bytes to " + file);
+        return new TemporaryFileInput(file);
+    }
+
+    private static void delete(File file) {
+        if (!file.delete())
+            log.warning("Cannot delete temporary file " + file);
+    }
+
+    private static class FileInput extends RewindableInput {
+        private final File file;
+
+        private FileInput(File file) {
+            this.file = file;
+        }
+
+        public InputStream open() throws IOException {
+            return new BufferedInputStream(new FileInputStream(file));
+        }
+
+        public long getSize() {
+            return file.length();
+        }
+
+        public String toString() {
+            return getClass().getSimpleName() + "[file=" + file + "]";
+        }
+    }
+
+    private static class TemporaryFileInput extends FileInput {
+        private final File file;
+
+        private TemporaryFileInput(File file) {
+            super(file);
+            this.file = file;
+        }
+
+        public void close() {
+            delete(file);
+        }
+    }
+
+    private static class MemoryInput extends RewindableInput {
+        private final byte[] bytes;
+
+        private MemoryInput(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public InputStream open() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        public long getSize() {
+            return bytes.length;
+        }
+
+        public String toString() {
+            return getClass().getSimpleName() + "[size=" + bytes.length + "]";
+        }
+    }
+}
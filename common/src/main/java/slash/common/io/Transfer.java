@@ -30,6 +30,9 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -41,6 +44,8 @@ import static java.lang.Double.POSITIVE_INFINITY;
 import static java.lang.Double.isNaN;
 import static java.lang.Integer.toHexString;
 import static java.lang.Math.*;
+import static java.nio.charset.CodingErrorAction.REPORT;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.text.DateFormat.MEDIUM;
 import static java.text.DateFormat.SHORT;
 import static java.util.Calendar.*;
@@ -167,6 +172,15 @@ public class Transfer {
         return false;
     }
 
+    /**
+     * Checks if the given bytes are valid UTF-8. A multi-byte sequence that is cut off
+     * at the end of the bytes is tolerated since the bytes may be a prefix of a stream.
+     */
+    public static boolean isValidUtf8(byte[] bytes, int offset, int length) {
+        CharsetDecoder decoder = UTF_8.newDecoder().onMalformedInput(REPORT).onUnmappableCharacter(REPORT);
+        return !decoder.decode(ByteBuffer.wrap(bytes, offset, length), CharBuffer.allocate(length), false).isError();
+    }
+
     public static Double formatDouble(BigDecimal aBigDecimal) {
         return aBigDecimal != null ? aBigDecimal.doubleValue() : null;
     }
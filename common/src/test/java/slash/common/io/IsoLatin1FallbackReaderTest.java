@@ -0,0 +1,59 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+import static org.apache.commons.io.IOUtils.copy;
+import static org.junit.Assert.assertEquals;
+
+public class IsoLatin1FallbackReaderTest {
+    private String read(byte[] bytes) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (Reader reader = new IsoLatin1FallbackReader(new ByteArrayInputStream(bytes))) {
+            copy(reader, writer);
+        }
+        return writer.toString();
+    }
+
+    @Test
+    public void testReadUtf8() throws IOException {
+        assertEquals("a\u00e4\u20ac", read("a\u00e4\u20ac".getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testFallbackToIsoLatin1() throws IOException {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            buffer.append('a');
+        buffer.append("\u00e4\u00f6\u00fc");
+        assertEquals(buffer.toString(), read(buffer.toString().getBytes("ISO-8859-1")));
+    }
+
+    @Test
+    public void testFallbackForTruncatedSequence() throws IOException {
+        assertEquals("a\u00c3", read(new byte[]{'a', (byte) 0xc3}));
+    }
+}
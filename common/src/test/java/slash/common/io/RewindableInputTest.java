@@ -0,0 +1,90 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.common.io;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.*;
+import static slash.common.io.InputOutput.readBytes;
+import static slash.common.io.RewindableInput.fromFile;
+import static slash.common.io.RewindableInput.spool;
+
+public class RewindableInputTest {
+    private byte[] createBytes(int size) {
+        byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++)
+            bytes[i] = (byte) i;
+        return bytes;
+    }
+
+    private void checkRewindable(RewindableInput input, byte[] expected) throws IOException {
+        assertEquals(expected.length, input.getSize());
+        for (int i = 0; i < 2; i++) {
+            try (InputStream stream = input.open()) {
+                assertTrue(stream.markSupported());
+                stream.read();
+            }
+            assertArrayEquals(expected, readBytes(input.open()));
+        }
+    }
+
+    @Test
+    public void testSpoolToMemory() throws IOException {
+        byte[] bytes = createBytes(1000);
+        try (RewindableInput input = spool(new ByteArrayInputStream(bytes), 1000)) {
+            assertTrue(input.toString().startsWith("MemoryInput"));
+            checkRewindable(input, bytes);
+        }
+    }
+
+    @Test
+    public void testSpoolToTemporaryFile() throws IOException {
+        byte[] bytes = createBytes(100 * 1000);
+        try (RewindableInput input = spool(new ByteArrayInputStream(bytes), 1000)) {
+            assertTrue(input.toString().startsWith("TemporaryFileInput"));
+            checkRewindable(input, bytes);
+        }
+    }
+
+    @Test
+    public void testFile() throws IOException {
+        byte[] bytes = createBytes(5000);
+        File file = createTempFile("rewindable", ".test");
+        try {
+            try (OutputStream output = new FileOutputStream(file)) {
+                output.write(bytes);
+            }
+            try (RewindableInput input = fromFile(file)) {
+                checkRewindable(input, bytes);
+            }
+            assertTrue(file.exists());
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+}
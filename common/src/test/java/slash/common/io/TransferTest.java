@@ -23,7 +23,9 @@ package slash.common.io;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static slash.common.TestCase.assertDoubleEquals;
 import static slash.common.io.Transfer.*;
 
@@ -132,4 +134,13 @@ public class TransferTest {
         assertEquals(expected, encodeFileName(original));
         assertEquals(original, decodeUri(expected));
     }
+
+    @Test
+    public void testIsValidUtf8() throws Exception {
+        byte[] utf8 = "\u00e4\u00f6\u00fc".getBytes("UTF-8");
+        assertTrue(isValidUtf8(utf8, 0, utf8.length));
+        assertTrue(isValidUtf8(utf8, 0, utf8.length - 1));
+        byte[] isoLatin1 = "\u00e4\u00f6\u00fc".getBytes("ISO-8859-1");
+        assertFalse(isValidUtf8(isoLatin1, 0, isoLatin1.length));
+    }
 }
\ No newline at end of file
@@ -20,6 +20,9 @@
 
 package slash.navigation.datasources;
 
+import slash.navigation.common.BoundingBox;
+
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -43,6 +46,9 @@ public interface DataSource {
     Downloadable getDownloadable(String uri);
     Fragment<Downloadable> getFragment(String key);
 
+    Collection<Downloadable> getDownloadablesFor(BoundingBox boundingBox);
+    Collection<Fragment<Downloadable>> getFragmentsFor(BoundingBox boundingBox);
+
     Downloadable getDownloadableBySHA1(String sha1);
     Fragment<Downloadable> getFragmentBySHA1(String sha1);
 }
@@ -114,10 +114,7 @@ public class DataSourceManager {
             }
 
             dataSourceFiles.add(file);
-
-            try (InputStream inputStream = new FileInputStream(file)) {
-                dataSourceService.load(inputStream);
-            }
+            dataSourceService.load(file);
         }
         this.dataSourceService = dataSourceService;
 
@@ -182,9 +179,7 @@ public class DataSourceManager {
 
     private static DataSourceService loadDataSource(java.io.File file) throws IOException, JAXBException {
         DataSourceService result = new DataSourceService();
-        try (InputStream inputStream = new FileInputStream(file)) {
-            result.load(inputStream);
-        }
+        result.load(file);
         return result;
     }
 
@@ -194,9 +189,7 @@ public class DataSourceManager {
         java.io.File[] files = directory.listFiles((dir, name) -> name.endsWith(DOT_XML));
         if (files != null) {
             for (java.io.File file : files) {
-                try (InputStream inputStream = new FileInputStream(file)) {
-                    result.load(inputStream);
-                }
+                result.load(file);
             }
         }
         return result;
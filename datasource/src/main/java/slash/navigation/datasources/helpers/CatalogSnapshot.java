@@ -0,0 +1,473 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.datasources.helpers;
+
+import slash.navigation.datasources.binding.*;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.lang.Integer.toHexString;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.logging.Logger.getLogger;
+import static slash.common.io.Directories.getApplicationDirectory;
+import static slash.common.io.Files.generateChecksum;
+import static slash.navigation.datasources.helpers.DataSourcesUtil.unmarshal;
+
+/**
+ * Caches a parsed DataSources XML as a compact binary snapshot in the cache directory.
+ *
+ * The snapshot is valid for the size and modification time of the XML and otherwise
+ * for its checksum. The files, maps and themes of a data source are decoded on first access.
+ *
+ * @author Christian Pesch
+ */
+
+public class CatalogSnapshot {
+    private static final Logger log = getLogger(CatalogSnapshot.class.getName());
+    public static final String DOT_SNAPSHOT = ".snapshot";
+    private static final int MAGIC = 0x52434453; // RCDS
+    private static final int VERSION = 2;
+
+    private static final byte FILE = 1;
+    private static final byte MAP = 2;
+    private static final byte THEME = 3;
+
+    private static final ObjectFactory objectFactory = new ObjectFactory();
+    private static DatatypeFactory datatypeFactory;
+
+    private static synchronized DatatypeFactory getDatatypeFactory() throws DatatypeConfigurationException {
+        if (datatypeFactory == null)
+            datatypeFactory = DatatypeFactory.newInstance();
+        return datatypeFactory;
+    }
+
+    private static File getSnapshotDirectory() {
+        return getApplicationDirectory("cache" + File.separator + "catalogs");
+    }
+
+    static File getSnapshotFile(File file, File directory) {
+        // the hash of the path tells apart the catalogs with the same name in different directories
+        return new File(directory, file.getName() + "-" + toHexString(file.getAbsolutePath().hashCode()) + DOT_SNAPSHOT);
+    }
+
+    public static File getSnapshotFile(File file) {
+        return getSnapshotFile(file, getSnapshotDirectory());
+    }
+
+    /**
+     * Loads the given DataSources XML from its snapshot if the snapshot is up to date
+     * and otherwise unmarshals the XML and updates the snapshot.
+     */
+    public static CatalogType load(File file) throws IOException, JAXBException {
+        return load(file, getSnapshotFile(file));
+    }
+
+    static CatalogType load(File file, File snapshot) throws IOException, JAXBException {
+        if (snapshot.exists()) {
+            try {
+                CatalogType catalogType = read(snapshot, file);
+                if (catalogType != null)
+                    return catalogType;
+            } catch (IOException | RuntimeException e) {
+                log.warning(format("Cannot read snapshot %s: %s", snapshot, e));
+            }
+        }
+
+        CatalogType catalogType;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            catalogType = unmarshal(inputStream);
+        }
+
+        try {
+            write(catalogType, file, snapshot);
+        } catch (IOException e) {
+            log.warning(format("Cannot write snapshot %s: %s", snapshot, e));
+        }
+        return catalogType;
+    }
+
+    /**
+     * Decodes the lazily decoded parts of a snapshot since JAXB accesses their fields.
+     */
+    static void decode(Object object) {
+        if (object instanceof SnapshotDatasourceType)
+            ((SnapshotDatasourceType) object).decode();
+        else if (object instanceof SnapshotChecksumType)
+            ((SnapshotChecksumType) object).getLastModified();
+    }
+
+    /**
+     * @return the catalog or null if the snapshot is not for the given file
+     */
+    static CatalogType read(File snapshot, File file) throws IOException {
+        long start = currentTimeMillis();
+
+        // read into the heap instead of mapping the file, which would stay locked on Windows until a GC
+        ByteBuffer buffer;
+        try (FileChannel channel = new RandomAccessFile(snapshot, "r").getChannel()) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining())
+                if (channel.read(buffer) == -1)
+                    throw new EOFException("Snapshot " + snapshot + " is truncated");
+            buffer.flip();
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+                return null;
+            long length = buffer.getLong(), lastModified = buffer.getLong();
+            String checksum = readString(buffer);
+            // the checksum is only calculated if the XML has been touched
+            boolean touched = length != file.length() || lastModified != file.lastModified();
+            if (touched && !checksum.equals(generateChecksum(file)))
+                return null;
+
+            CatalogType catalogType = objectFactory.createCatalogType();
+            int editionCount = buffer.getInt();
+            for (int i = 0; i < editionCount; i++)
+                catalogType.getEdition().add(readEdition(buffer));
+            readDatasources(buffer, catalogType.getDatasource());
+
+            if (touched)
+                updateLastModified(snapshot, file);
+
+            log.fine(format("Read snapshot %s in %d milliseconds", snapshot, currentTimeMillis() - start));
+            return catalogType;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Snapshot " + snapshot + " is truncated", e);
+        }
+    }
+
+    /**
+     * Records the size and modification time of the touched but unchanged XML in the snapshot
+     * so that its checksum isn't calculated again on the next start.
+     */
+    private static void updateLastModified(File snapshot, File file) {
+        try (RandomAccessFile output = new RandomAccessFile(snapshot, "rw")) {
+            // the size and modification time follow the magic and the version
+            output.seek(8);
+            output.writeLong(file.length());
+            output.writeLong(file.lastModified());
+        } catch (IOException e) {
+            log.warning(format("Cannot update snapshot %s: %s", snapshot, e));
+        }
+    }
+
+    static void write(CatalogType catalogType, File file, File snapshot) throws IOException {
+        File temp = new File(snapshot.getParentFile(), snapshot.getName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(file.length());
+            output.writeLong(file.lastModified());
+            writeString(output, generateChecksum(file));
+
+            output.writeInt(catalogType.getEdition().size());
+            for (EditionType editionType : catalogType.getEdition())
+                writeEdition(output, editionType);
+            writeDatasources(output, catalogType.getDatasource());
+        }
+
+        if (snapshot.exists() && !snapshot.delete() || !temp.renameTo(snapshot)) {
+            if (!temp.delete())
+                temp.deleteOnExit();
+            throw new IOException(format("Cannot rename %s to %s", temp, snapshot));
+        }
+    }
+
+    private static void writeEdition(DataOutputStream output, EditionType editionType) throws IOException {
+        writeString(output, editionType.getId());
+        writeString(output, editionType.getName());
+        writeString(output, editionType.getHref());
+        writeDatasources(output, editionType.getDatasource());
+    }
+
+    private static EditionType readEdition(ByteBuffer buffer) {
+        EditionType editionType = objectFactory.createEditionType();
+        editionType.setId(readString(buffer));
+        editionType.setName(readString(buffer));
+        editionType.setHref(readString(buffer));
+        readDatasources(buffer, editionType.getDatasource());
+        return editionType;
+    }
+
+    private static void writeDatasources(DataOutputStream output, List<DatasourceType> datasourceTypes) throws IOException {
+        output.writeInt(datasourceTypes.size());
+        for (DatasourceType datasourceType : datasourceTypes) {
+            writeString(output, datasourceType.getId());
+            writeString(output, datasourceType.getName());
+            writeString(output, datasourceType.getHref());
+            writeString(output, datasourceType.getBaseUrl());
+            writeString(output, datasourceType.getDirectory());
+            writeString(output, datasourceType.getAction() != null ? datasourceType.getAction().value() : null);
+
+            // the downloadables are prefixed with their length to skip them until they're accessed
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream downloadables = new DataOutputStream(bytes)) {
+                downloadables.writeInt(datasourceType.getFile().size() + datasourceType.getMap().size() + datasourceType.getTheme().size());
+                for (FileType fileType : datasourceType.getFile()) {
+                    downloadables.writeByte(FILE);
+                    writeDownloadable(downloadables, fileType);
+                    writeBoundingBox(downloadables, fileType.getBoundingBox());
+                }
+                for (MapType mapType : datasourceType.getMap()) {
+                    downloadables.writeByte(MAP);
+                    writeDownloadable(downloadables, mapType);
+                    writeBoundingBox(downloadables, mapType.getBoundingBox());
+                }
+                for (ThemeType themeType : datasourceType.getTheme()) {
+                    downloadables.writeByte(THEME);
+                    writeDownloadable(downloadables, themeType);
+                    writeString(downloadables, themeType.getImageUrl());
+                }
+            }
+            output.writeInt(bytes.size());
+            bytes.writeTo(output);
+        }
+    }
+
+    private static void readDatasources(ByteBuffer buffer, List<DatasourceType> datasourceTypes) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            SnapshotDatasourceType datasourceType = new SnapshotDatasourceType();
+            datasourceType.setId(readString(buffer));
+            datasourceType.setName(readString(buffer));
+            datasourceType.setHref(readString(buffer));
+            datasourceType.setBaseUrl(readString(buffer));
+            datasourceType.setDirectory(readString(buffer));
+            String action = readString(buffer);
+            datasourceType.setAction(action != null ? ActionType.fromValue(action) : null);
+
+            int length = buffer.getInt();
+            ByteBuffer downloadables = buffer.slice();
+            downloadables.limit(length);
+            datasourceType.setDownloadables(downloadables);
+            buffer.position(buffer.position() + length);
+
+            datasourceTypes.add(datasourceType);
+        }
+    }
+
+    private static void readDownloadables(ByteBuffer buffer, SnapshotDatasourceType datasourceType) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte type = buffer.get();
+            switch (type) {
+                case FILE:
+                    FileType fileType = objectFactory.createFileType();
+                    readDownloadable(buffer, fileType);
+                    fileType.setBoundingBox(readBoundingBox(buffer));
+                    datasourceType.getFileList().add(fileType);
+                    break;
+                case MAP:
+                    MapType mapType = objectFactory.createMapType();
+                    readDownloadable(buffer, mapType);
+                    mapType.setBoundingBox(readBoundingBox(buffer));
+                    datasourceType.getMapList().add(mapType);
+                    break;
+                case THEME:
+                    ThemeType themeType = objectFactory.createThemeType();
+                    readDownloadable(buffer, themeType);
+                    themeType.setImageUrl(readString(buffer));
+                    datasourceType.getThemeList().add(themeType);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported downloadable type " + type);
+            }
+        }
+    }
+
+    private static void writeDownloadable(DataOutputStream output, DownloadableType downloadableType) throws IOException {
+        writeString(output, downloadableType.getUri());
+        writeChecksums(output, downloadableType.getChecksum());
+        output.writeInt(downloadableType.getFragment().size());
+        for (FragmentType fragmentType : downloadableType.getFragment()) {
+            writeString(output, fragmentType.getKey());
+            writeChecksums(output, fragmentType.getChecksum());
+        }
+    }
+
+    private static void readDownloadable(ByteBuffer buffer, DownloadableType downloadableType) {
+        downloadableType.setUri(readString(buffer));
+        readChecksums(buffer, downloadableType.getChecksum());
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            FragmentType fragmentType = objectFactory.createFragmentType();
+            fragmentType.setKey(readString(buffer));
+            readChecksums(buffer, fragmentType.getChecksum());
+            downloadableType.getFragment().add(fragmentType);
+        }
+    }
+
+    private static void writeChecksums(DataOutputStream output, List<ChecksumType> checksumTypes) throws IOException {
+        output.writeInt(checksumTypes.size());
+        for (ChecksumType checksumType : checksumTypes) {
+            writeString(output, checksumType.getLastModified() != null ? checksumType.getLastModified().toXMLFormat() : null);
+            output.writeBoolean(checksumType.getContentLength() != null);
+            if (checksumType.getContentLength() != null)
+                output.writeLong(checksumType.getContentLength());
+            writeString(output, checksumType.getSha1());
+        }
+    }
+
+    private static void readChecksums(ByteBuffer buffer, List<ChecksumType> checksumTypes) {
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            SnapshotChecksumType checksumType = new SnapshotChecksumType();
+            checksumType.setLastModified(readString(buffer));
+            if (buffer.get() != 0)
+                checksumType.setContentLength(buffer.getLong());
+            checksumType.setSha1(readString(buffer));
+            checksumTypes.add(checksumType);
+        }
+    }
+
+    private static XMLGregorianCalendar parseLastModified(String string) {
+        if (string == null)
+            return null;
+        try {
+            return getDatatypeFactory().newXMLGregorianCalendar(string);
+        } catch (DatatypeConfigurationException e) {
+            throw new IllegalStateException("Cannot create datatype factory: " + e, e);
+        }
+    }
+
+    private static void writeBoundingBox(DataOutputStream output, BoundingBoxType boundingBoxType) throws IOException {
+        boolean valid = boundingBoxType != null && boundingBoxType.getNorthEast() != null && boundingBoxType.getSouthWest() != null;
+        output.writeBoolean(valid);
+        if (valid) {
+            output.writeDouble(boundingBoxType.getNorthEast().getLongitude());
+            output.writeDouble(boundingBoxType.getNorthEast().getLatitude());
+            output.writeDouble(boundingBoxType.getSouthWest().getLongitude());
+            output.writeDouble(boundingBoxType.getSouthWest().getLatitude());
+        }
+    }
+
+    private static BoundingBoxType readBoundingBox(ByteBuffer buffer) {
+        if (buffer.get() == 0)
+            return null;
+
+        BoundingBoxType boundingBoxType = objectFactory.createBoundingBoxType();
+        PositionType northEast = objectFactory.createPositionType();
+        northEast.setLongitude(buffer.getDouble());
+        northEast.setLatitude(buffer.getDouble());
+        boundingBoxType.setNorthEast(northEast);
+        PositionType southWest = objectFactory.createPositionType();
+        southWest.setLongitude(buffer.getDouble());
+        southWest.setLatitude(buffer.getDouble());
+        boundingBoxType.setSouthWest(southWest);
+        return boundingBoxType;
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * A {@link ChecksumType} that parses its last modified time on first access.
+     */
+    private static class SnapshotChecksumType extends ChecksumType {
+        private String lastModifiedString;
+
+        void setLastModified(String lastModifiedString) {
+            this.lastModifiedString = lastModifiedString;
+        }
+
+        public synchronized XMLGregorianCalendar getLastModified() {
+            if (lastModifiedString != null) {
+                setLastModified(parseLastModified(lastModifiedString));
+                lastModifiedString = null;
+            }
+            return super.getLastModified();
+        }
+    }
+
+    /**
+     * A {@link DatasourceType} that decodes its files, maps and themes from the snapshot on first access.
+     */
+    private static class SnapshotDatasourceType extends DatasourceType {
+        private ByteBuffer downloadables;
+
+        void setDownloadables(ByteBuffer downloadables) {
+            this.downloadables = downloadables;
+        }
+
+        synchronized void decode() {
+            if (downloadables == null)
+                return;
+            ByteBuffer buffer = downloadables;
+            downloadables = null;
+            readDownloadables(buffer, this);
+        }
+
+        List<FileType> getFileList() {
+            return super.getFile();
+        }
+
+        List<MapType> getMapList() {
+            return super.getMap();
+        }
+
+        List<ThemeType> getThemeList() {
+            return super.getTheme();
+        }
+
+        public List<FileType> getFile() {
+            decode();
+            return super.getFile();
+        }
+
+        public List<MapType> getMap() {
+            decode();
+            return super.getMap();
+        }
+
+        public List<ThemeType> getTheme() {
+            decode();
+            return super.getTheme();
+        }
+    }
+}
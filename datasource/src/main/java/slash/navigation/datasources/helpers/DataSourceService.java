@@ -53,7 +53,18 @@ public class DataSourceService {
     private final List<DataSource> dataSources = new ArrayList<>(1);
 
     public synchronized void load(InputStream inputStream) throws JAXBException {
-        CatalogType catalogType = unmarshal(inputStream);
+        load(unmarshal(inputStream));
+    }
+
+    public synchronized void load(File file) throws IOException, JAXBException {
+        load(CatalogSnapshot.load(file));
+    }
+
+    synchronized void load(File file, File snapshot) throws IOException, JAXBException {
+        load(CatalogSnapshot.load(file, snapshot));
+    }
+
+    private void load(CatalogType catalogType) {
         for (DatasourceType datasourceType : catalogType.getDatasource())
             dataSources.add(new DataSourceImpl(datasourceType));
         for (EditionType editionType : catalogType.getEdition())
@@ -54,7 +54,13 @@ public class DataSourcesUtil {
     }
 
     private static Marshaller newMarshaller() {
-        return JAXBHelper.newMarshaller(newContext(ObjectFactory.class));
+        Marshaller marshaller = JAXBHelper.newMarshaller(newContext(ObjectFactory.class));
+        marshaller.setListener(new Marshaller.Listener() {
+            public void beforeMarshal(Object source) {
+                CatalogSnapshot.decode(source);
+            }
+        });
+        return marshaller;
     }
 
     public static CatalogType unmarshal(InputStream in) throws JAXBException {
@@ -0,0 +1,198 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.datasources.helpers;
+
+import slash.navigation.common.BoundingBox;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.parseInt;
+import static java.lang.Math.ceil;
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.binarySearch;
+import static java.util.Arrays.sort;
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static slash.common.io.Files.lastPathFragment;
+
+/**
+ * A spatial index over items that are identified by one degree tiles
+ * like N42E000.hgt or five degree tiles like E5_N45.rd5 or that
+ * cover a {@link BoundingBox}.
+ *
+ * @author Christian Pesch
+ */
+
+public class TileIndex<T> {
+    private static final int LONGITUDE_COUNT = 360, LATITUDE_COUNT = 180;
+    public static final int TILE_COUNT = LONGITUDE_COUNT * LATITUDE_COUNT;
+
+    private static final Pattern HGT_KEY_PATTERN = Pattern.compile("([NS])(\\d{2})([EW])(\\d{3})(\\..*)?", CASE_INSENSITIVE);
+    private static final Pattern RD5_KEY_PATTERN = Pattern.compile("([EW])(\\d{1,3})_([NS])(\\d{1,2})(\\..*)?", CASE_INSENSITIVE);
+
+    private final int[] tiles;
+    private final Object[] tileItems;
+    private final List<BoundingBox> boundingBoxes;
+    private final List<T> boundingBoxItems;
+
+    private TileIndex(int[] tiles, Object[] tileItems, List<BoundingBox> boundingBoxes, List<T> boundingBoxItems) {
+        this.tiles = tiles;
+        this.tileItems = tileItems;
+        this.boundingBoxes = boundingBoxes;
+        this.boundingBoxItems = boundingBoxItems;
+    }
+
+    public static boolean isValidTile(int longitude, int latitude) {
+        return longitude >= -180 && longitude < 180 && latitude >= -90 && latitude < 90;
+    }
+
+    /**
+     * Encodes the one degree tile with the given south west corner into an
+     * integer between 0 and {@link #TILE_COUNT} without allocating anything.
+     */
+    public static int encodeTile(int longitude, int latitude) {
+        return (latitude + 90) * LONGITUDE_COUNT + (longitude + 180);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Collection<T> getItemsFor(BoundingBox boundingBox) {
+        Set<T> result = new LinkedHashSet<>();
+        if (boundingBox == null || !isValid(boundingBox))
+            return result;
+
+        int west = max(-180, (int) floor(boundingBox.getSouthWest().getLongitude()));
+        int east = min(179, max(west, (int) ceil(boundingBox.getNorthEast().getLongitude()) - 1));
+        int south = max(-90, (int) floor(boundingBox.getSouthWest().getLatitude()));
+        int north = min(89, max(south, (int) ceil(boundingBox.getNorthEast().getLatitude()) - 1));
+
+        for (int latitude = south; latitude <= north; latitude++) {
+            int index = firstIndexOf(encodeTile(west, latitude));
+            int last = encodeTile(east, latitude);
+            while (index < tiles.length && tiles[index] <= last) {
+                result.add((T) tileItems[index]);
+                index++;
+            }
+        }
+
+        for (int i = 0, c = boundingBoxes.size(); i < c; i++) {
+            if (intersects(boundingBoxes.get(i), boundingBox))
+                result.add(boundingBoxItems.get(i));
+        }
+        return result;
+    }
+
+    private int firstIndexOf(int tile) {
+        int index = binarySearch(tiles, tile);
+        if (index < 0)
+            return -index - 1;
+        while (index > 0 && tiles[index - 1] == tile)
+            index--;
+        return index;
+    }
+
+    private static boolean isValid(BoundingBox boundingBox) {
+        return boundingBox.getNorthEast() != null && boundingBox.getSouthWest() != null &&
+                boundingBox.getNorthEast().hasCoordinates() && boundingBox.getSouthWest().hasCoordinates();
+    }
+
+    private static boolean intersects(BoundingBox first, BoundingBox second) {
+        return isValid(first) &&
+                first.getSouthWest().getLongitude() <= second.getNorthEast().getLongitude() &&
+                first.getNorthEast().getLongitude() >= second.getSouthWest().getLongitude() &&
+                first.getSouthWest().getLatitude() <= second.getNorthEast().getLatitude() &&
+                first.getNorthEast().getLatitude() >= second.getSouthWest().getLatitude();
+    }
+
+    public static class Builder<T> {
+        private final List<T> items = new ArrayList<>();
+        private long[] tileAndItems = new long[1024];
+        private int tileAndItemCount;
+        private final List<BoundingBox> boundingBoxes = new ArrayList<>();
+        private final List<T> boundingBoxItems = new ArrayList<>();
+
+        private void addTiles(int west, int south, int size, T item) {
+            int itemIndex = items.size();
+            items.add(item);
+
+            for (int longitude = west; longitude < west + size; longitude++) {
+                for (int latitude = south; latitude < south + size; latitude++) {
+                    if (!isValidTile(longitude, latitude))
+                        continue;
+
+                    if (tileAndItemCount == tileAndItems.length)
+                        tileAndItems = Arrays.copyOf(tileAndItems, tileAndItemCount * 2);
+                    tileAndItems[tileAndItemCount++] = ((long) encodeTile(longitude, latitude) << 32) | itemIndex;
+                }
+            }
+        }
+
+        /**
+         * Adds the item for the tiles the given key like N42E000.hgt or E5_N45.rd5 denotes.
+         * @return if the key denotes tiles
+         */
+        public boolean addKey(String key, T item) {
+            if (key == null)
+                return false;
+            String name = lastPathFragment(key, MAX_VALUE);
+
+            Matcher matcher = HGT_KEY_PATTERN.matcher(name);
+            if (matcher.matches()) {
+                int latitude = parseInt(matcher.group(2)) * ("S".equalsIgnoreCase(matcher.group(1)) ? -1 : 1);
+                int longitude = parseInt(matcher.group(4)) * ("W".equalsIgnoreCase(matcher.group(3)) ? -1 : 1);
+                addTiles(longitude, latitude, 1, item);
+                return true;
+            }
+
+            matcher = RD5_KEY_PATTERN.matcher(name);
+            if (matcher.matches()) {
+                int longitude = parseInt(matcher.group(2)) * ("W".equalsIgnoreCase(matcher.group(1)) ? -1 : 1);
+                int latitude = parseInt(matcher.group(4)) * ("S".equalsIgnoreCase(matcher.group(3)) ? -1 : 1);
+                addTiles(longitude, latitude, 5, item);
+                return true;
+            }
+            return false;
+        }
+
+        public void addBoundingBox(BoundingBox boundingBox, T item) {
+            if (boundingBox == null || !isValid(boundingBox))
+                return;
+
+            boundingBoxes.add(boundingBox);
+            boundingBoxItems.add(item);
+        }
+
+        public TileIndex<T> build() {
+            long[] sorted = Arrays.copyOf(tileAndItems, tileAndItemCount);
+            sort(sorted);
+
+            int[] tiles = new int[sorted.length];
+            Object[] tileItems = new Object[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                tiles[i] = (int) (sorted[i] >>> 32);
+                tileItems[i] = items.get((int) sorted[i]);
+            }
+            return new TileIndex<>(tiles, tileItems, new ArrayList<>(boundingBoxes), new ArrayList<>(boundingBoxItems));
+        }
+    }
+}
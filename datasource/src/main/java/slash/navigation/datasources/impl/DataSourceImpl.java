@@ -19,14 +19,17 @@
 */
 package slash.navigation.datasources.impl;
 
+import slash.navigation.common.BoundingBox;
 import slash.navigation.datasources.*;
 import slash.navigation.datasources.binding.DatasourceType;
 import slash.navigation.datasources.binding.FileType;
 import slash.navigation.datasources.binding.MapType;
 import slash.navigation.datasources.binding.ThemeType;
+import slash.navigation.datasources.helpers.TileIndex;
 import slash.navigation.download.Checksum;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
@@ -38,31 +41,65 @@ import java.util.List;
 
 public class DataSourceImpl implements DataSource {
     private final DatasourceType datasourceType;
-    private boolean initialized;
+    private List<Downloadable> downloadables;
+    private boolean mapsInitialized;
     private final java.util.Map<String, Downloadable> downloadableMap = new HashMap<>();
     private final java.util.Map<String, Fragment<Downloadable>> fragmentMap = new HashMap<>();
+    private TileIndex<Downloadable> downloadableIndex;
+    private TileIndex<Fragment<Downloadable>> fragmentIndex;
 
     public DataSourceImpl(DatasourceType datasourceType) {
         this.datasourceType = datasourceType;
     }
 
-    private void putDownloadables(List<? extends Downloadable> downloadables) {
-        for (Downloadable downloadable : downloadables) {
-            downloadableMap.put(downloadable.getUri(), downloadable);
+    private List<Downloadable> getDownloadables() {
+        if (downloadables == null) {
+            downloadables = new ArrayList<>();
+            downloadables.addAll(getFiles());
+            downloadables.addAll(getMaps());
+            downloadables.addAll(getThemes());
+        }
+        return downloadables;
+    }
+
+    private BoundingBox getBoundingBox(Downloadable downloadable) {
+        if (downloadable instanceof File)
+            return ((File) downloadable).getBoundingBox();
+        if (downloadable instanceof Map)
+            return ((Map) downloadable).getBoundingBox();
+        return null;
+    }
+
+    // the lookups by key don't need the spatial indices and vice versa
+    private synchronized void initializeMaps() {
+        if (mapsInitialized)
+            return;
 
+        for (Downloadable downloadable : getDownloadables()) {
+            downloadableMap.put(downloadable.getUri(), downloadable);
             for (Fragment<Downloadable> fragment : downloadable.getFragments())
                 fragmentMap.put(fragment.getKey(), fragment);
         }
+        mapsInitialized = true;
     }
 
-    private synchronized void initialize() {
-        if (initialized)
+    private synchronized void initializeIndices() {
+        if (downloadableIndex != null)
             return;
 
-        putDownloadables(getFiles());
-        putDownloadables(getMaps());
-        putDownloadables(getThemes());
-        initialized = true;
+        TileIndex.Builder<Downloadable> downloadableIndexBuilder = new TileIndex.Builder<>();
+        TileIndex.Builder<Fragment<Downloadable>> fragmentIndexBuilder = new TileIndex.Builder<>();
+        for (Downloadable downloadable : getDownloadables()) {
+            downloadableIndexBuilder.addKey(downloadable.getUri(), downloadable);
+            downloadableIndexBuilder.addBoundingBox(getBoundingBox(downloadable), downloadable);
+
+            for (Fragment<Downloadable> fragment : downloadable.getFragments()) {
+                downloadableIndexBuilder.addKey(fragment.getKey(), downloadable);
+                fragmentIndexBuilder.addKey(fragment.getKey(), fragment);
+            }
+        }
+        downloadableIndex = downloadableIndexBuilder.build();
+        fragmentIndex = fragmentIndexBuilder.build();
     }
 
     public String getId() {
@@ -111,17 +148,27 @@ public class DataSourceImpl implements DataSource {
     }
 
     public Downloadable getDownloadable(String uri) {
-        initialize();
+        initializeMaps();
         return downloadableMap.get(uri);
     }
 
     public Fragment<Downloadable> getFragment(String key) {
-        initialize();
+        initializeMaps();
         return fragmentMap.get(key);
     }
 
+    public Collection<Downloadable> getDownloadablesFor(BoundingBox boundingBox) {
+        initializeIndices();
+        return downloadableIndex.getItemsFor(boundingBox);
+    }
+
+    public Collection<Fragment<Downloadable>> getFragmentsFor(BoundingBox boundingBox) {
+        initializeIndices();
+        return fragmentIndex.getItemsFor(boundingBox);
+    }
+
     public Downloadable getDownloadableBySHA1(String sha1) {
-        initialize();
+        initializeMaps();
         for(Downloadable downloadable : downloadableMap.values()) {
             Checksum checksum = downloadable.getLatestChecksum();
             if(checksum != null && sha1.equals(checksum.getSHA1()))
@@ -131,7 +178,7 @@ public class DataSourceImpl implements DataSource {
     }
 
     public Fragment<Downloadable> getFragmentBySHA1(String sha1) {
-        initialize();
+        initializeMaps();
         for(Fragment<Downloadable> fragment : fragmentMap.values()) {
             Checksum checksum = fragment.getLatestChecksum();
             if(checksum != null && sha1.equals(checksum.getSHA1()))
@@ -0,0 +1,131 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.datasources.helpers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.datasources.DataSource;
+import slash.navigation.datasources.binding.CatalogType;
+import slash.navigation.datasources.binding.DatasourceType;
+import slash.navigation.datasources.binding.FileType;
+import slash.navigation.datasources.binding.ObjectFactory;
+import slash.navigation.download.Checksum;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.logging.Logger;
+
+import static java.io.File.createTempFile;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.datasources.helpers.CatalogSnapshot.getSnapshotFile;
+import static slash.navigation.datasources.helpers.DataSourcesUtil.*;
+
+/**
+ * Measures the startup time for a catalog with as many elevation tiles as a SRTM data source
+ * from the XML and from its snapshot.
+ */
+public class CatalogSnapshotIT {
+    private static final Logger log = Logger.getLogger(CatalogSnapshotIT.class.getName());
+    private static final int TILE_COUNT = 150000;
+    private File file, snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        file = createTempFile("datasources", ".xml");
+        snapshot = getSnapshotFile(file, file.getParentFile());
+
+        ObjectFactory objectFactory = new ObjectFactory();
+        DatasourceType datasourceType = objectFactory.createDatasourceType();
+        datasourceType.setId("srtm");
+        datasourceType.setName("SRTM");
+        datasourceType.setBaseUrl("http://local/srtm/");
+        datasourceType.setDirectory("srtm");
+        for (int i = 0; i < TILE_COUNT; i++) {
+            String key = format("N%02dE%03d", i % 90, i % 180);
+            FileType fileType = createFileType(i + "/" + key + ".hgt.zip",
+                    singletonList(new Checksum(fromMillis(1000L * i), 1000L + i, "sha1-" + i)), null);
+            fileType.getFragment().add(createFragmentType(key + ".hgt", 1000L * i, 2000L + i));
+            datasourceType.getFile().add(fileType);
+        }
+        CatalogType catalogType = objectFactory.createCatalogType();
+        catalogType.getDatasource().add(datasourceType);
+        try (Writer writer = new OutputStreamWriter(new java.io.FileOutputStream(file), UTF_8)) {
+            marshal(catalogType, writer);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (file.exists())
+            assertTrue(file.delete());
+        if (snapshot.exists())
+            assertTrue(snapshot.delete());
+    }
+
+    private long[] startupFromXml() throws Exception {
+        long start = currentTimeMillis();
+        DataSourceService service = new DataSourceService();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            service.load(inputStream);
+        }
+        long loaded = currentTimeMillis();
+        lookup(service);
+        return new long[]{loaded - start, currentTimeMillis() - loaded};
+    }
+
+    private long[] startupFromSnapshot() throws Exception {
+        long start = currentTimeMillis();
+        DataSourceService service = new DataSourceService();
+        service.load(file, snapshot);
+        long loaded = currentTimeMillis();
+        lookup(service);
+        return new long[]{loaded - start, currentTimeMillis() - loaded};
+    }
+
+    private void lookup(DataSourceService service) {
+        DataSource dataSource = service.getDataSourceById("srtm");
+        assertNotNull(dataSource.getDownloadable("42/N42E042.hgt.zip"));
+    }
+
+    @Test
+    public void testStartupTime() throws Exception {
+        // warm up and write the snapshot
+        startupFromXml();
+        startupFromSnapshot();
+
+        long[] fromXml = startupFromXml();
+        long[] fromSnapshot = startupFromSnapshot();
+        log.info(format("Loading %d tiles from XML took %d milliseconds, from snapshot %d milliseconds",
+                TILE_COUNT, fromXml[0], fromSnapshot[0]));
+        log.info(format("First lookup after loading from XML took %d milliseconds, from snapshot %d milliseconds",
+                fromXml[1], fromSnapshot[1]));
+        assertTrue(fromSnapshot[0] < fromXml[0]);
+    }
+}
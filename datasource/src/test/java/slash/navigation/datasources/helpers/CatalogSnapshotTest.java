@@ -0,0 +1,165 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.datasources.helpers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.datasources.binding.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static slash.common.io.InputOutput.copyAndClose;
+import static slash.navigation.datasources.helpers.DataSourcesUtil.toXml;
+import static slash.navigation.datasources.helpers.CatalogSnapshot.getSnapshotFile;
+
+public class CatalogSnapshotTest {
+    private File file, snapshot;
+
+    @Before
+    public void setUp() throws Exception {
+        file = createTempFile("datasources", ".xml");
+        snapshot = getSnapshotFile(file, file.getParentFile());
+        try (InputStream inputStream = getClass().getResourceAsStream("../testdatasources.xml");
+             OutputStream outputStream = new FileOutputStream(file)) {
+            copyAndClose(inputStream, outputStream);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (file.exists())
+            assertTrue(file.delete());
+        if (snapshot.exists())
+            assertTrue(snapshot.delete());
+    }
+
+    // the snapshot decodes lazily through the getters which JAXB doesn't use for marshalling
+    private String describe(CatalogType catalogType) {
+        StringBuilder builder = new StringBuilder();
+        for (EditionType editionType : catalogType.getEdition()) {
+            builder.append(editionType.getId()).append(editionType.getName()).append(editionType.getHref());
+            describe(editionType.getDatasource(), builder);
+        }
+        describe(catalogType.getDatasource(), builder);
+        return builder.toString();
+    }
+
+    private void describe(List<DatasourceType> datasourceTypes, StringBuilder builder) {
+        for (DatasourceType datasourceType : datasourceTypes) {
+            builder.append(datasourceType.getId()).append(datasourceType.getName()).append(datasourceType.getHref()).
+                    append(datasourceType.getBaseUrl()).append(datasourceType.getDirectory()).append(datasourceType.getAction());
+            for (FileType fileType : datasourceType.getFile()) {
+                describe(fileType, builder);
+                describe(fileType.getBoundingBox(), builder);
+            }
+            for (MapType mapType : datasourceType.getMap()) {
+                describe(mapType, builder);
+                describe(mapType.getBoundingBox(), builder);
+            }
+            for (ThemeType themeType : datasourceType.getTheme()) {
+                describe(themeType, builder);
+                builder.append(themeType.getImageUrl());
+            }
+        }
+    }
+
+    private void describe(DownloadableType downloadableType, StringBuilder builder) {
+        builder.append(downloadableType.getUri());
+        describeChecksums(downloadableType.getChecksum(), builder);
+        for (FragmentType fragmentType : downloadableType.getFragment()) {
+            builder.append(fragmentType.getKey());
+            describeChecksums(fragmentType.getChecksum(), builder);
+        }
+    }
+
+    private void describeChecksums(List<ChecksumType> checksumTypes, StringBuilder builder) {
+        for (ChecksumType checksumType : checksumTypes)
+            builder.append(checksumType.getLastModified()).append(checksumType.getContentLength()).append(checksumType.getSha1());
+    }
+
+    private void describe(BoundingBoxType boundingBoxType, StringBuilder builder) {
+        if (boundingBoxType != null)
+            builder.append(boundingBoxType.getNorthEast().getLongitude()).append(boundingBoxType.getNorthEast().getLatitude()).
+                    append(boundingBoxType.getSouthWest().getLongitude()).append(boundingBoxType.getSouthWest().getLatitude());
+    }
+
+    @Test
+    public void testWriteAndReadSnapshot() throws Exception {
+        CatalogType fromXml = CatalogSnapshot.load(file, snapshot);
+        assertTrue(snapshot.exists());
+
+        CatalogType fromSnapshot = CatalogSnapshot.read(snapshot, file);
+        assertNotNull(fromSnapshot);
+        assertEquals(describe(fromXml), describe(fromSnapshot));
+        assertEquals(describe(fromXml), describe(CatalogSnapshot.load(file, snapshot)));
+    }
+
+    @Test
+    public void testMarshalDecodesSnapshot() throws Exception {
+        CatalogType fromXml = CatalogSnapshot.load(file, snapshot);
+        CatalogType fromSnapshot = CatalogSnapshot.read(snapshot, file);
+        assertNotNull(fromSnapshot);
+        assertEquals(toXml(fromXml), toXml(fromSnapshot));
+    }
+
+    @Test
+    public void testSnapshotIsInvalidatedByChange() throws Exception {
+        CatalogSnapshot.load(file, snapshot);
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("<!-- changed -->");
+        }
+        assertNull(CatalogSnapshot.read(snapshot, file));
+    }
+
+    @Test
+    public void testSnapshotIsValidForTouchedButUnchangedFile() throws Exception {
+        CatalogSnapshot.load(file, snapshot);
+        assertTrue(file.setLastModified(file.lastModified() - 60 * 1000));
+        assertNotNull(CatalogSnapshot.read(snapshot, file));
+    }
+
+    @Test
+    public void testSnapshotRecordsModificationTimeOfTouchedButUnchangedFile() throws Exception {
+        CatalogSnapshot.load(file, snapshot);
+        assertTrue(file.setLastModified(file.lastModified() - 60 * 1000));
+        assertNotNull(CatalogSnapshot.read(snapshot, file));
+
+        try (DataInputStream inputStream = new DataInputStream(new FileInputStream(snapshot))) {
+            inputStream.readInt();
+            inputStream.readInt();
+            assertEquals(file.length(), inputStream.readLong());
+            assertEquals(file.lastModified(), inputStream.readLong());
+        }
+        assertNotNull(CatalogSnapshot.read(snapshot, file));
+    }
+}
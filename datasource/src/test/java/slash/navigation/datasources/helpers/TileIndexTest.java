@@ -0,0 +1,76 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.datasources.helpers;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+
+import java.util.HashSet;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.datasources.helpers.TileIndex.encodeTile;
+
+public class TileIndexTest {
+    private TileIndex<String> createIndex() {
+        TileIndex.Builder<String> builder = new TileIndex.Builder<>();
+        assertTrue(builder.addKey("N42E000.hgt", "N42E000"));
+        assertTrue(builder.addKey("Eurasia/N42W001.hgt.zip", "N42W001"));
+        assertTrue(builder.addKey("S05W010", "S05W010"));
+        assertTrue(builder.addKey("E5_N45.rd5", "E5_N45"));
+        assertTrue(builder.addKey("W5_S5.rd5", "W5_S5"));
+        assertFalse(builder.addKey("germany.map", "germany"));
+        builder.addBoundingBox(new BoundingBox(15.0, 55.0, 5.0, 47.0), "germany");
+        return builder.build();
+    }
+
+    @Test
+    public void testEncodeTile() {
+        assertEquals(0, encodeTile(-180, -90));
+        assertEquals(359, encodeTile(179, -90));
+        assertEquals(360, encodeTile(-180, -89));
+        assertEquals(TileIndex.TILE_COUNT - 1, encodeTile(179, 89));
+    }
+
+    @Test
+    public void testOneDegreeTiles() {
+        TileIndex<String> index = createIndex();
+        assertEquals(new HashSet<>(asList("N42E000")), index.getItemsFor(new BoundingBox(0.9, 42.9, 0.1, 42.1)));
+        assertEquals(new HashSet<>(asList("N42W001", "N42E000")), index.getItemsFor(new BoundingBox(0.1, 42.9, -0.1, 42.1)));
+        assertEquals(new HashSet<>(asList("S05W010")), index.getItemsFor(new BoundingBox(-9.5, -4.5, -9.9, -4.9)));
+        assertEquals(new HashSet<>(), index.getItemsFor(new BoundingBox(0.9, 41.9, 0.1, 41.1)));
+    }
+
+    @Test
+    public void testFiveDegreeTiles() {
+        TileIndex<String> index = createIndex();
+        assertEquals(new HashSet<>(asList("E5_N45", "germany")), index.getItemsFor(new BoundingBox(9.9, 49.8, 9.8, 49.7)));
+        assertEquals(new HashSet<>(asList("W5_S5")), index.getItemsFor(new BoundingBox(-0.1, -0.1, -0.2, -0.2)));
+    }
+
+    @Test
+    public void testBoundingBoxes() {
+        TileIndex<String> index = createIndex();
+        assertEquals(new HashSet<>(asList("germany")), index.getItemsFor(new BoundingBox(14.0, 54.0, 13.0, 53.0)));
+        assertEquals(new HashSet<>(), index.getItemsFor(new BoundingBox(24.0, 54.0, 23.0, 53.0)));
+    }
+}
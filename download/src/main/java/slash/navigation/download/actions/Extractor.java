@@ -22,19 +22,35 @@ package slash.navigation.download.actions;
 import slash.navigation.download.Download;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.zip.ZipFile;
 
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.nio.channels.Channels.newChannel;
 import static java.util.logging.Logger.getLogger;
+import static java.util.zip.ZipEntry.STORED;
+import static slash.common.helpers.ThreadHelper.createFixedThreadPool;
 import static slash.common.io.Directories.ensureDirectory;
 import static slash.common.io.Files.lastPathFragment;
 import static slash.common.io.Files.setLastModified;
+import static slash.common.io.InputOutput.DEFAULT_BUFFER_SIZE;
 import static slash.common.type.CompactCalendar.fromMillis;
 
 /**
@@ -44,16 +60,26 @@ import static slash.common.type.CompactCalendar.fromMillis;
  */
 public class Extractor {
     private static final Logger log = getLogger(Extractor.class.getName());
+    private static final int MAXIMUM_THREAD_COUNT = 4;
+    private static final long TRANSFER_CHUNK_SIZE = 64 * DEFAULT_BUFFER_SIZE;
+
     private final CopierListener listener;
+    private long processedBytes;
 
     public Extractor(CopierListener listener) {
         this.listener = listener;
     }
 
     private void doExtract(File tempFile, File destination, boolean flatten) throws IOException {
-        try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(tempFile))) {
-            ZipEntry entry = zipInputStream.getNextEntry();
-            while (entry != null) {
+        processedBytes = 0;
+        try (ZipFile zipFile = new ZipFile(tempFile)) {
+            // the last entry for a file wins as when the entries were extracted sequentially
+            Map<File, ZipEntry> files = new LinkedHashMap<>();
+            long expectingBytes = 0;
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
                 if (entry.isDirectory()) {
                     if (!flatten) {
                         File directory = new File(destination, entry.getName());
@@ -70,21 +96,85 @@ public class Extractor {
                     File directory = extracted.getParentFile();
                     handleDirectory(directory, entry);
 
-                    log.info(format("Extracting from %s to %s", tempFile, extracted));
-                    // do not close zip input stream
-                    try (FileOutputStream output = new FileOutputStream(extracted)) {
-                        new Copier(listener).copy(zipInputStream, output, 0, entry.getSize());
-                    }
-                    setLastModified(extracted, fromMillis(entry.getTime()));
-
-                    zipInputStream.closeEntry();
+                    ZipEntry previous = files.put(extracted, entry);
+                    if (previous != null && previous.getSize() > 0)
+                        expectingBytes -= previous.getSize();
+                    if (entry.getSize() > 0)
+                        expectingBytes += entry.getSize();
                 }
+            }
 
-                entry = zipInputStream.getNextEntry();
+            if (expectingBytes > 0)
+                listener.expectingBytes(expectingBytes);
+            extractFiles(zipFile, files);
+        }
+    }
+
+    private void extractFiles(ZipFile zipFile, Map<File, ZipEntry> files) throws IOException {
+        int threadCount = max(1, min(files.size(), min(MAXIMUM_THREAD_COUNT, Runtime.getRuntime().availableProcessors())));
+        ExecutorService executor = createFixedThreadPool("Extractor", threadCount);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (final Map.Entry<File, ZipEntry> file : files.entrySet()) {
+                futures.add(executor.submit(() -> {
+                    extractFile(zipFile, file.getValue(), file.getKey());
+                    return null;
+                }));
             }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while extracting " + zipFile.getName(), e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException)
+                        throw (IOException) cause;
+                    throw new IOException(format("Cannot extract %s: %s", zipFile.getName(), cause), cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
+    private void extractFile(ZipFile zipFile, ZipEntry entry, File extracted) throws IOException {
+        log.info(format("Extracting from %s to %s", zipFile.getName(), extracted));
+        try (InputStream input = zipFile.getInputStream(entry);
+             FileOutputStream output = new FileOutputStream(extracted)) {
+            if (entry.getMethod() == STORED)
+                transfer(newChannel(input), output.getChannel());
+            else
+                copy(input, output);
+        }
+        setLastModified(extracted, fromMillis(entry.getTime()));
+    }
+
+    private void transfer(ReadableByteChannel input, FileChannel output) throws IOException {
+        long position = 0;
+        long transferred;
+        while ((transferred = output.transferFrom(input, position, TRANSFER_CHUNK_SIZE)) > 0) {
+            position += transferred;
+            processed(transferred);
+        }
+    }
+
+    private void copy(InputStream input, FileOutputStream output) throws IOException {
+        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+        int read;
+        while (-1 != (read = input.read(buffer))) {
+            output.write(buffer, 0, read);
+            processed(read);
+        }
+    }
+
+    private synchronized void processed(long bytes) {
+        processedBytes += bytes;
+        listener.processedBytes(processedBytes);
+    }
+
     private void handleDirectory(File directory, ZipEntry entry) throws IOException {
         ensureDirectory(directory.getPath());
         setLastModified(directory, fromMillis(entry.getTime()));
@@ -0,0 +1,210 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.graphhopper;
+
+import com.graphhopper.util.shapes.BBox;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.common.NavigationPosition;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+
+/**
+ * Keeps the least recently used GraphHopper graphs loaded, bounded by a number of graphs and their memory.
+ * Graphs are acquired for a route and released afterwards; a graph that is evicted or replaced while
+ * routes use it is closed when the last of them releases it.
+ *
+ * @author Christian Pesch
+ */
+
+class GraphCache {
+    private static final Logger log = Logger.getLogger(GraphCache.class.getName());
+    private static final Comparator<GraphDescriptor> GRAPH_DESCRIPTOR_COMPARATOR = new GraphManager.GraphDescriptorComparator();
+
+    private final int maximumGraphs;
+    private final long maximumBytes;
+    private final Map<File, LoadedGraph> graphs = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<com.graphhopper.GraphHopper, LoadedGraph> retired = new IdentityHashMap<>();
+
+    GraphCache(int maximumGraphs, long maximumBytes) {
+        this.maximumGraphs = maximumGraphs;
+        this.maximumBytes = maximumBytes;
+    }
+
+    synchronized com.graphhopper.GraphHopper get(File graphDirectory) {
+        LoadedGraph graph = graphs.get(graphDirectory);
+        return graph != null ? graph.hopper : null;
+    }
+
+    /**
+     * Acquires the loaded graph of the given directory, which has to be {@link #release released}.
+     */
+    synchronized com.graphhopper.GraphHopper acquire(File graphDirectory) {
+        LoadedGraph graph = graphs.get(graphDirectory);
+        if (graph == null)
+            return null;
+
+        graph.references++;
+        return graph.hopper;
+    }
+
+    /**
+     * Acquires the loaded graph with the smallest bounding box that contains all positions
+     * in the ordering of the {@link GraphManager.GraphDescriptorComparator}, which has to be {@link #release released}.
+     */
+    synchronized com.graphhopper.GraphHopper acquireCovering(List<NavigationPosition> positions) {
+        LoadedGraph best = null;
+        for (LoadedGraph graph : graphs.values()) {
+            if (!graph.covers(positions))
+                continue;
+
+            if (best == null || isBetter(graph, best))
+                best = graph;
+        }
+        if (best == null)
+            return null;
+
+        // touch for the access order
+        graphs.get(best.graphDirectory);
+        best.references++;
+        return best.hopper;
+    }
+
+    synchronized void release(com.graphhopper.GraphHopper hopper) {
+        LoadedGraph graph = retired.get(hopper);
+        if (graph == null) {
+            for (LoadedGraph loaded : graphs.values()) {
+                if (loaded.hopper == hopper)
+                    graph = loaded;
+            }
+        }
+        if (graph == null || graph.references == 0)
+            throw new IllegalStateException(format("Graph %s has not been acquired", hopper));
+
+        graph.references--;
+        if (graph.references == 0 && retired.remove(hopper) != null) {
+            log.info(format("Closing released graph %s", graph.graphDirectory));
+            hopper.close();
+        }
+    }
+
+    private boolean isBetter(LoadedGraph graph, LoadedGraph best) {
+        int order = GRAPH_DESCRIPTOR_COMPARATOR.compare(graph.graphDescriptor, best.graphDescriptor);
+        if (order != 0)
+            return order < 0;
+        return graph.getBoundingBox().getSquareSize() < best.getBoundingBox().getSquareSize();
+    }
+
+    /**
+     * Closes least recently used graphs until a graph with the given number of bytes fits.
+     */
+    synchronized void ensureCapacity(long bytes) {
+        evict(maximumGraphs - 1, maximumBytes - bytes, null);
+    }
+
+    synchronized void put(File graphDirectory, com.graphhopper.GraphHopper hopper) {
+        LoadedGraph previous = graphs.put(graphDirectory, new LoadedGraph(graphDirectory, hopper));
+        if (previous != null && previous.hopper != hopper)
+            close(previous);
+        evict(maximumGraphs, maximumBytes, graphDirectory);
+    }
+
+    synchronized void remove(File graphDirectory) {
+        LoadedGraph graph = graphs.remove(graphDirectory);
+        if (graph != null)
+            close(graph);
+    }
+
+    synchronized void clear() {
+        for (LoadedGraph graph : graphs.values())
+            close(graph);
+        graphs.clear();
+    }
+
+    private void close(LoadedGraph graph) {
+        // routes keep using the graph until they release it
+        if (graph.references > 0)
+            retired.put(graph.hopper, graph);
+        else
+            graph.hopper.close();
+    }
+
+    private void evict(int maximumGraphs, long maximumBytes, File keep) {
+        long bytes = getBytes();
+        Iterator<LoadedGraph> iterator = new ArrayList<>(graphs.values()).iterator();
+        while (iterator.hasNext() && (graphs.size() > maximumGraphs || bytes > maximumBytes)) {
+            LoadedGraph graph = iterator.next();
+            if (graph.graphDirectory.equals(keep))
+                continue;
+
+            log.info(format("Closing least recently used graph %s with %d bytes", graph.graphDirectory, graph.bytes));
+            graphs.remove(graph.graphDirectory);
+            close(graph);
+            bytes -= graph.bytes;
+        }
+    }
+
+    private long getBytes() {
+        long result = 0;
+        for (LoadedGraph graph : graphs.values())
+            result += graph.bytes;
+        return result;
+    }
+
+    private static class LoadedGraph {
+        private final File graphDirectory;
+        private final com.graphhopper.GraphHopper hopper;
+        private final GraphDescriptor graphDescriptor;
+        private final long bytes;
+        private int references;
+
+        private LoadedGraph(File graphDirectory, com.graphhopper.GraphHopper hopper) {
+            this.graphDirectory = graphDirectory;
+            this.hopper = hopper;
+            this.graphDescriptor = new GraphDescriptor(GraphManager.GraphType.Directory, graphDirectory, null, asBoundingBox(hopper.getGraphHopperStorage().getBounds()));
+            this.bytes = hopper.getGraphHopperStorage().getCapacity();
+        }
+
+        private static BoundingBox asBoundingBox(BBox bounds) {
+            return new BoundingBox(bounds.maxLon, bounds.maxLat, bounds.minLon, bounds.minLat);
+        }
+
+        private BoundingBox getBoundingBox() {
+            return graphDescriptor.getBoundingBox();
+        }
+
+        private boolean covers(List<NavigationPosition> positions) {
+            for (NavigationPosition position : positions) {
+                if (!getBoundingBox().contains(position))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -20,9 +20,14 @@ class GraphDescriptor {
     private BoundingBox boundingBox = null;
 
     GraphDescriptor(GraphManager.GraphType graphType, java.io.File localFile, File remoteFile) {
+        this(graphType, localFile, remoteFile, null);
+    }
+
+    GraphDescriptor(GraphManager.GraphType graphType, java.io.File localFile, File remoteFile, BoundingBox boundingBox) {
         this.graphType = graphType;
         this.localFile = localFile;
         this.remoteFile = remoteFile;
+        this.boundingBox = boundingBox;
     }
 
     private String removeMapDirectoryPrefix(String identifier) {
@@ -23,10 +23,12 @@ import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.PathWrapper;
 import com.graphhopper.reader.osm.GraphHopperOSM;
+import com.graphhopper.routing.Path;
 import com.graphhopper.routing.util.DefaultFlagEncoderFactory;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.util.PointList;
 import com.graphhopper.util.exceptions.PointNotFoundException;
+import com.graphhopper.util.shapes.GHPoint;
 import slash.navigation.common.*;
 import slash.navigation.datasources.DataSource;
 import slash.navigation.datasources.Downloadable;
@@ -41,18 +43,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
 import static com.graphhopper.routing.ch.CHAlgoFactoryDecorator.EdgeBasedCHMode.EDGE_OR_NODE;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
+import static java.lang.Thread.MIN_PRIORITY;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static javax.swing.JOptionPane.*;
+import static slash.common.helpers.ThreadHelper.createSingleThreadExecutor;
 import static slash.common.io.Directories.ensureDirectory;
 import static slash.common.io.Directories.getApplicationDirectory;
 import static slash.common.io.Files.asDialogString;
+import static slash.common.io.Files.recursiveDelete;
 import static slash.common.io.Files.removeExtension;
 import static slash.common.io.Transfer.trim;
 import static slash.navigation.download.Action.Extract;
@@ -69,6 +75,10 @@ public class GraphHopper extends BaseRoutingService {
     private static final Preferences preferences = Preferences.userNodeForPackage(GraphHopper.class);
     private static final Logger log = Logger.getLogger(GraphHopper.class.getName());
     private static final String BASE_URL_PREFERENCE = "baseUrl";
+    private static final String PREPARE_CONTRACTION_HIERARCHIES_PREFERENCE = "prepareContractionHierarchies";
+    private static final String DOT_PREPARING = ".preparing";
+    private static final String DOT_OBSOLETE = ".obsolete";
+    private static final String MAXIMUM_LOADED_GRAPHS_PREFERENCE = "maximumLoadedGraphs";
     private static final TravelMode CAR = new TravelMode("car");
     private static final List<TravelMode> TRAVEL_MODES = asList(new TravelMode("bike"), CAR, new TravelMode("foot"));
 
@@ -76,12 +86,19 @@ public class GraphHopper extends BaseRoutingService {
     private GraphManager graphManager;
 
     private DownloadableFinder finder;
-    private com.graphhopper.GraphHopper hopper;
+    private final GraphCache graphCache = new GraphCache(preferences.getInt(MAXIMUM_LOADED_GRAPHS_PREFERENCE, 3),
+            Runtime.getRuntime().maxMemory() / 2);
     private final EncodingManager encodingManager;
     private java.io.File osmPbfFile;
+    private final ExecutorService preparationExecutor = createSingleThreadExecutor("GraphHopperPreparation");
+    private final Set<File> preparingGraphDirectories = new HashSet<>();
 
     public GraphHopper(DownloadManager downloadManager) {
         this.downloadManager = downloadManager;
+        this.encodingManager = createEncodingManager();
+    }
+
+    private EncodingManager createEncodingManager() {
 
         // disable options to reduce graph creation times
         /*
@@ -99,7 +116,7 @@ public class GraphHopper extends BaseRoutingService {
                 .add(new BikeFlagEncoder())
                 .build();
         */
-        this.encodingManager = new EncodingManager
+        return new EncodingManager
                 .Builder(4)
                 .setEnableInstructions(false)
                 .addAll(new DefaultFlagEncoderFactory(), getAvailableTravelModeNames()).
@@ -119,6 +136,12 @@ public class GraphHopper extends BaseRoutingService {
         this.finder = new DownloadableFinder(graphManager);
     }
 
+    public void dispose() {
+        // interrupts the preparation of contraction hierarchies which would keep the application alive
+        preparationExecutor.shutdownNow();
+        graphCache.clear();
+    }
+
     public boolean isDownload() {
         return true;
     }
@@ -191,10 +214,20 @@ public class GraphHopper extends BaseRoutingService {
         return ensureDirectory(new java.io.File(getDirectory(downloadable.getDataSource()), removeExtension(downloadable.getUri())).getParentFile());
     }
 
-    public RoutingResult getRouteBetween(NavigationPosition from, NavigationPosition to, TravelMode travelMode) {
-        initializeHopper();
+    private com.graphhopper.GraphHopper acquireHopperFor(List<NavigationPosition> positions) {
+        // prefer a loaded graph that covers the positions over loading the graph of the osmPbfFile
+        com.graphhopper.GraphHopper hopper = graphCache.acquireCovering(positions);
+        if (hopper != null)
+            return hopper;
+
+        hopper = initializeHopper();
         if (hopper == null)
             throw new IllegalStateException("Could not initialize from graph directory of GraphHopper");
+        return hopper;
+    }
+
+    public RoutingResult getRouteBetween(NavigationPosition from, NavigationPosition to, TravelMode travelMode) {
+        com.graphhopper.GraphHopper hopper = acquireHopperFor(asList(from, to));
 
         SecondCounter counter = new SecondCounter() {
             protected void second(int second) {
@@ -222,6 +255,7 @@ public class GraphHopper extends BaseRoutingService {
             Validity validity = best.getErrors().size() == 0 ? Valid : Invalid;
             return new RoutingResult(asPositions(best.getPoints()), new DistanceAndTime(best.getDistance(), best.getTime()), validity);
         } finally {
+            graphCache.release(hopper);
             counter.stop();
 
             long end = currentTimeMillis();
@@ -229,6 +263,56 @@ public class GraphHopper extends BaseRoutingService {
         }
     }
 
+    public List<RoutingResult> getRouteAlong(List<NavigationPosition> positions, TravelMode travelMode) {
+        if (positions.size() < 3)
+            return super.getRouteAlong(positions, travelMode);
+
+        List<RoutingResult> result = calculateRouteAlong(positions, travelMode);
+        // route pairwise to find out which legs are not valid
+        return result != null ? result : super.getRouteAlong(positions, travelMode);
+    }
+
+    private List<RoutingResult> calculateRouteAlong(List<NavigationPosition> positions, TravelMode travelMode) {
+        com.graphhopper.GraphHopper hopper = acquireHopperFor(positions);
+
+        SecondCounter counter = new SecondCounter() {
+            protected void second(int second) {
+                fireRouting(second);
+            }
+        };
+        counter.start();
+
+        long start = currentTimeMillis();
+        try {
+            List<GHPoint> points = new ArrayList<>();
+            for (NavigationPosition position : positions) {
+                points.add(new GHPoint(position.getLatitude(), position.getLongitude()));
+            }
+            GHRequest request = new GHRequest(points);
+            request.setVehicle(travelMode.getName().toUpperCase());
+            GHResponse response = new GHResponse();
+            // one path per leg instead of the merged path of route()
+            List<Path> paths = hopper.calcPaths(request, response);
+            if (response.hasErrors() || paths.size() != positions.size() - 1) {
+                log.warning(format("Error while routing along %d positions: %s", positions.size(), asDialogString(response.getErrors(), false)));
+                return null;
+            }
+
+            List<RoutingResult> result = new ArrayList<>();
+            for (Path path : paths) {
+                Validity validity = path.isFound() ? Valid : Invalid;
+                result.add(new RoutingResult(asPositions(path.calcPoints()), new DistanceAndTime(path.getDistance(), path.getTime()), validity));
+            }
+            return result;
+        } finally {
+            graphCache.release(hopper);
+            counter.stop();
+
+            long end = currentTimeMillis();
+            log.info(format("Routing along %d positions with %s took %d milliseconds", positions.size(), getOsmPbfFile(), end - start));
+        }
+    }
+
     private synchronized java.io.File getOsmPbfFile() {
         return osmPbfFile;
     }
@@ -252,21 +336,20 @@ public class GraphHopper extends BaseRoutingService {
         return graphDirectory != null && PbfUtil.createPropertiesFile(graphDirectory).exists();
     }
 
-    synchronized void initializeHopper() {
+    /**
+     * Loads the graph of the osmPbfFile unless it is loaded already and acquires it,
+     * which has to be {@link GraphCache#release released}.
+     */
+    synchronized com.graphhopper.GraphHopper initializeHopper() {
         if (!existsGraphDirectory() && !existsOsmPbfFile())
-            return;
+            return null;
 
         java.io.File osmPbfFile = getOsmPbfFile();
         File graphDirectory = getGraphDirectory();
-        if (hopper != null) {
-            // avoid close() and importOrLoad() if the osmPbfFile stayed the same
-            String location = hopper.getGraphHopperLocation();
-            if (location != null && graphDirectory != null && location.equals(graphDirectory.getAbsolutePath()))
-                return;
-
-            hopper.close();
-            hopper = null;
-        }
+        // avoid importOrLoad() if the graph of the osmPbfFile is loaded already
+        com.graphhopper.GraphHopper loaded = graphCache.acquire(graphDirectory);
+        if (loaded != null)
+            return loaded;
 
         SecondCounter counter = new SecondCounter() {
             protected void second(int second) {
@@ -280,14 +363,22 @@ public class GraphHopper extends BaseRoutingService {
             // load existing graph first
             if (existsGraphDirectory()) {
                 log.info(format("Loading existing graph from %s", graphDirectory));
-                this.hopper = loadHopper(graphDirectory);
-                if (this.hopper != null)
-                    return;
+                graphCache.ensureCapacity(getSize(graphDirectory));
+                com.graphhopper.GraphHopper hopper = loadHopper(graphDirectory);
+                if (hopper != null) {
+                    graphCache.put(graphDirectory, hopper);
+                    if (!existsContractionHierarchies(graphDirectory))
+                        prepareInBackground(osmPbfFile, graphDirectory);
+                    return graphCache.acquire(graphDirectory);
+                }
             }
 
             // if there is none or it fails:
             log.info(format("Creating graph from %s to %s", osmPbfFile, graphDirectory));
-            this.hopper = importHopper(osmPbfFile, graphDirectory);
+            graphCache.ensureCapacity(osmPbfFile.length());
+            graphCache.put(graphDirectory, importHopper(osmPbfFile, graphDirectory));
+            prepareInBackground(osmPbfFile, graphDirectory);
+            return graphCache.acquire(graphDirectory);
         } catch (IllegalStateException e) {
             log.warning("Could not initialize GraphHopper: " + e);
             throw e;
@@ -299,16 +390,29 @@ public class GraphHopper extends BaseRoutingService {
         }
     }
 
-    private com.graphhopper.GraphHopper loadHopper(File graphDirectory) {
+    private long getSize(File graphDirectory) {
+        long result = 0;
+        File[] files = graphDirectory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                result += file.length();
+        }
+        return result;
+    }
+
+    private boolean existsContractionHierarchies(File graphDirectory) {
         Properties properties = new Properties();
-        try {
-            properties.load(new FileInputStream(PbfUtil.createPropertiesFile(graphDirectory)));
+        try (FileInputStream inputStream = new FileInputStream(PbfUtil.createPropertiesFile(graphDirectory))) {
+            properties.load(inputStream);
         } catch (IOException e) {
             log.warning(format("Cannot load properties: %s", e.getMessage()));
         }
+        return !"[]".equals(trim(properties.getProperty("graph.ch.profiles")));
+    }
 
+    private com.graphhopper.GraphHopper loadHopper(File graphDirectory) {
         GraphHopperOSM osm = new GraphHopperOSM();
-        boolean existsCH = !"[]".equals(trim(properties.getProperty("graph.ch.profiles")));
+        boolean existsCH = existsContractionHierarchies(graphDirectory);
         osm.getCHFactoryDecorator().setEnabled(existsCH);
         if(existsCH)
             osm.getCHFactoryDecorator().setEdgeBasedCHMode(EDGE_OR_NODE);
@@ -332,6 +436,104 @@ public class GraphHopper extends BaseRoutingService {
                 .importOrLoad();
     }
 
+    private boolean isPrepareContractionHierarchies() {
+        return preferences.getBoolean(PREPARE_CONTRACTION_HIERARCHIES_PREFERENCE, false);
+    }
+
+    private void prepareInBackground(File osmPbfFile, File graphDirectory) {
+        if (!isPrepareContractionHierarchies() || osmPbfFile == null || !osmPbfFile.exists() || graphDirectory == null)
+            return;
+
+        synchronized (preparingGraphDirectories) {
+            if (!preparingGraphDirectories.add(graphDirectory))
+                return;
+        }
+
+        preparationExecutor.execute(() -> {
+            try {
+                prepareContractionHierarchies(osmPbfFile, graphDirectory);
+            } catch (Exception e) {
+                log.warning(format("Could not prepare contraction hierarchies for %s: %s", graphDirectory, e));
+            } finally {
+                synchronized (preparingGraphDirectories) {
+                    preparingGraphDirectories.remove(graphDirectory);
+                }
+            }
+        });
+    }
+
+    private void prepareContractionHierarchies(File osmPbfFile, File graphDirectory) throws IOException {
+        Thread.currentThread().setPriority(MIN_PRIORITY);
+
+        // the graph without contraction hierarchies stays in use while the prepared one is created next to it
+        File preparingDirectory = new File(graphDirectory.getParentFile(), graphDirectory.getName() + DOT_PREPARING);
+        if (preparingDirectory.exists())
+            recursiveDelete(preparingDirectory);
+
+        SecondCounter counter = new SecondCounter() {
+            protected void second(int second) {
+                fireInitializing(second);
+            }
+        };
+        counter.start();
+
+        long start = currentTimeMillis();
+        try {
+            log.info(format("Preparing contraction hierarchies from %s to %s", osmPbfFile, preparingDirectory));
+            GraphHopperOSM osm = new GraphHopperOSM();
+            osm.getCHFactoryDecorator().setEdgeBasedCHMode(EDGE_OR_NODE);
+            osm.setOSMFile(osmPbfFile.getAbsolutePath())
+                    .setEncodingManager(createEncodingManager())
+                    .setGraphHopperLocation(preparingDirectory.getAbsolutePath())
+                    .forDesktop()
+                    .setCHEnabled(true)
+                    .importOrLoad();
+            osm.close();
+        } finally {
+            counter.stop();
+
+            long end = currentTimeMillis();
+            log.info(format("Preparing contraction hierarchies for %s took %d milliseconds", graphDirectory, end - start));
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            log.info(format("Preparing contraction hierarchies for %s was interrupted", graphDirectory));
+            recursiveDelete(preparingDirectory);
+            return;
+        }
+
+        swapGraphDirectory(preparingDirectory, graphDirectory);
+    }
+
+    private synchronized void swapGraphDirectory(File preparedDirectory, File graphDirectory) throws IOException {
+        // initializeHopper() is synchronized, too; routes in flight keep the graph without contraction
+        // hierarchies, which is held in memory, until the cache closes it after they released it
+        File obsoleteDirectory = new File(graphDirectory.getParentFile(), graphDirectory.getName() + DOT_OBSOLETE);
+        if (obsoleteDirectory.exists())
+            recursiveDelete(obsoleteDirectory);
+        if (!graphDirectory.renameTo(obsoleteDirectory))
+            throw new IOException(format("Cannot rename %s to %s", graphDirectory, obsoleteDirectory));
+        if (!preparedDirectory.renameTo(graphDirectory)) {
+            if (!obsoleteDirectory.renameTo(graphDirectory))
+                log.severe(format("Cannot restore %s from %s", graphDirectory, obsoleteDirectory));
+            throw new IOException(format("Cannot rename %s to %s", preparedDirectory, graphDirectory));
+        }
+        recursiveDelete(obsoleteDirectory);
+        log.info(format("Swapped graph with contraction hierarchies into %s", graphDirectory));
+
+        // the next route loads the prepared graph if the previous one is not loaded anymore
+        if (graphCache.get(graphDirectory) == null)
+            return;
+
+        // put the prepared graph in place before the cache closes the previous one
+        graphCache.ensureCapacity(getSize(graphDirectory));
+        com.graphhopper.GraphHopper hopper = loadHopper(graphDirectory);
+        if (hopper != null)
+            graphCache.put(graphDirectory, hopper);
+        else
+            graphCache.remove(graphDirectory);
+    }
+
     private List<NavigationPosition> asPositions(PointList points) {
         List<NavigationPosition> result = new ArrayList<>();
         for (int i = 0, c = points.getSize(); i < c; i++) {
@@ -416,7 +618,9 @@ public class GraphHopper extends BaseRoutingService {
         }
 
         public void process() {
-            initializeHopper();
+            com.graphhopper.GraphHopper hopper = initializeHopper();
+            if (hopper != null)
+                graphCache.release(hopper);
         }
     }
 
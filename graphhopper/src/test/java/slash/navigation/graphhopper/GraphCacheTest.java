@@ -0,0 +1,191 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.graphhopper;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.shapes.BBox;
+import org.junit.Test;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.common.SimpleNavigationPosition;
+
+import java.io.File;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class GraphCacheTest {
+    private static final File GERMANY = new File("germany");
+    private static final File HAMBURG = new File("hamburg");
+    private static final File FRANCE = new File("france");
+    private static final List<NavigationPosition> IN_HAMBURG = asList(new SimpleNavigationPosition(10.0, 53.5),
+            new SimpleNavigationPosition(10.1, 53.6));
+    private static final List<NavigationPosition> HAMBURG_TO_BERLIN = asList(new SimpleNavigationPosition(10.0, 53.5),
+            new SimpleNavigationPosition(13.4, 52.5));
+
+    private static class TestHopper extends com.graphhopper.GraphHopper {
+        private final GraphHopperStorage storage;
+        private boolean closed = false;
+
+        private TestHopper(double minLon, double maxLon, double minLat, double maxLat) {
+            storage = new GraphBuilder(EncodingManager.create("car")).create();
+            BBox bounds = storage.getBounds();
+            bounds.minLon = minLon;
+            bounds.maxLon = maxLon;
+            bounds.minLat = minLat;
+            bounds.maxLat = maxLat;
+        }
+
+        public GraphHopperStorage getGraphHopperStorage() {
+            return storage;
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private TestHopper germany() {
+        return new TestHopper(5.8, 15.1, 47.2, 55.1);
+    }
+
+    private TestHopper hamburg() {
+        return new TestHopper(9.6, 10.4, 53.3, 53.8);
+    }
+
+    private TestHopper france() {
+        return new TestHopper(-5.2, 8.3, 42.3, 51.1);
+    }
+
+    @Test
+    public void testGetCoveringPrefersSmallestGraph() {
+        GraphCache cache = new GraphCache(3, Long.MAX_VALUE);
+        TestHopper germany = germany();
+        TestHopper hamburg = hamburg();
+        cache.put(GERMANY, germany);
+        cache.put(HAMBURG, hamburg);
+        cache.put(FRANCE, france());
+
+        assertSame(hamburg, cache.acquireCovering(IN_HAMBURG));
+        assertSame(germany, cache.acquireCovering(HAMBURG_TO_BERLIN));
+        assertNull(cache.acquireCovering(asList(new SimpleNavigationPosition(2.35, 48.85), new SimpleNavigationPosition(13.4, 52.5))));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedGraph() {
+        GraphCache cache = new GraphCache(2, Long.MAX_VALUE);
+        TestHopper germany = germany();
+        TestHopper hamburg = hamburg();
+        TestHopper france = france();
+        cache.put(GERMANY, germany);
+        cache.put(HAMBURG, hamburg);
+        assertSame(germany, cache.get(GERMANY));
+        cache.put(FRANCE, france);
+
+        assertSame(germany, cache.get(GERMANY));
+        assertNull(cache.get(HAMBURG));
+        assertSame(france, cache.get(FRANCE));
+        assertTrue(hamburg.closed);
+        assertFalse(germany.closed);
+    }
+
+    @Test
+    public void testEnsureCapacityEvictsByBytes() {
+        TestHopper germany = germany();
+        long bytes = germany.getGraphHopperStorage().getCapacity();
+        GraphCache cache = new GraphCache(3, 2 * bytes);
+        TestHopper hamburg = hamburg();
+        cache.put(GERMANY, germany);
+        cache.put(HAMBURG, hamburg);
+        assertFalse(germany.closed);
+
+        cache.ensureCapacity(bytes);
+        assertTrue(germany.closed);
+        assertFalse(hamburg.closed);
+        assertNull(cache.get(GERMANY));
+        assertSame(hamburg, cache.get(HAMBURG));
+    }
+
+    @Test
+    public void testRemoveAndClearCloseGraphs() {
+        GraphCache cache = new GraphCache(3, Long.MAX_VALUE);
+        TestHopper germany = germany();
+        TestHopper hamburg = hamburg();
+        cache.put(GERMANY, germany);
+        cache.put(HAMBURG, hamburg);
+
+        cache.remove(GERMANY);
+        assertTrue(germany.closed);
+        assertNull(cache.get(GERMANY));
+
+        cache.clear();
+        assertTrue(hamburg.closed);
+        assertNull(cache.acquireCovering(IN_HAMBURG));
+    }
+
+    @Test
+    public void testClosesEvictedGraphAfterRelease() {
+        GraphCache cache = new GraphCache(1, Long.MAX_VALUE);
+        TestHopper hamburg = hamburg();
+        cache.put(HAMBURG, hamburg);
+        assertSame(hamburg, cache.acquireCovering(IN_HAMBURG));
+        assertSame(hamburg, cache.acquire(HAMBURG));
+
+        cache.put(GERMANY, germany());
+        assertNull(cache.get(HAMBURG));
+        assertFalse(hamburg.closed);
+
+        cache.release(hamburg);
+        assertFalse(hamburg.closed);
+        cache.release(hamburg);
+        assertTrue(hamburg.closed);
+    }
+
+    @Test
+    public void testClosesRemovedGraphAfterRelease() {
+        GraphCache cache = new GraphCache(3, Long.MAX_VALUE);
+        TestHopper hamburg = hamburg();
+        TestHopper replacement = hamburg();
+        cache.put(HAMBURG, hamburg);
+        assertSame(hamburg, cache.acquire(HAMBURG));
+
+        cache.put(HAMBURG, replacement);
+        assertSame(replacement, cache.acquireCovering(IN_HAMBURG));
+        assertFalse(hamburg.closed);
+
+        cache.release(hamburg);
+        assertTrue(hamburg.closed);
+
+        cache.remove(HAMBURG);
+        assertFalse(replacement.closed);
+        cache.release(replacement);
+        assertTrue(replacement.closed);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testReleaseWithoutAcquire() {
+        GraphCache cache = new GraphCache(3, Long.MAX_VALUE);
+        TestHopper hamburg = hamburg();
+        cache.put(HAMBURG, hamburg);
+        cache.release(hamburg);
+    }
+}
@@ -35,8 +35,14 @@ import slash.navigation.routing.TravelMode;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
 
 import static java.io.File.createTempFile;
+import static java.lang.Math.*;
+import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
@@ -46,8 +52,11 @@ import static slash.common.io.Directories.getApplicationDirectory;
 import static slash.navigation.routing.RoutingResult.Validity.Valid;
 
 public class GraphHopperIT {
+    private static final Logger log = Logger.getLogger(GraphHopperIT.class.getName());
     private static final NavigationPosition FROM = new SimpleNavigationPosition(10.18587, 53.40451);
     private static final NavigationPosition TO = new SimpleNavigationPosition(10.06767, 53.49249);
+    private static final NavigationPosition VIA = new SimpleNavigationPosition(10.12210, 53.44590);
+    private static final int TOUR_WAYPOINTS = 200;
     private static final String URI = "europe/germany/hamburg-latest.osm.pbf";
 
     private GraphHopper hopper;
@@ -102,4 +111,58 @@ public class GraphHopperIT {
         assertEquals(13658.8, result.getDistanceAndTime().getDistance(), 25.0);
         assertEquals(2920618.0, result.getDistanceAndTime().getTimeInMillis(), 100.0);
     }
+
+    @Test
+    public void testGetRouteAlongByCar() {
+        TravelMode car = getTravelMode("car");
+        List<RoutingResult> along = hopper.getRouteAlong(asList(FROM, VIA, TO), car);
+        assertEquals(2, along.size());
+        RoutingResult first = hopper.getRouteBetween(FROM, VIA, car);
+        RoutingResult second = hopper.getRouteBetween(VIA, TO, car);
+        assertEquals(Valid, along.get(0).getValidity());
+        assertEquals(Valid, along.get(1).getValidity());
+        assertEquals(first.getDistanceAndTime().getDistance(), along.get(0).getDistanceAndTime().getDistance(), 25.0);
+        assertEquals(second.getDistanceAndTime().getDistance(), along.get(1).getDistanceAndTime().getDistance(), 25.0);
+    }
+
+    private List<NavigationPosition> createTour() {
+        // a circle through the city of Hamburg
+        List<NavigationPosition> result = new ArrayList<>();
+        for (int i = 0; i < TOUR_WAYPOINTS; i++) {
+            double angle = 2 * PI * i / TOUR_WAYPOINTS;
+            result.add(new SimpleNavigationPosition(10.0 + 0.12 * cos(angle), 53.56 + 0.07 * sin(angle)));
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetRouteAlongPerformance() {
+        TravelMode car = getTravelMode("car");
+        List<NavigationPosition> tour = createTour();
+
+        // warm up
+        hopper.getRouteAlong(tour.subList(0, 10), car);
+
+        long start = currentTimeMillis();
+        double pairwiseDistance = 0.0;
+        for (int i = 0; i < tour.size() - 1; i++) {
+            RoutingResult result = hopper.getRouteBetween(tour.get(i), tour.get(i + 1), car);
+            if (result.getValidity().equals(Valid))
+                pairwiseDistance += result.getDistanceAndTime().getDistance();
+        }
+        long pairwise = currentTimeMillis() - start;
+
+        start = currentTimeMillis();
+        List<RoutingResult> results = hopper.getRouteAlong(tour, car);
+        double alongDistance = 0.0;
+        for (RoutingResult result : results) {
+            if (result.getValidity().equals(Valid))
+                alongDistance += result.getDistanceAndTime().getDistance();
+        }
+        long along = currentTimeMillis() - start;
+
+        log.info(format("Routing %d waypoints pairwise took %d ms, along took %d ms", tour.size(), pairwise, along));
+        assertEquals(tour.size() - 1, results.size());
+        assertEquals(pairwiseDistance, alongDistance, pairwiseDistance * 0.01);
+    }
 }
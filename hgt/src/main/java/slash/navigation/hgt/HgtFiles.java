@@ -36,11 +36,15 @@ import java.io.RandomAccessFile;
 import java.util.*;
 import java.util.prefs.Preferences;
 
+import static java.lang.Math.abs;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 import static slash.common.io.Directories.ensureDirectory;
 import static slash.common.io.Directories.getApplicationDirectory;
 import static slash.common.io.Files.removeExtension;
+import static slash.navigation.datasources.helpers.TileIndex.TILE_COUNT;
+import static slash.navigation.datasources.helpers.TileIndex.encodeTile;
+import static slash.navigation.datasources.helpers.TileIndex.isValidTile;
 
 /**
  * Encapsulates access to HGT files.
@@ -54,7 +58,7 @@ public class HgtFiles implements ElevationService {
     private static final String BASE_URL_PREFERENCE = "baseUrl";
     public static final String DOT_HGT = ".hgt";
 
-    private final Map<java.io.File, RandomAccessFile> randomAccessFileCache = new HashMap<>();
+    private final RandomAccessFile[] randomAccessFileCache = new RandomAccessFile[TILE_COUNT];
     private final DataSource dataSource;
     private final DownloadManager downloadManager;
 
@@ -95,13 +99,18 @@ public class HgtFiles implements ElevationService {
         return ensureDirectory(directoryName);
     }
 
+    private int asDegree(double longitudeOrLatitude) {
+        int degree = (int) longitudeOrLatitude;
+        return longitudeOrLatitude < 0 ? degree - 1 : degree;
+    }
+
     String createFileKey(double longitude, double latitude) {
-        int longitudeAsInteger = (int) longitude;
-        int latitudeAsInteger = (int) latitude;
-        return format("%s%02d%s%03d" + DOT_HGT, (latitude < 0) ? "S" : "N",
-                (latitude < 0) ? ((latitudeAsInteger - 1) * -1) : latitudeAsInteger,
-                (longitude < 0) ? "W" : "E",
-                (longitude < 0) ? ((longitudeAsInteger - 1) * -1) : longitudeAsInteger);
+        return createFileKey(asDegree(longitude), asDegree(latitude));
+    }
+
+    private String createFileKey(int longitude, int latitude) {
+        return format("%s%02d%s%03d" + DOT_HGT, (latitude < 0) ? "S" : "N", abs(latitude),
+                (longitude < 0) ? "W" : "E", abs(longitude));
     }
 
     private java.io.File createFile(String key) {
@@ -109,26 +118,38 @@ public class HgtFiles implements ElevationService {
     }
 
     public Double getElevationFor(double longitude, double latitude) throws IOException {
-        java.io.File file = createFile(createFileKey(longitude, latitude));
-        if (!file.exists())
+        int longitudeDegree = asDegree(longitude);
+        int latitudeDegree = asDegree(latitude);
+        if (!isValidTile(longitudeDegree, latitudeDegree))
             return null;
 
-        RandomAccessFile randomAccessFile = randomAccessFileCache.get(file);
+        // avoid formatting the file key for every lookup of a tile that has been opened before
+        int tile = encodeTile(longitudeDegree, latitudeDegree);
+        RandomAccessFile randomAccessFile = randomAccessFileCache[tile];
         if (randomAccessFile == null) {
+            java.io.File file = createFile(createFileKey(longitudeDegree, latitudeDegree));
+            if (!file.exists())
+                return null;
+
             randomAccessFile = new RandomAccessFile(file, "r");
-            randomAccessFileCache.put(file, randomAccessFile);
+            randomAccessFileCache[tile] = randomAccessFile;
         }
         return new ElevationTile(randomAccessFile).getElevationFor(longitude, latitude);
     }
 
     public void dispose() {
-        for (RandomAccessFile randomAccessFile : randomAccessFileCache.values())
+        for (int i = 0; i < randomAccessFileCache.length; i++) {
+            RandomAccessFile randomAccessFile = randomAccessFileCache[i];
+            if (randomAccessFile == null)
+                continue;
+
             try {
                 randomAccessFile.close();
             } catch (IOException e) {
                 throw new IllegalArgumentException("Cannot close random access file" + randomAccessFile);
             }
-        randomAccessFileCache.clear();
+            randomAccessFileCache[i] = null;
+        }
     }
 
     public void downloadElevationDataFor(List<LongitudeAndLatitude> longitudeAndLatitudes, boolean waitForDownload) {
@@ -173,20 +194,10 @@ public class HgtFiles implements ElevationService {
 
     private Collection<Fragment<Downloadable>> getDownloadablesFor(BoundingBox boundingBox) {
         Collection<Fragment<Downloadable>> result = new HashSet<>();
-
-        double longitude = boundingBox.getSouthWest().getLongitude();
-        while (longitude < boundingBox.getNorthEast().getLongitude()) {
-
-            double latitude = boundingBox.getSouthWest().getLatitude();
-            while (latitude < boundingBox.getNorthEast().getLatitude()) {
-                String key = createFileKey(longitude, latitude);
-                Fragment<Downloadable> fragment = dataSource.getFragment(key);
-                if (fragment != null)
-                    result.add(fragment);
-                latitude += 1.0;
-            }
-
-            longitude += 1.0;
+        for (Fragment<Downloadable> fragment : dataSource.getFragmentsFor(boundingBox)) {
+            // ignore fragment keys without extension which are reported by old RouteConverter releases
+            if (fragment.getKey().endsWith(DOT_HGT))
+                result.add(fragment);
         }
         return result;
     }
@@ -61,6 +61,8 @@ import slash.navigation.elevation.ElevationService;
 import slash.navigation.gui.Application;
 import slash.navigation.gui.actions.ActionManager;
 import slash.navigation.gui.actions.FrameAction;
+import slash.navigation.gui.events.BulkTableModelListener;
+import slash.navigation.gui.events.RangeSet;
 import slash.navigation.maps.mapsforge.LocalMap;
 import slash.navigation.maps.mapsforge.MapsforgeMapManager;
 import slash.navigation.maps.mapsforge.impl.MBTilesFileMap;
@@ -80,6 +82,7 @@ import slash.navigation.mapview.mapsforge.updater.*;
 
 import javax.swing.*;
 import javax.swing.event.*;
+import javax.swing.table.TableModel;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
@@ -1269,23 +1272,37 @@ public class MapsforgeMapView extends BaseMapView {
         }
 
         public void handleUpdate(final int eventType, final int firstRow, final int lastRow) {
+            executor.execute(() -> handle(eventType, firstRow, lastRow));
+        }
+
+        public void handleUpdate(final int eventType, final RangeSet rows) {
+            final List<int[]> ranges = rows.getRanges();
+            // remove from the last range on to keep the indices of the preceding ranges valid
+            if (eventType == DELETE)
+                Collections.reverse(ranges);
+
             executor.execute(() -> {
-                switch (eventType) {
-                    case INSERT:
-                        eventMapUpdater.handleAdd(firstRow, lastRow);
-                        break;
-                    case UPDATE:
-                        eventMapUpdater.handleUpdate(firstRow, lastRow);
-                        break;
-                    case DELETE:
-                        eventMapUpdater.handleRemove(firstRow, lastRow);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Event type " + eventType + " is not supported");
-                }
+                for (int[] range : ranges)
+                    handle(eventType, range[0], range[1]);
             });
         }
 
+        private void handle(int eventType, int firstRow, int lastRow) {
+            switch (eventType) {
+                case INSERT:
+                    eventMapUpdater.handleAdd(firstRow, lastRow);
+                    break;
+                case UPDATE:
+                    eventMapUpdater.handleUpdate(firstRow, lastRow);
+                    break;
+                case DELETE:
+                    eventMapUpdater.handleRemove(firstRow, lastRow);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Event type " + eventType + " is not supported");
+            }
+        }
+
         public void dispose() {
             executor.shutdownNow();
         }
@@ -1293,7 +1310,7 @@ public class MapsforgeMapView extends BaseMapView {
 
     // listeners
 
-    private class PositionsModelListener implements TableModelListener {
+    private class PositionsModelListener implements BulkTableModelListener {
         public void tableChanged(TableModelEvent e) {
             switch (e.getType()) {
                 case INSERT:
@@ -1323,6 +1340,32 @@ public class MapsforgeMapView extends BaseMapView {
                     throw new IllegalArgumentException("Event type " + e.getType() + " is not supported");
             }
         }
+
+        public void tableRowsInserted(TableModel source, RangeSet rows) {
+            updateDecoupler.handleUpdate(INSERT, rows);
+        }
+
+        public void tableRowsUpdated(TableModel source, RangeSet rows, int columnIndex) {
+            // a single range may cover all rows which is handled as a replaced route
+            if (rows.getRangeCount() == 1) {
+                tableChanged(new TableModelEvent(source, rows.getFirstIndex(), rows.getLastIndex(), columnIndex, UPDATE));
+                return;
+            }
+
+            if (positionsModel.isContinousRange())
+                return;
+            if (!(columnIndex == DESCRIPTION_COLUMN_INDEX ||
+                    columnIndex == LONGITUDE_COLUMN_INDEX ||
+                    columnIndex == LATITUDE_COLUMN_INDEX ||
+                    columnIndex == ALL_COLUMNS))
+                return;
+
+            updateDecoupler.handleUpdate(UPDATE, rows);
+        }
+
+        public void tableRowsDeleted(TableModel source, RangeSet rows) {
+            updateDecoupler.handleUpdate(DELETE, rows);
+        }
     }
 
     private class CharacteristicsModelListener implements ListDataListener {
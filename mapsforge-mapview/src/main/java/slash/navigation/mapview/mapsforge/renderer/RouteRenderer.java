@@ -21,7 +21,6 @@ package slash.navigation.mapview.mapsforge.renderer;
 
 import org.mapsforge.core.graphics.GraphicFactory;
 import org.mapsforge.core.graphics.Paint;
-import org.mapsforge.map.layer.Layer;
 import slash.navigation.common.DistanceAndTime;
 import slash.navigation.common.LongitudeAndLatitude;
 import slash.navigation.common.NavigationPosition;
@@ -35,14 +34,26 @@ import slash.navigation.mapview.mapsforge.updater.PairWithLayer;
 import slash.navigation.routing.DownloadFuture;
 import slash.navigation.routing.RoutingResult;
 import slash.navigation.routing.RoutingService;
+import slash.navigation.routing.TravelMode;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.lang.Thread.sleep;
+import static slash.common.helpers.ThreadHelper.createFixedThreadPool;
 import static slash.navigation.mapview.MapViewConstants.ROUTE_LINE_WIDTH_PREFERENCE;
 import static slash.navigation.mapview.mapsforge.helpers.ColorHelper.asRGBA;
 import static slash.navigation.routing.RoutingResult.Validity.*;
@@ -56,11 +67,17 @@ import static slash.navigation.routing.RoutingResult.Validity.*;
 public class RouteRenderer {
     private static final Preferences preferences = Preferences.userNodeForPackage(MapsforgeMapView.class);
     private static final Logger log = Logger.getLogger(RouteRenderer.class.getName());
+    private static final int ROUTING_THREADS = max(1, min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int MAXIMUM_CACHED_SEGMENTS = 1000;
     private Paint ROUTE_NOT_VALID_PAINT, ROUTE_DOWNLOADING_PAINT;
 
     private final Object notificationMutex = new Object();
+    private final Object downloadMutex = new Object();
     private boolean drawingRoute, drawingBeeline;
 
+    private final ExecutorService executor = createFixedThreadPool("RouteRenderer", ROUTING_THREADS);
+    private final SegmentCache segmentCache = new SegmentCache(MAXIMUM_CACHED_SEGMENTS);
+
     private final MapsforgeMapView mapView;
     private final MapViewCallbackOpenSource mapViewCallback;
     private final ColorModel routeColorModel;
@@ -89,6 +106,8 @@ public class RouteRenderer {
         synchronized (notificationMutex) {
             this.drawingRoute = false;
         }
+        executor.shutdownNow();
+        segmentCache.clear();
     }
 
     public synchronized void renderRoute(String mapIdentifier, List<PairWithLayer> pairWithLayers, Runnable invokeAfterRenderingRunnable) {
@@ -166,11 +185,20 @@ public class RouteRenderer {
         if (future == null)
             return;
 
-        if (future.isRequiresDownload())
-            future.download();
+        // the routing threads share the future which may ask the user and download only once
+        synchronized (downloadMutex) {
+            if (future.isRequiresDownload())
+                future.download();
 
-        if (future.isRequiresProcessing())
-            future.process();
+            if (future.isRequiresProcessing())
+                future.process();
+        }
+    }
+
+    private boolean isRequiresDownload(DownloadFuture future) {
+        synchronized (downloadMutex) {
+            return future.isRequiresDownload();
+        }
     }
 
     private void drawBeeline(List<PairWithLayer> pairWithLayers) {
@@ -220,20 +248,44 @@ public class RouteRenderer {
         RoutingService routingService = mapViewCallback.getRoutingService();
 
         DownloadFuture future = routingService.isDownload() ? routingService.downloadRoutingDataFor(mapIdentifier, asLongitudeAndLatitude(pairWithLayers)) : null;
+        // download and process once before the pairs are routed in parallel
+        waitForDownload(future);
+
+        CompletionService<PairWithRoute> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<PairWithRoute>> futures = new ArrayList<>();
         for (PairWithLayer pairWithLayer : pairWithLayers) {
             if (!pairWithLayer.hasCoordinates())
                 continue;
 
-            // first calculate route, then remove beeline layer then add polyline layer from routing
-            Layer layer = pairWithLayer.getLayer();
-            IntermediateRoute intermediateRoute = calculateRoute(routingService, future, pairWithLayer);
-
-            mapView.removeLayer(layer);
-            pairWithLayer.setLayer(null);
+            futures.add(completionService.submit(() -> new PairWithRoute(pairWithLayer, calculateRoute(routingService, future, pairWithLayer))));
+        }
 
-            Polyline polyline = new Polyline(mapView.asLatLong(intermediateRoute.getPositions()), intermediateRoute.isValid() ? paint : ROUTE_NOT_VALID_PAINT, mapView.getTileSize());
-            pairWithLayer.setLayer(polyline);
-            mapView.addLayer(polyline);
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                PairWithRoute pairWithRoute = completionService.take().get();
+                PairWithLayer pairWithLayer = pairWithRoute.pairWithLayer;
+                IntermediateRoute intermediateRoute = pairWithRoute.intermediateRoute;
+
+                // first calculate route, then remove beeline layer then add polyline layer from routing
+                mapView.removeLayer(pairWithLayer.getLayer());
+                pairWithLayer.setLayer(null);
+
+                Polyline polyline = new Polyline(mapView.asLatLong(intermediateRoute.getPositions()), intermediateRoute.isValid() ? paint : ROUTE_NOT_VALID_PAINT, mapView.getTileSize());
+                pairWithLayer.setLayer(polyline);
+                mapView.addLayer(polyline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            for (Future<PairWithRoute> f : futures)
+                f.cancel(true);
         }
     }
 
@@ -255,6 +307,12 @@ public class RouteRenderer {
     }
 
     private RoutingResult calculateResult(RoutingService routingService, DownloadFuture future, PairWithLayer pairWithLayer) {
+        SegmentKey key = new SegmentKey(routingService, mapViewCallback.getTravelMode(), pairWithLayer.getFirst(), pairWithLayer.getSecond(),
+                mapViewCallback.isAvoidFerries(), mapViewCallback.isAvoidHighways(), mapViewCallback.isAvoidTolls());
+        RoutingResult cached = segmentCache.get(key);
+        if (cached != null)
+            return cached;
+
         RoutingResult result = null;
         while (result == null) {
             waitForDownload(future);
@@ -264,12 +322,15 @@ public class RouteRenderer {
             }
 
             try {
-                result = routingService.getRouteBetween(pairWithLayer.getFirst(), pairWithLayer.getSecond(), mapViewCallback.getTravelMode());
+                // the routing services are not safe for concurrent use, thus the routing threads take turns
+                synchronized (routingService) {
+                    result = routingService.getRouteBetween(pairWithLayer.getFirst(), pairWithLayer.getSecond(), key.travelMode);
+                }
                 if (result.getValidity().equals(PointNotFound)) {
 
                     // special treatment for GraphHopper: try the next download
                     if (routingService.isDownload()) {
-                        if (future.isRequiresDownload()) {
+                        if (isRequiresDownload(future)) {
                             log.warning(format("Point not found when routing from %s to %s, trying next download", pairWithLayer.getFirst(), pairWithLayer.getSecond()));
                             result = null;
                         }
@@ -282,6 +343,88 @@ public class RouteRenderer {
                 return new RoutingResult(null, null, Invalid);
             }
         }
+
+        // only valid routes are cached since the others may succeed after the next download
+        if (result.getValidity().equals(Valid))
+            segmentCache.put(key, result);
         return result;
     }
+
+    private static class PairWithRoute {
+        private final PairWithLayer pairWithLayer;
+        private final IntermediateRoute intermediateRoute;
+
+        private PairWithRoute(PairWithLayer pairWithLayer, IntermediateRoute intermediateRoute) {
+            this.pairWithLayer = pairWithLayer;
+            this.intermediateRoute = intermediateRoute;
+        }
+    }
+
+    private static class SegmentKey {
+        private final String routingService;
+        private final TravelMode travelMode;
+        private final double fromLongitude, fromLatitude, toLongitude, toLatitude;
+        private final boolean avoidFerries, avoidHighways, avoidTolls;
+
+        private SegmentKey(RoutingService routingService, TravelMode travelMode, NavigationPosition from, NavigationPosition to,
+                           boolean avoidFerries, boolean avoidHighways, boolean avoidTolls) {
+            this.routingService = routingService.getName();
+            this.travelMode = travelMode;
+            this.fromLongitude = from.getLongitude();
+            this.fromLatitude = from.getLatitude();
+            this.toLongitude = to.getLongitude();
+            this.toLatitude = to.getLatitude();
+            this.avoidFerries = avoidFerries;
+            this.avoidHighways = avoidHighways;
+            this.avoidTolls = avoidTolls;
+        }
+
+        private String getTravelModeName() {
+            return travelMode != null ? travelMode.getName() : null;
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            SegmentKey that = (SegmentKey) o;
+            return Double.compare(that.fromLongitude, fromLongitude) == 0 &&
+                    Double.compare(that.fromLatitude, fromLatitude) == 0 &&
+                    Double.compare(that.toLongitude, toLongitude) == 0 &&
+                    Double.compare(that.toLatitude, toLatitude) == 0 &&
+                    avoidFerries == that.avoidFerries &&
+                    avoidHighways == that.avoidHighways &&
+                    avoidTolls == that.avoidTolls &&
+                    Objects.equals(routingService, that.routingService) &&
+                    Objects.equals(getTravelModeName(), that.getTravelModeName());
+        }
+
+        public int hashCode() {
+            return Objects.hash(routingService, getTravelModeName(), fromLongitude, fromLatitude, toLongitude, toLatitude,
+                    avoidFerries, avoidHighways, avoidTolls);
+        }
+    }
+
+    private static class SegmentCache {
+        private final Map<SegmentKey, RoutingResult> results;
+
+        private SegmentCache(int maximumSize) {
+            this.results = new LinkedHashMap<SegmentKey, RoutingResult>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<SegmentKey, RoutingResult> eldest) {
+                    return size() > maximumSize;
+                }
+            };
+        }
+
+        synchronized RoutingResult get(SegmentKey key) {
+            return results.get(key);
+        }
+
+        synchronized void put(SegmentKey key, RoutingResult result) {
+            results.put(key, result);
+        }
+
+        synchronized void clear() {
+            results.clear();
+        }
+    }
 }
@@ -9,10 +9,13 @@ import java.util.logging.Logger;
 
 class DatabaseRenderer {
     private static final Logger LOGGER = Logger.getLogger(DatabaseRenderer.class.getName());
+    private static final int MAXIMUM_VIEWPORT_TILE_COUNT = 256;
 
     private final MBTilesFile file;
     private final GraphicFactory graphicFactory;
     private final long timestamp;
+    private volatile Viewport viewport;
+    private Viewport readViewport;
 
     DatabaseRenderer(MBTilesFile file, GraphicFactory graphicFactory) {
         this.file = file;
@@ -20,6 +23,29 @@ class DatabaseRenderer {
         this.timestamp = System.currentTimeMillis();
     }
 
+    /**
+     * Called when the layer draws the tiles between the given tiles.
+     */
+    void setViewport(Tile upperLeft, Tile lowerRight) {
+        viewport = new Viewport(upperLeft, lowerRight);
+    }
+
+    private synchronized boolean isFirstReadOf(Viewport viewport) {
+        if (viewport.equals(readViewport))
+            return false;
+        readViewport = viewport;
+        return true;
+    }
+
+    private void readViewportOf(Tile tile) {
+        // the first job of a viewport reads all tiles of the viewport with one query into the cache of the file
+        Viewport current = viewport;
+        if (current != null && current.contains(tile) && current.getTileCount() <= MAXIMUM_VIEWPORT_TILE_COUNT &&
+                isFirstReadOf(current))
+            file.readTilesAsBytes(current.upperLeft.tileX, current.upperLeft.tileY,
+                    current.lowerRight.tileX, current.lowerRight.tileY, tile.zoomLevel);
+    }
+
     /**
      * Called when a job needs to be executed.
      *
@@ -27,6 +53,7 @@ class DatabaseRenderer {
      */
     public TileBitmap executeJob(RendererJob rendererJob) {
         try {
+            readViewportOf(rendererJob.tile);
             InputStream inputStream = file.getTileAsBytes(rendererJob.tile.tileX, rendererJob.tile.tileY, rendererJob.tile.zoomLevel);
 
             TileBitmap bitmap;
@@ -47,4 +74,34 @@ class DatabaseRenderer {
     public long getDataTimestamp(Tile tile) {
         return timestamp;
     }
+
+    private static class Viewport {
+        private final Tile upperLeft, lowerRight;
+
+        Viewport(Tile upperLeft, Tile lowerRight) {
+            this.upperLeft = upperLeft;
+            this.lowerRight = lowerRight;
+        }
+
+        boolean contains(Tile tile) {
+            return tile.zoomLevel == upperLeft.zoomLevel &&
+                    tile.tileX >= upperLeft.tileX && tile.tileX <= lowerRight.tileX &&
+                    tile.tileY >= upperLeft.tileY && tile.tileY <= lowerRight.tileY;
+        }
+
+        int getTileCount() {
+            return (lowerRight.tileX - upperLeft.tileX + 1) * (lowerRight.tileY - upperLeft.tileY + 1);
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Viewport viewport = (Viewport) o;
+            return upperLeft.equals(viewport.upperLeft) && lowerRight.equals(viewport.lowerRight);
+        }
+
+        public int hashCode() {
+            return 31 * upperLeft.hashCode() + lowerRight.hashCode();
+        }
+    }
 }
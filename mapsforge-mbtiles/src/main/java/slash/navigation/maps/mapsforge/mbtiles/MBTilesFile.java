@@ -1,32 +1,51 @@
 package slash.navigation.maps.mapsforge.mbtiles;
 
 import org.mapsforge.core.model.BoundingBox;
+import org.mapsforge.core.util.Parameters;
+import org.sqlite.SQLiteConfig;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.sql.*;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Logger;
 
 import static java.lang.Double.parseDouble;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.sqlite.SQLiteConfig.Pragma.MMAP_SIZE;
 
 public class MBTilesFile {
+    private static final Logger log = Logger.getLogger(MBTilesFile.class.getName());
+    private final File file;
     private final Connection connection;
     private Map<String, String> metadata = null;
 
     private static final String SELECT_METADATA = "SELECT name, value FROM metadata";
-    private static final String SELECT_TILES =
+    private static final String SELECT_TILE =
             "SELECT tile_data " +
                     "FROM tiles " +
-                    "WHERE zoom_level=%s AND tile_column=%s AND tile_row=%s " +
-                    "ORDER BY zoom_level DESC " +
+                    "WHERE zoom_level=? AND tile_column=? AND tile_row=? " +
                     "LIMIT 1";
+    private static final String SELECT_TILES =
+            "SELECT tile_column, tile_row, tile_data " +
+                    "FROM tiles " +
+                    "WHERE zoom_level=? AND tile_column BETWEEN ? AND ? AND tile_row BETWEEN ? AND ?";
     private static final List<String> SUPPORTED_FORMATS = Arrays.asList("png", "jpg", "jpeg");
+    private static final String MEMORY_MAP_SIZE = String.valueOf(256 * 1024 * 1024);
+    private static final int TILE_CACHE_SIZE = 16 * 1024 * 1024;
+    private static final long READER_WAIT_MILLISECONDS = 100;
+
+    private final BlockingQueue<TileReader> idleReaders = new ArrayBlockingQueue<>(Parameters.NUMBER_OF_THREADS);
+    private final List<TileReader> readers = new ArrayList<>();
+    private final TileCache tileCache = new TileCache(TILE_CACHE_SIZE);
+    private volatile boolean closed;
 
     public MBTilesFile(File file) {
+        this.file = file;
         try {
             connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
         } catch (SQLException e) {
@@ -43,6 +62,16 @@ public class MBTilesFile {
     public void close() {
         try {
             metadata = null;
+            tileCache.clear();
+            synchronized (readers) {
+                closed = true;
+                // readers in use are closed when they are released
+                List<TileReader> idle = new ArrayList<>();
+                idleReaders.drainTo(idle);
+                for (TileReader reader : idle)
+                    reader.close();
+                readers.clear();
+            }
             connection.close();
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -63,7 +92,6 @@ public class MBTilesFile {
         double maximumLatitude = parseDouble(split[3]);
         return new BoundingBox(minimumLatitude, minimumLongitude, maximumLatitude, maximumLongitude);
     }
-
     private String getFormat() {
         return getMetadata().get("format");
     }
@@ -151,20 +179,198 @@ public class MBTilesFile {
         return (long) (zoomLevelToScale(zoomLevel) - tileY - 1);
     }
 
+    private static long createTileKey(int tileX, long tmsTileY, byte zoomLevel) {
+        return ((long) zoomLevel << 58) | ((long) tileX << 29) | tmsTileY;
+    }
+
     public InputStream getTileAsBytes(int tileX, int tileY, byte zoomLevel) {
-        try (Statement statement = connection.createStatement()) {
-            statement.setQueryTimeout(30);
+        long tmsTileY = tileYToTMS(tileY, zoomLevel);
+        long key = createTileKey(tileX, tmsTileY, zoomLevel);
+        byte[] bytes = tileCache.get(key);
+        if (bytes == null) {
+            TileReader reader = acquireReader();
+            try {
+                bytes = reader.readTile(tileX, tmsTileY, zoomLevel);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            } finally {
+                releaseReader(reader);
+            }
+            if (bytes == null)
+                return null;
+            tileCache.put(key, bytes);
+        }
+        return new ByteArrayInputStream(bytes);
+    }
 
-            long tmsTileY = tileYToTMS(tileY, zoomLevel);
-            try (ResultSet resultSet = statement.executeQuery(format(SELECT_TILES, String.valueOf(zoomLevel), tileX, tmsTileY))) {
-                if(resultSet.next()) {
-                    return resultSet.getBinaryStream("tile_data");
+    /**
+     * Reads all tiles of a viewport with one query and keeps them in the tile cache
+     * for subsequent calls to {@link #getTileAsBytes(int, int, byte)}.
+     *
+     * @return the number of tiles read
+     */
+    public int readTilesAsBytes(int minimumTileX, int minimumTileY, int maximumTileX, int maximumTileY, byte zoomLevel) {
+        // TMS rows count from the bottom
+        long minimumTmsTileY = tileYToTMS(maximumTileY, zoomLevel);
+        long maximumTmsTileY = tileYToTMS(minimumTileY, zoomLevel);
+
+        TileReader reader = acquireReader();
+        try {
+            return reader.readTiles(minimumTileX, minimumTmsTileY, maximumTileX, maximumTmsTileY, zoomLevel);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        } finally {
+            releaseReader(reader);
+        }
+    }
+
+    TileReader acquireReader() {
+        TileReader reader = idleReaders.poll();
+        if (reader != null)
+            return reader;
+
+        synchronized (readers) {
+            checkNotClosed();
+
+            if (readers.size() < Parameters.NUMBER_OF_THREADS) {
+                try {
+                    reader = new TileReader();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
                 }
+                readers.add(reader);
+                return reader;
             }
         }
-        catch (SQLException e) {
-            throw new RuntimeException(e);
+
+        try {
+            // wake up from time to time to notice a close()
+            while (reader == null) {
+                checkNotClosed();
+                reader = idleReaders.poll(READER_WAIT_MILLISECONDS, MILLISECONDS);
+            }
+            return reader;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a connection to " + file, e);
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed)
+            throw new IllegalStateException("MBTiles file " + file + " is closed");
+    }
+
+    void releaseReader(TileReader reader) {
+        synchronized (readers) {
+            if (closed)
+                reader.close();
+            else
+                idleReaders.offer(reader);
+        }
+    }
+
+    /**
+     * A read-only connection with prepared statements that is used by one thread at a time.
+     */
+    class TileReader {
+        private final Connection connection;
+        private final PreparedStatement selectTile, selectTiles;
+
+        TileReader() throws SQLException {
+            SQLiteConfig config = new SQLiteConfig();
+            // keeps the journal mode of the file since switching to WAL would require write access
+            config.setReadOnly(true);
+            config.setPragma(MMAP_SIZE, MEMORY_MAP_SIZE);
+            connection = config.createConnection("jdbc:sqlite:" + file.getAbsolutePath());
+            selectTile = connection.prepareStatement(SELECT_TILE);
+            selectTile.setQueryTimeout(30);
+            selectTiles = connection.prepareStatement(SELECT_TILES);
+            selectTiles.setQueryTimeout(30);
+        }
+
+        byte[] readTile(int tileX, long tmsTileY, byte zoomLevel) throws SQLException {
+            selectTile.setInt(1, zoomLevel);
+            selectTile.setInt(2, tileX);
+            selectTile.setLong(3, tmsTileY);
+            try (ResultSet resultSet = selectTile.executeQuery()) {
+                if (resultSet.next())
+                    return resultSet.getBytes(1);
+            }
+            return null;
+        }
+
+        int readTiles(int minimumTileX, long minimumTmsTileY, int maximumTileX, long maximumTmsTileY, byte zoomLevel) throws SQLException {
+            selectTiles.setInt(1, zoomLevel);
+            selectTiles.setInt(2, minimumTileX);
+            selectTiles.setInt(3, maximumTileX);
+            selectTiles.setLong(4, minimumTmsTileY);
+            selectTiles.setLong(5, maximumTmsTileY);
+            int count = 0;
+            try (ResultSet resultSet = selectTiles.executeQuery()) {
+                while (resultSet.next()) {
+                    byte[] bytes = resultSet.getBytes(3);
+                    if (bytes != null) {
+                        tileCache.put(createTileKey(resultSet.getInt(1), resultSet.getLong(2), zoomLevel), bytes);
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        void close() {
+            try {
+                selectTile.close();
+                selectTiles.close();
+                connection.close();
+            } catch (SQLException e) {
+                log.warning(format("Cannot close connection to %s: %s", file, e));
+            }
+        }
+    }
+
+    /**
+     * Keeps the bytes of the most recently read tiles up to a maximum size.
+     */
+    static class TileCache {
+        private final int maximumSize;
+        private int size;
+        private final LinkedHashMap<Long, byte[]> tiles = new LinkedHashMap<>(256, 0.75f, true);
+
+        TileCache(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        synchronized byte[] get(long key) {
+            return tiles.get(key);
+        }
+
+        synchronized void put(long key, byte[] bytes) {
+            size += bytes.length;
+            byte[] previous = tiles.put(key, bytes);
+            if (previous != null)
+                size -= previous.length;
+
+            // evicts in access order until the tiles fit the budget
+            Iterator<Map.Entry<Long, byte[]>> iterator = tiles.entrySet().iterator();
+            while (size > maximumSize && iterator.hasNext()) {
+                size -= iterator.next().getValue().length;
+                iterator.remove();
+            }
+        }
+
+        synchronized int getSize() {
+            return size;
+        }
+
+        synchronized int getCount() {
+            return tiles.size();
+        }
+
+        synchronized void clear() {
+            tiles.clear();
+            size = 0;
         }
-        return null;
     }
 }
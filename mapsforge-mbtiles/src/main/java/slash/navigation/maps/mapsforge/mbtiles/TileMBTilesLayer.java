@@ -1,7 +1,10 @@
 package slash.navigation.maps.mapsforge.mbtiles;
 
+import org.mapsforge.core.graphics.Canvas;
 import org.mapsforge.core.graphics.GraphicFactory;
 import org.mapsforge.core.graphics.TileBitmap;
+import org.mapsforge.core.model.BoundingBox;
+import org.mapsforge.core.model.Point;
 import org.mapsforge.core.model.Tile;
 import org.mapsforge.map.layer.TileLayer;
 import org.mapsforge.map.layer.cache.TileCache;
@@ -9,6 +12,9 @@ import org.mapsforge.map.model.DisplayModel;
 import org.mapsforge.map.model.IMapViewPosition;
 import org.mapsforge.map.model.common.Observer;
 
+import static org.mapsforge.map.util.LayerUtil.getLowerRight;
+import static org.mapsforge.map.util.LayerUtil.getUpperLeft;
+
 public class TileMBTilesLayer extends TileLayer<RendererJob> implements Observer {
     private final DatabaseRenderer databaseRenderer;
     private MapWorkerPool mapWorkerPool;
@@ -34,6 +40,13 @@ public class TileMBTilesLayer extends TileLayer<RendererJob> implements Observer
         }
     }
 
+    public void draw(BoundingBox boundingBox, byte zoomLevel, Canvas canvas, Point topLeftPoint) {
+        // lets the renderer read the tiles of the viewport at once
+        int tileSize = displayModel.getTileSize();
+        databaseRenderer.setViewport(getUpperLeft(boundingBox, zoomLevel, tileSize), getLowerRight(boundingBox, zoomLevel, tileSize));
+        super.draw(boundingBox, zoomLevel, canvas, topLeftPoint);
+    }
+
     protected RendererJob createJob(Tile tile) {
         return new RendererJob(tile, databaseRenderer, this.isTransparent);
     }
@@ -0,0 +1,175 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.maps.mapsforge.mbtiles;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapsforge.core.util.Parameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.io.File.createTempFile;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+
+public class MBTilesFileTest {
+    private File file;
+    private MBTilesFile mbTilesFile;
+
+    @Before
+    public void setUp() throws IOException, SQLException {
+        file = createTempFile("mbtiles", ".mbtiles");
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE metadata (name TEXT, value TEXT)");
+            statement.execute("INSERT INTO metadata VALUES ('format', 'png')");
+            statement.execute("CREATE TABLE tiles (zoom_level INTEGER, tile_column INTEGER, tile_row INTEGER, tile_data BLOB)");
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO tiles VALUES (?, ?, ?, ?)")) {
+                for (int x = 0; x < 4; x++) {
+                    for (int y = 0; y < 4; y++) {
+                        insert.setInt(1, 2);
+                        insert.setInt(2, x);
+                        insert.setInt(3, y);
+                        insert.setBytes(4, new byte[]{(byte) x, (byte) y});
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        }
+        mbTilesFile = new MBTilesFile(file);
+    }
+
+    @After
+    public void tearDown() {
+        mbTilesFile.close();
+        assertTrue(file.delete());
+    }
+
+    private byte[] readTile(int x, int y) throws IOException {
+        try (InputStream inputStream = mbTilesFile.getTileAsBytes(x, y, (byte) 2)) {
+            return new byte[]{(byte) inputStream.read(), (byte) inputStream.read()};
+        }
+    }
+
+    @Test
+    public void testGetTileAsBytes() throws IOException {
+        // TMS rows count from the bottom
+        assertArrayEquals(new byte[]{1, 3}, readTile(1, 0));
+        assertArrayEquals(new byte[]{2, 0}, readTile(2, 3));
+        assertNull(mbTilesFile.getTileAsBytes(5, 0, (byte) 2));
+    }
+
+    @Test
+    public void testReadTilesOfViewportWithOneQuery() throws IOException, SQLException {
+        assertEquals(6, mbTilesFile.readTilesAsBytes(1, 1, 2, 3, (byte) 2));
+
+        // the tiles of the viewport are served from the cache once they're gone from the file
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM tiles");
+        }
+        for (int x = 1; x <= 2; x++)
+            for (int y = 1; y <= 3; y++)
+                assertArrayEquals(new byte[]{(byte) x, (byte) (3 - y)}, readTile(x, y));
+        assertNull(mbTilesFile.getTileAsBytes(0, 1, (byte) 2));
+        assertNull(mbTilesFile.getTileAsBytes(1, 0, (byte) 2));
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Parameters.NUMBER_OF_THREADS * 2);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final int x = i % 4;
+                futures.add(executor.submit(() -> readTile(x, 3 - x)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                byte[] bytes = futures.get(i).get(10, SECONDS);
+                assertEquals(i % 4, bytes[0]);
+                assertEquals(i % 4, bytes[1]);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseWakesUpWaitingThreads() throws Exception {
+        List<MBTilesFile.TileReader> readers = new ArrayList<>();
+        for (int i = 0; i < Parameters.NUMBER_OF_THREADS; i++)
+            readers.add(mbTilesFile.acquireReader());
+
+        final AtomicReference<Throwable> thrown = new AtomicReference<>();
+        final CountDownLatch waiting = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            waiting.countDown();
+            try {
+                mbTilesFile.acquireReader();
+            } catch (Throwable t) {
+                thrown.set(t);
+            }
+        });
+        waiter.start();
+        assertTrue(waiting.await(5, SECONDS));
+
+        mbTilesFile.close();
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+        assertTrue(thrown.get() instanceof IllegalStateException);
+
+        for (MBTilesFile.TileReader reader : readers)
+            mbTilesFile.releaseReader(reader);
+        try {
+            mbTilesFile.getTileAsBytes(0, 0, (byte) 2);
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTileCacheKeepsBudget() {
+        MBTilesFile.TileCache cache = new MBTilesFile.TileCache(100);
+        for (long key = 0; key < 10; key++)
+            cache.put(key, new byte[30]);
+        assertEquals(90, cache.getSize());
+        assertEquals(3, cache.getCount());
+
+        cache.put(10, new byte[100]);
+        assertEquals(100, cache.getSize());
+        assertEquals(1, cache.getCount());
+        assertNotNull(cache.get(10));
+        assertNull(cache.get(9));
+    }
+}
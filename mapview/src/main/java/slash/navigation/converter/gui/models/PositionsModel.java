@@ -24,6 +24,7 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.common.BoundingBox;
 import slash.navigation.common.DistanceAndTimeAggregator;
 import slash.navigation.common.NavigationPosition;
@@ -49,6 +50,7 @@ public interface PositionsModel extends TableModel {
     List<NavigationPosition> getPositions(int firstIndex, int lastIndex);
 
     DistanceAndTimeAggregator getDistanceAndTimeAggregator();
+    RouteStatistics getRouteStatistics();
     double[] getDistancesFromStart(int startIndex, int endIndex);
     double[] getDistancesFromStart(int[] indices);
     long[] getTimesFromStart(int startIndex, int endIndex);
@@ -77,6 +79,9 @@ public interface PositionsModel extends TableModel {
     void down(int[] rowIndices, int delta);
     void bottom(int[] rowIndices);
 
+    void beginBatch();
+    void commitBatch();
+
     boolean isContinousRange();
     void fireTableRowsUpdated(int firstIndex, int lastIndex, int columnIndex);
     void fireTableRowsUpdatedInContinousRange(int firstIndex, int lastIndex, int columnIndex);
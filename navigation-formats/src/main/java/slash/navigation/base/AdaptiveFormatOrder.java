@@ -0,0 +1,217 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import slash.common.io.RewindableInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+import static java.lang.Integer.parseInt;
+import static java.lang.String.format;
+
+/**
+ * Tries the {@link NavigationFormat}s first that accepted inputs with the same signature
+ * of extension and first bytes before. Since several formats may accept the same input,
+ * the promoted formats keep their order among each other and every tenth input with a
+ * signature is read in the given order again, so that a format which comes earlier in
+ * that order and accepts such inputs as well is learned and promoted, too.
+ * The counts are persisted in the preferences.
+ *
+ * @author Christian Pesch
+ */
+
+public class AdaptiveFormatOrder {
+    private static final Logger log = Logger.getLogger(AdaptiveFormatOrder.class.getName());
+    private static final int SIGNATURE_BYTE_COUNT = 4;
+    private static final int MAXIMUM_EXTENSION_LENGTH = 16;
+    private static final int MAXIMUM_FORMAT_COUNT = 8;
+    private static final int MAXIMUM_ACCEPTED_COUNT = 1000;
+    private static final int RECHECK_INTERVAL = 10;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final Preferences preferences;
+    private final Map<String, Map<String, Integer>> signatureToCounts = new HashMap<>();
+    private final Map<String, Integer> signatureToSortCount = new HashMap<>();
+
+    public AdaptiveFormatOrder() {
+        this(Preferences.userNodeForPackage(AdaptiveFormatOrder.class).node("adaptiveFormatOrder"));
+    }
+
+    public AdaptiveFormatOrder(Preferences preferences) {
+        this.preferences = preferences;
+    }
+
+    public static String createSignature(String extension, RewindableInput input) throws IOException {
+        byte[] bytes = new byte[64];
+        int length = 0, count;
+        try (InputStream inputStream = input.open()) {
+            while (length < bytes.length && (count = inputStream.read(bytes, length, bytes.length - length)) != -1)
+                length += count;
+        }
+        return createSignature(extension, bytes, length);
+    }
+
+    /**
+     * Returns the lower case extension and the first non-whitespace bytes where
+     * digits are replaced by 0 and non-printable bytes by a dot, so that inputs
+     * which differ only in their values get the same signature.
+     */
+    static String createSignature(String extension, byte[] bytes, int length) {
+        StringBuilder builder = new StringBuilder();
+        String lowerCaseExtension = extension != null ? extension.toLowerCase() : "";
+        builder.append(lowerCaseExtension.length() > MAXIMUM_EXTENSION_LENGTH ?
+                lowerCaseExtension.substring(0, MAXIMUM_EXTENSION_LENGTH) : lowerCaseExtension).append(':');
+
+        int index = startsWith(bytes, length, UTF8_BOM) ? UTF8_BOM.length : 0;
+        while (index < length && isWhitespace(bytes[index]))
+            index++;
+
+        for (int i = index; i < length && i < index + SIGNATURE_BYTE_COUNT; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9')
+                builder.append('0');
+            else if (b > 0x20 && b < 0x7F)
+                builder.append((char) b);
+            else
+                builder.append('.');
+        }
+        return builder.toString();
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+        if (length < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++)
+            if (bytes[i] != prefix[i])
+                return false;
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private Map<String, Integer> getCounts(String signature) {
+        Map<String, Integer> counts = signatureToCounts.get(signature);
+        if (counts == null) {
+            counts = parseCounts(preferences.get(signature, null));
+            signatureToCounts.put(signature, counts);
+        }
+        return counts;
+    }
+
+    private static Map<String, Integer> parseCounts(String value) {
+        Map<String, Integer> result = new HashMap<>();
+        if (value == null)
+            return result;
+
+        for (String entry : value.split(";")) {
+            int index = entry.lastIndexOf('=');
+            if (index == -1)
+                continue;
+            try {
+                result.put(entry.substring(0, index), parseInt(entry.substring(index + 1)));
+            } catch (NumberFormatException e) {
+                log.warning(format("Cannot parse adaptive format order entry %s", entry));
+            }
+        }
+        return result;
+    }
+
+    private static String formatCounts(List<Map.Entry<String, Integer>> entries) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : entries) {
+            if (builder.length() > 0)
+                builder.append(';');
+            builder.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static String getKey(NavigationFormat format) {
+        return format.getClass().getName();
+    }
+
+    private boolean isRecheck(String signature) {
+        Integer count = signatureToSortCount.get(signature);
+        int sortCount = count != null ? count + 1 : 1;
+        signatureToSortCount.put(signature, sortCount);
+        return sortCount % RECHECK_INTERVAL == 0;
+    }
+
+    /**
+     * Moves the formats that accepted inputs with the signature before to the front
+     * but keeps the given order among them and among the other formats.
+     */
+    public synchronized List<NavigationFormat> sort(String signature, List<NavigationFormat> formats) {
+        Map<String, Integer> counts = getCounts(signature);
+        if (counts.isEmpty() || isRecheck(signature))
+            return formats;
+
+        List<NavigationFormat> result = new ArrayList<>();
+        List<NavigationFormat> others = new ArrayList<>();
+        for (NavigationFormat format : formats) {
+            if (counts.containsKey(getKey(format)))
+                result.add(format);
+            else
+                others.add(format);
+        }
+        result.addAll(others);
+        return result;
+    }
+
+    public synchronized void accepted(String signature, NavigationFormat format) {
+        Map<String, Integer> counts = getCounts(signature);
+        String key = getKey(format);
+        Integer count = counts.get(key);
+        counts.put(key, count != null ? count + 1 : 1);
+
+        // halve the counts from time to time to let recent inputs outweigh old ones
+        int total = 0;
+        for (Integer value : counts.values())
+            total += value;
+        if (total > MAXIMUM_ACCEPTED_COUNT) {
+            for (Iterator<Map.Entry<String, Integer>> iterator = counts.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Integer> entry = iterator.next();
+                if (entry.getValue() > 1)
+                    entry.setValue(entry.getValue() / 2);
+                else
+                    iterator.remove();
+            }
+        }
+
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort(new Comparator<Map.Entry<String, Integer>>() {
+            public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                return e2.getValue() - e1.getValue();
+            }
+        });
+        if (entries.size() > MAXIMUM_FORMAT_COUNT) {
+            for (Map.Entry<String, Integer> entry : entries.subList(MAXIMUM_FORMAT_COUNT, entries.size()))
+                counts.remove(entry.getKey());
+            entries = entries.subList(0, MAXIMUM_FORMAT_COUNT);
+        }
+        preferences.put(signature, formatCounts(entries));
+    }
+}
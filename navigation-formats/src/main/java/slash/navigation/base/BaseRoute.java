@@ -163,22 +163,96 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         return positions.remove(index);
     }
 
+    /**
+     * Inserts the given positions in one pass so that they end up at the given ascending indices
+     *
+     * @param indices the ascending indices of the positions after the insertion
+     * @param positions the positions to insert in the order of the indices
+     */
+    public void insert(int[] indices, List<P> positions) {
+        List<P> existing = getPositions();
+        List<P> result = new ArrayList<>(existing.size() + positions.size());
+        Iterator<P> iterator = existing.iterator();
+        int next = 0;
+        for (int i = 0, c = existing.size() + positions.size(); i < c; i++) {
+            if (next < indices.length && indices[next] == i)
+                result.add(positions.get(next++));
+            else
+                result.add(iterator.next());
+        }
+        existing.clear();
+        existing.addAll(result);
+    }
+
+    /**
+     * Removes the positions at the given ascending indices in one pass
+     *
+     * @param indices the ascending indices of the positions to remove
+     * @return the removed positions in the order of the indices
+     */
+    public List<P> remove(int[] indices) {
+        BitSet bits = new BitSet(indices.length > 0 ? indices[indices.length - 1] + 1 : 0);
+        for (int index : indices)
+            bits.set(index);
+        return remove(bits);
+    }
+
+    /**
+     * Removes the positions at the set indices in one pass by moving the remaining
+     * positions to the front and truncating the list once
+     *
+     * @param indices the indices of the positions to remove
+     * @return the removed positions in the order of the indices
+     * @throws IndexOutOfBoundsException if an index is not a position of this route
+     */
+    public List<P> remove(BitSet indices) {
+        List<P> positions = getPositions();
+        if (indices.length() > positions.size())
+            throw new IndexOutOfBoundsException("Index " + (indices.length() - 1) + " out of bounds for " + positions.size() + " positions");
+        List<P> removed = new ArrayList<>(indices.cardinality());
+        if (positions instanceof RandomAccess) {
+            int count = 0;
+            for (int i = 0, c = positions.size(); i < c; i++) {
+                P position = positions.get(i);
+                if (indices.get(i))
+                    removed.add(position);
+                else {
+                    if (count != i)
+                        positions.set(count, position);
+                    count++;
+                }
+            }
+            positions.subList(count, positions.size()).clear();
+        } else {
+            Iterator<P> iterator = positions.iterator();
+            int index = 0;
+            while (iterator.hasNext()) {
+                P position = iterator.next();
+                if (indices.get(index++)) {
+                    removed.add(position);
+                    iterator.remove();
+                }
+            }
+        }
+        return removed;
+    }
+
     /**
      * Removes duplicate adjacent {@link #getPositions() positions} from this route, leaving
      * only distinct neighbours
      */
     public void removeDuplicates() {
-        List<P> positions = getPositions();
+        BitSet duplicates = new BitSet(getPositionCount());
         P previous = null;
         int index = 0;
-        while (index < positions.size()) {
-            P next = positions.get(index);
-            if (previous != null && (!next.hasCoordinates() || toDouble(next.calculateDistance(previous)) <= 0.0)) {
-                positions.remove(index);
-            } else
-                index++;
+        for (P next : getPositions()) {
+            if (previous != null && (!next.hasCoordinates() || toDouble(next.calculateDistance(previous)) <= 0.0))
+                duplicates.set(index);
+            index++;
             previous = next;
         }
+        if (!duplicates.isEmpty())
+            remove(duplicates);
     }
 
     public void ensureIncreasingTime() {
@@ -305,6 +379,14 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
         return index != -1 && index < positions.size() - 1 ? positions.get(index + 1) : null;
     }
 
+    /**
+     * Calculates the statistics of the current positions. The result is not cached since
+     * the positions may be modified in place; callers keep it and patch it on their edits.
+     */
+    public RouteStatistics createStatistics() {
+        return new RouteStatistics(getPositions());
+    }
+
     public long getTime() {
         CompactCalendar minimum = null, maximum = null;
         long totalTimeMilliSeconds = 0;
@@ -519,11 +601,8 @@ public abstract class BaseRoute<P extends BaseNavigationPosition, F extends Base
     }
 
     public void revert() {
-        List<P> positions = getPositions();
-        List<P> reverted = new ArrayList<>();
-        for (P position : positions) {
-            reverted.add(0, position);
-        }
+        List<P> reverted = new ArrayList<>(getPositions());
+        Collections.reverse(reverted);
         order(reverted);
 
         String routeName = getName();
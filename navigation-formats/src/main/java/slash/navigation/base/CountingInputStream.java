@@ -0,0 +1,86 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} which counts the bytes read from the underlying {@link InputStream}.
+ * Bytes which are read again after a {@link #reset()} are counted once.
+ *
+ * @author Christian Pesch
+ */
+
+class CountingInputStream extends FilterInputStream {
+    private long position = 0, markPosition = 0, count = 0;
+
+    CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the characters of a decoded text which have been read instead of the bytes of this stream.
+     */
+    long getCharacterCount() {
+        return 0;
+    }
+
+    private void advance(long bytes) {
+        position += bytes;
+        if (position > count)
+            count = position;
+    }
+
+    public int read() throws IOException {
+        int result = super.read();
+        if (result != -1)
+            advance(1);
+        return result;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        if (result != -1)
+            advance(result);
+        return result;
+    }
+
+    public long skip(long n) throws IOException {
+        long result = super.skip(n);
+        advance(result);
+        return result;
+    }
+
+    public synchronized void mark(int readLimit) {
+        super.mark(readLimit);
+        markPosition = position;
+    }
+
+    public synchronized void reset() throws IOException {
+        super.reset();
+        position = markPosition;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.io.*;
+
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Text which is decoded once with an encoding and split into lines the same way as
+ * {@link BufferedReader#readLine()} does, so that several {@link TextNavigationFormat}s
+ * can try to read it without decoding and splitting it again.
+ *
+ * @author Christian Pesch
+ */
+
+public class DecodedText {
+    private final char[] chars;
+    private final int length;
+    private final int[] lineStarts, lineEnds;
+    private final int lineCount;
+    private final String[] lines;
+    private int consumed = 0;
+
+    private DecodedText(char[] chars, int length) {
+        this.chars = chars;
+        this.length = length;
+
+        int[] starts = new int[16], ends = new int[16];
+        int count = 0, start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (c != '\n' && c != '\r')
+                continue;
+            if (count == starts.length) {
+                starts = copyOf(starts, count * 2);
+                ends = copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count++] = i;
+            if (c == '\r' && i + 1 < length && chars[i + 1] == '\n')
+                i++;
+            start = i + 1;
+        }
+        if (start < length) {
+            if (count == starts.length) {
+                starts = copyOf(starts, count + 1);
+                ends = copyOf(ends, count + 1);
+            }
+            starts[count] = start;
+            ends[count++] = length;
+        }
+        this.lineStarts = starts;
+        this.lineEnds = ends;
+        this.lineCount = count;
+        this.lines = new String[count];
+    }
+
+    public static DecodedText decode(InputStream source, String encoding) throws IOException {
+        Reader reader = new InputStreamReader(source, encoding);
+        char[] chars = new char[8192];
+        int length = 0, count;
+        while ((count = reader.read(chars, length, chars.length - length)) != -1) {
+            length += count;
+            if (length == chars.length)
+                chars = copyOf(chars, max(chars.length * 2, 8192));
+        }
+        return new DecodedText(chars, length);
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the line without its terminator, the same string for every call.
+     */
+    public String getLine(int index) {
+        String line = lines[index];
+        if (line == null) {
+            line = new String(chars, lineStarts[index], lineEnds[index] - lineStarts[index]);
+            lines[index] = line;
+        }
+        consumed = max(consumed, index + 1 < lineCount ? lineStarts[index + 1] : length);
+        return line;
+    }
+
+    public BufferedReader createReader() {
+        consumed = length;
+        return new BufferedReader(new CharArrayReader(chars, 0, length));
+    }
+
+    /**
+     * Returns the characters up to the end of the last line requested since the last reset.
+     */
+    int getConsumed() {
+        return consumed;
+    }
+
+    void resetConsumed() {
+        consumed = 0;
+    }
+}
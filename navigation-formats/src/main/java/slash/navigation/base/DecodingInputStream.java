@@ -0,0 +1,65 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.io.RewindableInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static slash.navigation.base.DecodedText.decode;
+
+/**
+ * An {@link InputStream} of a {@link RewindableInput} which gives {@link TextNavigationFormat}s
+ * access to the {@link DecodedText} of the input that is shared by all formats that try it.
+ *
+ * @author Christian Pesch
+ */
+
+class DecodingInputStream extends CountingInputStream {
+    private final RewindableInput input;
+    private final Map<String, DecodedText> texts;
+    private DecodedText text;
+
+    DecodingInputStream(RewindableInput input, Map<String, DecodedText> texts) throws IOException {
+        super(input.open());
+        this.input = input;
+        this.texts = texts;
+    }
+
+    DecodedText getText(String encoding) throws IOException {
+        DecodedText text = texts.get(encoding);
+        if (text == null) {
+            try (InputStream source = input.open()) {
+                text = decode(source, encoding);
+            }
+            texts.put(encoding, text);
+        }
+        text.resetConsumed();
+        this.text = text;
+        return text;
+    }
+
+    long getCharacterCount() {
+        return text != null ? text.getConsumed() : 0;
+    }
+}
@@ -40,6 +40,13 @@ public class FormatAndRoutes<F extends BaseNavigationFormat,R extends BaseRoute,
         this.routes = new ArrayList<>(routes);
     }
 
+    @SuppressWarnings("unchecked")
+    FormatAndRoutes(NavigationFormat<R> format, LazyRouteList routes) {
+        this.format = format;
+        // keep the routes which are converted on first access
+        this.routes = (List) routes;
+    }
+
     @SuppressWarnings("unchecked")
     public FormatAndRoutes(NavigationFormat<R> format, BaseRoute<P,F> route) {
         this(format, singletonList(route));
@@ -0,0 +1,120 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link List} of {@link BaseRoute}s which converts the routes read from a file
+ * not before they are accessed for the first time.
+ *
+ * @author Christian Pesch
+ */
+
+public class LazyRouteList extends AbstractList<BaseRoute> {
+    private final List<Object> routes;
+    private final Conversion conversion;
+
+    LazyRouteList(List<BaseRoute> sources, Conversion conversion) {
+        this.routes = new ArrayList<>(sources.size());
+        for (BaseRoute source : sources)
+            routes.add(new Unconverted(source));
+        this.conversion = conversion;
+    }
+
+    interface Conversion {
+        BaseRoute convert(BaseRoute source) throws IOException;
+    }
+
+    private static class Unconverted {
+        private final BaseRoute source;
+
+        private Unconverted(BaseRoute source) {
+            this.source = source;
+        }
+    }
+
+    public synchronized BaseRoute get(int index) {
+        Object route = routes.get(index);
+        if (route instanceof Unconverted) {
+            BaseRoute source = ((Unconverted) route).source;
+            try {
+                route = conversion.convert(source);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot convert route " + source, e);
+            }
+            routes.set(index, route);
+        }
+        return (BaseRoute) route;
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    public synchronized BaseRoute set(int index, BaseRoute route) {
+        BaseRoute previous = get(index);
+        routes.set(index, route);
+        return previous;
+    }
+
+    public synchronized void add(int index, BaseRoute route) {
+        routes.add(index, route);
+        modCount++;
+    }
+
+    public synchronized BaseRoute remove(int index) {
+        BaseRoute previous = get(index);
+        routes.remove(index);
+        modCount++;
+        return previous;
+    }
+
+    public synchronized int indexOf(Object route) {
+        // routes compare by value, thus the routes before the found one have to be converted
+        for (int i = 0, c = routes.size(); i < c; i++) {
+            if (get(i).equals(route))
+                return i;
+        }
+        return -1;
+    }
+
+    public synchronized int lastIndexOf(Object route) {
+        for (int i = routes.size() - 1; i >= 0; i--) {
+            if (get(i).equals(route))
+                return i;
+        }
+        return -1;
+    }
+
+    public synchronized boolean isConverted(int index) {
+        return !(routes.get(index) instanceof Unconverted);
+    }
+
+    public synchronized RouteCharacteristics getCharacteristics(int index) {
+        Object route = routes.get(index);
+        return route instanceof Unconverted ? ((Unconverted) route).source.getCharacteristics() : ((BaseRoute) route).getCharacteristics();
+    }
+}
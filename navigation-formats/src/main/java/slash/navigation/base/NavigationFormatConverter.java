@@ -25,7 +25,9 @@ import slash.navigation.common.NavigationPosition;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static slash.common.io.Transfer.trim;
 
@@ -76,6 +78,23 @@ public class NavigationFormatConverter {
         return result;
     }
 
+    /**
+     * Checks that the given routes can be converted to the given format without converting them.
+     */
+    public static void checkAsFormat(List<BaseRoute> routes, NavigationFormat format) throws IOException {
+        String formatName = getFormatName(format);
+        Set<Class<?>> checked = new HashSet<>();
+        for (BaseRoute route : routes) {
+            if (!checked.add(route.getClass()))
+                continue;
+            try {
+                route.getClass().getMethod("as" + formatName);
+            } catch (NoSuchMethodException e) {
+                throw new IOException("Cannot call as" + formatName + "() on " + route, e);
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static BaseRoute<BaseNavigationPosition, BaseNavigationFormat> asFormat(BaseRoute route, NavigationFormat format) throws IOException {
         BaseRoute<BaseNavigationPosition, BaseNavigationFormat> result;
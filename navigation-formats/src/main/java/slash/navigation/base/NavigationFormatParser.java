@@ -20,7 +20,7 @@
 
 package slash.navigation.base;
 
-import slash.common.io.NotClosingUnderlyingInputStream;
+import slash.common.io.RewindableInput;
 import slash.common.type.CompactCalendar;
 import slash.navigation.babel.BabelFormat;
 import slash.navigation.bcr.BcrFormat;
@@ -35,23 +35,39 @@ import slash.navigation.rest.Get;
 import slash.navigation.tcx.TcxFormat;
 
 import java.io.*;
+import java.lang.management.ThreadMXBean;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.Logger;
 
 import static java.io.File.separatorChar;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.management.ManagementFactory.getThreadMXBean;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static slash.common.helpers.ThreadHelper.createFixedThreadPool;
 import static slash.common.io.Files.getExtension;
+import static slash.common.io.RewindableInput.fromFile;
+import static slash.common.io.RewindableInput.spool;
 import static slash.common.io.Transfer.ceiling;
 import static slash.common.type.CompactCalendar.UTC;
 import static slash.common.type.CompactCalendar.fromCalendar;
+import static slash.navigation.base.AdaptiveFormatOrder.createSignature;
 import static slash.navigation.base.NavigationFormatConverter.asFormat;
-import static slash.navigation.base.NavigationFormatConverter.convertRoute;
+import static slash.navigation.base.NavigationFormatConverter.checkAsFormat;
+import static slash.navigation.base.ReadAttempt.Outcome.Accepted;
+import static slash.navigation.base.ReadAttempt.Outcome.Failed;
+import static slash.navigation.base.ReadAttempt.Outcome.Rejected;
 import static slash.navigation.base.RouteComments.*;
 import static slash.navigation.url.GoogleMapsUrlFormat.isGoogleMapsProfileUrl;
 
@@ -64,8 +80,13 @@ import static slash.navigation.url.GoogleMapsUrlFormat.isGoogleMapsProfileUrl;
 public class NavigationFormatParser {
     private static final Logger log = Logger.getLogger(NavigationFormatParser.class.getName());
     private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final long MAXIMUM_DECODED_TEXT_SIZE = 16 * 1024 * 1024;
+    private static final int MAXIMUM_WRITE_THREAD_COUNT = max(1, min(4, getRuntime().availableProcessors()));
+    private static final ThreadMXBean threadMXBean = getThreadMXBean();
     private final NavigationFormatRegistry navigationFormatRegistry;
     private final List<NavigationFormatParserListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ReadAttemptListener> attemptListeners = new CopyOnWriteArrayList<>();
 
     public NavigationFormatParser(NavigationFormatRegistry navigationFormatRegistry) {
         this.navigationFormatRegistry = navigationFormatRegistry;
@@ -89,6 +110,33 @@ public class NavigationFormatParser {
         }
     }
 
+    public void addReadAttemptListener(ReadAttemptListener listener) {
+        attemptListeners.add(listener);
+    }
+
+    public void removeReadAttemptListener(ReadAttemptListener listener) {
+        attemptListeners.remove(listener);
+    }
+
+    private void notifyAttempted(NavigationFormat<BaseRoute> format, ReadAttempt.Outcome outcome, long bytesConsumed,
+                                 long charactersConsumed, long wallTime, long cpuTime, List<BaseRoute> routes) {
+        if (attemptListeners.isEmpty())
+            return;
+
+        int positionCount = 0;
+        for (BaseRoute route : routes)
+            if (route != null)
+                positionCount += route.getPositionCount();
+        ReadAttempt attempt = new ReadAttempt(format, outcome, bytesConsumed, charactersConsumed, wallTime, cpuTime, routes.size(), positionCount);
+        for (ReadAttemptListener listener : attemptListeners) {
+            listener.attempted(attempt);
+        }
+    }
+
+    private static long getCurrentThreadCpuTime() {
+        return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
     private List<Integer> getPositionCounts(List<BaseRoute> routes) {
         List<Integer> positionCounts = new ArrayList<>();
         for (BaseRoute route : routes)
@@ -98,55 +146,92 @@ public class NavigationFormatParser {
         return positionCounts;
     }
 
+    private CountingInputStream open(RewindableInput input, Map<String, DecodedText> texts) throws IOException {
+        return input.getSize() <= MAXIMUM_DECODED_TEXT_SIZE ? new DecodingInputStream(input, texts) : new CountingInputStream(input.open());
+    }
+
+    /**
+     * Reads the input with the formats in the given order if the extension is null and
+     * else tries the formats that accepted similar inputs before first.
+     */
     @SuppressWarnings("unchecked")
-    private void internalRead(InputStream buffer, List<NavigationFormat> formats, ParserContext context) throws IOException {
+    private void internalRead(RewindableInput input, List<NavigationFormat> formats, String extension, ParserContext context) {
+        AdaptiveFormatOrder adaptiveFormatOrder = extension != null ? getNavigationFormatRegistry().getAdaptiveFormatOrder() : null;
+        String signature = null;
+        if (adaptiveFormatOrder != null) {
+            try {
+                signature = createSignature(extension, input);
+                formats = adaptiveFormatOrder.sort(signature, formats);
+            } catch (IOException e) {
+                log.warning(format("Cannot create signature of %s: %s", input, e));
+            }
+        }
+
         int routeCountBefore = context.getRoutes().size();
         NavigationFormat firstSuccessfulFormat = null;
+        Map<String, DecodedText> texts = new HashMap<>();
 
-        try {
-            for (NavigationFormat<BaseRoute> format : formats) {
-                notifyReading(format);
+        for (NavigationFormat<BaseRoute> format : formats) {
+            notifyReading(format);
 
-                log.fine(format("Trying to read with %s", format));
-                try {
-                    format.read(buffer, context);
+            log.fine(format("Trying to read with %s", format));
+            int routeCountBeforeFormat = context.getRoutes().size();
+            ReadAttempt.Outcome outcome = Rejected;
+            long bytesConsumed = 0, charactersConsumed = 0, wallTimeStart = nanoTime(), cpuTimeStart = getCurrentThreadCpuTime();
 
-                    // if no route has been read, take the first that didn't throw an exception
-                    if (firstSuccessfulFormat == null)
-                        firstSuccessfulFormat = format;
-                } catch (Exception e) {
-                    log.severe(format("Error reading with %s: %s", format, e));
+            // every format reads a fresh stream from the beginning of the input
+            try (CountingInputStream source = open(input, texts)) {
+                try {
+                    format.read(source, context);
+                } finally {
+                    bytesConsumed = source.getCount();
+                    charactersConsumed = source.getCharacterCount();
                 }
 
-                if (context.getRoutes().size() > routeCountBefore) {
-                    context.addFormat(format);
-                    break;
-                }
+                // if no route has been read, take the first that didn't throw an exception
+                if (firstSuccessfulFormat == null)
+                    firstSuccessfulFormat = format;
+            } catch (FormatRejectedException e) {
+                log.fine(format("%s rejected input: %s", format, e.getMessage()));
+            } catch (Exception e) {
+                outcome = Failed;
+                log.severe(format("Error reading with %s: %s", format, e));
+            }
 
-                try {
-                    buffer.reset();
-                } catch (IOException e) {
-                    log.severe("Cannot reset() stream to mark()");
-                    break;
-                }
+            long cpuTimeEnd = getCurrentThreadCpuTime();
+            List<BaseRoute> routes = context.getRoutes();
+            if (routes.size() > routeCountBeforeFormat)
+                outcome = Accepted;
+            notifyAttempted(format, outcome, bytesConsumed, charactersConsumed, nanoTime() - wallTimeStart,
+                    cpuTimeStart >= 0 && cpuTimeEnd >= 0 ? cpuTimeEnd - cpuTimeStart : -1,
+                    routes.subList(routeCountBeforeFormat, routes.size()));
+
+            if (context.getRoutes().size() > routeCountBefore) {
+                context.addFormat(format);
+                if (signature != null)
+                    adaptiveFormatOrder.accepted(signature, format);
+                break;
             }
-        } finally {
-            buffer.close();
         }
 
         if (context.getRoutes().size() == 0 && context.getFormats().size() == 0 && firstSuccessfulFormat != null)
             context.addFormat(firstSuccessfulFormat);
     }
 
-    public ParserResult read(File source, List<NavigationFormat> formats) throws IOException {
+    private ParserResult read(File source, List<NavigationFormat> formats, String extension) throws IOException {
         log.info("Reading '" + source.getAbsolutePath() + "' by " + formats.size() + " formats");
-        try (InputStream inputStream = new FileInputStream(source)) {
-            return read(inputStream, (int) source.length(), extractStartDate(source), source, formats);
+        try (RewindableInput input = fromFile(source)) {
+            return read(input, extractStartDate(source), source, formats, extension);
         }
     }
 
+    public ParserResult read(File source, List<NavigationFormat> formats) throws IOException {
+        return read(source, formats, null);
+    }
+
     public ParserResult read(File source) throws IOException {
-        return read(source, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(getExtension(source)));
+        String extension = getExtension(source);
+        return read(source, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(extension), extension);
     }
 
     private NavigationFormat determineFormat(List<BaseRoute> routes, NavigationFormat preferredFormat) {
@@ -171,17 +256,14 @@ public class NavigationFormatParser {
     }
 
     @SuppressWarnings("unchecked")
-    private void commentRoutes(List<BaseRoute> routes) {
-        commentRoutePositions(routes);
-        for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
-            commentRouteName(route);
-        }
+    private BaseRoute commentRoute(BaseRoute route, PositionDefaults defaults) {
+        commentRoutePositions(route, defaults);
+        commentRouteName(route);
+        return route;
     }
 
-    @SuppressWarnings("unchecked")
     private void commentRoute(BaseRoute route) {
-        commentPositions(route.getPositions());
-        commentRouteName(route);
+        commentRoute(route, null);
     }
 
     @SuppressWarnings("unchecked")
@@ -190,12 +272,16 @@ public class NavigationFormatParser {
         // if (source != null && source.size() > 0) {
         if (source != null && context.getFormats().size() > 0) {
             NavigationFormat format = determineFormat(source, context.getFormats().get(0));
-            List<BaseRoute> destination = convertRoute(source, format);
-            log.info("Detected '" + format.getName() + "' with " + destination.size() + " route(s) and " +
-                    getPositionCounts(destination) + " positions");
+            log.info("Detected '" + format.getName() + "' with " + source.size() + " route(s) and " +
+                    getPositionCounts(source) + " positions");
+            // convert and comment the routes when they are accessed since often just the first one is displayed
+            checkAsFormat(source, format);
+            PositionDefaults defaults = createPositionDefaults(source);
+            LazyRouteList destination = new LazyRouteList(source, route -> commentRoute(asFormat(route, format), defaults));
             if (destination.size() == 0)
-                destination.add(format.createRoute(RouteCharacteristics.Route, null, new ArrayList<>()));
-            commentRoutes(destination);
+                destination.add(commentRoute(format.createRoute(RouteCharacteristics.Route, null, new ArrayList<>()), null));
+            else
+                destination.get(0);
             return new ParserResult(new FormatAndRoutes(format, destination));
         } else
             return new ParserResult(null);
@@ -208,38 +294,35 @@ public class NavigationFormatParser {
 
         public void parse(InputStream inputStream, CompactCalendar startDate, String preferredExtension) throws IOException {
             internalSetStartDate(startDate);
-            internalRead(inputStream, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(preferredExtension), this);
+            try (RewindableInput input = spool(inputStream, READ_BUFFER_SIZE)) {
+                internalRead(input, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(preferredExtension), preferredExtension, this);
+            }
         }
 
         public void parse(String urlString) throws IOException {
             // replace CWD with current working directory for easier testing
             urlString = urlString.replace("CWD", new File(".").getCanonicalPath()).replace(separatorChar, '/');
             URL url = new URL(urlString);
-            int readBufferSize = getSize(url);
-            log.info("Reading '" + url + "' with a buffer of " + readBufferSize + " bytes");
-            NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(openStream(url)));
-            buffer.mark(readBufferSize + 1);
-            try {
+            try (RewindableInput input = createInput(url)) {
+                log.info("Reading '" + url + "' from " + input);
                 CompactCalendar startDate = extractStartDate(url);
                 internalSetStartDate(startDate);
-                internalRead(buffer, getNavigationFormatRegistry().getReadFormats(), this);
-            } finally {
-                buffer.closeUnderlyingInputStream();
+                internalRead(input, getNavigationFormatRegistry().getReadFormats(), getExtension(url), this);
             }
         }
     }
 
-    private ParserResult read(InputStream source, int readBufferSize, CompactCalendar startDate, File file,
-                              List<NavigationFormat> formats) throws IOException {
-        log.fine("Reading '" + source + "' with a buffer of " + readBufferSize + " bytes by " + formats.size() + " formats");
-        NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(source));
-        buffer.mark(readBufferSize + 1);
-        try {
-            ParserContext<BaseRoute> context = new InternalParserContext<>(file, startDate);
-            internalRead(buffer, formats, context);
-            return createResult(context);
-        } finally {
-            buffer.closeUnderlyingInputStream();
+    private ParserResult read(RewindableInput input, CompactCalendar startDate, File file,
+                              List<NavigationFormat> formats, String extension) throws IOException {
+        log.fine("Reading '" + input + "' by " + formats.size() + " formats");
+        ParserContext<BaseRoute> context = new InternalParserContext<>(file, startDate);
+        internalRead(input, formats, extension, context);
+        return createResult(context);
+    }
+
+    private RewindableInput spoolAndClose(InputStream source) throws IOException {
+        try (InputStream inputStream = source) {
+            return spool(inputStream, READ_BUFFER_SIZE);
         }
     }
 
@@ -247,23 +330,22 @@ public class NavigationFormatParser {
         return read(new ByteArrayInputStream(source.getBytes()));
     }
 
+    /**
+     * Reads the stream and learns the order of the formats like for files without extension
+     * since the first bytes of a stream tell its format apart as well as those of a file.
+     */
     public ParserResult read(InputStream source) throws IOException {
-        return read(source, getNavigationFormatRegistry().getReadFormats());
+        return read(source, getNavigationFormatRegistry().getReadFormats(), "");
     }
 
-    public ParserResult read(InputStream source, List<NavigationFormat> formats) throws IOException {
-        return read(source, READ_BUFFER_SIZE, null, null, formats);
+    private ParserResult read(InputStream source, List<NavigationFormat> formats, String extension) throws IOException {
+        try (RewindableInput input = spoolAndClose(source)) {
+            return read(input, null, null, formats, extension);
+        }
     }
 
-    private int getSize(URL url) throws IOException {
-        try {
-            if (url.getProtocol().equals("file"))
-                return (int) new File(url.toURI()).length();
-            else
-                return READ_BUFFER_SIZE;
-        } catch (URISyntaxException e) {
-            throw new IOException("Cannot determine file from URL: " + e);
-        }
+    public ParserResult read(InputStream source, List<NavigationFormat> formats) throws IOException {
+        return read(source, formats, null);
     }
 
     private CompactCalendar extractStartDate(File file) {
@@ -299,24 +381,34 @@ public class NavigationFormatParser {
         return null;
     }
 
-    public ParserResult read(URL url, List<NavigationFormat> formats) throws IOException {
+    private ParserResult read(URL url, List<NavigationFormat> formats, String extension) throws IOException {
         BaseUrlParsingFormat urlParsingFormat = getUrlParsingFormat(url.toExternalForm());
         if(urlParsingFormat != null) {
             List<NavigationFormat> readFormats = new ArrayList<>(formats);
             readFormats.add(0, urlParsingFormat);
-            byte[] bytes = url.toExternalForm().getBytes();
-            return read(new ByteArrayInputStream(bytes), bytes.length, null, null, readFormats);
+            return read(new ByteArrayInputStream(url.toExternalForm().getBytes()), readFormats);
         }
 
         if (isGoogleMapsProfileUrl(url)) {
             url = new URL(url.toExternalForm() + "&output=kml");
             formats = new ArrayList<>(formats);
             formats.add(0, new Kml22Format());
+            extension = null;
         }
 
-        int readBufferSize = getSize(url);
-        log.info("Reading '" + url + "' with a buffer of " + readBufferSize + " bytes");
-        return read(openStream(url), readBufferSize, extractStartDate(url), extractFile(url), formats);
+        try (RewindableInput input = createInput(url)) {
+            log.info("Reading '" + url + "' from " + input);
+            return read(input, extractStartDate(url), extractFile(url), formats, extension);
+        }
+    }
+
+    public ParserResult read(URL url, List<NavigationFormat> formats) throws IOException {
+        return read(url, formats, null);
+    }
+
+    private RewindableInput createInput(URL url) throws IOException {
+        File file = extractFile(url);
+        return file != null ? fromFile(file) : spoolAndClose(openStream(url));
     }
 
    private InputStream openStream(URL url) throws IOException {
@@ -330,7 +422,8 @@ public class NavigationFormatParser {
     }
 
     public ParserResult read(URL url) throws IOException {
-        return read(url, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(getExtension(url)));
+        String extension = getExtension(url);
+        return read(url, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(extension), extension);
     }
 
 
@@ -338,12 +431,16 @@ public class NavigationFormatParser {
         return ceiling(route.getPositionCount() + (duplicateFirstPosition ? 1 : 0), format.getMaximumPositionCount(), true);
     }
 
+    public void write(BaseRoute route, NavigationFormat format, File target) throws IOException {
+        write(route, format, false, false, null, target);
+    }
+
     @SuppressWarnings("unchecked")
-    private void write(BaseRoute route, NavigationFormat format,
-                       boolean duplicateFirstPosition,
-                       boolean ignoreMaximumPositionCount,
-                       ParserCallback parserCallback,
-                       OutputStream... targets) throws IOException {
+    public void write(BaseRoute route, NavigationFormat format,
+                      boolean duplicateFirstPosition,
+                      boolean ignoreMaximumPositionCount,
+                      ParserCallback parserCallback,
+                      File... targets) throws IOException {
         log.info("Writing '" + format.getName() + "' position lists with 1 route and " + route.getPositionCount() + " positions");
 
         BaseRoute routeToWrite = asFormat(route, format);
@@ -362,38 +459,181 @@ public class NavigationFormatParser {
                         " format may only contain " + writeInOneChunk + " positions in one position list.");
         }
 
-        int startIndex = 0;
-        for (int i = 0; i < targets.length; i++) {
-            OutputStream target = targets[i];
+        // PhotoFormat modifies target in place since it needs the image date,
+        // so we don't create a FileOutputStream to avoid zeroing the file
+        if (format instanceof PhotoFormat)
+            writeInPlace(route, routeToWrite, format, positionsToWrite, writeInOneChunk, targets.length);
+        else
+            writeToTemporaryFiles(route, routeToWrite, format, positionsToWrite, writeInOneChunk, targets);
+
+        postProcessRoute(routeToWrite, format, duplicateFirstPosition);
+        for (File target : targets)
+            log.info("Wrote '" + target.getAbsolutePath() + "'");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeInPlace(BaseRoute route, BaseRoute routeToWrite, NavigationFormat format,
+                              int positionsToWrite, int writeInOneChunk, int targetCount) throws IOException {
+        for (int i = 0; i < targetCount; i++) {
+            int startIndex = i * writeInOneChunk;
             int endIndex = min(startIndex + writeInOneChunk, positionsToWrite);
-            renameRoute(route, routeToWrite, startIndex, endIndex, i, targets);
-            format.write(routeToWrite, target, startIndex, endIndex);
+            renameRoute(route, routeToWrite, startIndex, endIndex, i, targetCount);
+            format.write(routeToWrite, null, startIndex, endIndex);
             log.info("Wrote position list from " + startIndex + " to " + endIndex);
-            startIndex += writeInOneChunk;
         }
+    }
 
-        postProcessRoute(routeToWrite, format, duplicateFirstPosition);
+    private void writeToTemporaryFiles(BaseRoute route, BaseRoute routeToWrite, NavigationFormat format,
+                                       int positionsToWrite, int writeInOneChunk, File... targets) throws IOException {
+        File[] temporaries = new File[targets.length];
+        for (int i = 0; i < targets.length; i++)
+            temporaries[i] = createTemporaryFile(targets[i]);
+
+        try {
+            // renamed chunks share the name of the route to write and thus cannot be written concurrently
+            NavigationFormat[] formats = targets.length > 1 && !isRenamedPerChunk(route, routeToWrite) ?
+                    createFormatInstances(format, temporaries.length) : null;
+            if (formats != null)
+                writeChunksConcurrently(routeToWrite, formats, positionsToWrite, writeInOneChunk, temporaries);
+            else
+                writeChunksSequentially(route, routeToWrite, format, positionsToWrite, writeInOneChunk, temporaries);
+
+            renameTemporaryFiles(temporaries, targets);
+        } finally {
+            for (File temporary : temporaries)
+                deleteTemporaryFile(temporary);
+        }
     }
 
-    public void write(BaseRoute route, NavigationFormat format, File target) throws IOException {
-        write(route, format, false, false, null, target);
+    private void writeChunksSequentially(BaseRoute route, BaseRoute routeToWrite, NavigationFormat format,
+                                         int positionsToWrite, int writeInOneChunk, File... temporaries) throws IOException {
+        for (int i = 0; i < temporaries.length; i++) {
+            int startIndex = i * writeInOneChunk;
+            int endIndex = min(startIndex + writeInOneChunk, positionsToWrite);
+            renameRoute(route, routeToWrite, startIndex, endIndex, i, temporaries.length);
+            writeChunk(routeToWrite, format, temporaries[i], startIndex, endIndex);
+        }
     }
 
-    public void write(BaseRoute route, NavigationFormat format,
-                      boolean duplicateFirstPosition,
-                      boolean ignoreMaximumPositionCount,
-                      ParserCallback parserCallback,
-                      File... targets) throws IOException {
-        OutputStream[] targetStreams = new OutputStream[targets.length];
-        for (int i = 0; i < targets.length; i++) {
-            // PhotoFormat modifies target in place since it needs the image date,
-            // so we don't create a FileOutputStream to avoid zeroing the file
-            if (!(format instanceof PhotoFormat))
-                targetStreams[i] = new FileOutputStream(targets[i]);
-        }
-        write(route, format, duplicateFirstPosition, ignoreMaximumPositionCount, parserCallback, targetStreams);
-        for (File target : targets)
-            log.info("Wrote '" + target.getAbsolutePath() + "'");
+    private NavigationFormat[] createFormatInstances(NavigationFormat format, int count) {
+        // formats may keep state while writing, so every chunk gets its own instance
+        NavigationFormat[] formats = new NavigationFormat[count];
+        try {
+            for (int i = 0; i < count; i++)
+                formats[i] = format.getClass().getDeclaredConstructor().newInstance();
+            return formats;
+        } catch (Exception e) {
+            log.fine("Cannot instantiate " + format.getClass() + ", writing chunks sequentially: " + e);
+            return null;
+        }
+    }
+
+    private void writeChunksConcurrently(final BaseRoute routeToWrite, final NavigationFormat[] formats,
+                                         int positionsToWrite, int writeInOneChunk, File... temporaries) throws IOException {
+        NavigationFormat format = formats[0];
+        ExecutorService executor = createFixedThreadPool("NavigationFormatWriter",
+                min(temporaries.length, MAXIMUM_WRITE_THREAD_COUNT));
+        try {
+            List<Future<Void>> futures = new ArrayList<>(temporaries.length);
+            for (int i = 0; i < temporaries.length; i++) {
+                final File temporary = temporaries[i];
+                final NavigationFormat chunkFormat = formats[i];
+                final int startIndex = i * writeInOneChunk;
+                final int endIndex = min(startIndex + writeInOneChunk, positionsToWrite);
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws IOException {
+                        writeChunk(routeToWrite, chunkFormat, temporary, startIndex, endIndex);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while writing " + format.getName());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException("Cannot write " + format.getName() + ": " + cause, cause);
+        } finally {
+            executor.shutdownNow();
+            // the temporary files are deleted after a failure, so no chunk may be written anymore
+            try {
+                if (!executor.awaitTermination(1, MINUTES))
+                    log.warning("Writing " + format.getName() + " did not terminate");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeChunk(BaseRoute routeToWrite, NavigationFormat format, File temporary,
+                            int startIndex, int endIndex) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temporary), WRITE_BUFFER_SIZE)) {
+            format.write(routeToWrite, outputStream, startIndex, endIndex);
+        }
+        log.info("Wrote position list from " + startIndex + " to " + endIndex);
+    }
+
+    private File createTemporaryFile(File target) {
+        return new File(target.getAbsoluteFile().getParentFile(), target.getName() + ".tmp");
+    }
+
+    private void moveFile(File source, File target) throws IOException {
+        try {
+            move(source.toPath(), target.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            move(source.toPath(), target.toPath(), REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Replaces the targets with the temporary files. If one of them cannot be
+     * replaced, the targets written so far are restored from their backups.
+     */
+    private void renameTemporaryFiles(File[] temporaries, File[] targets) throws IOException {
+        if (targets.length == 1) {
+            moveFile(temporaries[0], targets[0]);
+            return;
+        }
+
+        File[] backups = new File[targets.length];
+        boolean[] renamed = new boolean[targets.length];
+        try {
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i].isFile()) {
+                    File backup = new File(temporaries[i].getParentFile(), targets[i].getName() + ".bak");
+                    moveFile(targets[i], backup);
+                    backups[i] = backup;
+                }
+                moveFile(temporaries[i], targets[i]);
+                renamed[i] = true;
+            }
+        } catch (IOException e) {
+            for (int i = 0; i < targets.length; i++) {
+                try {
+                    if (backups[i] != null)
+                        moveFile(backups[i], targets[i]);
+                    else if (renamed[i])
+                        delete(targets[i].toPath());
+                } catch (IOException e2) {
+                    log.severe(format("Cannot restore %s: %s", targets[i], e2));
+                }
+            }
+            throw new IOException(format("Cannot rename temporary files to %s: %s", targets[0].getParentFile(), e), e);
+        }
+
+        for (File backup : backups)
+            if (backup != null)
+                deleteTemporaryFile(backup);
+    }
+
+    private void deleteTemporaryFile(File temporary) {
+        if (temporary.exists() && !temporary.delete())
+            temporary.deleteOnExit();
     }
 
 
@@ -419,13 +659,17 @@ public class NavigationFormatParser {
             parserCallback.process(routeToWrite, format);
     }
 
+    private boolean isRenamedPerChunk(BaseRoute route, BaseRoute routeToWrite) {
+        return route.getFormat() instanceof TomTomRouteFormat || route.getFormat() instanceof SimpleFormat ||
+                route.getFormat() instanceof GpxFormat && routeToWrite.getFormat() instanceof BcrFormat;
+    }
+
     @SuppressWarnings("unchecked")
-    private void renameRoute(BaseRoute route, BaseRoute routeToWrite, int startIndex, int endIndex, int trackIndex, OutputStream... targets) {
+    private void renameRoute(BaseRoute route, BaseRoute routeToWrite, int startIndex, int endIndex, int trackIndex, int trackCount) {
         // gives splitted TomTomRoute and SimpleRoute routes a more useful name for the fragment
-        if (route.getFormat() instanceof TomTomRouteFormat || route.getFormat() instanceof SimpleFormat ||
-                route.getFormat() instanceof GpxFormat && routeToWrite.getFormat() instanceof BcrFormat) {
+        if (isRenamedPerChunk(route, routeToWrite)) {
             String name = createRouteName(routeToWrite.getPositions().subList(startIndex, endIndex));
-            if (targets.length > 1)
+            if (trackCount > 1)
                 name = "Track" + (trackIndex + 1) + ": " + name;
             routeToWrite.setName(name);
         }
@@ -451,9 +695,15 @@ public class NavigationFormatParser {
             postProcessRoute(routeToWrite, format, false);
         }
 
-        try (OutputStream outputStream = new FileOutputStream(target)) {
-            format.write(routesToWrite, outputStream);
+        File temporary = createTemporaryFile(target);
+        try {
+            try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(temporary), WRITE_BUFFER_SIZE)) {
+                format.write(routesToWrite, outputStream);
+            }
+            moveFile(temporary, target);
             log.info("Wrote '" + target.getAbsolutePath() + "'");
+        } finally {
+            deleteTemporaryFile(temporary);
         }
     }
 }
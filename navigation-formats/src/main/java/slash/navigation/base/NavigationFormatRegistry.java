@@ -87,6 +87,7 @@ import static java.util.Arrays.sort;
 
 public class NavigationFormatRegistry {
     private final List<Class<? extends NavigationFormat>> formats = new ArrayList<>();
+    private AdaptiveFormatOrder adaptiveFormatOrder;
 
     public NavigationFormatRegistry() {
         // self-implemented formats
@@ -219,6 +220,17 @@ public class NavigationFormatRegistry {
         formats.add(format);
     }
 
+    public AdaptiveFormatOrder getAdaptiveFormatOrder() {
+        return adaptiveFormatOrder;
+    }
+
+    /**
+     * Enables to try the formats that accepted similar inputs before first if not null.
+     */
+    public void setAdaptiveFormatOrder(AdaptiveFormatOrder adaptiveFormatOrder) {
+        this.adaptiveFormatOrder = adaptiveFormatOrder;
+    }
+
     protected boolean includeReadFormat(NavigationFormat format) {
         return true;
     }
@@ -0,0 +1,105 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+/**
+ * Reports the result of one {@link NavigationFormat} trying to read an input.
+ *
+ * @author Christian Pesch
+ */
+
+public class ReadAttempt {
+    /**
+     * Accepted if the format read routes, Rejected if it read none and Failed if it threw an exception.
+     */
+    public enum Outcome {
+        Accepted, Rejected, Failed
+    }
+
+    private final NavigationFormat format;
+    private final Outcome outcome;
+    private final long bytesConsumed, charactersConsumed, wallTime, cpuTime;
+    private final int routeCount, positionCount;
+
+    public ReadAttempt(NavigationFormat format, Outcome outcome, long bytesConsumed, long charactersConsumed,
+                       long wallTime, long cpuTime, int routeCount, int positionCount) {
+        this.format = format;
+        this.outcome = outcome;
+        this.bytesConsumed = bytesConsumed;
+        this.charactersConsumed = charactersConsumed;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+        this.routeCount = routeCount;
+        this.positionCount = positionCount;
+    }
+
+    public NavigationFormat getFormat() {
+        return format;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Returns the bytes the format read from the input.
+     */
+    public long getBytesConsumed() {
+        return bytesConsumed;
+    }
+
+    /**
+     * Returns the characters the format read from the decoded text of the input
+     * which is shared by the text formats instead of reading bytes.
+     */
+    public long getCharactersConsumed() {
+        return charactersConsumed;
+    }
+
+    /**
+     * Returns the elapsed time in nanoseconds.
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * Returns the CPU time of the reading thread in nanoseconds or -1 if the
+     * JVM does not measure it.
+     */
+    public long getCpuTime() {
+        return cpuTime;
+    }
+
+    public int getRouteCount() {
+        return routeCount;
+    }
+
+    public int getPositionCount() {
+        return positionCount;
+    }
+
+    public String toString() {
+        return getClass().getSimpleName() + "[format=" + format.getName() + ", outcome=" + outcome +
+                ", bytesConsumed=" + bytesConsumed + ", charactersConsumed=" + charactersConsumed +
+                ", wallTime=" + wallTime + ", cpuTime=" + cpuTime +
+                ", routeCount=" + routeCount + ", positionCount=" + positionCount + "]";
+    }
+}
@@ -0,0 +1,210 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static slash.navigation.base.ReadAttempt.Outcome.Rejected;
+
+/**
+ * Aggregates the {@link ReadAttempt}s of a {@link NavigationFormatParser} per
+ * {@link NavigationFormat} and writes them as JSON to tune the order of the formats.
+ *
+ * @author Christian Pesch
+ */
+
+public class ReadAttemptStatistics implements ReadAttemptListener {
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0};
+
+    private final Map<String, FormatStatistics> formats = new TreeMap<>();
+
+    public synchronized void attempted(ReadAttempt attempt) {
+        String name = attempt.getFormat().getName();
+        FormatStatistics statistics = formats.get(name);
+        if (statistics == null) {
+            statistics = new FormatStatistics();
+            formats.put(name, statistics);
+        }
+        statistics.add(attempt);
+    }
+
+    public synchronized int getAttemptCount(String formatName) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.attempts : 0;
+    }
+
+    public synchronized int getOutcomeCount(String formatName, ReadAttempt.Outcome outcome) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.outcomes[outcome.ordinal()] : 0;
+    }
+
+    public synchronized long getBytesConsumed(String formatName) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.bytesConsumed : 0;
+    }
+
+    public synchronized long getCharactersConsumed(String formatName) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.charactersConsumed : 0;
+    }
+
+    /**
+     * Returns the bytes the format consumed before it rejected inputs which shows
+     * the formats that waste time during the detection of the format.
+     */
+    public synchronized long getBytesConsumedBeforeRejection(String formatName) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.bytesConsumedBeforeRejection : 0;
+    }
+
+    public synchronized long getCharactersConsumedBeforeRejection(String formatName) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.charactersConsumedBeforeRejection : 0;
+    }
+
+    /**
+     * Returns the percentile of the wall time in microseconds with a precision of 1/8
+     * or -1 if the format has not been tried.
+     */
+    public synchronized long getWallTimePercentile(String formatName, double percentile) {
+        FormatStatistics statistics = formats.get(formatName);
+        return statistics != null ? statistics.wallTime.getPercentile(percentile) : -1;
+    }
+
+    public synchronized void write(OutputStream outputStream) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Map.Entry<String, FormatStatistics> entry : formats.entrySet())
+            result.put(entry.getKey(), entry.getValue().toMap());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(outputStream, result);
+    }
+
+    private static class FormatStatistics {
+        private int attempts = 0;
+        private final int[] outcomes = new int[ReadAttempt.Outcome.values().length];
+        private long bytesConsumed = 0, bytesConsumedBeforeRejection = 0, charactersConsumed = 0,
+                charactersConsumedBeforeRejection = 0, routes = 0, positions = 0;
+        private final Histogram wallTime = new Histogram(), cpuTime = new Histogram();
+
+        void add(ReadAttempt attempt) {
+            attempts++;
+            outcomes[attempt.getOutcome().ordinal()]++;
+            bytesConsumed += attempt.getBytesConsumed();
+            charactersConsumed += attempt.getCharactersConsumed();
+            if (attempt.getOutcome() == Rejected) {
+                bytesConsumedBeforeRejection += attempt.getBytesConsumed();
+                charactersConsumedBeforeRejection += attempt.getCharactersConsumed();
+            }
+            routes += attempt.getRouteCount();
+            positions += attempt.getPositionCount();
+            wallTime.add(attempt.getWallTime() / 1000);
+            if (attempt.getCpuTime() >= 0)
+                cpuTime.add(attempt.getCpuTime() / 1000);
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("attempts", attempts);
+            for (ReadAttempt.Outcome outcome : ReadAttempt.Outcome.values())
+                result.put(outcome.name().toLowerCase(), outcomes[outcome.ordinal()]);
+            result.put("bytesConsumed", bytesConsumed);
+            result.put("bytesConsumedBeforeRejection", bytesConsumedBeforeRejection);
+            result.put("charactersConsumed", charactersConsumed);
+            result.put("charactersConsumedBeforeRejection", charactersConsumedBeforeRejection);
+            result.put("routes", routes);
+            result.put("positions", positions);
+            result.put("wallTimeMicros", wallTime.toMap());
+            result.put("cpuTimeMicros", cpuTime.toMap());
+            return result;
+        }
+    }
+
+    /**
+     * Counts values in buckets that split every power of two into eight
+     * buckets of equal width.
+     */
+    static class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT];
+        private long count = 0, sum = 0, maximum = 0;
+
+        static int getIndex(long value) {
+            if (value < SUB_BUCKET_COUNT)
+                return (int) value;
+            int exponent = 63 - numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+        }
+
+        static long getUpperBound(int index) {
+            if (index < SUB_BUCKET_COUNT)
+                return index;
+            int shift = index / SUB_BUCKET_COUNT - 1;
+            long lower = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+            return lower + (1L << shift) - 1;
+        }
+
+        void add(long value) {
+            if (value < 0)
+                value = 0;
+            counts[getIndex(value)]++;
+            count++;
+            sum += value;
+            if (value > maximum)
+                maximum = value;
+        }
+
+        long getPercentile(double percentile) {
+            if (count == 0)
+                return -1;
+            long rank = max(1, (long) ceil(percentile / 100.0 * count));
+            long cumulated = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulated += counts[i];
+                if (cumulated >= rank)
+                    return min(getUpperBound(i), maximum);
+            }
+            return maximum;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("count", count);
+            if (count > 0) {
+                result.put("mean", sum / count);
+                for (double percentile : PERCENTILES)
+                    result.put("p" + (int) percentile, getPercentile(percentile));
+                result.put("max", maximum);
+            }
+            return result;
+        }
+    }
+}
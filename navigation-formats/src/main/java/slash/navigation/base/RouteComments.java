@@ -164,91 +164,98 @@ public abstract class RouteComments {
         }
     }
 
-    @SuppressWarnings("unchecked")
-    public static void commentRoutePositions(List<? extends BaseRoute> routes) {
-        if (routes.size() > 1) {
-            Map<LongitudeAndLatitude, String> descriptions = new HashMap<>();
-            Map<LongitudeAndLatitude, Double> elevations = new HashMap<>();
-            Map<LongitudeAndLatitude, CompactCalendar> times = new HashMap<>();
-            Map<LongitudeAndLatitude, Double> speeds = new HashMap<>();
+    /**
+     * The descriptions, elevations, speeds and times of the positions of several routes
+     * by their coordinates to complement positions at the same coordinates which lack them.
+     * They are collected when the first position lacks one of them.
+     */
+    static class PositionDefaults {
+        private final List<? extends BaseRoute> routes;
+        private final Map<LongitudeAndLatitude, String> descriptions = new HashMap<>();
+        private final Map<LongitudeAndLatitude, Double> elevations = new HashMap<>();
+        private final Map<LongitudeAndLatitude, CompactCalendar> times = new HashMap<>();
+        private final Map<LongitudeAndLatitude, Double> speeds = new HashMap<>();
+        private boolean collected = false;
+
+        private PositionDefaults(List<? extends BaseRoute> routes) {
+            this.routes = routes;
+        }
 
+        @SuppressWarnings("unchecked")
+        private void collect() {
             for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
                 for (BaseNavigationPosition position : route.getPositions()) {
-                    if (!position.hasCoordinates())
-                        continue;
-
-                    if (position.getDescription() != null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        if (descriptions.get(lal) == null) {
-                            descriptions.put(lal, position.getDescription());
-                        }
-                    }
-
-                    if (position.getElevation() != null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        if (elevations.get(lal) == null) {
-                            elevations.put(lal, position.getElevation());
-                        }
-                    }
-
-                    if (position.getSpeed() != null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        if (speeds.get(lal) == null) {
-                            speeds.put(lal, position.getSpeed());
-                        }
-                    }
-
-                    if (position.hasTime()) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        if (times.get(lal) == null) {
-                            times.put(lal, position.getTime());
-                        }
-                    }
+                    if (position.hasCoordinates())
+                        collect(position);
                 }
             }
+            collected = true;
+        }
 
-            for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
-                for (BaseNavigationPosition position : route.getPositions()) {
-                    if (!position.hasCoordinates())
-                        continue;
-
-                    if (position.getDescription() == null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        String description = descriptions.get(lal);
-                        if (description != null) {
-                            position.setDescription(description);
-                        }
-                    }
-
-                    if (position.getElevation() == null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        Double elevation = elevations.get(lal);
-                        if (elevation != null) {
-                            position.setElevation(elevation);
-                        }
-                    }
-
-                    if (position.getSpeed() == null) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        Double speed = speeds.get(lal);
-                        if (speed != null) {
-                            position.setSpeed(speed);
-                        }
-                    }
-
-                    if (!position.hasTime()) {
-                        LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
-                        CompactCalendar time = times.get(lal);
-                        if (time != null) {
-                            position.setTime(time);
-                        }
-                    }
-                }
+        private void collect(NavigationPosition position) {
+            LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
+            // skip the descriptions of routes which have been commented before the collection
+            if (position.getDescription() != null && !isDefaultDescription(position.getDescription()))
+                descriptions.putIfAbsent(lal, position.getDescription());
+            if (position.getElevation() != null)
+                elevations.putIfAbsent(lal, position.getElevation());
+            if (position.getSpeed() != null)
+                speeds.putIfAbsent(lal, position.getSpeed());
+            if (position.hasTime())
+                times.putIfAbsent(lal, position.getTime());
+        }
+
+        private void complement(NavigationPosition position) {
+            if (position.getDescription() != null && position.getElevation() != null &&
+                    position.getSpeed() != null && position.hasTime())
+                return;
+            if (!collected)
+                collect();
+
+            LongitudeAndLatitude lal = new LongitudeAndLatitude(position.getLongitude(), position.getLatitude());
+            if (position.getDescription() == null) {
+                String description = descriptions.get(lal);
+                if (description != null)
+                    position.setDescription(description);
+            }
+            if (position.getElevation() == null) {
+                Double elevation = elevations.get(lal);
+                if (elevation != null)
+                    position.setElevation(elevation);
+            }
+            if (position.getSpeed() == null) {
+                Double speed = speeds.get(lal);
+                if (speed != null)
+                    position.setSpeed(speed);
+            }
+            if (!position.hasTime()) {
+                CompactCalendar time = times.get(lal);
+                if (time != null)
+                    position.setTime(time);
             }
         }
+    }
 
-        for (BaseRoute<BaseNavigationPosition, BaseNavigationFormat> route : routes) {
-            commentPositions(route.getPositions());
+    static PositionDefaults createPositionDefaults(List<? extends BaseRoute> routes) {
+        return routes.size() < 2 ? null : new PositionDefaults(routes);
+    }
+
+    @SuppressWarnings("unchecked")
+    static void commentRoutePositions(BaseRoute route, PositionDefaults defaults) {
+        List<BaseNavigationPosition> positions = route.getPositions();
+        if (defaults != null) {
+            for (BaseNavigationPosition position : positions) {
+                if (position.hasCoordinates())
+                    defaults.complement(position);
+            }
+        }
+        commentPositions(positions);
+    }
+
+    public static void commentRoutePositions(List<? extends BaseRoute> routes) {
+        PositionDefaults defaults = createPositionDefaults(routes);
+        for (BaseRoute route : routes) {
+            commentRoutePositions(route, defaults);
         }
     }
 
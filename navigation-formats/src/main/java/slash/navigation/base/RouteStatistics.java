@@ -0,0 +1,474 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import slash.common.type.CompactCalendar;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.common.SimpleNavigationPosition;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Long.MIN_VALUE;
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
+import static java.util.Arrays.copyOf;
+import static slash.common.io.Transfer.isEmpty;
+import static slash.common.type.CompactCalendar.fromMillis;
+
+/**
+ * Computes the distance, time, moving time, elevation ascend and descend, the minimum and
+ * maximum elevation and speed and the bounding box of a list of {@link NavigationPosition}s
+ * in one pass and patches them when ranges of the positions are inserted, updated or deleted.
+ * Since patching the sums accumulates rounding errors, they are summed up again from the
+ * segments once more segments have been subtracted than there are positions.
+ *
+ * @author Christian Pesch
+ */
+
+public class RouteStatistics {
+    private static final double MINIMUM_MOVING_SPEED = 1.0;
+
+    private final List<? extends NavigationPosition> positions;
+    private int count;
+    // the values of the positions, NaN and MIN_VALUE if missing
+    private double[] longitudes, latitudes, elevations, speeds;
+    private long[] times;
+    // the values of the segments from the predecessor to the position, 0 for the first position
+    private double[] distances, elevationDeltas;
+    private long[] durations;
+    private boolean[] moving;
+
+    private double distance, ascend, descend;
+    private long duration, movingTime;
+    private int subtractedSegments;
+
+    private boolean extremesValid;
+    private double minimumLongitude, maximumLongitude, minimumLatitude, maximumLatitude,
+            minimumElevation, maximumElevation, minimumSpeed, maximumSpeed;
+    private long minimumTime, maximumTime;
+
+    public RouteStatistics(List<? extends NavigationPosition> positions) {
+        this.positions = positions;
+        int size = positions.size();
+        longitudes = new double[size];
+        latitudes = new double[size];
+        elevations = new double[size];
+        speeds = new double[size];
+        times = new long[size];
+        distances = new double[size];
+        elevationDeltas = new double[size];
+        durations = new long[size];
+        moving = new boolean[size];
+        replace(0, 0, size);
+    }
+
+    public List<? extends NavigationPosition> getPositions() {
+        return positions;
+    }
+
+    public int getPositionCount() {
+        return count;
+    }
+
+    public void positionsInserted(int firstIndex, int lastIndex) {
+        replace(firstIndex, 0, lastIndex - firstIndex + 1);
+    }
+
+    public void positionsUpdated(int firstIndex, int lastIndex) {
+        int length = lastIndex - firstIndex + 1;
+        replace(firstIndex, length, length);
+    }
+
+    public void positionsDeleted(int firstIndex, int lastIndex) {
+        replace(firstIndex, lastIndex - firstIndex + 1, 0);
+    }
+
+    private void replace(int index, int oldLength, int newLength) {
+        int oldCount = count;
+        int newCount = oldCount - oldLength + newLength;
+        if (index < 0 || oldLength < 0 || index + oldLength > oldCount || newCount != positions.size())
+            throw new IllegalArgumentException("Cannot replace " + oldLength + " with " + newLength +
+                    " positions at " + index + " of " + oldCount + " for " + positions.size() + " positions");
+
+        for (int i = max(index, 1); i <= index + oldLength && i < oldCount; i++)
+            subtractSegment(i);
+        if (extremesValid)
+            for (int i = index; i < index + oldLength; i++)
+                if (isExtreme(i)) {
+                    extremesValid = false;
+                    break;
+                }
+
+        ensureCapacity(newCount);
+        moveTail(index + oldLength, index + newLength, oldCount - index - oldLength);
+        count = newCount;
+
+        if (oldCount == 0) {
+            resetExtremes();
+            extremesValid = true;
+        }
+        for (int i = index; i < index + newLength; i++) {
+            readPosition(i);
+            if (extremesValid)
+                extendExtremes(i);
+        }
+
+        for (int i = max(index, 1); i <= index + newLength && i < newCount; i++) {
+            calculateSegment(i);
+            addSegment(i);
+        }
+        if (index == 0 && newCount > 0)
+            clearSegment(0);
+        checkRoundingErrors();
+    }
+
+    /**
+     * Patches the statistics for positions which have been deleted at once.
+     *
+     * @param indices the indices of the deleted positions before the deletion
+     */
+    public void positionsDeleted(BitSet indices) {
+        int oldCount = count;
+        int newCount = oldCount - indices.cardinality();
+        if (indices.length() > oldCount || newCount != positions.size())
+            throw new IllegalArgumentException("Cannot delete " + indices.cardinality() + " positions up to " +
+                    (indices.length() - 1) + " of " + oldCount + " for " + positions.size() + " positions");
+
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            if (i > 0)
+                subtractSegment(i);
+            if (i + 1 < oldCount && !indices.get(i + 1))
+                subtractSegment(i + 1);
+            if (extremesValid && isExtreme(i))
+                extremesValid = false;
+        }
+
+        // move the ranges of the remaining positions together and connect them to their new predecessors
+        int to = indices.nextSetBit(0);
+        if (to < 0)
+            return;
+        int from = indices.nextClearBit(to);
+        while (from < oldCount) {
+            int end = indices.nextSetBit(from);
+            if (end < 0)
+                end = oldCount;
+            moveTail(from, to, end - from);
+            if (to > 0) {
+                calculateSegment(to);
+                addSegment(to);
+            } else
+                clearSegment(0);
+            to += end - from;
+            from = indices.nextClearBit(end);
+        }
+        count = newCount;
+        checkRoundingErrors();
+    }
+
+    /**
+     * Patches the statistics for positions which have been inserted at once.
+     *
+     * @param indices the indices of the inserted positions after the insertion
+     */
+    public void positionsInserted(BitSet indices) {
+        int oldCount = count;
+        int newCount = oldCount + indices.cardinality();
+        if (indices.length() > newCount || newCount != positions.size())
+            throw new IllegalArgumentException("Cannot insert " + indices.cardinality() + " positions up to " +
+                    (indices.length() - 1) + " of " + newCount + " for " + positions.size() + " positions");
+        if (indices.isEmpty())
+            return;
+
+        // disconnect the positions which get inserted positions as their new predecessors
+        int inserted = 0;
+        for (int from = indices.nextSetBit(0); from >= 0; ) {
+            int end = indices.nextClearBit(from);
+            inserted += end - from;
+            int next = end - inserted;
+            if (next > 0 && next < oldCount)
+                subtractSegment(next);
+            from = indices.nextSetBit(end);
+        }
+
+        // move the ranges of the existing positions apart from the last range on
+        ensureCapacity(newCount);
+        for (int end = newCount; end > 0; ) {
+            int last = end - 1;
+            if (indices.get(last)) {
+                int start = indices.previousClearBit(last) + 1;
+                inserted -= end - start;
+                end = start;
+            } else {
+                int start = indices.previousSetBit(last) + 1;
+                moveTail(start - inserted, start, end - start);
+                end = start;
+            }
+        }
+        count = newCount;
+
+        if (oldCount == 0) {
+            resetExtremes();
+            extremesValid = true;
+        }
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            readPosition(i);
+            if (extremesValid)
+                extendExtremes(i);
+        }
+
+        // connect the inserted ranges to their predecessors and successors
+        for (int from = indices.nextSetBit(0); from >= 0; ) {
+            int end = indices.nextClearBit(from);
+            for (int i = max(from, 1); i <= end && i < newCount; i++) {
+                calculateSegment(i);
+                addSegment(i);
+            }
+            from = indices.nextSetBit(end);
+        }
+        if (indices.get(0))
+            clearSegment(0);
+        checkRoundingErrors();
+    }
+
+    private void checkRoundingErrors() {
+        if (subtractedSegments <= count)
+            return;
+
+        distance = ascend = descend = 0.0;
+        for (int i = 1; i < count; i++) {
+            distance += distances[i];
+            if (elevationDeltas[i] > 0)
+                ascend += elevationDeltas[i];
+            else
+                descend -= elevationDeltas[i];
+        }
+        subtractedSegments = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= longitudes.length)
+            return;
+        int length = max(capacity, longitudes.length * 3 / 2);
+        longitudes = copyOf(longitudes, length);
+        latitudes = copyOf(latitudes, length);
+        elevations = copyOf(elevations, length);
+        speeds = copyOf(speeds, length);
+        times = copyOf(times, length);
+        distances = copyOf(distances, length);
+        elevationDeltas = copyOf(elevationDeltas, length);
+        durations = copyOf(durations, length);
+        moving = copyOf(moving, length);
+    }
+
+    private void moveTail(int from, int to, int length) {
+        if (from == to || length <= 0)
+            return;
+        arraycopy(longitudes, from, longitudes, to, length);
+        arraycopy(latitudes, from, latitudes, to, length);
+        arraycopy(elevations, from, elevations, to, length);
+        arraycopy(speeds, from, speeds, to, length);
+        arraycopy(times, from, times, to, length);
+        arraycopy(distances, from, distances, to, length);
+        arraycopy(elevationDeltas, from, elevationDeltas, to, length);
+        arraycopy(durations, from, durations, to, length);
+        arraycopy(moving, from, moving, to, length);
+    }
+
+    private static double toValue(Double value) {
+        return value != null ? value : NaN;
+    }
+
+    private void readPosition(int index) {
+        NavigationPosition position = positions.get(index);
+        boolean hasCoordinates = position.hasCoordinates();
+        longitudes[index] = hasCoordinates ? position.getLongitude() : NaN;
+        latitudes[index] = hasCoordinates ? position.getLatitude() : NaN;
+        elevations[index] = toValue(position.getElevation());
+        speeds[index] = toValue(position.getSpeed());
+        CompactCalendar time = position.getTime();
+        times[index] = time != null ? time.getTimeInMillis() : MIN_VALUE;
+    }
+
+    private void calculateSegment(int index) {
+        NavigationPosition previous = positions.get(index - 1);
+        NavigationPosition next = positions.get(index);
+        Double segmentDistance = previous.calculateDistance(next);
+        distances[index] = !isEmpty(segmentDistance) ? segmentDistance : 0.0;
+        Double elevation = previous.calculateElevation(next);
+        elevationDeltas[index] = elevation != null ? elevation : 0.0;
+        Long time = previous.calculateTime(next);
+        durations[index] = time != null && time > 0 ? time : 0L;
+        moving[index] = durations[index] > 0 &&
+                distances[index] / 1000.0 / (durations[index] / 3600000.0) >= MINIMUM_MOVING_SPEED;
+    }
+
+    private void clearSegment(int index) {
+        distances[index] = 0.0;
+        elevationDeltas[index] = 0.0;
+        durations[index] = 0L;
+        moving[index] = false;
+    }
+
+    private void addSegment(int index) {
+        distance += distances[index];
+        if (elevationDeltas[index] > 0)
+            ascend += elevationDeltas[index];
+        else
+            descend -= elevationDeltas[index];
+        duration += durations[index];
+        if (moving[index])
+            movingTime += durations[index];
+    }
+
+    private void subtractSegment(int index) {
+        subtractedSegments++;
+        distance -= distances[index];
+        if (elevationDeltas[index] > 0)
+            ascend -= elevationDeltas[index];
+        else
+            descend += elevationDeltas[index];
+        duration -= durations[index];
+        if (moving[index])
+            movingTime -= durations[index];
+    }
+
+    private boolean isExtreme(int index) {
+        return longitudes[index] == minimumLongitude || longitudes[index] == maximumLongitude ||
+                latitudes[index] == minimumLatitude || latitudes[index] == maximumLatitude ||
+                elevations[index] == minimumElevation || elevations[index] == maximumElevation ||
+                speeds[index] == minimumSpeed || speeds[index] == maximumSpeed ||
+                times[index] == minimumTime || times[index] == maximumTime;
+    }
+
+    private void resetExtremes() {
+        minimumLongitude = maximumLongitude = minimumLatitude = maximumLatitude = NaN;
+        minimumElevation = maximumElevation = minimumSpeed = maximumSpeed = NaN;
+        minimumTime = maximumTime = MIN_VALUE;
+    }
+
+    private static double minimum(double current, double value) {
+        return isNaN(current) || value < current ? value : current;
+    }
+
+    private static double maximum(double current, double value) {
+        return isNaN(current) || value > current ? value : current;
+    }
+
+    private void extendExtremes(int index) {
+        if (!isNaN(longitudes[index])) {
+            minimumLongitude = minimum(minimumLongitude, longitudes[index]);
+            maximumLongitude = maximum(maximumLongitude, longitudes[index]);
+            minimumLatitude = minimum(minimumLatitude, latitudes[index]);
+            maximumLatitude = maximum(maximumLatitude, latitudes[index]);
+        }
+        if (!isNaN(elevations[index])) {
+            minimumElevation = minimum(minimumElevation, elevations[index]);
+            maximumElevation = maximum(maximumElevation, elevations[index]);
+        }
+        if (!isNaN(speeds[index])) {
+            minimumSpeed = minimum(minimumSpeed, speeds[index]);
+            maximumSpeed = maximum(maximumSpeed, speeds[index]);
+        }
+        if (times[index] != MIN_VALUE) {
+            if (minimumTime == MIN_VALUE || times[index] < minimumTime)
+                minimumTime = times[index];
+            if (maximumTime == MIN_VALUE || times[index] > maximumTime)
+                maximumTime = times[index];
+        }
+    }
+
+    private void ensureExtremes() {
+        if (extremesValid)
+            return;
+        resetExtremes();
+        for (int i = 0; i < count; i++)
+            extendExtremes(i);
+        extremesValid = true;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * @return the larger of the span between the first and the last time and
+     * the sum of the positive time differences between neighbours in milliseconds
+     */
+    public long getTime() {
+        ensureExtremes();
+        long span = minimumTime != MIN_VALUE ? maximumTime - minimumTime : 0L;
+        return max(span, duration);
+    }
+
+    /**
+     * @return the sum of the time differences between neighbours that moved
+     * at least with 1 km/h in milliseconds
+     */
+    public long getMovingTime() {
+        return movingTime;
+    }
+
+    public double getElevationAscend() {
+        return ascend;
+    }
+
+    public double getElevationDescend() {
+        return descend;
+    }
+
+    private static Double toDouble(double value) {
+        return isNaN(value) ? null : value;
+    }
+
+    public Double getMinimumElevation() {
+        ensureExtremes();
+        return toDouble(minimumElevation);
+    }
+
+    public Double getMaximumElevation() {
+        ensureExtremes();
+        return toDouble(maximumElevation);
+    }
+
+    public Double getMinimumSpeed() {
+        ensureExtremes();
+        return toDouble(minimumSpeed);
+    }
+
+    public Double getMaximumSpeed() {
+        ensureExtremes();
+        return toDouble(maximumSpeed);
+    }
+
+    public BoundingBox getBoundingBox() {
+        ensureExtremes();
+        if (isNaN(minimumLongitude))
+            return null;
+        CompactCalendar minimum = minimumTime != MIN_VALUE ? fromMillis(minimumTime) : null;
+        CompactCalendar maximum = maximumTime != MIN_VALUE ? fromMillis(maximumTime) : null;
+        return new BoundingBox(new SimpleNavigationPosition(maximumLongitude, maximumLatitude, maximum),
+                new SimpleNavigationPosition(minimumLongitude, minimumLatitude, minimum));
+    }
+}
@@ -46,31 +46,85 @@ public abstract class SimpleLineBasedFormat<R extends SimpleRoute> extends Simpl
     }
 
     public void read(BufferedReader reader, String encoding, ParserContext<R> context) throws IOException {
-        List<Wgs84Position> positions = new ArrayList<>();
-
-        int lineCount = 0;
+        LineProbe probe = new LineProbe();
         while (true) {
             String line = reader.readLine();
             if (line == null)
                 break;
-            if (line.length() == 0)
-                continue;
-
-            if (isValidLine(line)) {
-                if (isPosition(line)) {
-                    Wgs84Position position = parsePosition(line, context);
-                    positions.add(position);
-                }
-            } else {
-                if (lineCount++ > getGarbleCount())
-                    throw new IOException(format("Too much garble for %s: %d > %d lines", getName(), lineCount, getGarbleCount()));
-            }
+            readLine(line, probe, context);
         }
+        appendRoute(probe.positions, context);
+    }
 
+    protected void read(DecodedText text, String encoding, ParserContext<R> context) throws IOException {
+        LineProbe probe = new LineProbe();
+        for (int i = 0, c = text.getLineCount(); i < c; i++)
+            readLine(text.getLine(i), probe, context);
+        appendRoute(probe.positions, context);
+    }
+
+    private void readLine(String line, LineProbe probe, ParserContext<R> context) throws IOException {
+        if (line.length() == 0)
+            return;
+        if (probe.lineCount++ == 0 && startsWithHeader(line))
+            probe.evidenceFound = true;
+
+        if (isValidLine(line)) {
+            if (isPosition(line)) {
+                Wgs84Position position = parsePosition(line, context);
+                probe.positions.add(position);
+                probe.evidenceFound = true;
+            } else if (isProbeAcceptingValidLines())
+                probe.evidenceFound = true;
+        } else {
+            if (probe.garbleCount++ > getGarbleCount())
+                throw new FormatRejectedException(format("Too much garble for %s: %d > %d lines", getName(), probe.garbleCount, getGarbleCount()));
+        }
+
+        if (!probe.evidenceFound && probe.lineCount >= getProbeLineCount())
+            throw new FormatRejectedException(format("No position for %s in the first %d lines", getName(), probe.lineCount));
+    }
+
+    private void appendRoute(List<Wgs84Position> positions, ParserContext<R> context) {
         if (positions.size() > 0)
             context.appendRoute(createRoute(getRouteCharacteristics(), positions));
     }
 
+    private static class LineProbe {
+        private final List<Wgs84Position> positions = new ArrayList<>();
+        private int lineCount = 0, garbleCount = 0;
+        private boolean evidenceFound = false;
+    }
+
+    /**
+     * Returns the header line, the first non-empty line has to start with to skip
+     * the probe for positions in the first {@link #getProbeLineCount()} lines.
+     */
+    protected String getHeader() {
+        return null;
+    }
+
+    private boolean startsWithHeader(String line) {
+        String header = getHeader();
+        return header != null && line.startsWith(header);
+    }
+
+    /**
+     * Returns whether {@link #isValidLine(String) valid lines} without a position, like the
+     * lines that loggers write before they have a fix, count like positions for the probe.
+     */
+    protected boolean isProbeAcceptingValidLines() {
+        return false;
+    }
+
+    /**
+     * Returns the number of non-empty lines after which the input is rejected
+     * if it neither started with the {@link #getHeader()} nor contained a position.
+     */
+    protected int getProbeLineCount() {
+        return 100;
+    }
+
     protected int getGarbleCount() {
         return 1;
     }
@@ -44,11 +44,21 @@ public abstract class TextNavigationFormat<R extends BaseRoute> extends BaseNavi
     }
 
     protected void read(InputStream source, String encoding, ParserContext<R> context) throws IOException {
+        // the text of an input tried by several formats is decoded only once per encoding
+        if (source instanceof DecodingInputStream) {
+            read(((DecodingInputStream) source).getText(encoding), encoding, context);
+            return;
+        }
+
         try (Reader reader = new InputStreamReader(source, encoding)) {
             read(new BufferedReader(reader), encoding, context);
         }
     }
 
+    protected void read(DecodedText text, String encoding, ParserContext<R> context) throws IOException {
+        read(text.createReader(), encoding, context);
+    }
+
     // encoding currently only used in GoogleMapsUrlFormat
     public abstract void read(BufferedReader reader, String encoding, ParserContext<R> context) throws IOException;
 
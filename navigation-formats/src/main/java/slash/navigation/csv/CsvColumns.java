@@ -0,0 +1,70 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.csv;
+
+import static slash.navigation.csv.ColumnType.values;
+
+/**
+ * Resolves the header of a CSV file to the index of each {@link ColumnType} once
+ * so that the rows can be accessed by index.
+ *
+ * @author Christian Pesch
+ */
+
+class CsvColumns {
+    private final String[] names;
+    private final int[] typeIndices;
+
+    CsvColumns(String[] names) {
+        this.names = names;
+        ColumnType[] types = values();
+        this.typeIndices = new int[types.length];
+        for (ColumnType type : types)
+            typeIndices[type.ordinal()] = resolveIndex(type);
+    }
+
+    private int resolveIndex(ColumnType type) {
+        int index = indexOf(type.name());
+        for (int i = 0; index == -1 && i < type.getAlternativeNames().size(); i++)
+            index = indexOf(type.getAlternativeNames().get(i));
+        return index;
+    }
+
+    private int indexOf(String name) {
+        // the last column wins like for a map of the row
+        for (int i = names.length - 1; i >= 0; i--) {
+            if (name.equals(names[i]))
+                return i;
+        }
+        return -1;
+    }
+
+    int getColumnCount() {
+        return names.length;
+    }
+
+    String getName(int index) {
+        return names[index];
+    }
+
+    int getIndex(ColumnType type) {
+        return typeIndices[type.ordinal()];
+    }
+}
@@ -24,6 +24,7 @@ import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import slash.common.io.IsoLatin1FallbackReader;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
@@ -33,6 +34,8 @@ import java.io.*;
 import java.util.*;
 import java.util.logging.Logger;
 
+import static com.fasterxml.jackson.dataformat.csv.CsvParser.Feature.SKIP_EMPTY_LINES;
+import static com.fasterxml.jackson.dataformat.csv.CsvParser.Feature.WRAP_AS_ARRAY;
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.sort;
@@ -46,6 +49,7 @@ import static slash.common.io.Transfer.*;
 
 public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
     private static final Logger log = Logger.getLogger(CsvFormat.class.getName());
+    private static final int ENCODING_SAMPLE_SIZE = 64 * 1024;
 
     public String getExtension() {
         return ".csv";
@@ -71,29 +75,36 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
     protected abstract char getColumnSeparator();
 
     public void read(InputStream source, ParserContext<CsvRoute> context) throws IOException {
-        // +1 since CsvDecoder is reading until the buffer is completely processed plus one to allow for #reset()
-        source.mark(source.available() + 1);
-        if(!read(source, UTF8_ENCODING, context)) {
-            source.reset();
+        String encoding = detectEncoding(source);
+        List<CsvPosition> positions = read(source, encoding);
+        if (positions == null || positions.size() == 0)
+            throw new IllegalArgumentException(format("Format %s cannot find positions; exiting", getName()));
+        context.appendRoute(new CsvRoute(this, null, positions));
+    }
 
-            if(!read(source, ISO_LATIN1_ENCODING, context))
-                throw new IllegalArgumentException(format("Format %s cannot find positions; exiting", getName()));
-        }
+    private String detectEncoding(InputStream source) throws IOException {
+        byte[] sample = new byte[ENCODING_SAMPLE_SIZE];
+        source.mark(sample.length);
+        int count = 0;
+        int read;
+        while (count < sample.length && (read = source.read(sample, count, sample.length - count)) != -1)
+            count += read;
+        source.reset();
+        return isValidUtf8(sample, 0, count) ? UTF8_ENCODING : ISO_LATIN1_ENCODING;
     }
 
-    protected boolean read(InputStream source, String encoding, ParserContext<CsvRoute> context) throws IOException {
+    private List<CsvPosition> read(InputStream source, String encoding) throws IOException {
         log.info(format("Reading CSV with column separator %c and encoding %s", getColumnSeparator(), encoding));
 
-        try (Reader reader = new InputStreamReader(source, encoding)) {
-            return read(new BufferedReader(reader), context);
+        // the sample of the encoding detection may miss ISO Latin1 characters which are decoded
+        // as they show up instead of marking the whole input to read it again
+        try (Reader reader = UTF8_ENCODING.equals(encoding) ? new IsoLatin1FallbackReader(source) : new InputStreamReader(source, encoding)) {
+            return read(new BufferedReader(reader));
         }
     }
 
-    private boolean containsGarbage(Map<String, String> map) {
-        for (String key : map.keySet()) {
-            if (isIsoLatin1ButReadWithUtf8(key))
-                return true;
-            String value = map.get(key);
+    private boolean containsGarbage(String[] row) {
+        for (String value : row) {
             if (isIsoLatin1ButReadWithUtf8(value))
                 return true;
         }
@@ -101,19 +112,41 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
     }
 
     protected boolean read(Reader reader, ParserContext<CsvRoute> context) throws IOException {
+        List<CsvPosition> positions = read(reader);
+        if (positions != null && positions.size() > 0) {
+            context.appendRoute(new CsvRoute(this, null, positions));
+            return true;
+        } else
+            return false;
+    }
+
+    private List<CsvPosition> read(Reader reader) throws IOException {
         List<CsvPosition> positions = new ArrayList<>();
 
-        CsvSchema schema = CsvSchema.emptySchema().withHeader().withColumnSeparator(getColumnSeparator());
-        ObjectReader objectReader = new CsvMapper().readerFor(LinkedHashMap.class).with(schema);
+        CsvMapper mapper = new CsvMapper();
+        mapper.enable(WRAP_AS_ARRAY);
+        mapper.enable(SKIP_EMPTY_LINES);
+        ObjectReader objectReader = mapper.readerFor(String[].class).with(CsvSchema.emptySchema().withColumnSeparator(getColumnSeparator()));
         try {
-            MappingIterator<LinkedHashMap<String, String>> iterator = objectReader.readValues(reader);
+            MappingIterator<String[]> iterator = objectReader.readValues(reader);
+            if (!iterator.hasNext())
+                return positions;
+
+            String[] header = iterator.next();
+            if (containsGarbage(header)) {
+                log.warning(format("Found garbage for format %s in header: %s", getName(), asList(header)));
+                return null;
+            }
+            CsvColumns columns = new CsvColumns(header);
+
             while (iterator.hasNext()) {
-                LinkedHashMap<String, String> rowAsMap = iterator.next();
-                if (containsGarbage(rowAsMap)) {
-                    log.warning(format("Found garbage for format %s: %s", getName(), rowAsMap));
-                    return false;
+                // values of rows wider than the header are ignored since they have no column name
+                String[] row = iterator.next();
+                if (containsGarbage(row)) {
+                    log.warning(format("Found garbage for format %s: %s", getName(), asList(row)));
+                    return null;
                 }
-                CsvPosition position = new CsvPosition(rowAsMap);
+                CsvPosition position = new CsvPosition(columns, row);
 
                 // skip positions without any reasonable data to make format less greedy
                 if(position.getLongitude() == null && position.getLatitude() == null && position.getDescription() == null)
@@ -125,12 +158,7 @@ public abstract class CsvFormat extends BaseNavigationFormat<CsvRoute> {
         finally {
             reader.close();
         }
-
-        if (positions.size() > 0) {
-            context.appendRoute(new CsvRoute(this, null, positions));
-            return true;
-        } else
-            return false;
+        return positions;
     }
 
     private Set<String> collectKeys(List<CsvPosition> positions) {
@@ -46,12 +46,19 @@ public class CsvPosition extends BaseNavigationPosition implements ExtendedSenso
     private static final String DATE_AND_TIME_FORMAT = "dd.MM.yy HH:mm:ss";
     private static final String DATE_AND_TIME_WITHOUT_SECONDS_FORMAT = "dd.MM.yy HH:mm";
 
-    private final Map<String, String> rowAsMap;
+    private CsvColumns columns;
+    private String[] row;
+    private Map<String, String> rowAsMap;
 
     public CsvPosition(Map<String, String> rowAsMap) {
         this.rowAsMap = rowAsMap;
     }
 
+    CsvPosition(CsvColumns columns, String[] row) {
+        this.columns = columns;
+        this.row = row;
+    }
+
     public CsvPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         this(new LinkedHashMap<>());
         setLongitude(longitude);
@@ -63,10 +70,22 @@ public class CsvPosition extends BaseNavigationPosition implements ExtendedSenso
     }
 
     Map<String, String> getRowAsMap() {
+        if (rowAsMap == null) {
+            rowAsMap = new LinkedHashMap<>();
+            for (int i = 0; i < row.length && i < columns.getColumnCount(); i++)
+                rowAsMap.put(columns.getName(i), row[i]);
+            columns = null;
+            row = null;
+        }
         return rowAsMap;
     }
 
     private String getValueAsString(ColumnType type) {
+        if (rowAsMap == null) {
+            int index = columns.getIndex(type);
+            return index != -1 && index < row.length ? row[index] : null;
+        }
+
         String value = rowAsMap.get(type.name());
         if (value != null)
             return value;
@@ -103,7 +122,15 @@ public class CsvPosition extends BaseNavigationPosition implements ExtendedSenso
     }
 
     private void setValueAsString(ColumnType type, String value) {
-        rowAsMap.put(type.name(), value);
+        if (rowAsMap == null) {
+            // values found under an alternative name are written to the column of the canonical name
+            int index = columns.getIndex(type);
+            if (index != -1 && index < row.length && type.name().equals(columns.getName(index))) {
+                row[index] = value;
+                return;
+            }
+        }
+        getRowAsMap().put(type.name(), value);
     }
 
     private void setValueAsDouble(ColumnType type, Double value) {
@@ -73,7 +73,7 @@ public abstract class ExcelFormat extends BaseNavigationFormat<ExcelRoute> imple
         }
     }
 
-    private void parseSheet(Sheet sheet, ParserContext<ExcelRoute> context) {
+    void parseSheet(Sheet sheet, ParserContext<ExcelRoute> context) {
         if (sheet.getPhysicalNumberOfRows() < 2)
             return;
 
@@ -93,6 +93,21 @@ public abstract class ExcelFormat extends BaseNavigationFormat<ExcelRoute> imple
         context.appendRoute(new ExcelRoute(this, sheet, mapping, positions));
     }
 
+    void parseSheet(SheetData sheet, List<SheetRow> rows, ParserContext<ExcelRoute> context) {
+        if (sheet.getHeader() == null || rows.isEmpty())
+            return;
+
+        log.info(format("Parsing sheet '%s' with %d rows and %d columns", sheet.getName(), rows.size() + 1, sheet.getHeader().getCellCount()));
+
+        ColumnTypeToRowIndexMapping mapping = parseHeader(sheet.getHeader());
+
+        List<ExcelPosition> positions = new ArrayList<>(rows.size());
+        for (SheetRow row : rows)
+            positions.add(new ExcelPosition(row, mapping));
+
+        context.appendRoute(new ExcelRoute(this, sheet, mapping, positions));
+    }
+
     private ColumnTypeToRowIndexMapping parseHeader(Row row) {
         ColumnTypeToRowIndexMapping result = new ColumnTypeToRowIndexMapping();
         for (int i = 0, c = row.getLastCellNum(); i < c; i++) {
@@ -100,14 +115,29 @@ public abstract class ExcelFormat extends BaseNavigationFormat<ExcelRoute> imple
             // empty cell
             if(cell == null)
                 continue;
-            String cellValue = cell.getStringCellValue();
-            ColumnType columnType = parseColumnType(cellValue);
-            log.info(format("Column %d with name '%s' is identified as %s", i, cellValue, columnType));
-            result.add(i, columnType);
+            parseColumn(result, i, cell.getStringCellValue());
         }
         return result;
     }
 
+    private ColumnTypeToRowIndexMapping parseHeader(SheetRow row) {
+        ColumnTypeToRowIndexMapping result = new ColumnTypeToRowIndexMapping();
+        for (int i = 0, c = row.getCellCount(); i < c; i++) {
+            Object value = row.getValue(i);
+            // empty cell
+            if(value == null)
+                continue;
+            parseColumn(result, i, value.toString());
+        }
+        return result;
+    }
+
+    private void parseColumn(ColumnTypeToRowIndexMapping mapping, int index, String cellValue) {
+        ColumnType columnType = parseColumnType(cellValue);
+        log.info(format("Column %d with name '%s' is identified as %s", index, cellValue, columnType));
+        mapping.add(index, columnType);
+    }
+
     private ColumnType parseColumnType(String value) {
         value = trim(value);
         if (value != null) {
@@ -29,11 +29,15 @@ import slash.navigation.csv.CsvPosition;
 import slash.navigation.gpx.GpxPosition;
 
 import static org.apache.poi.ss.usermodel.CellType.NUMERIC;
+import static org.apache.poi.ss.usermodel.DateUtil.getExcelDate;
+import static org.apache.poi.ss.usermodel.DateUtil.getJavaDate;
 import static slash.common.io.Transfer.toDouble;
 import static slash.common.type.CompactCalendar.fromDate;
 import static slash.navigation.base.ExtendedSensorNavigationPosition.transferExtendedSensorData;
 import static slash.navigation.excel.ColumnType.*;
 import static slash.navigation.excel.ColumnTypeToRowIndexMapping.DEFAULT;
+import static slash.navigation.excel.SheetRow.NO_STYLE;
+import static slash.navigation.excel.SheetRow.TIME_STYLE;
 
 /**
  * A position from Excel 97-2008 (.xls) and Excel 2008 (.xlsx) files.
@@ -42,12 +46,18 @@ import static slash.navigation.excel.ColumnTypeToRowIndexMapping.DEFAULT;
 public class ExcelPosition extends BaseNavigationPosition implements ExtendedSensorNavigationPosition {
     private ColumnTypeToRowIndexMapping mapping = DEFAULT;
     private Row row;
+    private SheetRow sheetRow;
 
     public ExcelPosition(Row row, ColumnTypeToRowIndexMapping mapping) {
         this.row = row;
         this.mapping = mapping;
     }
 
+    ExcelPosition(SheetRow sheetRow, ColumnTypeToRowIndexMapping mapping) {
+        this.sheetRow = sheetRow;
+        this.mapping = mapping;
+    }
+
     public ExcelPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
         Workbook workbook = new HSSFWorkbook();
         Sheet sheet = workbook.createSheet("new sheet");
@@ -64,22 +74,43 @@ public class ExcelPosition extends BaseNavigationPosition implements ExtendedSen
         return row;
     }
 
+    SheetRow getSheetRow() {
+        return sheetRow;
+    }
+
+    private Object getValue(ColumnType type) {
+        Integer index = mapping.getIndex(type);
+        return index != null ? sheetRow.getValue(index) : null;
+    }
+
     private Cell getCell(ColumnType type) {
         Integer index = mapping.getIndex(type);
         return index != null ? row.getCell(index) : null;
     }
 
     private Double getCellAsDouble(ColumnType type) {
+        if (sheetRow != null) {
+            Object value = getValue(type);
+            return value instanceof Double ? (Double) value : null;
+        }
         Cell cell = getCell(type);
         return cell != null ? cell.getNumericCellValue() : null;
     }
 
     private Short getCellAsShort(ColumnType type) {
+        if (sheetRow != null) {
+            Double value = getCellAsDouble(type);
+            return value != null ? value.shortValue() : null;
+        }
         Cell cell = getCell(type);
         return cell != null ? Double.valueOf(cell.getNumericCellValue()).shortValue() : null;
     }
 
     private String getCellAsString(ColumnType type) {
+        if (sheetRow != null) {
+            Object value = getValue(type);
+            return value != null ? value.toString() : null;
+        }
         Cell cell = getCell(type);
         if(cell == null)
             return null;
@@ -88,6 +119,10 @@ public class ExcelPosition extends BaseNavigationPosition implements ExtendedSen
     }
 
     private CompactCalendar getCellAsTime(ColumnType type) {
+        if (sheetRow != null) {
+            Double value = getCellAsDouble(type);
+            return value != null ? fromDate(getJavaDate(value, sheetRow.getSheet().isDate1904())) : null;
+        }
         Cell cell = getCell(type);
         return cell != null ? fromDate(cell.getDateCellValue()) : null;
     }
@@ -115,25 +150,55 @@ public class ExcelPosition extends BaseNavigationPosition implements ExtendedSen
         return cell;
     }
 
+    private void setValue(ColumnType type, Object value) {
+        Integer index = mapping.getIndex(type);
+        if (index == null) {
+            // create a new column for the not yet represented column type
+            SheetRow header = sheetRow.getSheet().getHeader();
+            index = header.getCellCount();
+            header.setValue(index, type.name());
+            mapping.add(index, type);
+        }
+        if (type.equals(Time) && sheetRow.getValue(index) == null && sheetRow.getStyle(index) == NO_STYLE)
+            sheetRow.setStyle(index, TIME_STYLE);
+        sheetRow.setValue(index, value);
+    }
+
     private void setCellAsDouble(ColumnType type, Double value) {
+        if (sheetRow != null) {
+            setValue(type, toDouble(value));
+            return;
+        }
         Cell cell = getOrCreateCell(type);
         if (cell != null)
             cell.setCellValue(toDouble(value));
     }
 
     private void setCellAsShort(ColumnType type, Short value) {
+        if (sheetRow != null) {
+            setValue(type, toDouble(value));
+            return;
+        }
         Cell cell = getOrCreateCell(type);
         if (cell != null)
             cell.setCellValue(toDouble(value));
     }
 
     private void setCellAsString(ColumnType type, String value) {
+        if (sheetRow != null) {
+            setValue(type, value);
+            return;
+        }
         Cell cell = getOrCreateCell(type);
         if (cell != null)
             cell.setCellValue(value);
     }
 
     private void setCellAsTime(ColumnType type, CompactCalendar value) {
+        if (sheetRow != null) {
+            setValue(type, value != null ? getExcelDate(value.getTime(), sheetRow.getSheet().isDate1904()) : 0.0);
+            return;
+        }
         Cell cell = getOrCreateCell(type);
         if (cell != null) {
             if (value != null)
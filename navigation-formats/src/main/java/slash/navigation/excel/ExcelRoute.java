@@ -54,6 +54,8 @@ import slash.navigation.tcx.TcxFormat;
 import slash.navigation.tcx.TcxRoute;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import static slash.navigation.base.RouteCharacteristics.Track;
@@ -68,6 +70,7 @@ import static slash.navigation.excel.ColumnTypeToRowIndexMapping.DEFAULT;
 
 public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     private Sheet sheet;
+    private SheetData sheetData;
     private ColumnTypeToRowIndexMapping mapping = DEFAULT;
     private List<ExcelPosition> positions;
 
@@ -78,6 +81,13 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         this.positions = positions;
     }
 
+    ExcelRoute(ExcelFormat format, SheetData sheetData, ColumnTypeToRowIndexMapping mapping, List<ExcelPosition> positions) {
+        super(format, Track);
+        this.sheetData = sheetData;
+        this.mapping = mapping;
+        this.positions = positions;
+    }
+
     public ExcelRoute(ExcelFormat format, String name, List<ExcelPosition> positions) {
         this(format, format.createSheet(name), DEFAULT, positions);
         populateHeader(sheet.createRow(0));
@@ -92,11 +102,15 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public String getName() {
-        String name = sheet.getSheetName();
+        String name = sheetData != null ? sheetData.getName() : sheet.getSheetName();
         return name != null ? name : createRouteName(getPositions());
     }
 
     public void setName(String name) {
+        if (sheetData != null) {
+            sheetData.setName(name);
+            return;
+        }
         Workbook workbook = sheet.getWorkbook();
         workbook.setSheetName(workbook.getSheetIndex(sheet), name);
     }
@@ -113,8 +127,16 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         return positions.size();
     }
 
+    Sheet getSheet() {
+        return sheet;
+    }
+
+    SheetData getSheetData() {
+        return sheetData;
+    }
+
     Workbook getWorkbook() {
-        return sheet.getWorkbook();
+        return sheet != null ? sheet.getWorkbook() : null;
     }
 
     private int shiftRowToTheEnd(int index) {
@@ -130,6 +152,12 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public void top(int index, int topOffset) {
+        // the rows of a sheet read with the event model are ordered by the positions
+        if (sheetData != null) {
+            super.top(index, topOffset);
+            return;
+        }
+
         // shift index row to the end
         int rowForIndex = shiftRowToTheEnd(index);
 
@@ -143,6 +171,11 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public void bottom(int index, int bottomOffset) {
+        if (sheetData != null) {
+            super.bottom(index, bottomOffset);
+            return;
+        }
+
         // shift index row to the end
         int lastRowNum = sheet.getLastRowNum();
         int rowForIndex = shiftRowToTheEnd(index);
@@ -157,6 +190,11 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public void move(int firstIndex, int secondIndex) {
+        if (sheetData != null) {
+            super.move(firstIndex, secondIndex);
+            return;
+        }
+
         // shift secondIndex row to the end
         shiftRowToTheEnd(secondIndex);
 
@@ -172,6 +210,11 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public void add(int index, ExcelPosition position) {
+        if (sheetData != null) {
+            positions.add(index, position);
+            return;
+        }
+
         // shift all rows from index one position down
         int rowForIndex = index < getPositionCount() ? getPosition(index).getRow().getRowNum() : position.getRow().getRowNum();
         sheet.shiftRows(rowForIndex, sheet.getLastRowNum(), 1);
@@ -184,6 +227,9 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
     }
 
     public ExcelPosition remove(int index) {
+        if (sheetData != null)
+            return super.remove(index);
+
         // shift all rows one forward to index
         int rowForIndex = getPosition(index).getRow().getRowNum() + 1;
         int lastRowNum = sheet.getLastRowNum();
@@ -197,8 +243,47 @@ public class ExcelRoute extends BaseRoute<ExcelPosition, ExcelFormat> {
         return super.remove(index);
     }
 
+    public void insert(int[] indices, List<ExcelPosition> positions) {
+        if (sheetData != null) {
+            super.insert(indices, positions);
+            return;
+        }
+
+        // the rows of the sheet have to be shifted position by position
+        for (int i = 0; i < indices.length; i++)
+            add(indices[i], positions.get(i));
+    }
+
+    public List<ExcelPosition> remove(BitSet indices) {
+        if (sheetData != null)
+            return super.remove(indices);
+        if (indices.length() > getPositionCount())
+            throw new IndexOutOfBoundsException("Index " + (indices.length() - 1) + " out of bounds for " + getPositionCount() + " positions");
+
+        int[] rowNums = new int[indices.cardinality()];
+        int next = 0;
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            Row row = getPosition(i).getRow();
+            rowNums[next++] = row.getRowNum();
+            sheet.removeRow(row);
+        }
+        Arrays.sort(rowNums);
+
+        // shift the rows between two removed rows forward by the number of rows removed before them
+        int lastRowNum = sheet.getLastRowNum();
+        for (int i = 0; i < rowNums.length; i++) {
+            int firstRowToShift = rowNums[i] + 1;
+            int lastRowToShift = i + 1 < rowNums.length ? rowNums[i + 1] - 1 : lastRowNum;
+            if (firstRowToShift <= lastRowToShift)
+                sheet.shiftRows(firstRowToShift, lastRowToShift, -(i + 1));
+        }
+
+        return super.remove(indices);
+    }
+
     public ExcelPosition createPosition(Double longitude, Double latitude, Double elevation, Double speed, CompactCalendar time, String description) {
-        ExcelPosition position = new ExcelPosition(sheet.createRow(sheet.getLastRowNum() + 1), mapping);
+        ExcelPosition position = sheetData != null ? new ExcelPosition(new SheetRow(sheetData), mapping) :
+                new ExcelPosition(sheet.createRow(sheet.getLastRowNum() + 1), mapping);
         position.setLongitude(longitude);
         position.setLatitude(latitude);
         position.setElevation(elevation);
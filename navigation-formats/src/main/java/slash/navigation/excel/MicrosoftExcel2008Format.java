@@ -19,26 +19,67 @@
 */
 package slash.navigation.excel;
 
+import org.apache.poi.ooxml.util.SAXHelper;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
 import org.apache.poi.openxml4j.util.ZipSecureFile;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.xmlbeans.XmlException;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbookPr;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.WorkbookDocument;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 import slash.navigation.base.ParserContext;
 
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
 
+import static java.io.File.createTempFile;
+import static java.lang.Math.min;
+import static org.apache.commons.io.IOUtils.copyLarge;
+import static org.apache.poi.ooxml.POIXMLTypeLoader.DEFAULT_XML_OPTIONS;
+import static org.apache.poi.openxml4j.opc.PackageAccess.READ;
+import static org.apache.poi.ss.usermodel.CellType.FORMULA;
 import static org.apache.poi.ss.util.WorkbookUtil.createSafeSheetName;
+import static slash.common.io.Directories.getTemporaryDirectory;
+import static slash.navigation.excel.SheetRow.NO_STYLE;
+import static slash.navigation.excel.SheetRow.TIME_STYLE;
 
 /**
  * Reads Microsoft Excel 2008 (.xlsx) files.
  *
+ * The sheets are read with the event model into {@link SheetData} and written with
+ * a bounded window of rows to avoid holding the DOM of the file in memory.
+ *
  * @author Christian Pesch
  */
 
 public class MicrosoftExcel2008Format extends ExcelFormat {
+    private static final Logger log = Logger.getLogger(MicrosoftExcel2008Format.class.getName());
+    static final int ROW_ACCESS_WINDOW_SIZE = 100;
+    private static final byte[] ZIP_SIGNATURE = {'P', 'K', 3, 4};
+
     static {
         ZipSecureFile.setMinInflateRatio(0.001);
     }
@@ -57,17 +98,89 @@ public class MicrosoftExcel2008Format extends ExcelFormat {
     }
 
     public void read(InputStream source, ParserContext<ExcelRoute> context) throws IOException {
-        Workbook workbook = new XSSFWorkbook(source);
-        parseWorkbook(workbook, context);
-        // do not close Workbook since this would close the underlying OPCPackage which has to be open to write later
+        if (!isZip(source))
+            throw new IOException("Cannot open Excel 2008 package: no zip signature");
+
+        // a package opened from a file reads its parts on demand while a stream is buffered completely
+        File file = context.getFile();
+        File temporaryFile = null;
+        if (file == null || !file.getName().toLowerCase().endsWith(getExtension())) {
+            temporaryFile = createTempFile("excel", getExtension(), getTemporaryDirectory());
+            try (OutputStream outputStream = new FileOutputStream(temporaryFile)) {
+                copyLarge(source, outputStream);
+            }
+            file = temporaryFile;
+        }
+
+        try {
+            read(file, context);
+        } finally {
+            if (temporaryFile != null && !temporaryFile.delete())
+                log.warning("Cannot delete temporary file " + temporaryFile);
+        }
+    }
+
+    private boolean isZip(InputStream source) throws IOException {
+        source.mark(ZIP_SIGNATURE.length);
+        try {
+            for (byte signature : ZIP_SIGNATURE) {
+                if (source.read() != signature)
+                    return false;
+            }
+            return true;
+        } finally {
+            source.reset();
+        }
+    }
+
+    private void read(File file, ParserContext<ExcelRoute> context) throws IOException {
+        OPCPackage pkg;
+        try {
+            pkg = OPCPackage.open(file, READ);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Cannot open Excel 2008 package: " + e, e);
+        }
+
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+            boolean date1904 = isDate1904(reader);
+
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (iterator.hasNext()) {
+                try (InputStream sheetData = iterator.next()) {
+                    SheetData sheet = new SheetData(iterator.getSheetName(), styles, date1904);
+                    SheetDataHandler handler = new SheetDataHandler(sheet, strings);
+                    XMLReader xmlReader = SAXHelper.newXMLReader();
+                    xmlReader.setContentHandler(handler);
+                    xmlReader.parse(new InputSource(sheetData));
+                    parseSheet(sheet, handler.getRows(), context);
+                }
+            }
+        } catch (OpenXML4JException | ParserConfigurationException | SAXException | XmlException e) {
+            throw new IOException("Cannot read Excel 2008 file: " + e, e);
+        } finally {
+            // the routes keep their rows and the styles, thus the package is not needed to write later
+            pkg.revert();
+        }
+    }
+
+    private boolean isDate1904(XSSFReader reader) throws IOException, OpenXML4JException, XmlException {
+        try (InputStream workbookData = reader.getWorkbookData()) {
+            CTWorkbookPr properties = WorkbookDocument.Factory.parse(workbookData, DEFAULT_XML_OPTIONS).getWorkbook().getWorkbookPr();
+            return properties != null && properties.getDate1904();
+        }
     }
 
     public void write(ExcelRoute route, OutputStream target, int startIndex, int endIndex) throws IOException {
-        Workbook workbook = route.getWorkbook();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
         try {
+            writeRoute(route, workbook, new CellStyles(workbook), startIndex, endIndex);
             workbook.write(target);
         }
         finally {
+            workbook.dispose();
             target.flush();
             target.close();
         }
@@ -77,16 +190,168 @@ public class MicrosoftExcel2008Format extends ExcelFormat {
         if(routes.size() == 0)
             return;
 
-        Workbook workbook = routes.get(0).getWorkbook();
-        if(!(workbook instanceof XSSFWorkbook))
-            throw new IllegalArgumentException("Workbook " + workbook + " is not XSSFWorkbook");
-
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW_SIZE);
         try {
+            CellStyles cellStyles = new CellStyles(workbook);
+            for (ExcelRoute route : routes)
+                writeRoute(route, workbook, cellStyles, 0, route.getPositionCount());
             workbook.write(target);
         }
         finally {
+            workbook.dispose();
             target.flush();
             target.close();
         }
     }
+
+    private void writeRoute(ExcelRoute route, Workbook workbook, CellStyles cellStyles, int startIndex, int endIndex) {
+        Sheet sheet = workbook.createSheet(createUniqueSheetName(workbook, route.getName()));
+
+        int rowNum = 1;
+        SheetData sheetData = route.getSheetData();
+        if (sheetData != null) {
+            if (sheetData.getHeader() != null)
+                rowNum = writeRow(sheetData.getHeader(), sheet, 0, cellStyles);
+        } else {
+            Row header = route.getSheet().getRow(0);
+            if (header != null)
+                copyRow(header, sheet.createRow(0), cellStyles);
+        }
+
+        List<ExcelPosition> positions = route.getPositions();
+        int c = min(endIndex, positions.size());
+        for (int i = startIndex; i < c; i++) {
+            ExcelPosition position = positions.get(i);
+            SheetRow row = position.getSheetRow();
+            if (row != null) {
+                for (SheetRow leadingRow : row.getLeadingRows())
+                    rowNum = writeRow(leadingRow, sheet, rowNum, cellStyles);
+                rowNum = writeRow(row, sheet, rowNum, cellStyles);
+            } else
+                copyRow(position.getRow(), sheet.createRow(rowNum++), cellStyles);
+        }
+
+        if (sheetData != null && c == positions.size()) {
+            for (SheetRow trailingRow : sheetData.getTrailingRows())
+                rowNum = writeRow(trailingRow, sheet, rowNum, cellStyles);
+        }
+    }
+
+    private String createUniqueSheetName(Workbook workbook, String name) {
+        String result = createSafeSheetName(name);
+        for (int i = 2; workbook.getSheet(result) != null; i++)
+            result = createSafeSheetName(name + " (" + i + ")");
+        return result;
+    }
+
+    private int writeRow(SheetRow source, Sheet sheet, int rowNum, CellStyles cellStyles) {
+        rowNum += source.getSkippedRows();
+        Row target = sheet.createRow(rowNum);
+        SheetData sheetData = source.getSheet();
+        if (source.getRowStyle() != NO_STYLE) {
+            CellStyle rowStyle = cellStyles.getCellStyle(sheetData, source.getRowStyle());
+            if (rowStyle != null)
+                target.setRowStyle(rowStyle);
+        }
+        if (source.getHeight() >= 0)
+            target.setHeightInPoints(source.getHeight());
+
+        for (int i = 0, c = source.getCellCount(); i < c; i++) {
+            Object value = source.getValue(i);
+            int style = source.getStyle(i);
+            if (value == null && style == NO_STYLE)
+                continue;
+
+            Cell cell = target.createCell(i);
+            if (value instanceof Double)
+                cell.setCellValue((Double) value);
+            else if (value instanceof String)
+                cell.setCellValue((String) value);
+            else if (value instanceof Boolean)
+                cell.setCellValue((Boolean) value);
+
+            CellStyle cellStyle = cellStyles.getCellStyle(sheetData, style);
+            if (cellStyle != null)
+                cell.setCellStyle(cellStyle);
+        }
+        return rowNum + 1;
+    }
+
+    private void copyRow(Row source, Row target, CellStyles cellStyles) {
+        for (Cell cell : source) {
+            CellType cellType = cell.getCellType();
+            if (cellType.equals(FORMULA))
+                cellType = cell.getCachedFormulaResultType();
+
+            switch (cellType) {
+                case NUMERIC:
+                    Cell numeric = target.createCell(cell.getColumnIndex());
+                    numeric.setCellValue(cell.getNumericCellValue());
+                    CellStyle cellStyle = cellStyles.getCellStyle(cell.getCellStyle());
+                    if (cellStyle != null)
+                        numeric.setCellStyle(cellStyle);
+                    break;
+                case STRING:
+                    target.createCell(cell.getColumnIndex()).setCellValue(cell.getStringCellValue());
+                    break;
+                case BOOLEAN:
+                    target.createCell(cell.getColumnIndex()).setCellValue(cell.getBooleanCellValue());
+                    break;
+                default:
+                    // blank and error cells are skipped
+            }
+        }
+    }
+
+    /**
+     * Creates the cell styles of the written workbook once: the styles of rows read with the event model
+     * are cloned from the styles of their file, of other rows only the number formats are kept.
+     */
+    private static class CellStyles {
+        private static final String TIME_FORMAT = "m/d/yy h:mm";
+
+        private final Workbook workbook;
+        private final Map<String, CellStyle> dataFormatToCellStyle = new HashMap<>();
+        private final Map<StylesTable, Map<Integer, CellStyle>> styleIndexToCellStyle = new IdentityHashMap<>();
+
+        private CellStyles(Workbook workbook) {
+            this.workbook = workbook;
+        }
+
+        CellStyle getCellStyle(CellStyle source) {
+            if (source == null || source.getDataFormat() == 0)
+                return null;
+            return getCellStyle(source.getDataFormatString());
+        }
+
+        private CellStyle getCellStyle(String dataFormat) {
+            CellStyle result = dataFormatToCellStyle.get(dataFormat);
+            if (result == null) {
+                result = workbook.createCellStyle();
+                result.setDataFormat(workbook.createDataFormat().getFormat(dataFormat));
+                dataFormatToCellStyle.put(dataFormat, result);
+            }
+            return result;
+        }
+
+        CellStyle getCellStyle(SheetData sheetData, int styleIndex) {
+            if (styleIndex == TIME_STYLE)
+                return getCellStyle(TIME_FORMAT);
+            StylesTable styles = sheetData.getStyles();
+            if (styleIndex == NO_STYLE || styles == null)
+                return null;
+
+            Map<Integer, CellStyle> cellStyles = styleIndexToCellStyle.computeIfAbsent(styles, k -> new HashMap<>());
+            CellStyle result = cellStyles.get(styleIndex);
+            if (result == null && !cellStyles.containsKey(styleIndex)) {
+                XSSFCellStyle source = styleIndex < styles.getNumCellStyles() ? styles.getStyleAt(styleIndex) : null;
+                if (source != null) {
+                    result = workbook.createCellStyle();
+                    result.cloneStyleFrom(source);
+                }
+                cellStyles.put(styleIndex, result);
+            }
+            return result;
+        }
+    }
 }
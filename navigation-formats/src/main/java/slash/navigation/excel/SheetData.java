@@ -0,0 +1,81 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.excel;
+
+import org.apache.poi.xssf.model.StylesTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sheet of a Microsoft Excel 2008 (.xlsx) file which keeps its rows as {@link SheetRow}s
+ * and refers to the styles of the file by index to avoid holding the DOM of the sheet in memory.
+ *
+ * @author Christian Pesch
+ */
+
+class SheetData {
+    private final StylesTable styles;
+    private final boolean date1904;
+    private String name;
+    private SheetRow header;
+    private List<SheetRow> trailingRows = new ArrayList<>();
+
+    SheetData(String name, StylesTable styles, boolean date1904) {
+        this.name = name;
+        this.styles = styles;
+        this.date1904 = date1904;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    void setName(String name) {
+        this.name = name;
+    }
+
+    StylesTable getStyles() {
+        return styles;
+    }
+
+    boolean isDate1904() {
+        return date1904;
+    }
+
+    SheetRow getHeader() {
+        return header;
+    }
+
+    void setHeader(SheetRow header) {
+        this.header = header;
+    }
+
+    /**
+     * Returns the rows without values after the last row with values.
+     */
+    List<SheetRow> getTrailingRows() {
+        return trailingRows;
+    }
+
+    void setTrailingRows(List<SheetRow> trailingRows) {
+        this.trailingRows = trailingRows;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.excel;
+
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Double.parseDouble;
+import static java.lang.Float.parseFloat;
+import static java.lang.Integer.parseInt;
+import static slash.common.io.Transfer.trim;
+import static slash.navigation.excel.SheetRow.NO_STYLE;
+
+/**
+ * Transfers the values and the style indices of the cells of the sheet data of a
+ * Microsoft Excel 2008 (.xlsx) file into {@link SheetRow}s while SAX parsing it.
+ * The first row becomes the header of the {@link SheetData}, rows without values
+ * are kept as leading rows of the next row with values and formulas are replaced
+ * by their cached results.
+ *
+ * @author Christian Pesch
+ */
+
+class SheetDataHandler extends DefaultHandler {
+    private final SheetData sheet;
+    private final SharedStrings strings;
+    private final List<SheetRow> rows = new ArrayList<>();
+    private List<SheetRow> rowsWithoutValues = new ArrayList<>();
+    private final StringBuilder value = new StringBuilder();
+    private SheetRow row;
+    private int rowIndex = -1, previousRowIndex = -1, columnIndex = -1;
+    private String cellType, cellStyle;
+    private boolean collectValue;
+
+    SheetDataHandler(SheetData sheet, SharedStrings strings) {
+        this.sheet = sheet;
+        this.strings = strings;
+    }
+
+    /**
+     * Returns the rows with values after the header.
+     */
+    List<SheetRow> getRows() {
+        return rows;
+    }
+
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row":
+                String reference = attributes.getValue("r");
+                rowIndex = reference != null ? parseInt(reference) - 1 : rowIndex + 1;
+                row = new SheetRow(sheet);
+                row.setSkippedRows(rowIndex - previousRowIndex - 1);
+                if (isTrue(attributes.getValue("customFormat")))
+                    row.setRowStyle(parseStyle(attributes.getValue("s")));
+                if (isTrue(attributes.getValue("customHeight")) && attributes.getValue("ht") != null)
+                    row.setHeight(parseFloat(attributes.getValue("ht")));
+                columnIndex = -1;
+                break;
+            case "c":
+                String cellReference = attributes.getValue("r");
+                columnIndex = cellReference != null ? new CellReference(cellReference).getCol() : columnIndex + 1;
+                cellType = attributes.getValue("t");
+                cellStyle = attributes.getValue("s");
+                value.setLength(0);
+                break;
+            case "v":
+            case "t":
+                collectValue = true;
+                break;
+        }
+    }
+
+    public void characters(char[] ch, int start, int length) {
+        if (collectValue)
+            value.append(ch, start, length);
+    }
+
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "row":
+                endRow();
+                break;
+            case "c":
+                addCell();
+                break;
+            case "v":
+            case "t":
+                collectValue = false;
+                break;
+        }
+    }
+
+    public void endDocument() {
+        sheet.setTrailingRows(rowsWithoutValues);
+    }
+
+    private void endRow() {
+        row.trimToSize();
+        previousRowIndex = rowIndex;
+
+        if (rowIndex == 0)
+            sheet.setHeader(row);
+        else if (row.hasValues()) {
+            row.setLeadingRows(rowsWithoutValues);
+            rowsWithoutValues = new ArrayList<>();
+            rows.add(row);
+        } else
+            rowsWithoutValues.add(row);
+        row = null;
+    }
+
+    private void addCell() {
+        int style = parseStyle(cellStyle);
+        if (style != NO_STYLE)
+            row.setStyle(columnIndex, style);
+
+        if (value.length() == 0)
+            return;
+        String string = value.toString();
+
+        if (cellType == null || "n".equals(cellType))
+            row.setValue(columnIndex, parseDouble(string));
+        else if ("s".equals(cellType))
+            row.setValue(columnIndex, strings.getItemAt(parseInt(string)).getString());
+        else if ("inlineStr".equals(cellType) || "str".equals(cellType))
+            row.setValue(columnIndex, string);
+        else if ("b".equals(cellType))
+            row.setValue(columnIndex, "1".equals(string));
+        // error cells are skipped
+    }
+
+    private boolean isTrue(String value) {
+        return "1".equals(value) || "true".equals(value);
+    }
+
+    private int parseStyle(String styleIndex) {
+        // the style with index 0 is the default style of the file
+        int index = trim(styleIndex) != null ? parseInt(styleIndex) : 0;
+        return index != 0 ? index : NO_STYLE;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.excel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.fill;
+
+/**
+ * A row of a {@link SheetData} which keeps the values and the style indices of
+ * its cells instead of the XML of the cells.
+ *
+ * @author Christian Pesch
+ */
+
+class SheetRow {
+    static final int NO_STYLE = -1;
+    static final int TIME_STYLE = -2;
+
+    private final SheetData sheet;
+    private Object[] values = new Object[0];
+    private int[] styles;
+    private int cellCount;
+    private int style = NO_STYLE;
+    private float height = -1;
+    private int skippedRows;
+    private List<SheetRow> leadingRows;
+
+    SheetRow(SheetData sheet) {
+        this.sheet = sheet;
+    }
+
+    SheetData getSheet() {
+        return sheet;
+    }
+
+    int getCellCount() {
+        return cellCount;
+    }
+
+    boolean hasValues() {
+        for (Object value : values) {
+            if (value != null)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a {@link Double}, a {@link String}, a {@link Boolean} or null.
+     */
+    Object getValue(int columnIndex) {
+        return columnIndex < values.length ? values[columnIndex] : null;
+    }
+
+    void setValue(int columnIndex, Object value) {
+        ensureCapacity(columnIndex);
+        values[columnIndex] = value;
+    }
+
+    int getStyle(int columnIndex) {
+        return styles != null && columnIndex < styles.length ? styles[columnIndex] : NO_STYLE;
+    }
+
+    void setStyle(int columnIndex, int style) {
+        ensureCapacity(columnIndex);
+        if (styles == null) {
+            styles = new int[values.length];
+            fill(styles, NO_STYLE);
+        }
+        styles[columnIndex] = style;
+    }
+
+    private void ensureCapacity(int columnIndex) {
+        cellCount = max(cellCount, columnIndex + 1);
+        if (columnIndex < values.length)
+            return;
+
+        int length = max(columnIndex + 1, values.length * 3 / 2);
+        values = copyOf(values, length);
+        if (styles != null) {
+            int previousLength = styles.length;
+            styles = copyOf(styles, length);
+            fill(styles, previousLength, length, NO_STYLE);
+        }
+    }
+
+    void trimToSize() {
+        if (values.length > cellCount)
+            values = copyOf(values, cellCount);
+        if (styles != null && styles.length > cellCount)
+            styles = copyOf(styles, cellCount);
+    }
+
+    int getRowStyle() {
+        return style;
+    }
+
+    void setRowStyle(int style) {
+        this.style = style;
+    }
+
+    float getHeight() {
+        return height;
+    }
+
+    void setHeight(float height) {
+        this.height = height;
+    }
+
+    /**
+     * Returns the number of empty rows of the sheet before this row.
+     */
+    int getSkippedRows() {
+        return skippedRows;
+    }
+
+    void setSkippedRows(int skippedRows) {
+        this.skippedRows = skippedRows;
+    }
+
+    /**
+     * Returns the rows without values before this row which travel with it.
+     */
+    List<SheetRow> getLeadingRows() {
+        return leadingRows != null ? leadingRows : new ArrayList<>();
+    }
+
+    void setLeadingRows(List<SheetRow> leadingRows) {
+        this.leadingRows = leadingRows.isEmpty() ? null : leadingRows;
+    }
+}
@@ -85,6 +85,10 @@ public class GoPalTrackFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected boolean isProbeAcceptingValidLines() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches();
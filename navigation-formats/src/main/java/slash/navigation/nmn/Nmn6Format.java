@@ -58,6 +58,10 @@ public class Nmn6Format extends NmnFormat {
         return "Navigon Mobile Navigator 6 (*" + getExtension() + ")";
     }
 
+    protected boolean isProbeAcceptingValidLines() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches() || isPosition(line);
@@ -72,6 +72,10 @@ public class GoRiderGpsFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Route;
     }
 
+    protected String getHeader() {
+        return HEADER;
+    }
+
     protected boolean isValidLine(String line) {
         return isPosition(line) || line.startsWith(HEADER);
     }
@@ -107,6 +107,10 @@ public class HaicomLoggerFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected String getHeader() {
+        return HEADER_LINE;
+    }
+
     protected boolean isValidLine(String line) {
         return isPosition(line) || isHeader(line);
     }
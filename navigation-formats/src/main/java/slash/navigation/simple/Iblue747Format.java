@@ -92,6 +92,14 @@ public class Iblue747Format extends SimpleLineBasedFormat<SimpleRoute> {
         return Track;
     }
 
+    protected String getHeader() {
+        return HEADER_LINE;
+    }
+
+    protected boolean isProbeAcceptingValidLines() {
+        return true;
+    }
+
     protected boolean isValidLine(String line) {
         Matcher matcher = LINE_PATTERN.matcher(line);
         return matcher.matches() || line.startsWith(HEADER_LINE);
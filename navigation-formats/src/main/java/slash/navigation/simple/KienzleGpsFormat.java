@@ -83,6 +83,10 @@ public class KienzleGpsFormat extends SimpleLineBasedFormat<SimpleRoute> {
         return Route;
     }
 
+    protected String getHeader() {
+        return HEADER_LINE;
+    }
+
     protected boolean isValidLine(String line) {
         return isPosition(line) || line.startsWith(HEADER_LINE);
     }
@@ -21,14 +21,12 @@
 package slash.navigation.zip;
 
 import slash.common.io.Files;
-import slash.common.io.NotClosingUnderlyingInputStream;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseRoute;
 import slash.navigation.base.ParserContext;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.common.NavigationPosition;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -84,10 +82,8 @@ public class ZipFormat extends BaseNavigationFormat<BaseRoute> {
                 if(entry.isDirectory())
                     continue;
 
-                NotClosingUnderlyingInputStream buffer = new NotClosingUnderlyingInputStream(new BufferedInputStream(zip));
-                int size = (int) entry.getSize() + 1;
-                buffer.mark(size);
-                context.parse(buffer, context.getStartDate(), Files.getExtension(entry.getName()));
+                // the entry is spooled by the context to be read by several formats
+                context.parse(zip, context.getStartDate(), Files.getExtension(entry.getName()));
                 zip.closeEntry();
             }
         } catch (IOException e) {
@@ -0,0 +1,173 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.itn.TomTom5RouteFormat;
+import slash.navigation.itn.TomTom8RouteFormat;
+import slash.navigation.nmea.NmeaFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.Preferences;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.base.AdaptiveFormatOrder.createSignature;
+import static slash.navigation.base.ReadAttempt.Outcome.Accepted;
+
+public class AdaptiveFormatOrderTest {
+    private final Preferences preferences = new MemoryPreferences(null, "");
+
+    private static class MemoryPreferences extends AbstractPreferences {
+        private final Map<String, String> values = new HashMap<>();
+        private final Map<String, MemoryPreferences> children = new HashMap<>();
+
+        MemoryPreferences(MemoryPreferences parent, String name) {
+            super(parent, name);
+        }
+
+        protected void putSpi(String key, String value) {
+            values.put(key, value);
+        }
+
+        protected String getSpi(String key) {
+            return values.get(key);
+        }
+
+        protected void removeSpi(String key) {
+            values.remove(key);
+        }
+
+        protected void removeNodeSpi() {
+        }
+
+        protected String[] keysSpi() {
+            return values.keySet().toArray(new String[0]);
+        }
+
+        protected String[] childrenNamesSpi() {
+            return children.keySet().toArray(new String[0]);
+        }
+
+        protected AbstractPreferences childSpi(String name) {
+            MemoryPreferences child = children.get(name);
+            if (child == null) {
+                child = new MemoryPreferences(this, name);
+                children.put(name, child);
+            }
+            return child;
+        }
+
+        protected void syncSpi() {
+        }
+
+        protected void flushSpi() {
+        }
+    }
+
+    private static String signature(String extension, String text) {
+        byte[] bytes = text.getBytes();
+        return createSignature(extension, bytes, bytes.length);
+    }
+
+    @Test
+    public void testCreateSignature() {
+        assertEquals(".nmea:$GPR", signature(".NMEA", "$GPRMC,140403.000,A,4837.5194,N"));
+        assertEquals(".csv:0000", signature(".csv", "\r\n  2010,12,28"));
+        assertEquals(":ab", signature(null, "ab"));
+        assertEquals(".bin:....", signature(".bin", "\u0001\u0002\u0003\u0004\u0005"));
+
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', '?', 'x', 'm', 'l'};
+        assertEquals(".txt:<?xm", createSignature(".txt", bom, bom.length));
+    }
+
+    @Test
+    public void testPromoteAcceptingFormatsInGivenOrder() {
+        NavigationFormat gpx = new Gpx11Format(), nmea = new NmeaFormat(), tomTom5 = new TomTom5RouteFormat(), tomTom8 = new TomTom8RouteFormat();
+        List<NavigationFormat> formats = asList(gpx, nmea, tomTom5, tomTom8);
+
+        AdaptiveFormatOrder order = new AdaptiveFormatOrder(preferences);
+        assertEquals(formats, order.sort(".txt:$GPR", formats));
+
+        order.accepted(".txt:$GPR", tomTom8);
+        order.accepted(".txt:$GPR", tomTom8);
+        order.accepted(".txt:$GPR", nmea);
+        assertEquals(asList(nmea, tomTom8, gpx, tomTom5), order.sort(".txt:$GPR", formats));
+        assertEquals(formats, order.sort(".log:$GPR", formats));
+
+        AdaptiveFormatOrder restored = new AdaptiveFormatOrder(preferences);
+        assertEquals(asList(nmea, tomTom8, gpx, tomTom5), restored.sort(".txt:$GPR", formats));
+    }
+
+    @Test
+    public void testRecheckGivenOrder() {
+        NavigationFormat gpx = new Gpx11Format(), nmea = new NmeaFormat();
+        List<NavigationFormat> formats = asList(gpx, nmea);
+
+        AdaptiveFormatOrder order = new AdaptiveFormatOrder(preferences);
+        order.accepted(".txt:$GPR", nmea);
+        for (int i = 1; i < 10; i++)
+            assertEquals(asList(nmea, gpx), order.sort(".txt:$GPR", formats));
+        assertEquals(formats, order.sort(".txt:$GPR", formats));
+        assertEquals(asList(nmea, gpx), order.sort(".txt:$GPR", formats));
+    }
+
+    @Test
+    public void testHalvesCountsWhenTooLarge() {
+        NavigationFormat gpx = new Gpx11Format(), nmea = new NmeaFormat();
+        AdaptiveFormatOrder order = new AdaptiveFormatOrder(preferences);
+        order.accepted(".gpx:<?xm", gpx);
+        for (int i = 0; i < 1000; i++)
+            order.accepted(".gpx:<?xm", nmea);
+
+        assertEquals("slash.navigation.nmea.NmeaFormat=500", preferences.get(".gpx:<?xm", null));
+    }
+
+    @Test
+    public void testParserTriesAcceptingFormatFirst() throws IOException {
+        NavigationFormatRegistry registry = new NavigationFormatRegistry();
+        registry.setAdaptiveFormatOrder(new AdaptiveFormatOrder(preferences));
+        NavigationFormatParser parser = new NavigationFormatParser(registry);
+        final List<ReadAttempt> attempts = new ArrayList<>();
+        parser.addReadAttemptListener(attempts::add);
+        String nmea = "$GPRMC,140403.000,A,4837.5194,N,00903.4022,E,15.00,0.00,260707,,*3E\n";
+
+        ParserResult first = parser.read(new ByteArrayInputStream(nmea.getBytes()));
+        assertEquals(NmeaFormat.class, first.getFormat().getClass());
+        int firstAttemptCount = attempts.size();
+
+        attempts.clear();
+        ParserResult second = parser.read(new ByteArrayInputStream(nmea.getBytes()));
+        assertEquals(NmeaFormat.class, second.getFormat().getClass());
+        assertEquals(1, attempts.size());
+        assertSame(Accepted, attempts.get(0).getOutcome());
+        assertTrue(firstAttemptCount > 1);
+    }
+}
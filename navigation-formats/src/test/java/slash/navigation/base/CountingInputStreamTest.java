@@ -0,0 +1,46 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.base;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class CountingInputStreamTest {
+    @Test
+    public void testCountsBytesReadAgainAfterResetOnce() throws IOException {
+        try (CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(new byte[100]))) {
+            stream.mark(100);
+            assertEquals(60, stream.read(new byte[60]));
+            assertEquals(60, stream.getCount());
+
+            stream.reset();
+            assertEquals(40, stream.read(new byte[40]));
+            assertEquals(60, stream.getCount());
+
+            assertEquals(30, stream.skip(30));
+            stream.read();
+            assertEquals(71, stream.getCount());
+        }
+    }
+}
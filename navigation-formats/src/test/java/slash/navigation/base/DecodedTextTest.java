@@ -0,0 +1,94 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static slash.common.io.Transfer.ISO_LATIN1_ENCODING;
+import static slash.common.io.Transfer.UTF8_ENCODING;
+import static slash.navigation.base.DecodedText.decode;
+
+public class DecodedTextTest {
+    private DecodedText decodeLatin1(String string) throws IOException {
+        return decode(new ByteArrayInputStream(string.getBytes(ISO_LATIN1_ENCODING)), ISO_LATIN1_ENCODING);
+    }
+
+    private List<String> readLines(BufferedReader reader) throws IOException {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null)
+            lines.add(line);
+        return lines;
+    }
+
+    private List<String> getLines(DecodedText text) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < text.getLineCount(); i++)
+            lines.add(text.getLine(i));
+        return lines;
+    }
+
+    private void assertSplitLikeReadLine(String string) throws IOException {
+        DecodedText text = decodeLatin1(string);
+        List<String> expected = readLines(new BufferedReader(new StringReader(string)));
+        assertEquals(expected, getLines(text));
+        assertEquals(expected, readLines(text.createReader()));
+    }
+
+    @Test
+    public void testSplitsLikeReadLine() throws IOException {
+        assertSplitLikeReadLine("");
+        assertSplitLikeReadLine("a");
+        assertSplitLikeReadLine("a\n");
+        assertSplitLikeReadLine("a\nb");
+        assertSplitLikeReadLine("a\r\nb\r\n");
+        assertSplitLikeReadLine("a\rb\r\rc");
+        assertSplitLikeReadLine("\n\n\r\n");
+    }
+
+    @Test
+    public void testDecodesLongText() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            builder.append("line ").append(i).append("\r\n");
+        DecodedText text = decodeLatin1(builder.toString());
+        assertEquals(10000, text.getLineCount());
+        assertEquals("line 9999", text.getLine(9999));
+    }
+
+    @Test
+    public void testDecodesWithEncoding() throws IOException {
+        String string = "M\u00fcnchen\nK\u00f6ln";
+        DecodedText text = decode(new ByteArrayInputStream(string.getBytes(UTF8_ENCODING)), UTF8_ENCODING);
+        assertEquals("M\u00fcnchen", text.getLine(0));
+        assertEquals("K\u00f6ln", text.getLine(1));
+        assertSame(text.getLine(1), text.getLine(1));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.mm.MagicMaps2GoFormat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+import static slash.navigation.base.RouteCharacteristics.Track;
+import static slash.navigation.base.RouteCharacteristics.Waypoints;
+
+public class LazyRouteListTest {
+    private final MagicMaps2GoFormat format = new MagicMaps2GoFormat();
+    private final List<BaseRoute> converted = new ArrayList<>();
+
+    private BaseRoute createRoute(RouteCharacteristics characteristics, String name) {
+        return new Wgs84Route(format, characteristics, name, new ArrayList<>(singletonList(
+                new Wgs84Position(1.0, 2.0, null, null, null, null))));
+    }
+
+    private LazyRouteList createList(BaseRoute... sources) {
+        return new LazyRouteList(asList(sources), source -> {
+            BaseRoute route = createRoute(source.getCharacteristics(), "converted " + source.getName());
+            converted.add(route);
+            return route;
+        });
+    }
+
+    @Test
+    public void testConvertsOnFirstAccess() {
+        LazyRouteList routes = createList(createRoute(Track, "a"), createRoute(Waypoints, "b"));
+        assertEquals(2, routes.size());
+        assertTrue(converted.isEmpty());
+
+        BaseRoute second = routes.get(1);
+        assertEquals("converted b", second.getName());
+        assertSame(second, routes.get(1));
+        assertEquals(1, converted.size());
+        assertFalse(routes.isConverted(0));
+        assertTrue(routes.isConverted(1));
+    }
+
+    @Test
+    public void testCharacteristicsWithoutConversion() {
+        LazyRouteList routes = createList(createRoute(Track, "a"), createRoute(Waypoints, "b"));
+        assertEquals(Track, routes.getCharacteristics(0));
+        assertEquals(Waypoints, routes.getCharacteristics(1));
+        assertTrue(converted.isEmpty());
+    }
+
+    @Test
+    public void testAddRemoveAndIndexOf() {
+        LazyRouteList routes = createList(createRoute(Track, "a"), createRoute(Track, "b"));
+        BaseRoute added = createRoute(Track, "c");
+        routes.add(1, added);
+        assertEquals(1, routes.indexOf(added));
+        assertEquals(1, converted.size());
+
+        BaseRoute removed = routes.remove(0);
+        assertEquals("converted a", removed.getName());
+        assertEquals(0, routes.indexOf(added));
+        assertEquals(-1, routes.indexOf(removed));
+        assertEquals(2, routes.size());
+        assertEquals("converted b", routes.get(1).getName());
+    }
+
+    @Test
+    public void testIndexOfConvertsRoutes() {
+        LazyRouteList routes = createList(createRoute(Track, "a"), createRoute(Track, "b"), createRoute(Track, "c"));
+        assertEquals(1, routes.indexOf(createRoute(Track, "converted b")));
+        assertEquals(2, converted.size());
+        assertFalse(routes.isConverted(2));
+        assertEquals(2, routes.lastIndexOf(createRoute(Track, "converted c")));
+        assertEquals(-1, routes.indexOf(createRoute(Track, "d")));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testConversionFailsOnAccess() {
+        LazyRouteList routes = new LazyRouteList(singletonList(createRoute(Track, "a")), source -> {
+            throw new IOException("cannot convert");
+        });
+        routes.get(0);
+    }
+}
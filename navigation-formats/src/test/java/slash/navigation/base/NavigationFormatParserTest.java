@@ -0,0 +1,210 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import slash.navigation.gpx.Gpx11Format;
+import slash.navigation.gpx.GpxPosition;
+import slash.navigation.gpx.GpxRoute;
+import slash.navigation.itn.TomTom8RouteFormat;
+import slash.navigation.simple.GarbleHaicomLoggerFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.*;
+import static slash.navigation.base.NavigationFormatParser.getNumberOfFilesToWriteFor;
+import static slash.navigation.base.ReadAttempt.Outcome.Accepted;
+import static slash.navigation.base.ReadAttempt.Outcome.Rejected;
+import static slash.navigation.base.RouteCharacteristics.Route;
+
+public class NavigationFormatParserTest {
+    private final NavigationFormatParser parser = new NavigationFormatParser(new NavigationFormatRegistry());
+    private final TomTom8RouteFormat format = new TomTom8RouteFormat();
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = createTempFile("parser", ".dir");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                assertTrue(file.delete());
+        assertTrue(directory.delete());
+    }
+
+    private GpxRoute createRoute(int positionCount) {
+        List<GpxPosition> positions = new ArrayList<>();
+        for (int i = 0; i < positionCount; i++)
+            positions.add(new GpxPosition(10.0 + i * 0.001, 50.0, null, null, null, "Position " + i));
+        return new GpxRoute(new Gpx11Format(), Route, "Route", null, positions);
+    }
+
+    private File[] createTargets(int count) {
+        File[] targets = new File[count];
+        for (int i = 0; i < count; i++)
+            targets[i] = new File(directory, "target" + i + ".itn");
+        return targets;
+    }
+
+    @Test
+    public void testWriteChunksToMultipleFiles() throws IOException {
+        GpxRoute route = createRoute(1000);
+        int count = getNumberOfFilesToWriteFor(route, format, false);
+        assertEquals(21, count);
+
+        File[] targets = createTargets(count);
+        parser.write(route, format, false, false, null, targets);
+
+        assertEquals(count, directory.list().length);
+        int positionCount = 0;
+        for (File target : targets) {
+            ParserResult result = parser.read(target);
+            assertTrue(result.isSuccessful());
+            positionCount += result.getTheRoute().getPositionCount();
+        }
+        assertEquals(1000, positionCount);
+    }
+
+    @Test
+    public void testRejectedWriteKeepsExistingTarget() throws IOException {
+        File[] targets = createTargets(1);
+        parser.write(createRoute(10), format, false, false, null, targets);
+        long length = targets[0].length();
+
+        try {
+            parser.write(createRoute(100), format, false, false, null, targets);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(length, targets[0].length());
+            assertEquals(1, directory.list().length);
+        }
+    }
+
+    @Test
+    public void testReadReportsAttempts() throws IOException {
+        File[] targets = createTargets(1);
+        parser.write(createRoute(10), format, false, false, null, targets);
+
+        List<ReadAttempt> attempts = new ArrayList<>();
+        parser.addReadAttemptListener(attempts::add);
+        ParserResult result = parser.read(targets[0]);
+        assertTrue(result.isSuccessful());
+
+        assertFalse(attempts.isEmpty());
+        ReadAttempt accepted = attempts.get(attempts.size() - 1);
+        assertEquals(result.getFormat(), accepted.getFormat());
+        assertEquals(Accepted, accepted.getOutcome());
+        assertEquals(1, accepted.getRouteCount());
+        assertEquals(10, accepted.getPositionCount());
+        assertEquals(0, accepted.getBytesConsumed());
+        assertTrue(accepted.getCharactersConsumed() > 0);
+        assertTrue(accepted.getCharactersConsumed() <= targets[0].length());
+        assertTrue(accepted.getWallTime() > 0);
+        for (ReadAttempt attempt : attempts.subList(0, attempts.size() - 1)) {
+            assertTrue(attempt.getOutcome() != Accepted);
+            assertEquals(0, attempt.getRouteCount());
+        }
+    }
+
+    @Test
+    public void testReadReportsRejectionWithoutFailure() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 150; i++)
+            lines.append("garble ").append(i).append("\n");
+        byte[] bytes = lines.toString().getBytes();
+
+        List<ReadAttempt> attempts = new ArrayList<>();
+        parser.addReadAttemptListener(attempts::add);
+        ParserResult result = parser.read(new ByteArrayInputStream(bytes), singletonList(new GarbleHaicomLoggerFormat()));
+        assertFalse(result.isSuccessful());
+
+        assertEquals(1, attempts.size());
+        assertEquals(Rejected, attempts.get(0).getOutcome());
+        assertEquals(0, attempts.get(0).getBytesConsumed());
+        assertTrue(attempts.get(0).getCharactersConsumed() > 0);
+        assertTrue(attempts.get(0).getCharactersConsumed() <= bytes.length);
+    }
+
+    private long[] writeExistingTargets(File[] targets) throws IOException {
+        long[] lengths = new long[targets.length];
+        for (int i = 0; i < targets.length; i++) {
+            parser.write(createRoute(10 + i), format, false, false, null, targets[i]);
+            lengths[i] = targets[i].length();
+        }
+        return lengths;
+    }
+
+    @Test
+    public void testFailingChunkKeepsExistingTargets() throws IOException {
+        GpxRoute route = createRoute(60);
+        File[] targets = createTargets(getNumberOfFilesToWriteFor(route, format, false));
+        assertEquals(2, targets.length);
+        long[] lengths = writeExistingTargets(targets);
+
+        // the temporary file of the second chunk cannot be created
+        assertTrue(new File(directory, targets[1].getName() + ".tmp").mkdir());
+        try {
+            parser.write(route, format, false, false, null, targets);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(lengths[0], targets[0].length());
+            assertEquals(lengths[1], targets[1].length());
+            assertEquals(2, directory.list().length);
+        }
+    }
+
+    @Test
+    public void testFailingRenameRestoresExistingTargets() throws IOException {
+        GpxRoute route = createRoute(60);
+        File[] targets = createTargets(getNumberOfFilesToWriteFor(route, format, false));
+        long[] lengths = writeExistingTargets(targets);
+
+        // the second target cannot be replaced
+        assertTrue(targets[1].delete());
+        assertTrue(targets[1].mkdir());
+        File blocker = new File(targets[1], "blocker");
+        assertTrue(blocker.createNewFile());
+        try {
+            parser.write(route, format, false, false, null, targets);
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals(lengths[0], targets[0].length());
+            assertTrue(targets[1].isDirectory());
+            assertEquals(2, directory.list().length);
+        } finally {
+            assertTrue(blocker.delete());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import slash.navigation.itn.TomTom8RouteFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static slash.navigation.base.ReadAttempt.Outcome.Accepted;
+import static slash.navigation.base.ReadAttempt.Outcome.Failed;
+import static slash.navigation.base.ReadAttempt.Outcome.Rejected;
+import static slash.navigation.base.ReadAttemptStatistics.Histogram.getIndex;
+import static slash.navigation.base.ReadAttemptStatistics.Histogram.getUpperBound;
+
+public class ReadAttemptStatisticsTest {
+    private final TomTom8RouteFormat format = new TomTom8RouteFormat();
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int index = getIndex(value);
+            assertEquals(index, getIndex(getUpperBound(index)));
+            assertEquals(index + 1, getIndex(getUpperBound(index) + 1));
+        }
+        assertEquals(getIndex(Long.MAX_VALUE), getIndex(getUpperBound(getIndex(Long.MAX_VALUE))));
+    }
+
+    @Test
+    public void testPercentiles() {
+        ReadAttemptStatistics statistics = new ReadAttemptStatistics();
+        for (int i = 1; i <= 1000; i++)
+            statistics.attempted(new ReadAttempt(format, i % 10 == 0 ? Accepted : Rejected, 100, 0, i * 1000L, -1, 0, 0));
+
+        assertEquals(1000, statistics.getAttemptCount(format.getName()));
+        assertEquals(100, statistics.getOutcomeCount(format.getName(), Accepted));
+        assertEquals(900, statistics.getOutcomeCount(format.getName(), Rejected));
+        assertEquals(0, statistics.getOutcomeCount(format.getName(), Failed));
+        assertEquals(100000, statistics.getBytesConsumed(format.getName()));
+        assertEquals(90000, statistics.getBytesConsumedBeforeRejection(format.getName()));
+        assertEquals(511, statistics.getWallTimePercentile(format.getName(), 50.0));
+        assertEquals(959, statistics.getWallTimePercentile(format.getName(), 90.0));
+        assertEquals(1000, statistics.getWallTimePercentile(format.getName(), 100.0));
+        assertEquals(-1, statistics.getWallTimePercentile("unknown", 50.0));
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        ReadAttemptStatistics statistics = new ReadAttemptStatistics();
+        statistics.attempted(new ReadAttempt(format, Accepted, 0, 1024, 2000000, 1000000, 1, 42));
+        statistics.attempted(new ReadAttempt(format, Failed, 10, 0, 3000, -1, 0, 0));
+        statistics.attempted(new ReadAttempt(format, Rejected, 100, 20, 3000, -1, 0, 0));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        statistics.write(outputStream);
+        JsonNode node = new ObjectMapper().readTree(outputStream.toByteArray()).get(format.getName());
+        assertEquals(3, node.get("attempts").asInt());
+        assertEquals(1, node.get("accepted").asInt());
+        assertEquals(1, node.get("failed").asInt());
+        assertEquals(1, node.get("rejected").asInt());
+        assertEquals(110, node.get("bytesConsumed").asLong());
+        assertEquals(100, node.get("bytesConsumedBeforeRejection").asLong());
+        assertEquals(1044, node.get("charactersConsumed").asLong());
+        assertEquals(20, node.get("charactersConsumedBeforeRejection").asLong());
+        assertEquals(42, node.get("positions").asLong());
+        assertEquals(3, node.get("wallTimeMicros").get("count").asLong());
+        assertEquals(2000, node.get("wallTimeMicros").get("max").asLong());
+        assertEquals(1, node.get("cpuTimeMicros").get("count").asLong());
+        assertEquals(1000, node.get("cpuTimeMicros").get("p50").asLong());
+    }
+}
@@ -25,13 +25,16 @@ import slash.navigation.bcr.BcrPosition;
 import slash.navigation.bcr.BcrRoute;
 import slash.navigation.bcr.MTP0607Format;
 import slash.navigation.common.NavigationPosition;
+import slash.navigation.mm.MagicMaps2GoFormat;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static java.util.Arrays.asList;
 import static junit.framework.TestCase.assertNull;
 import static org.junit.Assert.*;
 import static slash.common.io.Transfer.formatIntAsString;
+import static slash.navigation.base.RouteCharacteristics.Track;
 import static slash.navigation.base.RouteComments.*;
 import static slash.navigation.common.NumberPattern.*;
 
@@ -197,4 +200,27 @@ public class RouteCommentsTest {
             assertEquals(formatIntAsString(i + 1, 2) + "description", positions.get(i).getDescription());
         }
     }
+
+    private Wgs84Route createRoute(Wgs84Position... positions) {
+        return new Wgs84Route(new MagicMaps2GoFormat(), Track, null, new ArrayList<>(asList(positions)));
+    }
+
+    @Test
+    public void testComplementPositionsOfLaterRoutes() {
+        Wgs84Route first = createRoute(new Wgs84Position(1.0, 2.0, 100.0, null, null, null),
+                new Wgs84Position(3.0, 4.0, 200.0, null, null, "Summit"));
+        Wgs84Route second = createRoute(new Wgs84Position(3.0, 4.0, null, null, null, null),
+                new Wgs84Position(1.0, 2.0, null, null, null, null));
+        PositionDefaults defaults = createPositionDefaults(asList(first, second));
+
+        // the first route is commented before the defaults are needed
+        commentPositions(first.getPositions());
+        assertEquals("Position 1", first.getPosition(0).getDescription());
+        commentRoutePositions(second, defaults);
+
+        assertEquals(200.0, second.getPosition(0).getElevation(), 0.0);
+        assertEquals("Summit", second.getPosition(0).getDescription());
+        assertEquals(100.0, second.getPosition(1).getElevation(), 0.0);
+        assertEquals("Position 2", second.getPosition(1).getDescription());
+    }
 }
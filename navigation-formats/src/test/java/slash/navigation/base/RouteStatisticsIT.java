@@ -0,0 +1,107 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.mm.MagicMaps2GoFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+/**
+ * Measures the cost of the route statistics per edit of a large route
+ * compared to calculating every aggregate separately after each edit.
+ */
+public class RouteStatisticsIT {
+    private static final Logger log = Logger.getLogger(RouteStatisticsIT.class.getName());
+    private static final int POSITION_COUNT = 500000;
+    private static final int EDIT_COUNT = 1000;
+
+    private Wgs84Position createPosition(int index) {
+        return new Wgs84Position(10.0 + index * 0.00001, 50.0 + (index % 100) * 0.00001, 100.0 + index % 300,
+                (double) (index % 50), fromMillis(1000000L + index * 1000L), null);
+    }
+
+    private long calculateSeparately(Wgs84Route route) {
+        long start = nanoTime();
+        int last = route.getPositionCount() - 1;
+        double result = route.getDistance() + route.getTime() +
+                route.getElevationAscend(0, last) + route.getElevationDescend(0, last);
+        BoundingBox boundingBox = new BoundingBox(route.getPositions());
+        assertTrue(result > 0 && boundingBox.getNorthEast() != null);
+        return nanoTime() - start;
+    }
+
+    @Test
+    public void testCostPerEdit() {
+        List<Wgs84Position> positions = new ArrayList<>(POSITION_COUNT);
+        for (int i = 0; i < POSITION_COUNT; i++)
+            positions.add(createPosition(i));
+        Wgs84Route route = new Wgs84Route(new MagicMaps2GoFormat(), Track, "route", positions);
+
+        // warm up
+        calculateSeparately(route);
+        new RouteStatistics(positions);
+
+        long separately = calculateSeparately(route);
+        long start = nanoTime();
+        RouteStatistics statistics = new RouteStatistics(positions);
+        long onePass = nanoTime() - start;
+
+        start = nanoTime();
+        for (int i = 0; i < EDIT_COUNT; i++) {
+            int index = (i * 7919) % POSITION_COUNT;
+            positions.get(index).setElevation(200.0 + i);
+            statistics.positionsUpdated(index, index);
+            statistics.getElevationAscend();
+        }
+        long update = (nanoTime() - start) / EDIT_COUNT;
+
+        start = nanoTime();
+        for (int i = 0; i < EDIT_COUNT; i++) {
+            int index = POSITION_COUNT / 2 + i;
+            positions.add(index, createPosition(index));
+            statistics.positionsInserted(index, index);
+            positions.remove(index + 1);
+            statistics.positionsDeleted(index + 1, index + 1);
+            statistics.getDistance();
+        }
+        long insertAndDelete = (nanoTime() - start) / EDIT_COUNT;
+
+        log.info(format("Calculating the aggregates of %d positions separately took %d milliseconds, in one pass %d milliseconds",
+                POSITION_COUNT, separately / 1000000, onePass / 1000000));
+        log.info(format("Patching an update took %d microseconds, an insert and a delete %d microseconds",
+                update / 1000, insertAndDelete / 1000));
+
+        assertEquals(new RouteStatistics(positions).getDistance(), statistics.getDistance(), 0.001);
+        assertTrue(update < separately);
+        assertTrue(insertAndDelete < separately);
+    }
+}
@@ -0,0 +1,206 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.base;
+
+import org.junit.Test;
+import slash.navigation.common.BoundingBox;
+import slash.navigation.mm.MagicMaps2GoFormat;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static slash.common.type.CompactCalendar.fromMillis;
+import static slash.navigation.base.RouteCharacteristics.Track;
+
+public class RouteStatisticsTest {
+    private static final double DELTA = 0.0000001;
+
+    private Wgs84Position createPosition(int index) {
+        return new Wgs84Position(10.0 + index * 0.001, 50.0 + (index % 7) * 0.0005,
+                index % 5 == 0 ? null : 100.0 + (index * 37) % 50, (double) (index % 11),
+                fromMillis(1000000L + index * 5000L), "Position " + index);
+    }
+
+    private List<Wgs84Position> createPositions(int count) {
+        List<Wgs84Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            positions.add(createPosition(i));
+        return positions;
+    }
+
+    private void assertStatisticsEquals(RouteStatistics expected, RouteStatistics actual) {
+        assertEquals(expected.getPositionCount(), actual.getPositionCount());
+        assertEquals(expected.getDistance(), actual.getDistance(), DELTA);
+        assertEquals(expected.getTime(), actual.getTime());
+        assertEquals(expected.getMovingTime(), actual.getMovingTime());
+        assertEquals(expected.getElevationAscend(), actual.getElevationAscend(), DELTA);
+        assertEquals(expected.getElevationDescend(), actual.getElevationDescend(), DELTA);
+        assertEquals(expected.getMinimumElevation(), actual.getMinimumElevation());
+        assertEquals(expected.getMaximumElevation(), actual.getMaximumElevation());
+        assertEquals(expected.getMinimumSpeed(), actual.getMinimumSpeed());
+        assertEquals(expected.getMaximumSpeed(), actual.getMaximumSpeed());
+        BoundingBox expectedBoundingBox = expected.getBoundingBox();
+        BoundingBox actualBoundingBox = actual.getBoundingBox();
+        assertEquals(expectedBoundingBox.getNorthEast(), actualBoundingBox.getNorthEast());
+        assertEquals(expectedBoundingBox.getSouthWest(), actualBoundingBox.getSouthWest());
+    }
+
+    @Test
+    public void testMatchesRouteCalculations() {
+        List<Wgs84Position> positions = createPositions(200);
+        Wgs84Route route = new Wgs84Route(new MagicMaps2GoFormat(), Track, "route", positions);
+        RouteStatistics statistics = route.createStatistics();
+
+        assertEquals(route.getDistance(), statistics.getDistance(), DELTA);
+        assertEquals(route.getTime(), statistics.getTime());
+        assertEquals(route.getElevationAscend(0, 199), statistics.getElevationAscend(), DELTA);
+        assertEquals(route.getElevationDescend(0, 199), statistics.getElevationDescend(), DELTA);
+        assertEquals(101.0, statistics.getMinimumElevation(), DELTA);
+        assertEquals(149.0, statistics.getMaximumElevation(), DELTA);
+        assertEquals(0.0, statistics.getMinimumSpeed(), DELTA);
+        assertEquals(10.0, statistics.getMaximumSpeed(), DELTA);
+        BoundingBox boundingBox = new BoundingBox(positions);
+        assertEquals(boundingBox.getNorthEast(), statistics.getBoundingBox().getNorthEast());
+        assertEquals(boundingBox.getSouthWest(), statistics.getBoundingBox().getSouthWest());
+    }
+
+    @Test
+    public void testMovingTime() {
+        List<Wgs84Position> positions = new ArrayList<>(asList(
+                new Wgs84Position(10.0, 50.0, null, null, fromMillis(0L), null),
+                new Wgs84Position(10.0, 50.0, null, null, fromMillis(60000L), null),
+                new Wgs84Position(10.01, 50.0, null, null, fromMillis(120000L), null)));
+        RouteStatistics statistics = new RouteStatistics(positions);
+        assertEquals(120000L, statistics.getTime());
+        assertEquals(60000L, statistics.getMovingTime());
+        assertNull(statistics.getMinimumElevation());
+        assertNull(statistics.getMaximumSpeed());
+    }
+
+    @Test
+    public void testPatchesEdits() {
+        List<Wgs84Position> positions = createPositions(100);
+        RouteStatistics statistics = new RouteStatistics(positions);
+
+        positions.addAll(10, asList(createPosition(500), createPosition(501), createPosition(502)));
+        statistics.positionsInserted(10, 12);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+
+        positions.add(0, createPosition(1000));
+        statistics.positionsInserted(0, 0);
+        positions.add(createPosition(-1000));
+        statistics.positionsInserted(positions.size() - 1, positions.size() - 1);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+
+        positions.subList(0, 5).clear();
+        statistics.positionsDeleted(0, 4);
+        positions.subList(positions.size() - 3, positions.size()).clear();
+        statistics.positionsDeleted(positions.size(), positions.size() + 2);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+
+        positions.get(20).setElevation(5000.0);
+        positions.get(21).setLongitude(-20.0);
+        positions.get(22).setTime(fromMillis(99999999L));
+        statistics.positionsUpdated(20, 22);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+
+        positions.get(20).setElevation(120.0);
+        statistics.positionsUpdated(20, 20);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+
+        int count = positions.size();
+        positions.clear();
+        statistics.positionsDeleted(0, count - 1);
+        assertEquals(0.0, statistics.getDistance(), DELTA);
+        assertNull(statistics.getBoundingBox());
+
+        positions.addAll(createPositions(3));
+        statistics.positionsInserted(0, 2);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+    }
+
+    @Test
+    public void testPatchesScatteredDeletions() {
+        List<Wgs84Position> positions = createPositions(100);
+        RouteStatistics statistics = new RouteStatistics(positions);
+
+        BitSet indices = new BitSet();
+        for (int index : new int[]{0, 1, 5, 6, 7, 50, 98, 99})
+            indices.set(index);
+        for (int i = indices.length() - 1; i >= 0; i = indices.previousSetBit(i - 1))
+            positions.remove(i);
+        statistics.positionsDeleted(indices);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+    }
+
+    @Test
+    public void testPatchesScatteredInsertions() {
+        List<Wgs84Position> positions = createPositions(100);
+        RouteStatistics statistics = new RouteStatistics(positions);
+
+        BitSet indices = new BitSet();
+        for (int index : new int[]{0, 1, 5, 6, 7, 50, 103, 104, 105})
+            indices.set(index);
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1))
+            positions.add(i, createPosition(i * 31));
+        statistics.positionsInserted(indices);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+    }
+
+    @Test
+    public void testPatchesInsertionsIntoNoPositions() {
+        List<Wgs84Position> positions = createPositions(0);
+        RouteStatistics statistics = new RouteStatistics(positions);
+
+        BitSet indices = new BitSet();
+        indices.set(0, 3);
+        positions.addAll(createPositions(3));
+        statistics.positionsInserted(indices);
+        assertStatisticsEquals(new RouteStatistics(positions), statistics);
+    }
+
+    @Test
+    public void testSumsUpRoundingErrors() {
+        List<Wgs84Position> positions = new ArrayList<>(asList(createPosition(0), createPosition(0)));
+        RouteStatistics statistics = new RouteStatistics(positions);
+
+        for (int i = 1; i < 100; i++) {
+            positions.add(1, createPosition(i * 997));
+            statistics.positionsInserted(1, 1);
+            positions.remove(1);
+            statistics.positionsDeleted(1, 1);
+        }
+        assertEquals(0.0, statistics.getDistance(), 0.0);
+        assertEquals(0.0, statistics.getElevationAscend(), 0.0);
+        assertEquals(0.0, statistics.getElevationDescend(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDetectsMissedEdits() {
+        List<Wgs84Position> positions = createPositions(10);
+        RouteStatistics statistics = new RouteStatistics(positions);
+        positions.add(createPosition(10));
+        statistics.positionsUpdated(0, 0);
+    }
+}
@@ -24,9 +24,11 @@ import org.junit.Test;
 import slash.common.type.CompactCalendar;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.List;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static slash.common.TestCase.*;
 import static slash.common.type.CompactCalendar.fromMillis;
@@ -210,6 +212,31 @@ public class BcrRouteTest {
         assertPositions();
     }
 
+    @Test
+    public void testRemoveWithBitSet() {
+        List<BcrPosition> positions = route.getPositions();
+        positions.clear();
+        positions.add(a);
+        positions.add(b);
+        positions.add(c);
+        positions.add(b);
+        positions.add(a);
+        BitSet indices = new BitSet();
+        indices.set(1);
+        indices.set(3, 5);
+        assertEquals(asList(b, b, a), route.remove(indices));
+        assertPositions(a, c);
+        assertEquals(asList(a, c), route.remove(new int[]{0, 1}));
+        assertPositions();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveIndexOutOfBounds() {
+        BitSet indices = new BitSet();
+        indices.set(route.getPositionCount());
+        route.remove(indices);
+    }
+
     @Test
     public void testCalculateDistance() {
         assertDoubleEquals(1.1131, a.calculateDistance(b));
@@ -0,0 +1,104 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.csv;
+
+import org.junit.Test;
+import slash.navigation.base.ParserContext;
+import slash.navigation.base.ParserContextImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CsvFormatTest {
+    private CsvRoute read(CsvFormat format, byte[] bytes) throws IOException {
+        ParserContext<CsvRoute> context = new ParserContextImpl<>();
+        format.read(new ByteArrayInputStream(bytes), context);
+        assertEquals(1, context.getRoutes().size());
+        return context.getRoutes().get(0);
+    }
+
+    @Test
+    public void testReadUtf8() throws IOException {
+        CsvRoute route = read(new CsvSemicolonFormat(), "Latitude;Longitude;Description\n50.1;8.4;\u00e4\u00f6\u00fc\n\n51.2;9.5;b\n".getBytes("UTF-8"));
+        assertEquals(2, route.getPositionCount());
+        assertEquals(50.1, route.getPosition(0).getLatitude(), 0.0);
+        assertEquals(8.4, route.getPosition(0).getLongitude(), 0.0);
+        assertEquals("\u00e4\u00f6\u00fc", route.getPosition(0).getDescription());
+        assertEquals("b", route.getPosition(1).getDescription());
+    }
+
+    @Test
+    public void testReadIsoLatin1() throws IOException {
+        CsvRoute route = read(new CsvCommaFormat(), "Breite,L\u00e4nge,H\u00f6he\n50.1,8.4,654.6\n".getBytes("ISO-8859-1"));
+        assertEquals(1, route.getPositionCount());
+        assertEquals(50.1, route.getPosition(0).getLatitude(), 0.0);
+        assertEquals(8.4, route.getPosition(0).getLongitude(), 0.0);
+        assertEquals(654.6, route.getPosition(0).getElevation(), 0.0);
+    }
+
+    @Test
+    public void testReadMissingAndQuotedColumns() throws IOException {
+        CsvRoute route = read(new CsvCommaFormat(), "Description,Latitude,Longitude,Extra\n\"a,b\",50.1,8.4\n".getBytes("UTF-8"));
+        CsvPosition position = route.getPosition(0);
+        assertEquals("a,b", position.getDescription());
+        assertNull(position.getElevation());
+        assertEquals(3, position.getRowAsMap().size());
+    }
+
+    @Test
+    public void testEditAndWrite() throws IOException {
+        CsvRoute route = read(new CsvSemicolonFormat(), "Breite;L\u00e4nge;Extra\n50.1;8.4;x\n".getBytes("UTF-8"));
+        CsvPosition position = route.getPosition(0);
+        position.setLatitude(51.0);
+        position.setDescription("d");
+        assertEquals(51.0, position.getLatitude(), 0.0);
+        assertEquals("d", position.getDescription());
+
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        new CsvSemicolonFormat().write(route, target, 0, 1);
+        assertEquals("Breite;Description;Extra;Latitude;L\u00e4nge\n\"50.1\";d;x;\"51.0\";\"8.4\"\n", target.toString("UTF-8"));
+    }
+
+    @Test
+    public void testReadRowsWiderThanHeader() throws IOException {
+        CsvRoute route = read(new CsvCommaFormat(), "Latitude,Longitude\n50.1,8.4,x,y\n51.2,9.5\n".getBytes("UTF-8"));
+        assertEquals(2, route.getPositionCount());
+        assertEquals(8.4, route.getPosition(0).getLongitude(), 0.0);
+        assertEquals(2, route.getPosition(0).getRowAsMap().size());
+        assertEquals(9.5, route.getPosition(1).getLongitude(), 0.0);
+    }
+
+    @Test
+    public void testReadIsoLatin1AfterEncodingSample() throws IOException {
+        StringBuilder buffer = new StringBuilder("Latitude;Longitude;Description\n");
+        while (buffer.length() < 70 * 1024)
+            buffer.append("50.1;8.4;a\n");
+        buffer.append("51.2;9.5;\u00e4\u00f6\u00fc\n");
+        CsvRoute route = read(new CsvSemicolonFormat(), buffer.toString().getBytes("ISO-8859-1"));
+        CsvPosition position = route.getPosition(route.getPositionCount() - 1);
+        assertEquals(51.2, position.getLatitude(), 0.0);
+        assertEquals("\u00e4\u00f6\u00fc", position.getDescription());
+    }
+}
@@ -19,10 +19,36 @@
 */
 package slash.navigation.excel;
 
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ParserContextImpl;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static java.io.File.createTempFile;
+import static java.util.Arrays.asList;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static org.apache.poi.ss.usermodel.FillPatternType.SOLID_FOREGROUND;
 import static slash.common.TestCase.calendar;
 
 public class ExcelFormatTest {
@@ -32,4 +58,229 @@ public class ExcelFormatTest {
         ExcelPosition position = new ExcelPosition(1.0, 2.0, 3.0, 4.0, time, "five");
         assertEquals(time, position.getTime());
     }
+
+    private byte[] createXlsx() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle timeStyle = workbook.createCellStyle();
+            timeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("m/d/yy h:mm"));
+
+            Sheet sheet = workbook.createSheet("Track");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Latitude");
+            header.createCell(1).setCellValue("Longitude");
+            header.createCell(2).setCellValue("Time");
+            header.createCell(4).setCellValue("Description");
+
+            for (int i = 1; i <= 3; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(50.0 + i);
+                row.createCell(1).setCellValue(10.0 + i);
+                Cell time = row.createCell(2);
+                time.setCellValue(calendar(2018, 1, 21, 19, 35, i, 0).getTime());
+                time.setCellStyle(timeStyle);
+                row.createCell(4).setCellValue("Position " + i);
+            }
+            workbook.createSheet("Empty").createRow(0).createCell(0).setCellValue("Latitude");
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private List<ExcelRoute> read(byte[] bytes) throws IOException {
+        ParserContextImpl<ExcelRoute> context = new ParserContextImpl<>();
+        new MicrosoftExcel2008Format().read(new ByteArrayInputStream(bytes), context);
+        return context.getRoutes();
+    }
+
+    private void checkPosition(ExcelPosition position, int index) {
+        assertEquals(50.0 + index, position.getLatitude());
+        assertEquals(10.0 + index, position.getLongitude());
+        assertEquals(calendar(2018, 1, 21, 19, 35, index, 0), position.getTime());
+        assertEquals("Position " + index, position.getDescription());
+    }
+
+    @Test
+    public void testReadXlsx() throws IOException {
+        List<ExcelRoute> routes = read(createXlsx());
+        assertEquals(1, routes.size());
+        ExcelRoute route = routes.get(0);
+        assertEquals("Track", route.getName());
+        assertEquals(3, route.getPositionCount());
+        for (int i = 0; i < 3; i++)
+            checkPosition(route.getPosition(i), i + 1);
+        assertNull(route.getPosition(0).getElevation());
+    }
+
+    @Test
+    public void testReadXlsxFromFile() throws IOException {
+        File file = createTempFile("excel", ".xlsx");
+        try {
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                outputStream.write(createXlsx());
+            }
+            ParserContextImpl<ExcelRoute> context = new ParserContextImpl<>(file, null);
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                new MicrosoftExcel2008Format().read(inputStream, context);
+            }
+            assertEquals(1, context.getRoutes().size());
+            checkPosition(context.getRoutes().get(0).getPosition(2), 3);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testWriteAndReadXlsx() throws IOException {
+        MicrosoftExcel2008Format format = new MicrosoftExcel2008Format();
+        ExcelRoute route = read(createXlsx()).get(0);
+        route.getPosition(1).setElevation(100.0);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(route, outputStream, 1, 3);
+
+        ExcelRoute written = read(outputStream.toByteArray()).get(0);
+        assertEquals("Track", written.getName());
+        assertEquals(2, written.getPositionCount());
+        checkPosition(written.getPosition(0), 2);
+        checkPosition(written.getPosition(1), 3);
+        assertEquals(100.0, written.getPosition(0).getElevation());
+        assertNull(written.getPosition(1).getElevation());
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertEquals("m/d/yy h:mm", workbook.getSheetAt(0).getRow(1).getCell(2).getCellStyle().getDataFormatString());
+        }
+    }
+
+    private byte[] createXlsxWithStylesAndRowsWithoutValues() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            CellStyle headerStyle = workbook.createCellStyle();
+            headerStyle.setFont(bold);
+            CellStyle fillStyle = workbook.createCellStyle();
+            fillStyle.setFillForegroundColor(IndexedColors.YELLOW.getIndex());
+            fillStyle.setFillPattern(SOLID_FOREGROUND);
+
+            Sheet sheet = workbook.createSheet("Styled");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Latitude");
+            header.createCell(1).setCellValue("Longitude");
+            header.getCell(0).setCellStyle(headerStyle);
+            header.getCell(1).setCellStyle(headerStyle);
+
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue(51.0);
+            first.createCell(1).setCellValue(11.0);
+            first.getCell(1).setCellStyle(fillStyle);
+
+            // a separator row with a style but without values
+            sheet.createRow(3).createCell(0).setCellStyle(fillStyle);
+
+            Row second = sheet.createRow(5);
+            second.createCell(0).setCellValue(52.0);
+            second.createCell(1).setCellValue(12.0);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    @Test
+    public void testWriteKeepsStylesAndRowsWithoutValues() throws IOException {
+        ExcelRoute route = read(createXlsxWithStylesAndRowsWithoutValues()).get(0);
+        assertEquals(2, route.getPositionCount());
+        assertEquals(52.0, route.getPosition(1).getLatitude());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new MicrosoftExcel2008Format().write(route, outputStream, 0, route.getPositionCount());
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Styled");
+            assertTrue(workbook.getFontAt(sheet.getRow(0).getCell(0).getCellStyle().getFontIndexAsInt()).getBold());
+            assertEquals(51.0, sheet.getRow(1).getCell(0).getNumericCellValue());
+            assertEquals(SOLID_FOREGROUND, sheet.getRow(1).getCell(1).getCellStyle().getFillPattern());
+            assertNull(sheet.getRow(2));
+            assertEquals(SOLID_FOREGROUND, sheet.getRow(3).getCell(0).getCellStyle().getFillPattern());
+            assertNull(sheet.getRow(4));
+            assertEquals(52.0, sheet.getRow(5).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    public void testMoveAndAddPositionsOfXlsx() throws IOException {
+        ExcelRoute route = read(createXlsx()).get(0);
+        route.move(0, 2);
+        route.add(1, route.createPosition(14.0, 54.0, null, null, null, "Added"));
+        route.remove(3);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new MicrosoftExcel2008Format().write(route, outputStream, 0, route.getPositionCount());
+
+        ExcelRoute written = read(outputStream.toByteArray()).get(0);
+        assertEquals(3, written.getPositionCount());
+        checkPosition(written.getPosition(0), 3);
+        assertEquals(54.0, written.getPosition(1).getLatitude());
+        assertEquals("Added", written.getPosition(1).getDescription());
+        checkPosition(written.getPosition(2), 2);
+    }
+
+    @Test
+    public void testRemovePositionsAtOnce() throws IOException {
+        MicrosoftExcel2008Format format = new MicrosoftExcel2008Format();
+        ExcelRoute route = read(createXlsx()).get(0);
+        ExcelPosition second = route.getPosition(1);
+        route.remove(new int[]{0, 2});
+        assertEquals(1, route.getPositionCount());
+        assertEquals(second, route.getPosition(0));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        format.write(route, outputStream, 0, 1);
+
+        ExcelRoute written = read(outputStream.toByteArray()).get(0);
+        assertEquals(1, written.getPositionCount());
+        checkPosition(written.getPosition(0), 2);
+    }
+
+    @Test
+    public void testInsertAndRemovePositionsOfXlsxAtOnce() throws IOException {
+        ExcelRoute route = read(createXlsx()).get(0);
+        ExcelPosition first = route.getPosition(0), third = route.getPosition(2);
+        ExcelPosition inserted1 = route.createPosition(14.0, 54.0, null, null, null, "Inserted 1");
+        ExcelPosition inserted2 = route.createPosition(15.0, 55.0, null, null, null, "Inserted 2");
+        route.insert(new int[]{1, 3}, asList(inserted1, inserted2));
+        assertEquals(asList(first, inserted1, route.getPosition(2), inserted2, third), route.getPositions());
+
+        List<ExcelPosition> removed = route.remove(new int[]{0, 2, 4});
+        assertEquals(3, removed.size());
+        assertEquals(asList(inserted1, inserted2), route.getPositions());
+    }
+
+    @Test
+    public void testRemovePositionsOfSheetWithBitSet() {
+        ExcelRoute route = new ExcelRoute(new MicrosoftExcel2008Format(), "Sheet", new ArrayList<>());
+        for (int i = 0; i < 5; i++)
+            route.getPositions().add(route.createPosition(10.0 + i, 50.0 + i, null, null, null, "Position " + i));
+
+        List<ExcelPosition> expected = asList(route.getPosition(0), route.getPosition(2), route.getPosition(3));
+        BitSet indices = new BitSet();
+        indices.set(0);
+        indices.set(2, 4);
+        assertEquals(expected, route.remove(indices));
+
+        assertEquals(2, route.getPositionCount());
+        assertEquals("Position 1", route.getPosition(0).getDescription());
+        assertEquals(1, route.getPosition(0).getRow().getRowNum());
+        assertEquals("Position 4", route.getPosition(1).getDescription());
+        assertEquals(2, route.getPosition(1).getRow().getRowNum());
+        assertEquals(2, route.getPosition(1).getRow().getSheet().getLastRowNum());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemoveIndexOutOfBounds() {
+        ExcelRoute route = new ExcelRoute(new MicrosoftExcel2008Format(), "Sheet", new ArrayList<>());
+        route.getPositions().add(route.createPosition(10.0, 50.0, null, null, null, "Position"));
+        route.remove(new int[]{0, 1});
+    }
 }
@@ -23,8 +23,12 @@ package slash.navigation.gopal;
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
 import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.DateFormat;
 import java.util.Calendar;
 
@@ -119,4 +123,17 @@ public class GoPalTrackFormatTest {
         assertEquals(expected, actual);
         assertNull(position.getDescription());
     }
+
+    @Test
+    public void testReadAfterLinesWithoutFix() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 150; i++)
+            lines.append("6651145, 180807, 0.000000, 0.000000,      0,       0, 0, 0.000000, 0\n");
+        lines.append("6661343, 180817, 8.016822, 52.345300, 10.78, 38.1142, 2, 3.000000, 3\n");
+
+        ParserContextImpl<SimpleRoute> context = new ParserContextImpl<>();
+        format.read(new BufferedReader(new StringReader(lines.toString())), null, context);
+        assertEquals(1, context.getRoutes().size());
+        assertEquals(1, context.getRoutes().get(0).getPositionCount());
+    }
 }
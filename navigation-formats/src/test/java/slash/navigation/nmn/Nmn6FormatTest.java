@@ -21,8 +21,14 @@
 package slash.navigation.nmn;
 
 import org.junit.Test;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.ParserContextImpl;
 import slash.navigation.base.Wgs84Position;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
 import static org.junit.Assert.*;
 import static slash.common.TestCase.assertDoubleEquals;
 
@@ -106,4 +112,18 @@ public class Nmn6FormatTest {
         assertDoubleEquals(50.29042, position.getLatitude());
         assertNull(position.getDescription());
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReadAfterLinesWithoutPosition() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 150; i++)
+            lines.append("[||][2]\n");
+        lines.append("[D 22081,Hamburg/Uhlenhorst,Finkenau,0,|][0][10]|||10.03200|53.56949\n");
+
+        ParserContextImpl context = new ParserContextImpl();
+        format.read(new BufferedReader(new StringReader(lines.toString())), null, context);
+        assertEquals(1, context.getRoutes().size());
+        assertEquals(1, ((BaseRoute) context.getRoutes().get(0)).getPositionCount());
+    }
 }
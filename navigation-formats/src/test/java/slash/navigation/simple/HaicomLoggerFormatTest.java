@@ -22,8 +22,13 @@ package slash.navigation.simple;
 
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.DateFormat;
 
 import static org.junit.Assert.*;
@@ -78,4 +83,32 @@ public class HaicomLoggerFormatTest {
         assertDoubleEquals(-47.91561, position.getLatitude());
         assertDoubleEquals(-106.90109, position.getLongitude());
     }
+
+    @Test
+    public void testReadGarbleAfterHeader() throws IOException {
+        GarbleHaicomLoggerFormat format = new GarbleHaicomLoggerFormat();
+        StringBuilder lines = new StringBuilder("INDEX,RCR,DATE,TIME,LATITUDE,N/S,LONGITUDE,E/W,ALTITUDE,COURSE,SPEED,\n");
+        for (int i = 0; i < 150; i++)
+            lines.append("garble ").append(i).append("\n");
+        lines.append("1,T,08/12/02,05:56:27,47.91561,S,106.90109,W,1447.53m,0,0.00km/h\n");
+
+        ParserContextImpl<SimpleRoute> context = new ParserContextImpl<>();
+        format.read(new BufferedReader(new StringReader(lines.toString())), null, context);
+        assertEquals(1, context.getRoutes().size());
+        assertEquals(1, context.getRoutes().get(0).getPositionCount());
+    }
+
+    @Test
+    public void testRejectGarbleWithoutPosition() {
+        GarbleHaicomLoggerFormat format = new GarbleHaicomLoggerFormat();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 150; i++)
+            lines.append("garble ").append(i).append("\n");
+        try {
+            format.read(new BufferedReader(new StringReader(lines.toString())), null, new ParserContextImpl<SimpleRoute>());
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertEquals("No position for " + format.getName() + " in the first 100 lines", e.getMessage());
+        }
+    }
 }
\ No newline at end of file
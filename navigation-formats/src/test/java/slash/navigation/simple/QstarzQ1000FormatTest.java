@@ -22,8 +22,13 @@ package slash.navigation.simple;
 
 import org.junit.Test;
 import slash.common.type.CompactCalendar;
+import slash.navigation.base.ParserContextImpl;
+import slash.navigation.base.SimpleRoute;
 import slash.navigation.base.Wgs84Position;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.DateFormat;
 
 import static org.junit.Assert.*;
@@ -63,4 +68,35 @@ public class QstarzQ1000FormatTest {
         assertEquals(expected, actual);
         assertEquals(expectedCal, position.getTime());
     }
+
+    private static final String HEADER = "INDEX,RCR,DATE,TIME,VALID,LATITUDE,N/S,LONGITUDE,E/W,HEIGHT,SPEED,HDOP,NSAT (USED/VIEW),DISTANCE,\n";
+    private static final String NO_FIX = "7,T,2010/12/28,23:01:42,NO FIX,49.126389,N,8.614000,E,245.512 m,0.759 km/h,1.4,8(10),0.22 m,\n";
+    private static final String FIX = "8,T,2010/12/28,23:01:43,SPS,49.126389,N,8.614000,E,245.512 m,0.759 km/h,1.4,8(10),0.22 m,\n";
+
+    private String lines(String header, int noFixCount) {
+        StringBuilder builder = new StringBuilder(header);
+        for (int i = 0; i < noFixCount; i++)
+            builder.append(NO_FIX);
+        return builder.append(FIX).toString();
+    }
+
+    private ParserContextImpl<SimpleRoute> read(String lines) throws IOException {
+        ParserContextImpl<SimpleRoute> context = new ParserContextImpl<>();
+        format.read(new BufferedReader(new StringReader(lines)), null, context);
+        return context;
+    }
+
+    @Test
+    public void testReadWithoutHeaderAfterLinesWithoutFix() throws IOException {
+        ParserContextImpl<SimpleRoute> context = read(lines("", 150));
+        assertEquals(1, context.getRoutes().size());
+        assertEquals(1, context.getRoutes().get(0).getPositionCount());
+    }
+
+    @Test
+    public void testReadWithHeaderAfterLinesWithoutFix() throws IOException {
+        ParserContextImpl<SimpleRoute> context = read(lines(HEADER, 150));
+        assertEquals(1, context.getRoutes().size());
+        assertEquals(1, context.getRoutes().get(0).getPositionCount());
+    }
 }
\ No newline at end of file
@@ -24,8 +24,10 @@ import slash.common.system.Version;
 import slash.navigation.base.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
@@ -74,8 +76,8 @@ public class RouteConverterCmdLine {
         Version version = parseVersionFromManifest();
         log.info("Started RouteConverter " + version.getVersion() + " from " + version.getDate() +
                 " on " + getJava() + " and " + getPlatform() + " with " + getMaximumMemory() + " MByte heap");
-        if (args.length != 3) {
-            log.info("Usage: java -jar RouteConverterCmdLine.jar <source file> <target format> <target file>");
+        if (args.length != 3 && args.length != 4) {
+            log.info("Usage: java -jar RouteConverterCmdLine.jar <source file> <target format> <target file> [<read statistics file>]");
             logFormatNames(false);
             return 5;
         }
@@ -100,8 +102,10 @@ public class RouteConverterCmdLine {
             return 20;
         }
 
+        File statistics = args.length > 3 ? absolutize(new File(args[3])) : null;
+
         try {
-            convert(source, format, target);
+            convert(source, format, target, statistics);
         } catch (IOException e) {
             log.severe("Error while converting: " + e);
             return 25;
@@ -110,9 +114,17 @@ public class RouteConverterCmdLine {
         return 0;
     }
 
-    private void convert(File source, NavigationFormat format, File target) throws IOException {
+    private void convert(File source, NavigationFormat format, File target, File statistics) throws IOException {
         NavigationFormatParser parser = new NavigationFormatParser(new NavigationFormatRegistry());
+        ReadAttemptStatistics readAttemptStatistics = new ReadAttemptStatistics();
+        parser.addReadAttemptListener(readAttemptStatistics);
         ParserResult result = parser.read(source);
+        if (statistics != null) {
+            try (OutputStream outputStream = new FileOutputStream(statistics)) {
+                readAttemptStatistics.write(outputStream);
+            }
+            log.info("Wrote read statistics to '" + statistics.getAbsolutePath() + "'");
+        }
         if (!result.isSuccessful()) {
             log.severe("Could not read source '" + source.getAbsolutePath() + "'");
             logFormatNames(true);
@@ -25,6 +25,7 @@ import slash.common.helpers.APIKeyRegistry;
 import slash.common.log.LoggingHelper;
 import slash.common.system.Version;
 import slash.navigation.babel.BabelException;
+import slash.navigation.base.AdaptiveFormatOrder;
 import slash.navigation.base.NavigationFormatRegistry;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.columbus.ColumbusV1000Device;
@@ -172,6 +173,10 @@ public abstract class RouteConverter extends SingleFrameApplication {
     private static final String SHOWED_MISSING_TRANSLATOR_PREFERENCE = "showedMissingTranslator-2.31"; // versioned preference
     public static final String AUTOMATIC_UPDATE_CHECK_PREFERENCE = "automaticUpdateCheck-2.31";
 
+    private static final int IMAGE_HEIGHT_FOR_PHOTO_COLUMN = 200;
+    private static final int MAXIMUM_CACHED_THUMBNAILS = 250;
+    private static final int MAXIMUM_STORED_THUMBNAILS = 5000;
+
     private NavigationFormatRegistry navigationFormatRegistry = new NavigationFormatRegistry();
     private RouteServiceOperator routeServiceOperator;
     private UpdateChecker updateChecker;
@@ -213,6 +218,7 @@ public abstract class RouteConverter extends SingleFrameApplication {
         initializeLogging();
         checkJavaPrequisites();
         checkForGoogleMapsAPIKey();
+        navigationFormatRegistry.setAdaptiveFormatOrder(new AdaptiveFormatOrder());
         show();
         checkForMissingTranslator();
         updateChecker.implicitCheck(getFrame());
@@ -460,6 +466,9 @@ public abstract class RouteConverter extends SingleFrameApplication {
             audioPlayer.dispose();
         if (geoTagger != null)
             geoTagger.dispose();
+        if (thumbnailCache != null)
+            thumbnailCache.dispose();
+        getRoutingServiceFacade().dispose();
         getDataSourceManager().dispose();
         getDownloadManager().saveQueue();
         getTileServerMapManager().dispose();
@@ -792,6 +801,16 @@ public abstract class RouteConverter extends SingleFrameApplication {
         return geoTagger;
     }
 
+    private ThumbnailCache thumbnailCache; // for the photo column of the positions
+
+    public synchronized ThumbnailCache getThumbnailCache() {
+        if (thumbnailCache == null) {
+            thumbnailCache = new ThumbnailCache(IMAGE_HEIGHT_FOR_PHOTO_COLUMN, MAXIMUM_CACHED_THUMBNAILS,
+                    MAXIMUM_STORED_THUMBNAILS, getApplicationDirectory("thumbnails"));
+        }
+        return thumbnailCache;
+    }
+
     public TimeZoneModel getPhotoTimeZone() { // for TimeAlbum
         return photoTimeZoneModel;
     }
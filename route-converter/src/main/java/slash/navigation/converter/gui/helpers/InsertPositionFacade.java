@@ -121,13 +121,14 @@ public class InsertPositionFacade {
     private List<Integer> insertPositions(RoutingService routingService, DownloadFuture future, TravelMode travelMode, List<NavigationPosition> selectedPositions) throws InterruptedException, InvocationTargetException {
         PositionsModel positionsModel = RouteConverter.getInstance().getConvertPanel().getPositionsModel();
 
+        List<RoutingResult> results = routingService.getRouteAlong(selectedPositions, travelMode);
         List<Integer> insertedPositions = new ArrayList<>();
         for (int i = 0; i < selectedPositions.size(); i++) {
             // skip the very last position without successor
             if (i == positionsModel.getRowCount() - 1 || i == selectedPositions.size() - 1)
                 continue;
 
-            RoutingResult result = routingService.getRouteBetween(selectedPositions.get(i), selectedPositions.get(i + 1), travelMode);
+            RoutingResult result = results.get(i);
             if (result.getValidity().equals(Valid)) {
                 final List<BaseNavigationPosition> positions = new ArrayList<>();
                 for (NavigationPosition position : result.getPositions()) {
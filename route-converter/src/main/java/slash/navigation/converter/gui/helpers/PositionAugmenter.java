@@ -30,6 +30,7 @@ import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.gui.Application;
 import slash.navigation.gui.events.ContinousRange;
 import slash.navigation.gui.events.RangeOperation;
+import slash.navigation.gui.events.RangeSet;
 import slash.navigation.gui.notifications.NotificationManager;
 
 import javax.swing.*;
@@ -143,6 +144,54 @@ public class PositionAugmenter {
         }
     }
 
+    private static class RowsUpdater {
+        private final JTable positionsTable;
+        private final PositionsModel positionsModel;
+        private final int columnIndex;
+        private final int maximumRangeLength;
+        private RangeSet rows = new RangeSet();
+        private int rowCount;
+
+        RowsUpdater(JTable positionsTable, PositionsModel positionsModel, int columnIndex, int maximumRangeLength) {
+            this.positionsTable = positionsTable;
+            this.positionsModel = positionsModel;
+            this.columnIndex = columnIndex;
+            this.maximumRangeLength = maximumRangeLength;
+        }
+
+        public void add(int firstIndex, int lastIndex) {
+            rows.add(firstIndex, lastIndex);
+            rowCount += lastIndex - firstIndex + 1;
+            if (rowCount >= maximumRangeLength)
+                flush();
+        }
+
+        public void flush() {
+            if (rows.isEmpty())
+                return;
+
+            final RangeSet updatedRows = rows;
+            rows = new RangeSet();
+            rowCount = 0;
+
+            invokeLater(new Runnable() {
+                public void run() {
+                    positionsModel.beginBatch();
+                    try {
+                        for (int[] range : updatedRows.getRanges())
+                            positionsModel.fireTableRowsUpdated(range[0], range[1], columnIndex);
+                    } finally {
+                        positionsModel.commitBatch();
+                    }
+
+                    if (positionsTable != null) {
+                        scrollToPosition(positionsTable, min(updatedRows.getLastIndex() + maximumRangeLength, positionsModel.getRowCount() - 1));
+                    }
+                }
+            });
+        }
+    }
+
     private void executeOperation(final JTable positionsTable,
                                   final PositionsModel positionsModel,
                                   final int[] rows,
@@ -171,6 +220,7 @@ public class PositionAugmenter {
                     final Exception[] lastException = new Exception[1];
                     lastException[0] = null;
                     final int maximumRangeLength = rows.length > 99 ? rows.length / (slowOperation ? 100 : 10) : rows.length;
+                    final RowsUpdater rowsUpdater = new RowsUpdater(positionsTable, positionsModel, operation.getColumnIndex(), maximumRangeLength);
 
                     new ContinousRange(rows, new RangeOperation() {
                         public void performOnIndex(final int index) {
@@ -189,15 +239,9 @@ public class PositionAugmenter {
                                     RouteConverter.getBundle().getString("augmenting-progress"), count[0]++, rows.length), cancelAction);
                         }
 
-                        public void performOnRange(final int firstIndex, final int lastIndex) {
-                            invokeLater(new Runnable() {
-                                public void run() {
-                                    positionsModel.fireTableRowsUpdated(firstIndex, lastIndex, operation.getColumnIndex());
-                                    if (positionsTable != null) {
-                                        scrollToPosition(positionsTable, min(lastIndex + maximumRangeLength, positionsModel.getRowCount() - 1));
-                                    }
-                                }
-                            });
+                        public void performOnRange(int firstIndex, int lastIndex) {
+                            // coalesce scattered rows into one batch of events per maximum range length
+                            rowsUpdater.add(firstIndex, lastIndex);
                         }
 
                         public boolean isInterrupted() {
@@ -206,6 +250,7 @@ public class PositionAugmenter {
                             }
                         }
                     }).performMonotonicallyIncreasing(maximumRangeLength);
+                    rowsUpdater.flush();
 
                     if (lastException[0] != null) {
                         String errorMessage = RouteConverter.getBundle().getString(operation.getMessagePrefix() + "error");
@@ -73,6 +73,11 @@ public class RoutingServiceFacade {
         return null;
     }
 
+    public void dispose() {
+        for (RoutingService service : routingPreferencesModel.getRoutingServices())
+            service.dispose();
+    }
+
     public void addPreferencesChangeListener(ChangeListener l) {
         routingPreferencesModel.addChangeListener(l);
     }
@@ -0,0 +1,176 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.converter.gui.helpers;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.swing.SwingUtilities.invokeLater;
+import static slash.common.helpers.ThreadHelper.createFixedThreadPool;
+import static slash.navigation.gui.helpers.ImageHelper.resize;
+
+/**
+ * Provides thumbnails of image files with a fixed height. The thumbnails are decoded
+ * by a small pool of threads, kept in a size-bounded least recently used cache and
+ * stored in a directory to be found again after a restart. The directory keeps the
+ * most recently used thumbnails up to a maximum number of files.
+ *
+ * @author Christian Pesch
+ */
+
+public class ThumbnailCache {
+    private static final Logger log = Logger.getLogger(ThumbnailCache.class.getName());
+    private static final ImageIcon NO_THUMBNAIL = new ImageIcon();
+    private static final int THREAD_COUNT = 2;
+
+    private final int height;
+    private final int maximumStoredSize;
+    private final File directory;
+    private final Map<String, ImageIcon> thumbnails;
+    private final Set<String> pending = new HashSet<>();
+    private final Executor executor;
+
+    public ThumbnailCache(int height, int maximumSize, int maximumStoredSize, File directory) {
+        this(height, maximumSize, maximumStoredSize, directory, createFixedThreadPool("ThumbnailDecoder", THREAD_COUNT));
+    }
+
+    ThumbnailCache(int height, int maximumSize, int maximumStoredSize, File directory, Executor executor) {
+        this.height = height;
+        this.maximumStoredSize = maximumStoredSize;
+        this.directory = directory;
+        this.executor = executor;
+        this.thumbnails = new LinkedHashMap<String, ImageIcon>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<String, ImageIcon> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    public void dispose() {
+        if (executor instanceof ExecutorService)
+            ((ExecutorService) executor).shutdownNow();
+    }
+
+    private String createKey(File file) {
+        return file.getAbsolutePath() + "@" + file.lastModified() + "@" + height;
+    }
+
+    /**
+     * Returns the thumbnail of the given file if it is available. Otherwise the thumbnail
+     * is loaded in the background and the callback is invoked in the AWT event queue once
+     * it is available.
+     */
+    public ImageIcon getThumbnail(File file, Runnable loaded) {
+        String key = createKey(file);
+        synchronized (this) {
+            ImageIcon thumbnail = thumbnails.get(key);
+            if (thumbnail != null)
+                return thumbnail != NO_THUMBNAIL ? thumbnail : null;
+            if (!pending.add(key))
+                return null;
+        }
+
+        executor.execute(() -> {
+            ImageIcon thumbnail = NO_THUMBNAIL;
+            try {
+                BufferedImage image = loadThumbnail(file, key);
+                if (image != null)
+                    thumbnail = new ImageIcon(image);
+            } catch (Exception e) {
+                log.warning("Cannot create thumbnail for " + file + ": " + e);
+            }
+
+            synchronized (ThumbnailCache.this) {
+                pending.remove(key);
+                thumbnails.put(key, thumbnail);
+            }
+            if (thumbnail != NO_THUMBNAIL)
+                invokeLater(loaded);
+        });
+        return null;
+    }
+
+    private File getCacheFile(String key) {
+        return new File(directory, UUID.nameUUIDFromBytes(key.getBytes(UTF_8)) + ".png");
+    }
+
+    private BufferedImage loadThumbnail(File file, String key) throws IOException {
+        if (!file.exists())
+            return null;
+
+        File cacheFile = directory != null ? getCacheFile(key) : null;
+        if (cacheFile != null && cacheFile.exists()) {
+            BufferedImage image = ImageIO.read(cacheFile);
+            if (image != null) {
+                // the modification time orders the stored thumbnails by their last use
+                if (!cacheFile.setLastModified(currentTimeMillis()))
+                    log.fine("Cannot update modification time of " + cacheFile);
+                return image;
+            }
+        }
+
+        BufferedImage image = resize(file, height);
+
+        if (image != null && cacheFile != null) {
+            try {
+                ImageIO.write(image, "png", cacheFile);
+                pruneDirectory();
+            } catch (IOException e) {
+                log.warning("Cannot store thumbnail for " + file + " in " + cacheFile + ": " + e);
+            }
+        }
+        return image;
+    }
+
+    private synchronized void pruneDirectory() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".png"));
+        if (files == null || files.length <= maximumStoredSize)
+            return;
+
+        // File#lastModified is read once per file since it is a system call
+        long[] lastModified = new long[files.length];
+        Integer[] indices = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            indices[i] = i;
+        }
+        Arrays.sort(indices, (i1, i2) -> Long.compare(lastModified[i1], lastModified[i2]));
+
+        for (int i = 0; i < files.length - maximumStoredSize; i++) {
+            File file = files[indices[i]];
+            if (!file.delete())
+                log.warning("Cannot delete stored thumbnail " + file);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.models;
+
+import slash.navigation.common.DistanceAndTime;
+import slash.navigation.common.NavigationPosition;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Arrays.copyOf;
+
+/**
+ * Caches the distances and times from the start and the elevation ascends and descends
+ * from the start of the positions of a {@link PositionsModel} in primitive arrays.
+ * The values are invalidated from the first changed row onwards and calculated
+ * again on demand up to the requested row.
+ *
+ * @author Christian Pesch
+ */
+
+class CumulativeValues {
+    private double[] distances = new double[0];
+    private long[] times = new long[0];
+    private int validDistancesAndTimes;
+    private double[] ascends = new double[0];
+    private double[] descends = new double[0];
+    private int validElevations;
+
+    synchronized void invalidateDistancesAndTimes(int fromIndex) {
+        validDistancesAndTimes = min(validDistancesAndTimes, max(fromIndex, 0));
+    }
+
+    synchronized void invalidateElevations(int fromIndex) {
+        validElevations = min(validElevations, max(fromIndex, 0));
+    }
+
+    synchronized void invalidate(int fromIndex) {
+        invalidateDistancesAndTimes(fromIndex);
+        invalidateElevations(fromIndex);
+    }
+
+    private int grow(int length, int index) {
+        return max(index + 1, length * 2);
+    }
+
+    private void calculateDistancesAndTimes(int index, Map<Integer, DistanceAndTime> absoluteDistancesAndTimes) {
+        if (index < validDistancesAndTimes)
+            return;
+
+        if (index >= distances.length) {
+            int length = grow(distances.length, index);
+            distances = copyOf(distances, length);
+            times = copyOf(times, length);
+        }
+
+        // positions without a distance or a time take the value of their predecessor
+        double distance = validDistancesAndTimes > 0 ? distances[validDistancesAndTimes - 1] : 0.0;
+        long time = validDistancesAndTimes > 0 ? times[validDistancesAndTimes - 1] : 0L;
+        for (int i = validDistancesAndTimes; i <= index; i++) {
+            DistanceAndTime distanceAndTime = absoluteDistancesAndTimes.get(i);
+            if (distanceAndTime != null) {
+                if (distanceAndTime.getDistance() != null)
+                    distance = distanceAndTime.getDistance();
+                if (distanceAndTime.getTimeInMillis() != null)
+                    time = distanceAndTime.getTimeInMillis();
+            }
+            distances[i] = distance;
+            times[i] = time;
+        }
+        validDistancesAndTimes = index + 1;
+    }
+
+    synchronized double getDistance(int index, Map<Integer, DistanceAndTime> absoluteDistancesAndTimes) {
+        calculateDistancesAndTimes(index, absoluteDistancesAndTimes);
+        return distances[index];
+    }
+
+    synchronized long getTime(int index, Map<Integer, DistanceAndTime> absoluteDistancesAndTimes) {
+        calculateDistancesAndTimes(index, absoluteDistancesAndTimes);
+        return times[index];
+    }
+
+    private void calculateElevations(int index, List<? extends NavigationPosition> positions) {
+        if (index < validElevations)
+            return;
+
+        if (index >= ascends.length) {
+            int length = grow(ascends.length, index);
+            ascends = copyOf(ascends, length);
+            descends = copyOf(descends, length);
+        }
+
+        for (int i = validElevations; i <= index; i++) {
+            double ascend = 0.0, descend = 0.0;
+            if (i > 0) {
+                ascend = ascends[i - 1];
+                descend = descends[i - 1];
+                Double elevation = positions.get(i - 1).calculateElevation(positions.get(i));
+                if (elevation != null) {
+                    if (elevation > 0)
+                        ascend += elevation;
+                    else if (elevation < 0)
+                        descend += abs(elevation);
+                }
+            }
+            ascends[i] = ascend;
+            descends[i] = descend;
+        }
+        validElevations = index + 1;
+    }
+
+    synchronized double getElevationAscend(int index, List<? extends NavigationPosition> positions) {
+        calculateElevations(index, positions);
+        return ascends[index];
+    }
+
+    synchronized double getElevationDescend(int index, List<? extends NavigationPosition> positions) {
+        calculateElevations(index, positions);
+        return descends[index];
+    }
+}
@@ -21,6 +21,7 @@
 package slash.navigation.converter.gui.models;
 
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 
 import javax.swing.*;
 import javax.swing.event.TableModelEvent;
@@ -70,8 +71,8 @@ public class ElevationToJLabelAdapter extends PositionsModelToDocumentAdapter {
         @SuppressWarnings("rawtypes")
         BaseRoute route = getDelegate().getRoute();
         if (route != null && !route.getCharacteristics().equals(Waypoints)) {
-            updateLabel(route.getElevationAscend(0, route.getPositionCount() - 1),
-                    route.getElevationDescend(0, route.getPositionCount() - 1));
+            RouteStatistics statistics = getDelegate().getRouteStatistics();
+            updateLabel(statistics.getElevationAscend(), statistics.getElevationDescend());
         } else {
             updateLabel(0, 0);
         }
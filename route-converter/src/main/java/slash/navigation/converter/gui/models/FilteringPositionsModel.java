@@ -26,6 +26,7 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.common.BoundingBox;
 import slash.navigation.common.NavigationPosition;
 
@@ -61,7 +62,7 @@ public class FilteringPositionsModel<P extends NavigationPosition> extends Filte
     }
 
     public int getIndex(NavigationPosition position) {
-        return mapRow(getDelegate().getIndex(position));
+        return unmapRow(getDelegate().getIndex(position));
     }
 
     public List<NavigationPosition> getPositions(int[] rowIndices) {
@@ -76,6 +77,10 @@ public class FilteringPositionsModel<P extends NavigationPosition> extends Filte
         throw new UnsupportedOperationException();
     }
 
+    public RouteStatistics getRouteStatistics() {
+        throw new UnsupportedOperationException();
+    }
+
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
         throw new UnsupportedOperationException();
     }
@@ -160,6 +165,14 @@ public class FilteringPositionsModel<P extends NavigationPosition> extends Filte
         throw new UnsupportedOperationException();
     }
 
+    public void beginBatch() {
+        getDelegate().beginBatch();
+    }
+
+    public void commitBatch() {
+        getDelegate().commitBatch();
+    }
+
     public boolean isContinousRange() {
         return getDelegate().isContinousRange();
     }
@@ -23,14 +23,15 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.base.Wgs84Position;
 import slash.navigation.common.*;
+import slash.navigation.converter.gui.helpers.ThumbnailCache;
 
 import javax.swing.*;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import javax.swing.event.TableModelListener;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
@@ -38,11 +39,11 @@ import java.util.*;
 import static java.lang.Integer.MAX_VALUE;
 import static javax.swing.SwingUtilities.invokeLater;
 import static javax.swing.event.TableModelEvent.ALL_COLUMNS;
+import static javax.swing.event.TableModelEvent.UPDATE;
 import static slash.common.type.CompactCalendar.fromMillis;
 import static slash.navigation.base.RouteCharacteristics.*;
 import static slash.navigation.converter.gui.models.PositionColumns.*;
 import static slash.navigation.gui.events.IgnoreEvent.isIgnoreEvent;
-import static slash.navigation.gui.helpers.ImageHelper.resize;
 
 /**
  * Caches {@link DistanceAndTime}, {@link ImageAndFile} for a {@link PositionsModelImpl}.
@@ -50,26 +51,27 @@ import static slash.navigation.gui.helpers.ImageHelper.resize;
  * @author Christian Pesch
  */
 public class OverlayPositionsModel implements PositionsModel {
-    private static final int IMAGE_HEIGHT_FOR_IMAGE_COLUMN = 200;
     private final PositionsModel delegate;
+    private final ThumbnailCache thumbnailCache;
     private DistanceAndTimeAggregator distanceAndTimeAggregator;
-    private final Map<Integer, ImageAndFile> indexToImageAndFile = new HashMap<>();
+    private final CumulativeValues cumulativeValues = new CumulativeValues();
 
-    public OverlayPositionsModel(PositionsModel delegate) {
+    public OverlayPositionsModel(PositionsModel delegate, ThumbnailCache thumbnailCache) {
         this.delegate = delegate;
+        this.thumbnailCache = thumbnailCache;
         delegate.addTableModelListener(e -> {
-            // clear overlay for updates on columns that have an effect on the distance
             int columnIndex = e.getColumn();
-            if (columnIndex == LONGITUDE_COLUMN_INDEX ||
-                    columnIndex == LATITUDE_COLUMN_INDEX ||
-                    columnIndex == ALL_COLUMNS)
-                clearOverlay();
+            // inserted and removed rows move the cumulative values
+            if (e.getType() != UPDATE || columnIndex == ALL_COLUMNS)
+                cumulativeValues.invalidate(e.getFirstRow());
+            else if (columnIndex == ELEVATION_COLUMN_INDEX)
+                cumulativeValues.invalidateElevations(e.getFirstRow());
         });
     }
 
-    public OverlayPositionsModel(PositionsModel delegate, CharacteristicsModel characteristicsModel,
+    public OverlayPositionsModel(PositionsModel delegate, ThumbnailCache thumbnailCache, CharacteristicsModel characteristicsModel,
                                  DistanceAndTimeAggregator distanceAndTimeAggregator) {
-        this(delegate);
+        this(delegate, thumbnailCache);
         this.distanceAndTimeAggregator = distanceAndTimeAggregator;
 
         characteristicsModel.addListDataListener(new ListDataListener() {
@@ -83,14 +85,14 @@ public class OverlayPositionsModel implements PositionsModel {
                 // ignore events following setRoute()
                 if (isIgnoreEvent(e))
                     return;
-                // clear ImageAndFile and DistanceAndTimeAggregator caches when route characteristics is changed
-                clearOverlay();
+                // clear DistanceAndTimeAggregator cache when route characteristics is changed
                 distanceAndTimeAggregator.clearDistancesAndTimes();
             }
         });
 
         distanceAndTimeAggregator.addDistancesAndTimesAggregatorListener(new DistancesAndTimesAggregatorListener() {
             public void distancesAndTimesChanged(int firstIndex, int lastIndex) {
+                cumulativeValues.invalidateDistancesAndTimes(firstIndex);
                 invokeLater(() -> {
                     // make JTable rerender the distance and time column cells
                     fireTableRowsUpdatedInContinousRange(firstIndex, lastIndex, DISTANCE_COLUMN_INDEX);
@@ -100,10 +102,6 @@ public class OverlayPositionsModel implements PositionsModel {
         });
     }
 
-    private void clearOverlay() {
-        indexToImageAndFile.clear();
-    }
-
     // TableModel
 
     public int getRowCount() {
@@ -172,21 +170,17 @@ public class OverlayPositionsModel implements PositionsModel {
         return distanceAndTimeAggregator;
     }
 
+    public RouteStatistics getRouteStatistics() {
+        return delegate.getRouteStatistics();
+    }
+
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
         if (getRoute().getCharacteristics().equals(Waypoints))
             return null;
 
         double[] result = new double[endIndex - startIndex + 1];
-        int index = 0;
-        double distance = 0.0;
-        while (index <= endIndex) {
-            DistanceAndTime distanceAndTime = distanceAndTimeAggregator.getAbsoluteDistancesAndTimes().get(index);
-            if (distanceAndTime != null && distanceAndTime.getDistance() != null)
-                distance = distanceAndTime.getDistance();
-            if (index >= startIndex)
-                result[index - startIndex] = distance;
-            index++;
-        }
+        for (int index = startIndex; index <= endIndex; index++)
+            result[index - startIndex] = cumulativeValues.getDistance(index, distanceAndTimeAggregator.getAbsoluteDistancesAndTimes());
         return result;
     }
 
@@ -210,16 +204,8 @@ public class OverlayPositionsModel implements PositionsModel {
             return null;
 
         long[] result = new long[endIndex - startIndex + 1];
-        int index = 0;
-        long time = 0;
-        while (index <= endIndex) {
-            DistanceAndTime distanceAndTime = distanceAndTimeAggregator.getAbsoluteDistancesAndTimes().get(index);
-            if (distanceAndTime != null && distanceAndTime.getTimeInMillis() != null)
-                time = distanceAndTime.getTimeInMillis();
-            if (index >= startIndex)
-                result[index - startIndex] = time;
-            index++;
-        }
+        for (int index = startIndex; index <= endIndex; index++)
+            result[index - startIndex] = cumulativeValues.getTime(index, distanceAndTimeAggregator.getAbsoluteDistancesAndTimes());
         return result;
     }
 
@@ -318,9 +304,9 @@ public class OverlayPositionsModel implements PositionsModel {
                     return getTime(rowIndex);
                 break;
             case ELEVATION_ASCEND_COLUMN_INDEX:
-                return !getRoute().getCharacteristics().equals(Waypoints) ? getRoute().getElevationAscend(0, rowIndex) : null;
+                return !getRoute().getCharacteristics().equals(Waypoints) ? cumulativeValues.getElevationAscend(rowIndex, getRoute().getPositions()) : null;
             case ELEVATION_DESCEND_COLUMN_INDEX:
-                return !getRoute().getCharacteristics().equals(Waypoints) ? getRoute().getElevationDescend(0, rowIndex) : null;
+                return !getRoute().getCharacteristics().equals(Waypoints) ? cumulativeValues.getElevationDescend(rowIndex, getRoute().getPositions()) : null;
             case ELEVATION_DIFFERENCE_COLUMN_INDEX:
                 return !getRoute().getCharacteristics().equals(Waypoints) ? getRoute().getElevationDifference(rowIndex) : null;
         }
@@ -328,22 +314,23 @@ public class OverlayPositionsModel implements PositionsModel {
     }
 
     private ImageAndFile getImageAndFile(int rowIndex) {
-        ImageAndFile imageAndFile = indexToImageAndFile.get(rowIndex);
-        if (imageAndFile == null) {
-            NavigationPosition position = getPosition(rowIndex);
-            if (position instanceof Wgs84Position) {
-                Wgs84Position wgs84Position = (Wgs84Position) position;
-                File file = wgs84Position.getOrigin(File.class);
-                if (file != null && file.exists()) {
-                    BufferedImage resize = resize(file, IMAGE_HEIGHT_FOR_IMAGE_COLUMN);
-                    if (resize != null) {
-                        imageAndFile = new ImageAndFile(new ImageIcon(resize), file);
-                        indexToImageAndFile.put(rowIndex, imageAndFile);
-                    }
-                }
+        NavigationPosition position = getPosition(rowIndex);
+        if (position instanceof Wgs84Position) {
+            Wgs84Position wgs84Position = (Wgs84Position) position;
+            File file = wgs84Position.getOrigin(File.class);
+            if (file != null) {
+                // the thumbnail is decoded in the background and the row of the position is
+                // rendered again once it is available - even if positions have been moved meanwhile
+                ImageIcon thumbnail = thumbnailCache.getThumbnail(file, () -> {
+                    int index = getIndex(position);
+                    if (index != -1)
+                        fireTableRowsUpdatedInContinousRange(index, index, PHOTO_COLUMN_INDEX);
+                });
+                if (thumbnail != null)
+                    return new ImageAndFile(thumbnail, file);
             }
         }
-        return imageAndFile;
+        return null;
     }
 
     private Double getDistance(int rowIndex) {
@@ -369,6 +356,14 @@ public class OverlayPositionsModel implements PositionsModel {
         return timesFromStart != null ? fromMillis(timesFromStart[0]) : null;
     }
 
+    public void beginBatch() {
+        delegate.beginBatch();
+    }
+
+    public void commitBatch() {
+        delegate.commitBatch();
+    }
+
     public boolean isContinousRange() {
         return delegate.isContinousRange();
     }
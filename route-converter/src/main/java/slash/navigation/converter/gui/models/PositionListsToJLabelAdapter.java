@@ -21,11 +21,13 @@
 package slash.navigation.converter.gui.models;
 
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.LazyRouteList;
 import slash.navigation.base.RouteCharacteristics;
 import slash.navigation.converter.gui.RouteConverter;
 
 import javax.swing.*;
 import java.text.MessageFormat;
+import java.util.List;
 
 import static slash.navigation.base.RouteCharacteristics.*;
 
@@ -50,13 +52,21 @@ public class PositionListsToJLabelAdapter extends FormatAndRoutesListModelToDocu
 
     private Integer count(RouteCharacteristics characteristics) {
         int count = 0;
-        for (BaseRoute route : getDelegate().getRoutes()) {
-            if (characteristics.equals(route.getCharacteristics()))
+        List<BaseRoute> routes = getDelegate().getRoutes();
+        for (int i = 0, c = routes.size(); i < c; i++) {
+            if (characteristics.equals(getCharacteristics(routes, i)))
                 count++;
         }
         return count;
     }
 
+    private RouteCharacteristics getCharacteristics(List<BaseRoute> routes, int index) {
+        // avoid to convert routes which are not displayed yet
+        if (routes instanceof LazyRouteList)
+            return ((LazyRouteList) routes).getCharacteristics(index);
+        return routes.get(index).getCharacteristics();
+    }
+
     protected void updateAdapterFromDelegate() {
         BaseRoute route = getDelegate().getSelectedRoute();
         if (route != null) {
@@ -24,14 +24,16 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.common.*;
 import slash.navigation.converter.gui.RouteConverter;
 import slash.navigation.converter.gui.helpers.PositionHelper;
-import slash.navigation.gui.events.ContinousRange;
+import slash.navigation.gui.events.BulkTableModelListener;
 import slash.navigation.gui.events.Range;
-import slash.navigation.gui.events.RangeOperation;
+import slash.navigation.gui.events.RangeSet;
 
 import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableModel;
 import java.io.IOException;
@@ -39,20 +41,25 @@ import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Calendar.*;
 import static java.util.Collections.singletonList;
 import static javax.swing.JOptionPane.ERROR_MESSAGE;
 import static javax.swing.JOptionPane.showMessageDialog;
+import static javax.swing.SwingUtilities.isEventDispatchThread;
 import static javax.swing.event.TableModelEvent.*;
 import static slash.common.io.Transfer.trim;
 import static slash.common.type.CompactCalendar.fromCalendar;
 import static slash.navigation.base.NavigationFormatConverter.convertPositions;
 import static slash.navigation.converter.gui.helpers.PositionHelper.*;
 import static slash.navigation.converter.gui.models.PositionColumns.*;
+import static slash.navigation.gui.events.ContinousRange.isContinousRangeFinalEvent;
 
 /**
  * Implements the {@link PositionsModel} for the positions of a {@link BaseRoute}.
@@ -64,6 +71,8 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     private static final Logger log = Logger.getLogger(PositionsModelImpl.class.getName());
 
     private BaseRoute route;
+    private RouteStatistics routeStatistics;
+    private boolean routeStatisticsPatched;
 
     public BaseRoute getRoute() {
         return route;
@@ -71,6 +80,7 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
 
     public void setRoute(BaseRoute route) {
         this.route = route;
+        this.routeStatistics = null;
         fireTableDataChanged();
     }
 
@@ -136,6 +146,59 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
       throw new UnsupportedOperationException();
     }
 
+    public RouteStatistics getRouteStatistics() {
+        BaseRoute route = getRoute();
+        if (route == null)
+            return null;
+        if (routeStatistics == null || routeStatistics.getPositions() != route.getPositions() ||
+                routeStatistics.getPositionCount() != route.getPositionCount())
+            routeStatistics = route.createStatistics();
+        return routeStatistics;
+    }
+
+    private void updateRouteStatistics(TableModelEvent e) {
+        // the final event of continuous ranges follows ranges which have been handled already
+        if (routeStatistics == null || routeStatisticsPatched || isContinousRangeFinalEvent(e))
+            return;
+
+        int firstRow = e.getFirstRow();
+        int lastRow = e.getLastRow();
+        if (firstRow == HEADER_ROW || lastRow == MAX_VALUE || getRoute() == null ||
+                routeStatistics.getPositions() != getRoute().getPositions()) {
+            routeStatistics = null;
+            return;
+        }
+
+        int changedCount = lastRow - firstRow + 1;
+        int countBefore = routeStatistics.getPositionCount();
+        int countAfter = getRowCount();
+        switch (e.getType()) {
+            case INSERT:
+                if (countBefore + changedCount == countAfter) {
+                    routeStatistics.positionsInserted(firstRow, lastRow);
+                    return;
+                }
+                break;
+            case DELETE:
+                if (countBefore - changedCount == countAfter) {
+                    routeStatistics.positionsDeleted(firstRow, lastRow);
+                    return;
+                }
+                break;
+            case UPDATE:
+                // descriptions do not contribute to the statistics
+                if (e.getColumn() == DESCRIPTION_COLUMN_INDEX && countBefore == countAfter)
+                    return;
+                if (countBefore == countAfter && lastRow < countAfter) {
+                    routeStatistics.positionsUpdated(firstRow, lastRow);
+                    return;
+                }
+                break;
+        }
+        // the statistics missed a change of the positions
+        routeStatistics = null;
+    }
+
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
         return getRoute().getDistancesFromStart(startIndex, endIndex);
     }
@@ -433,21 +496,86 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
         remove(rowIndices, true);
     }
 
-    public void remove(int[] rows, final boolean fireEvent) {
-        new ContinousRange(rows, new RangeOperation() {
-            public void performOnIndex(int index) {
-                getRoute().remove(index);
-            }
+    public void remove(int[] rows, boolean fireEvent) {
+        remove(rows, fireEvent, false);
+    }
 
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
+    /**
+     * Removes the positions of the given rows at once and patches the statistics.
+     *
+     * @param continousRange fire the deleted ranges for listeners that update after a final event
+     * @return the removed positions in the order of the rows
+     */
+    @SuppressWarnings("unchecked")
+    public List<NavigationPosition> remove(int[] rows, boolean fireEvent, boolean continousRange) {
+        int rowCount = getRowCount();
+        BitSet indices = new BitSet(rowCount);
+        for (int row : rows) {
+            if (row >= 0 && row < rowCount)
+                indices.set(row);
+        }
+        if (indices.isEmpty())
+            return new ArrayList<>();
+
+        List<NavigationPosition> removed = getRoute().remove(indices);
+        if (routeStatistics != null)
+            routeStatistics.positionsDeleted(indices);
+        if (!fireEvent)
+            return removed;
+
+        beginBatch();
+        // the statistics have been patched for all ranges at once
+        routeStatisticsPatched = true;
+        try {
+            // deletions from the last range on keep the indices of the preceding ranges valid
+            int lastIndex = indices.length() - 1;
+            while (lastIndex >= 0) {
+                int firstIndex = indices.previousClearBit(lastIndex) + 1;
+                if (continousRange)
+                    fireTableRowsDeletedInContinousRange(firstIndex, lastIndex);
+                else
                     fireTableRowsDeleted(firstIndex, lastIndex);
+                lastIndex = indices.previousSetBit(firstIndex - 1);
             }
+        } finally {
+            routeStatisticsPatched = false;
+            commitBatch();
+        }
+        return removed;
+    }
 
-            public boolean isInterrupted() {
-                return false;
+    /**
+     * Inserts the positions at once so that they end up at the given ascending rows and patches the statistics.
+     */
+    @SuppressWarnings("unchecked")
+    public void insert(int[] ascendingRows, List<NavigationPosition> positions, boolean fireEvent) {
+        if (ascendingRows.length == 0)
+            return;
+
+        getRoute().insert(ascendingRows, positions);
+        BitSet indices = new BitSet(ascendingRows[ascendingRows.length - 1] + 1);
+        for (int row : ascendingRows)
+            indices.set(row);
+        if (routeStatistics != null)
+            routeStatistics.positionsInserted(indices);
+        if (!fireEvent)
+            return;
+
+        beginBatch();
+        // the statistics have been patched for all ranges at once
+        routeStatisticsPatched = true;
+        try {
+            // insertions from the first range on keep the indices of the following ranges valid
+            int firstIndex = indices.nextSetBit(0);
+            while (firstIndex >= 0) {
+                int lastIndex = indices.nextClearBit(firstIndex) - 1;
+                fireTableRowsInserted(firstIndex, lastIndex);
+                firstIndex = indices.nextSetBit(lastIndex + 1);
             }
-        }).performMonotonicallyDecreasing();
+        } finally {
+            routeStatisticsPatched = false;
+            commitBatch();
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -491,35 +619,50 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
     public void up(int[] rowIndices, int delta) {
         Arrays.sort(rowIndices);
 
-        for (int row : rowIndices) {
-            // protect against IndexArrayOutOfBoundsException
-            if(row - delta < 0)
-                continue;
+        beginBatch();
+        try {
+            for (int row : rowIndices) {
+                // protect against IndexArrayOutOfBoundsException
+                if (row - delta < 0)
+                    continue;
 
-            getRoute().move(row, row - delta);
-            fireTableRowsUpdated(row - delta, row);
+                getRoute().move(row, row - delta);
+                fireTableRowsUpdated(row - delta, row);
+            }
+        } finally {
+            commitBatch();
         }
     }
 
     public void down(int[] rowIndices, int delta) {
         int[] reverted = Range.revert(rowIndices);
 
-        for (int row : reverted) {
-            // protect against IndexArrayOutOfBoundsException
-            if(row + delta >= getRowCount())
-                continue;
+        beginBatch();
+        try {
+            for (int row : reverted) {
+                // protect against IndexArrayOutOfBoundsException
+                if (row + delta >= getRowCount())
+                    continue;
 
-            getRoute().move(row, row + delta);
-            fireTableRowsUpdated(row, row + delta);
+                getRoute().move(row, row + delta);
+                fireTableRowsUpdated(row, row + delta);
+            }
+        } finally {
+            commitBatch();
         }
     }
 
     public void bottom(int[] rowIndices) {
         int[] reverted = Range.revert(rowIndices);
 
-        for (int i = 0; i < reverted.length; i++) {
-            getRoute().bottom(reverted[i], i);
-            fireTableRowsUpdated(reverted[i], getRowCount() - 1 - i);
+        beginBatch();
+        try {
+            for (int i = 0; i < reverted.length; i++) {
+                getRoute().bottom(reverted[i], i);
+                fireTableRowsUpdated(reverted[i], getRowCount() - 1 - i);
+            }
+        } finally {
+            commitBatch();
         }
     }
 
@@ -532,14 +675,200 @@ public class PositionsModelImpl extends AbstractTableModel implements PositionsM
         fireTableRowsUpdated(rows[0], getRowCount() - 1);
     }
 
+    private static final int MAXIMUM_RANGE_COUNT = 1000;
+
     private TableModelEvent currentEvent;
+    // batches are confined to the event dispatch thread, events of other threads are fired immediately
+    private Batch batch;
+    private int batchDepth;
+
+    public void beginBatch() {
+        if (!isEventDispatchThread())
+            return;
+
+        if (batchDepth++ == 0)
+            batch = new Batch(getRowCount());
+    }
+
+    public void commitBatch() {
+        if (!isEventDispatchThread())
+            return;
+
+        if (batchDepth == 0)
+            throw new IllegalStateException("No batch begun");
+        if (--batchDepth > 0)
+            return;
+
+        Batch committed = batch;
+        batch = null;
+        fireBatch(committed);
+    }
 
     public void fireTableChanged(TableModelEvent e) {
+        updateRouteStatistics(e);
+
+        if (batch != null && e.getFirstRow() != HEADER_ROW && isEventDispatchThread()) {
+            batch.add(e);
+            return;
+        }
+
         this.currentEvent = e;
         super.fireTableChanged(e);
         this.currentEvent = null;
     }
 
+    private void fireBatch(final Batch batch) {
+        // notify the last listener first like AbstractTableModel#fireTableChanged()
+        List<TableModelListener> listeners = new ArrayList<>();
+        Object[] listenerList = this.listenerList.getListenerList();
+        for (int i = listenerList.length - 2; i >= 0; i -= 2) {
+            if (listenerList[i] == TableModelListener.class)
+                listeners.add((TableModelListener) listenerList[i + 1]);
+        }
+
+        boolean mixed = batch.isMixed();
+        if (mixed)
+            fireTableChanged(listeners, createReplacingEvents(batch.firstStructuralRow, batch.rowCountBefore), null);
+        else if (batch.deletedRows.getRangeCount() > MAXIMUM_RANGE_COUNT || batch.insertedRows.getRangeCount() > MAXIMUM_RANGE_COUNT) {
+            int firstRow = batch.deletedRows.getRangeCount() > MAXIMUM_RANGE_COUNT ? batch.deletedRows.getFirstIndex() : batch.insertedRows.getFirstIndex();
+            fireTableChanged(listeners, createReplacingEvents(firstRow, batch.rowCountBefore), bulkListener -> {
+                if (!batch.deletedRows.isEmpty())
+                    bulkListener.tableRowsDeleted(this, batch.deletedRows);
+                if (!batch.insertedRows.isEmpty())
+                    bulkListener.tableRowsInserted(this, batch.insertedRows);
+            });
+        } else {
+            fireTableChanged(listeners, createDeleteEvents(batch.deletedRows, batch.deletedContinousRange), bulkListener -> bulkListener.tableRowsDeleted(this, batch.deletedRows));
+            fireTableChanged(listeners, createInsertEvents(batch.insertedRows), bulkListener -> bulkListener.tableRowsInserted(this, batch.insertedRows));
+        }
+
+        for (Map.Entry<Integer, UpdatedRows> entry : batch.updatedRows.entrySet()) {
+            final int columnIndex = entry.getKey();
+            UpdatedRows updated = entry.getValue();
+            final RangeSet rows = mixed ? updated.rows.headSet(batch.firstStructuralRow) : updated.rows;
+            fireTableChanged(listeners, createUpdateEvents(rows, columnIndex, updated.continousRange),
+                    bulkListener -> bulkListener.tableRowsUpdated(this, rows, columnIndex));
+        }
+    }
+
+    /**
+     * Delivers every event to all listeners before the next event; bulk listeners are notified
+     * once with the first event as the current event unless there is no bulk notification.
+     */
+    private void fireTableChanged(List<TableModelListener> listeners, List<TableModelEvent> events,
+                                  Consumer<BulkTableModelListener> bulkNotification) {
+        for (int i = 0; i < events.size(); i++) {
+            TableModelEvent event = events.get(i);
+            this.currentEvent = event;
+            for (TableModelListener listener : listeners) {
+                if (bulkNotification != null && listener instanceof BulkTableModelListener) {
+                    if (i == 0)
+                        bulkNotification.accept((BulkTableModelListener) listener);
+                } else
+                    listener.tableChanged(event);
+            }
+        }
+        this.currentEvent = null;
+    }
+
+    private List<TableModelEvent> createReplacingEvents(int firstRow, int rowCountBefore) {
+        int rowCountAfter = getRowCount();
+        if (rowCountAfter <= firstRow)
+            return singletonList(new TableModelEvent(this, firstRow, rowCountBefore - 1, ALL_COLUMNS, DELETE));
+        if (rowCountBefore <= firstRow)
+            return singletonList(new TableModelEvent(this, firstRow, rowCountAfter - 1, ALL_COLUMNS, INSERT));
+        return asList(new ContinousRangeTableModelEvent(this, firstRow, rowCountBefore - 1, ALL_COLUMNS, DELETE),
+                new TableModelEvent(this, firstRow, rowCountAfter - 1, ALL_COLUMNS, INSERT));
+    }
+
+    private List<TableModelEvent> createDeleteEvents(RangeSet rows, boolean continousRange) {
+        List<TableModelEvent> events = new ArrayList<>();
+        // deletions from the last to the first range keep the indices of the preceding ranges valid
+        List<int[]> ranges = rows.getRanges();
+        for (int i = ranges.size() - 1; i >= 0; i--) {
+            int[] range = ranges.get(i);
+            events.add(continousRange ?
+                    new ContinousRangeTableModelEvent(this, range[0], range[1], ALL_COLUMNS, DELETE) :
+                    new TableModelEvent(this, range[0], range[1], ALL_COLUMNS, DELETE));
+        }
+        return events;
+    }
+
+    private List<TableModelEvent> createInsertEvents(RangeSet rows) {
+        List<TableModelEvent> events = new ArrayList<>();
+        for (int[] range : rows.getRanges())
+            events.add(new TableModelEvent(this, range[0], range[1], ALL_COLUMNS, INSERT));
+        return events;
+    }
+
+    private List<TableModelEvent> createUpdateEvents(RangeSet rows, int columnIndex, boolean continousRange) {
+        List<TableModelEvent> events = new ArrayList<>();
+        for (int[] range : rows.getRanges())
+            events.add(continousRange ?
+                    new ContinousRangeTableModelEvent(this, range[0], range[1], columnIndex, UPDATE) :
+                    new TableModelEvent(this, range[0], range[1], columnIndex, UPDATE));
+        return events;
+    }
+
+    private static class UpdatedRows {
+        private final RangeSet rows = new RangeSet();
+        private boolean continousRange = true;
+    }
+
+    private static class Batch {
+        private final int rowCountBefore;
+        private final RangeSet insertedRows = new RangeSet();
+        private final RangeSet deletedRows = new RangeSet();
+        private boolean deletedContinousRange = true;
+        // updated rows per column in the order of their first update
+        private final Map<Integer, UpdatedRows> updatedRows = new LinkedHashMap<>();
+        private int firstStructuralRow = MAX_VALUE;
+
+        Batch(int rowCountBefore) {
+            this.rowCountBefore = rowCountBefore;
+        }
+
+        void add(TableModelEvent e) {
+            int firstRow = e.getFirstRow();
+            int lastRow = e.getLastRow();
+            switch (e.getType()) {
+                case INSERT:
+                    // inserted rows are collected with the indices after the batch
+                    insertedRows.shift(firstRow, lastRow - firstRow + 1);
+                    insertedRows.add(firstRow, lastRow);
+                    firstStructuralRow = min(firstStructuralRow, firstRow);
+                    break;
+                case DELETE:
+                    // deleted rows are collected with the indices before the batch
+                    deletedRows.add(deletedRows.skip(firstRow), lastRow == MAX_VALUE ? MAX_VALUE : deletedRows.skip(lastRow));
+                    deletedContinousRange &= e instanceof ContinousRangeTableModelEvent;
+                    firstStructuralRow = min(firstStructuralRow, firstRow);
+                    break;
+                case UPDATE:
+                    UpdatedRows updated = updatedRows.get(e.getColumn());
+                    if (updated == null) {
+                        updated = new UpdatedRows();
+                        updatedRows.put(e.getColumn(), updated);
+                    }
+                    updated.continousRange &= e instanceof ContinousRangeTableModelEvent;
+                    updated.rows.add(firstRow, lastRow);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Event type " + e.getType() + " is not supported");
+            }
+        }
+
+        boolean isMixed() {
+            if (!insertedRows.isEmpty() && !deletedRows.isEmpty())
+                return true;
+            for (UpdatedRows updated : updatedRows.values()) {
+                if (updated.rows.getLastIndex() >= firstStructuralRow)
+                    return true;
+            }
+            return false;
+        }
+    }
+
     public boolean isContinousRange() {
         return currentEvent instanceof ContinousRangeTableModelEvent;
     }
@@ -181,7 +181,7 @@ public class ConvertPanel implements PanelInTab {
         UndoManager undoManager = Application.getInstance().getContext().getUndoManager();
         undoManager.addChangeListener(e -> handleUndoUpdate());
 
-        positionsModel = new OverlayPositionsModel(new UndoPositionsModel(undoManager), r.getCharacteristicsModel(), r.getDistanceAndTimeAggregator());
+        positionsModel = new OverlayPositionsModel(new UndoPositionsModel(undoManager), r.getThumbnailCache(), r.getCharacteristicsModel(), r.getDistanceAndTimeAggregator());
         formatAndRoutesModel = new UndoFormatAndRoutesModel(undoManager, new FormatAndRoutesModelImpl(positionsModel, r.getCharacteristicsModel()));
         positionsSelectionModel = new PositionsSelectionModel() {
             public void setSelectedPositions(int[] selectedPositions, boolean replaceSelection) {
@@ -479,9 +479,9 @@ public class ConvertPanel implements PanelInTab {
         prepareForNewPositionList();
 
         List<URL> urls = toUrls(selected);
+        // without a selected format the parser orders the formats by extension and previous inputs
         List<NavigationFormat> formats = selectedFormat != null ?
-                getNavigationFormatRegistry().getReadFormatsWithPreferredFormat(selectedFormat) :
-                getNavigationFormatRegistry().getReadFormatsPreferredByExtension(getExtension(urls));
+                getNavigationFormatRegistry().getReadFormatsWithPreferredFormat(selectedFormat) : null;
         openPositionList(urls, formats);
     }
 
@@ -490,7 +490,7 @@ public class ConvertPanel implements PanelInTab {
             return;
 
         prepareForNewPositionList();
-        openPositionList(urls, getNavigationFormatRegistry().getReadFormatsPreferredByExtension(getExtension(urls)));
+        openPositionList(urls, null);
     }
 
     private final ExecutorService openExecutor = createSingleThreadExecutor("OpenPositionList");
@@ -516,7 +516,7 @@ public class ConvertPanel implements PanelInTab {
                     urlModel.clear();
                 });
 
-                final ParserResult result = parser.read(url, formats);
+                final ParserResult result = formats != null ? parser.read(url, formats) : parser.read(url);
                 if (result.isSuccessful()) {
                     log.info("Opened: " + path);
                     final NavigationFormat format = result.getFormat();
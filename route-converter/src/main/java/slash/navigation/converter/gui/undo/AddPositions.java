@@ -22,6 +22,7 @@ package slash.navigation.converter.gui.undo;
 
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.undo.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
@@ -29,21 +30,29 @@ import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoableEdit;
 import java.util.List;
 
+import static slash.navigation.converter.gui.undo.UndoPositionsModel.estimateSize;
+
 /**
  * Acts as a {@link UndoableEdit} for adding positions to {@link PositionsModel}.
  *
  * @author Christian Pesch
  */
 
-class AddPositions extends AbstractUndoableEdit {
+class AddPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
     private int row;
     private List<NavigationPosition> positions;
+    private long size;
 
     public AddPositions(UndoPositionsModel positionsModel, int row, List<NavigationPosition> positions) {
         this.positionsModel = positionsModel;
         this.row = row;
         this.positions = positions;
+        this.size = estimateSize(positions);
+    }
+
+    public long getSize() {
+        return size;
     }
 
     public String getUndoPresentationName() {
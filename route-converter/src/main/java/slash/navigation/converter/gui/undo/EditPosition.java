@@ -22,27 +22,73 @@ package slash.navigation.converter.gui.undo;
 
 import slash.navigation.converter.gui.models.PositionColumnValues;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.undo.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoableEdit;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.util.Arrays.asList;
+import static slash.navigation.converter.gui.undo.UndoPositionsModel.estimateSize;
 
 /**
  * Acts as a {@link UndoableEdit} for editing positions of a {@link PositionsModel}.
+ * Consecutive edits of the same columns in increasing rows by an operation that fires
+ * its events in bulk are absorbed into one edit with the previous and next column values.
  *
  * @author Christian Pesch
  */
 
-class EditPosition extends AbstractUndoableEdit {
+class EditPosition extends AbstractUndoableEdit implements SizedUndoableEdit {
     private final UndoPositionsModel positionsModel;
-    private final int row;
-    private final PositionColumnValues columnToValues;
+    private final List<Integer> columnIndices;
+    private final boolean bulk;
+    private int[] rows;
+    private Object[] previousValues;
+    private Object[] nextValues;
+    private int count = 1;
+    private long size;
 
-    public EditPosition(UndoPositionsModel positionsModel, int row, PositionColumnValues columnToValues) {
+    public EditPosition(UndoPositionsModel positionsModel, int row, PositionColumnValues columnToValues, boolean bulk) {
         this.positionsModel = positionsModel;
-        this.row = row;
-        this.columnToValues = columnToValues;
+        this.columnIndices = columnToValues.getColumnIndices();
+        this.bulk = bulk;
+        this.rows = new int[]{row};
+        this.previousValues = columnToValues.getPreviousValues().toArray();
+        this.nextValues = columnToValues.getNextValues().toArray();
+        this.size = 4 + estimateSize(previousValues, 0, previousValues.length) + estimateSize(nextValues, 0, nextValues.length);
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean addEdit(UndoableEdit anEdit) {
+        if (!(anEdit instanceof EditPosition))
+            return false;
+
+        EditPosition edit = (EditPosition) anEdit;
+        if (!bulk || !edit.bulk || edit.positionsModel != positionsModel || edit.count != 1 ||
+                edit.rows[0] <= rows[count - 1] || !edit.columnIndices.equals(columnIndices))
+            return false;
+
+        if (count == rows.length) {
+            int capacity = max(count * 2, 8);
+            rows = Arrays.copyOf(rows, capacity);
+            previousValues = Arrays.copyOf(previousValues, capacity * columnIndices.size());
+            nextValues = Arrays.copyOf(nextValues, capacity * columnIndices.size());
+        }
+        int columnCount = columnIndices.size();
+        rows[count] = edit.rows[0];
+        System.arraycopy(edit.previousValues, 0, previousValues, count * columnCount, columnCount);
+        System.arraycopy(edit.nextValues, 0, nextValues, count * columnCount, columnCount);
+        count++;
+        size += edit.size;
+        return true;
     }
 
     public String getUndoPresentationName() {
@@ -55,11 +101,23 @@ class EditPosition extends AbstractUndoableEdit {
 
     public void undo() throws CannotUndoException {
         super.undo();
-        positionsModel.edit(row, new PositionColumnValues(columnToValues.getColumnIndices(), columnToValues.getPreviousValues()), true, false);
+        edit(previousValues);
     }
 
     public void redo() throws CannotRedoException {
         super.redo();
-        positionsModel.edit(row, new PositionColumnValues(columnToValues.getColumnIndices(), columnToValues.getNextValues()), true, false);
+        edit(nextValues);
+    }
+
+    private void edit(Object[] values) {
+        int columnCount = columnIndices.size();
+        if (count == 1) {
+            positionsModel.edit(rows[0], new PositionColumnValues(columnIndices, asList(values).subList(0, columnCount)), true, false);
+            return;
+        }
+
+        for (int i = 0; i < count; i++)
+            positionsModel.edit(rows[i], new PositionColumnValues(columnIndices, asList(values).subList(i * columnCount, (i + 1) * columnCount)), false, false);
+        positionsModel.fireRowsUpdated(Arrays.copyOf(rows, count), columnIndices);
     }
 }
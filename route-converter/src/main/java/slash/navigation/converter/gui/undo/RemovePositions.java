@@ -22,32 +22,37 @@ package slash.navigation.converter.gui.undo;
 
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.undo.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoableEdit;
-import java.util.ArrayList;
 import java.util.List;
 
+import static slash.navigation.converter.gui.undo.UndoPositionsModel.estimateSize;
+
 /**
  * Acts as a {@link UndoableEdit} for removing positions from {@link PositionsModel}.
  *
  * @author Christian Pesch
  */
 
-class RemovePositions extends AbstractUndoableEdit {
+class RemovePositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
-    private List<Integer> rowList = new ArrayList<>();
-    private List<List<NavigationPosition>> positionsList = new ArrayList<>();
+    private int[] rows;
+    private List<NavigationPosition> positions;
+    private long size;
 
-    public RemovePositions(UndoPositionsModel positionsModel) {
+    public RemovePositions(UndoPositionsModel positionsModel, int[] rows, List<NavigationPosition> positions) {
         this.positionsModel = positionsModel;
+        this.rows = rows;
+        this.positions = positions;
+        this.size = rows.length * 4 + estimateSize(positions);
     }
 
-    public void add(int row, List<NavigationPosition> positions) {
-        rowList.add(0, row);
-        positionsList.add(0, positions);
+    public long getSize() {
+        return size;
     }
 
     public String getUndoPresentationName() {
@@ -60,19 +65,11 @@ class RemovePositions extends AbstractUndoableEdit {
 
     public void undo() throws CannotUndoException {
         super.undo();
-        for (int i = 0; i < rowList.size(); i++) {
-            int row = rowList.get(i);
-            List<NavigationPosition> positions = positionsList.get(i);
-            positionsModel.add(row, positions, true, false);
-        }
+        positionsModel.insert(rows, positions, true);
     }
 
     public void redo() throws CannotRedoException {
         super.redo();
-        for (int i = rowList.size() - 1; i >= 0; i--) {
-            int row = rowList.get(i);
-            List<NavigationPosition> positions = positionsList.get(i);
-            positionsModel.remove(row, row + positions.size(), true, false);
-        }
+        positionsModel.remove(rows, true, false);
     }
 }
\ No newline at end of file
@@ -20,15 +20,13 @@
 
 package slash.navigation.converter.gui.undo;
 
-import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.PositionsModel;
+import slash.navigation.gui.undo.SizedUndoableEdit;
 
 import javax.swing.undo.AbstractUndoableEdit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 import javax.swing.undo.UndoableEdit;
-import java.util.Comparator;
-import java.util.List;
 
 /**
  * Acts as a {@link UndoableEdit} for sorting the positions of a {@link PositionsModel}.
@@ -36,15 +34,17 @@ import java.util.List;
  * @author Christian Pesch
  */
 
-class SortPositions extends AbstractUndoableEdit {
+class SortPositions extends AbstractUndoableEdit implements SizedUndoableEdit {
     private UndoPositionsModel positionsModel;
-    private Comparator<NavigationPosition> comparator;
-    private List<NavigationPosition> positions;
+    private int[] permutation;
 
-    public SortPositions(UndoPositionsModel positionsModel, Comparator<NavigationPosition> comparator, List<NavigationPosition> positions) {
+    public SortPositions(UndoPositionsModel positionsModel, int[] permutation) {
         this.positionsModel = positionsModel;
-        this.comparator = comparator;
-        this.positions = positions;
+        this.permutation = permutation;
+    }
+
+    public long getSize() {
+        return permutation.length * 4;
     }
 
     public String getUndoPresentationName() {
@@ -57,11 +57,14 @@ class SortPositions extends AbstractUndoableEdit {
 
     public void undo() throws CannotUndoException {
         super.undo();
-        positionsModel.order(positions);
+        int[] inverse = new int[permutation.length];
+        for (int i = 0; i < permutation.length; i++)
+            inverse[permutation[i]] = i;
+        positionsModel.permute(inverse);
     }
 
     public void redo() throws CannotRedoException {
         super.redo();
-        positionsModel.sort(comparator, false);
+        positionsModel.permute(permutation);
     }
 }
\ No newline at end of file
@@ -24,26 +24,28 @@ import slash.common.type.CompactCalendar;
 import slash.navigation.base.BaseNavigationFormat;
 import slash.navigation.base.BaseNavigationPosition;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.common.BoundingBox;
 import slash.navigation.common.DistanceAndTimeAggregator;
 import slash.navigation.common.NavigationPosition;
 import slash.navigation.converter.gui.models.PositionColumnValues;
 import slash.navigation.converter.gui.models.PositionsModel;
 import slash.navigation.converter.gui.models.PositionsModelImpl;
-import slash.navigation.gui.events.ContinousRange;
 import slash.navigation.gui.events.Range;
-import slash.navigation.gui.events.RangeOperation;
 import slash.navigation.gui.undo.UndoManager;
 
 import javax.swing.event.TableModelListener;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
 import static java.lang.Integer.MAX_VALUE;
 import static java.util.Collections.singletonList;
+import static javax.swing.event.TableModelEvent.ALL_COLUMNS;
 import static slash.common.io.Transfer.trim;
+import static slash.navigation.gui.events.ContinousRange.CONTINOUS_RANGE_FINAL_EVENT;
 
 /**
  * Implements a undo/redo-supporting {@link PositionsModel} for the positions of a {@link BaseRoute}.
@@ -52,6 +54,10 @@ import static slash.common.io.Transfer.trim;
  */
 
 public class UndoPositionsModel implements PositionsModel {
+    // estimates for a 64-bit JVM without compressed references
+    static final long REFERENCE_SIZE = 8;
+    private static final long OBJECT_HEADER_SIZE = 16;
+
     private final PositionsModelImpl delegate = new PositionsModelImpl();
     private final UndoManager undoManager;
 
@@ -105,8 +111,20 @@ public class UndoPositionsModel implements PositionsModel {
             columnToValues.setPreviousValues(previousValues);
         }
         delegate.edit(rowIndex, columnToValues, fireEvent, trackUndo);
-        if (trackUndo)
-            undoManager.addEdit(new EditPosition(this, rowIndex, columnToValues));
+        // operations that fire their events in bulk have their edits absorbed into one undoable edit
+        if (trackUndo && !columnToValues.getColumnIndices().isEmpty())
+            undoManager.addEdit(new EditPosition(this, rowIndex, columnToValues, !fireEvent));
+    }
+
+    void fireRowsUpdated(int[] ascendingRows, List<Integer> columnIndices) {
+        int columnIndex = columnIndices.size() == 1 ? columnIndices.get(0) : ALL_COLUMNS;
+        delegate.beginBatch();
+        try {
+            for (int row : ascendingRows)
+                delegate.fireTableRowsUpdated(row, row, columnIndex);
+        } finally {
+            delegate.commitBatch();
+        }
     }
 
     public void addTableModelListener(TableModelListener l) {
@@ -117,7 +135,13 @@ public class UndoPositionsModel implements PositionsModel {
         delegate.removeTableModelListener(l);
     }
 
-    private static final int CONTINOUS_RANGE_FINAL_EVENT = -2;
+    public void beginBatch() {
+        delegate.beginBatch();
+    }
+
+    public void commitBatch() {
+        delegate.commitBatch();
+    }
 
     public boolean isContinousRange() {
         return delegate.isContinousRange();
@@ -161,6 +185,10 @@ public class UndoPositionsModel implements PositionsModel {
         return delegate.getDistanceAndTimeAggregator();
     }
 
+    public RouteStatistics getRouteStatistics() {
+        return delegate.getRouteStatistics();
+    }
+
     public double[] getDistancesFromStart(int startIndex, int endIndex) {
         return delegate.getDistancesFromStart(startIndex, endIndex);
     }
@@ -214,31 +242,25 @@ public class UndoPositionsModel implements PositionsModel {
         add(rowIndex, new ArrayList<>(positions), true, true);
     }
 
-    @SuppressWarnings("unchecked")
     void add(int row, List<NavigationPosition> positions, boolean fireEvent, boolean trackUndo) {
-        for (int i = positions.size() - 1; i >= 0; i--) {
-            NavigationPosition position = positions.get(i);
-            getRoute().add(row, (BaseNavigationPosition) position);
-        }
-        if (fireEvent)
-            delegate.fireTableRowsInserted(row, row - 1 + positions.size());
+        int[] rows = new int[positions.size()];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = row + i;
+        insert(rows, positions, fireEvent);
         if (trackUndo)
             undoManager.addEdit(new AddPositions(this, row, positions));
     }
 
+    void insert(int[] ascendingRows, List<NavigationPosition> positions, boolean fireEvent) {
+        delegate.insert(ascendingRows, positions, fireEvent);
+    }
+
     public void remove(int firstIndex, int lastIndex) {
         remove(firstIndex, lastIndex, true, true);
     }
 
     public void remove(int[] rowIndices) {
-        // speed up deletion of positions in large tracks
-        if (rowIndices.length > 1000) {
-            int rowCountBeforeRemoval = getRowCount() - 1;
-            remove(rowIndices, false, true);
-            delegate.fireTableRowsDeletedInContinousRange(0, rowCountBeforeRemoval);
-            delegate.fireTableRowsInserted(0, getRowCount() - 1);
-        } else
-            remove(rowIndices, true, true);
+        remove(rowIndices, true, true);
     }
 
     void remove(int from, int to, boolean fireEvent, boolean trackUndo) {
@@ -246,46 +268,101 @@ public class UndoPositionsModel implements PositionsModel {
         remove(rows, fireEvent, trackUndo);
     }
 
-    void remove(int[] rows, final boolean fireEvent, final boolean trackUndo) {
-        final RemovePositions edit = new RemovePositions(this);
+    void remove(int[] rows, boolean fireEvent, boolean trackUndo) {
+        int[] ascendingRows = toAscendingRows(rows);
+        if (ascendingRows.length == 0)
+            return;
 
-        new ContinousRange(rows, new RangeOperation() {
-            private List<NavigationPosition> removed = new ArrayList<>();
+        List<NavigationPosition> removed = delegate.remove(ascendingRows, fireEvent, true);
+        if (fireEvent) {
+            // for listeners that update once after the removal like the positions count and the actions
+            fireTableRowsUpdated(0, MAX_VALUE, CONTINOUS_RANGE_FINAL_EVENT);
+        }
+        if (trackUndo)
+            undoManager.addEdit(new RemovePositions(this, ascendingRows, removed));
+    }
+
+    private int[] toAscendingRows(int[] rows) {
+        int[] sorted = rows.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (sorted[i] < 0 || sorted[i] >= getRowCount())
+                continue;
+            if (count == 0 || sorted[count - 1] != sorted[i])
+                sorted[count++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, count);
+    }
 
-            public void performOnIndex(int index) {
-                removed.add(0, getRoute().remove(index));
-            }
+    static long estimateSize(List<NavigationPosition> positions) {
+        long size = 0;
+        for (NavigationPosition position : positions)
+            size += REFERENCE_SIZE + estimateSize(position);
+        return size;
+    }
 
-            public void performOnRange(int firstIndex, int lastIndex) {
-                if (fireEvent)
-                    delegate.fireTableRowsDeletedInContinousRange(firstIndex, lastIndex);
-                if (trackUndo)
-                    edit.add(firstIndex, removed);
-                removed = new ArrayList<>();
-            }
+    private static long estimateSize(NavigationPosition position) {
+        // the header and the references to the values that a position keeps at least,
+        // the values themselves are shared with no other position
+        return OBJECT_HEADER_SIZE + 6 * REFERENCE_SIZE +
+                estimateSize(position.getLongitude()) + estimateSize(position.getLatitude()) +
+                estimateSize(position.getElevation()) + estimateSize(position.getSpeed()) +
+                estimateSize(position.getTime()) + estimateSize(position.getDescription());
+    }
 
-            public boolean isInterrupted() {
-                return false;
-            }
-        }).performMonotonicallyDecreasing();
+    static long estimateSize(Object[] values, int from, int to) {
+        long size = 0;
+        for (int i = from; i < to; i++)
+            size += REFERENCE_SIZE + estimateSize(values[i]);
+        return size;
+    }
 
-        if (fireEvent)
-            fireTableRowsUpdated(0, MAX_VALUE, CONTINOUS_RANGE_FINAL_EVENT);
-        if (trackUndo)
-            undoManager.addEdit(edit);
+    private static long estimateSize(Object value) {
+        if (value == null)
+            return 0;
+        // a String has a hash and a reference to its char array with a length
+        if (value instanceof String)
+            return 2 * OBJECT_HEADER_SIZE + REFERENCE_SIZE + 8 + 2 * ((String) value).length();
+        // a Double has a double and a CompactCalendar a long and a shared time zone id
+        if (value instanceof Double)
+            return OBJECT_HEADER_SIZE + 8;
+        if (value instanceof CompactCalendar)
+            return OBJECT_HEADER_SIZE + 8 + REFERENCE_SIZE;
+        return OBJECT_HEADER_SIZE;
     }
 
     public void sort(Comparator<NavigationPosition> comparator) {
         sort(comparator, true);
     }
 
-    void sort(Comparator<NavigationPosition> comparator, boolean trackUndo) {
-        @SuppressWarnings("unchecked")
-        List<NavigationPosition> original = getRoute().getPositions();
-        List<NavigationPosition> positions = new ArrayList<>(original);
-        delegate.sort(comparator);
+    @SuppressWarnings("unchecked")
+    void sort(final Comparator<NavigationPosition> comparator, boolean trackUndo) {
+        final List<NavigationPosition> positions = getRoute().getPositions();
+        Integer[] indices = new Integer[positions.size()];
+        for (int i = 0; i < indices.length; i++)
+            indices[i] = i;
+        Arrays.sort(indices, new Comparator<Integer>() {
+            public int compare(Integer i1, Integer i2) {
+                return comparator.compare(positions.get(i1), positions.get(i2));
+            }
+        });
+
+        int[] permutation = new int[indices.length];
+        for (int i = 0; i < permutation.length; i++)
+            permutation[i] = indices[i];
+        permute(permutation);
         if (trackUndo)
-            undoManager.addEdit(new SortPositions(this, comparator, positions));
+            undoManager.addEdit(new SortPositions(this, permutation));
+    }
+
+    @SuppressWarnings("unchecked")
+    void permute(int[] permutation) {
+        List<NavigationPosition> positions = getRoute().getPositions();
+        List<NavigationPosition> permuted = new ArrayList<>(permutation.length);
+        for (int index : permutation)
+            permuted.add(positions.get(index));
+        delegate.order(permuted);
     }
 
     public void order(List<NavigationPosition> positions) {
@@ -0,0 +1,157 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.converter.gui.helpers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.io.File.createTempFile;
+import static java.nio.file.Files.createTempDirectory;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.swing.SwingUtilities.invokeAndWait;
+import static org.junit.Assert.*;
+
+public class ThumbnailCacheTest {
+    private File image, directory;
+
+    @Before
+    public void setUp() throws IOException {
+        image = createImage();
+        directory = createTempDirectory("thumbnails").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(image.delete());
+        File[] files = directory.listFiles();
+        if (files != null)
+            for (File file : files)
+                assertTrue(file.delete());
+        assertTrue(directory.delete());
+    }
+
+    private File createImage() throws IOException {
+        File file = createTempFile("thumbnail", ".jpg");
+        ImageIO.write(new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB), "jpg", file);
+        return file;
+    }
+
+    private ImageIcon getThumbnail(ThumbnailCache cache) throws InterruptedException {
+        CountDownLatch loaded = new CountDownLatch(1);
+        ImageIcon thumbnail = cache.getThumbnail(image, loaded::countDown);
+        if (thumbnail == null) {
+            assertTrue(loaded.await(10, SECONDS));
+            thumbnail = cache.getThumbnail(image, loaded::countDown);
+        }
+        return thumbnail;
+    }
+
+    private void waitForEventQueue() throws Exception {
+        invokeAndWait(() -> {
+        });
+    }
+
+    @Test
+    public void testLoadsInBackground() throws Exception {
+        ThumbnailCache cache = new ThumbnailCache(200, 10, 10, directory);
+        try {
+            ImageIcon thumbnail = getThumbnail(cache);
+            assertNotNull(thumbnail);
+            assertEquals(200, thumbnail.getIconHeight());
+            assertEquals(1600 * 200 / 1200, thumbnail.getIconWidth(), 1);
+
+            AtomicInteger callbacks = new AtomicInteger();
+            assertSame(thumbnail, cache.getThumbnail(image, callbacks::incrementAndGet));
+            waitForEventQueue();
+            assertEquals(0, callbacks.get());
+        } finally {
+            cache.dispose();
+        }
+    }
+
+    @Test
+    public void testStoresThumbnailInDirectory() throws InterruptedException {
+        ThumbnailCache first = new ThumbnailCache(200, 10, 10, directory);
+        getThumbnail(first);
+        first.dispose();
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+
+        ThumbnailCache second = new ThumbnailCache(200, 10, 10, directory);
+        ImageIcon thumbnail = getThumbnail(second);
+        second.dispose();
+        assertEquals(200, thumbnail.getIconHeight());
+    }
+
+    @Test
+    public void testNoThumbnailForInvalidFile() throws Exception {
+        File text = createTempFile("thumbnail", ".txt");
+        try {
+            AtomicInteger decodings = new AtomicInteger();
+            Executor executor = runnable -> {
+                decodings.incrementAndGet();
+                runnable.run();
+            };
+            ThumbnailCache cache = new ThumbnailCache(200, 10, 10, directory, executor);
+
+            AtomicInteger callbacks = new AtomicInteger();
+            assertNull(cache.getThumbnail(text, callbacks::incrementAndGet));
+            assertNull(cache.getThumbnail(text, callbacks::incrementAndGet));
+            waitForEventQueue();
+            assertEquals(0, callbacks.get());
+            assertEquals(1, decodings.get());
+        } finally {
+            assertTrue(text.delete());
+        }
+    }
+
+    @Test
+    public void testLimitsThumbnailsInDirectory() throws Exception {
+        File other = createImage();
+        try {
+            ThumbnailCache cache = new ThumbnailCache(200, 10, 1, directory, Runnable::run);
+            cache.getThumbnail(image, () -> {
+            });
+            cache.getThumbnail(other, () -> {
+            });
+            assertNotNull(cache.getThumbnail(image, () -> {
+            }));
+            assertNotNull(cache.getThumbnail(other, () -> {
+            }));
+
+            File[] files = directory.listFiles();
+            assertNotNull(files);
+            assertEquals(1, files.length);
+        } finally {
+            assertTrue(other.delete());
+        }
+    }
+}
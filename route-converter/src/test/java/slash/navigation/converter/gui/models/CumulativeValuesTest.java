@@ -0,0 +1,86 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+package slash.navigation.converter.gui.models;
+
+import org.junit.Test;
+import slash.navigation.base.Wgs84Position;
+import slash.navigation.common.DistanceAndTime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class CumulativeValuesTest {
+    private final CumulativeValues values = new CumulativeValues();
+
+    private List<Wgs84Position> createPositions(double... elevations) {
+        List<Wgs84Position> positions = new ArrayList<>();
+        for (double elevation : elevations)
+            positions.add(new Wgs84Position(10.0, 50.0, elevation, null, null, null));
+        return positions;
+    }
+
+    @Test
+    public void testElevationAscendAndDescend() {
+        List<Wgs84Position> positions = createPositions(100, 110, 105, 120, 90);
+        assertEquals(0.0, values.getElevationAscend(0, positions), 0.0);
+        assertEquals(25.0, values.getElevationAscend(3, positions), 0.0);
+        assertEquals(5.0, values.getElevationDescend(3, positions), 0.0);
+        assertEquals(25.0, values.getElevationAscend(4, positions), 0.0);
+        assertEquals(35.0, values.getElevationDescend(4, positions), 0.0);
+    }
+
+    @Test
+    public void testInvalidateElevations() {
+        List<Wgs84Position> positions = createPositions(100, 110, 105, 120, 90);
+        assertEquals(25.0, values.getElevationAscend(4, positions), 0.0);
+
+        positions.get(2).setElevation(130.0);
+        assertEquals(25.0, values.getElevationAscend(4, positions), 0.0);
+        values.invalidateElevations(2);
+        assertEquals(30.0, values.getElevationAscend(4, positions), 0.0);
+        assertEquals(40.0, values.getElevationDescend(4, positions), 0.0);
+
+        positions.add(createPositions(200).get(0));
+        values.invalidate(5);
+        assertEquals(140.0, values.getElevationAscend(5, positions), 0.0);
+    }
+
+    @Test
+    public void testDistancesAndTimesOfPredecessor() {
+        Map<Integer, DistanceAndTime> absoluteDistancesAndTimes = new HashMap<>();
+        absoluteDistancesAndTimes.put(0, new DistanceAndTime(0.0, 0L));
+        absoluteDistancesAndTimes.put(1, new DistanceAndTime(10.0, 1000L));
+        absoluteDistancesAndTimes.put(3, new DistanceAndTime(30.0, null));
+        assertEquals(10.0, values.getDistance(2, absoluteDistancesAndTimes), 0.0);
+        assertEquals(1000L, values.getTime(2, absoluteDistancesAndTimes));
+        assertEquals(30.0, values.getDistance(3, absoluteDistancesAndTimes), 0.0);
+        assertEquals(1000L, values.getTime(3, absoluteDistancesAndTimes));
+
+        absoluteDistancesAndTimes.put(2, new DistanceAndTime(20.0, 2000L));
+        assertEquals(10.0, values.getDistance(2, absoluteDistancesAndTimes), 0.0);
+        values.invalidateDistancesAndTimes(2);
+        assertEquals(20.0, values.getDistance(2, absoluteDistancesAndTimes), 0.0);
+        assertEquals(2000L, values.getTime(3, absoluteDistancesAndTimes));
+    }
+}
@@ -22,14 +22,25 @@ package slash.navigation.converter.gui.models;
 
 import org.junit.Test;
 import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
 import slash.navigation.bcr.BcrPosition;
 import slash.navigation.bcr.BcrRoute;
 import slash.navigation.bcr.MTP0607Format;
+import slash.navigation.gui.events.BulkTableModelListener;
+import slash.navigation.gui.events.RangeSet;
 
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
 import java.util.ArrayList;
 import java.util.List;
 
+import static javax.swing.SwingUtilities.invokeAndWait;
+import static javax.swing.event.TableModelEvent.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static slash.navigation.converter.gui.models.PositionColumns.DESCRIPTION_COLUMN_INDEX;
+import static slash.navigation.converter.gui.models.PositionColumns.LONGITUDE_COLUMN_INDEX;
 
 public class PositionsModelTest {
     PositionsModelImpl model = new PositionsModelImpl();
@@ -82,4 +93,153 @@ public class PositionsModelTest {
         assertEquals("a", model.getPosition(0).getDescription());
         assertEquals("e", model.getPosition(1).getDescription());
     }
+
+    @Test
+    public void testPatchRouteStatisticsForScatteredRows() {
+        initialize();
+        RouteStatistics statistics = model.getRouteStatistics();
+        model.remove(new int[]{1, 3});
+        assertSame(statistics, model.getRouteStatistics());
+        assertEquals(3, statistics.getPositionCount());
+        assertEquals(new RouteStatistics(route.getPositions()).getDistance(), statistics.getDistance(), 0.0001);
+    }
+
+    private List<String> recordEvents() {
+        final List<String> events = new ArrayList<>();
+        model.addTableModelListener(new TableModelListener() {
+            public void tableChanged(TableModelEvent e) {
+                events.add(e.getType() + ":" + e.getFirstRow() + "-" + e.getLastRow());
+            }
+        });
+        return events;
+    }
+
+    private List<String> recordBulkEvents() {
+        final List<String> events = new ArrayList<>();
+        model.addTableModelListener(new BulkTableModelListener() {
+            public void tableChanged(TableModelEvent e) {
+                events.add(e.getType() + ":" + e.getFirstRow() + "-" + e.getLastRow());
+            }
+
+            public void tableRowsInserted(TableModel source, RangeSet rows) {
+                events.add(INSERT + ":" + rows);
+            }
+
+            public void tableRowsUpdated(TableModel source, RangeSet rows, int columnIndex) {
+                events.add(UPDATE + ":" + rows);
+            }
+
+            public void tableRowsDeleted(TableModel source, RangeSet rows) {
+                events.add(DELETE + ":" + rows);
+            }
+        });
+        return events;
+    }
+
+    private List<String> recordEvents(final String name, final List<String> events) {
+        model.addTableModelListener(new TableModelListener() {
+            public void tableChanged(TableModelEvent e) {
+                events.add(name + ":" + e.getType() + ":" + e.getFirstRow() + "-" + e.getLastRow() + ":" + e.getColumn());
+            }
+        });
+        return events;
+    }
+
+    @Test
+    public void testRemoveScatteredRowsInBatch() throws Exception {
+        initialize();
+        List<String> events = recordEvents();
+        List<String> bulkEvents = recordBulkEvents();
+        invokeAndWait(() -> model.remove(new int[]{0, 2, 3}));
+        assertEquals(2, model.getRowCount());
+        assertEquals("b", model.getPosition(0).getDescription());
+        assertEquals("e", model.getPosition(1).getDescription());
+        assertEquals("[-1:2-3, -1:0-0]", events.toString());
+        assertEquals("[-1:RangeSet{0=0, 2=3}]", bulkEvents.toString());
+    }
+
+    @Test
+    public void testCoalesceUpdatesInBatch() throws Exception {
+        initialize();
+        final List<String> events = recordEvents();
+        List<String> bulkEvents = recordBulkEvents();
+        final int[] eventsBeforeCommit = new int[1];
+        invokeAndWait(() -> {
+            model.beginBatch();
+            model.fireTableRowsUpdated(3, 3, ALL_COLUMNS);
+            model.fireTableRowsUpdated(0, 1, ALL_COLUMNS);
+            model.fireTableRowsUpdated(2, 2, ALL_COLUMNS);
+            eventsBeforeCommit[0] = events.size();
+            model.commitBatch();
+        });
+        assertEquals(0, eventsBeforeCommit[0]);
+        assertEquals("[0:0-3]", events.toString());
+        assertEquals("[0:RangeSet{0=3}]", bulkEvents.toString());
+    }
+
+    @Test
+    public void testKeepColumnsOfUpdatesInBatch() throws Exception {
+        initialize();
+        List<String> events = recordEvents("a", new ArrayList<String>());
+        invokeAndWait(() -> {
+            model.beginBatch();
+            model.fireTableRowsUpdated(0, 0, DESCRIPTION_COLUMN_INDEX);
+            model.fireTableRowsUpdated(2, 2, LONGITUDE_COLUMN_INDEX);
+            model.fireTableRowsUpdated(1, 1, DESCRIPTION_COLUMN_INDEX);
+            model.commitBatch();
+        });
+        assertEquals("[a:0:0-1:" + DESCRIPTION_COLUMN_INDEX + ", a:0:2-2:" + LONGITUDE_COLUMN_INDEX + "]", events.toString());
+    }
+
+    @Test
+    public void testDeliverEachEventToAllListenersInBatch() throws Exception {
+        initialize();
+        List<String> events = new ArrayList<>();
+        recordEvents("a", events);
+        recordEvents("b", events);
+        invokeAndWait(() -> model.remove(new int[]{0, 2, 3}));
+        assertEquals("[b:-1:2-3:-1, a:-1:2-3:-1, b:-1:0-0:-1, a:-1:0-0:-1]", events.toString());
+    }
+
+    @Test
+    public void testNoBatchOutsideOfEventDispatchThread() {
+        initialize();
+        List<String> events = recordEvents();
+        model.beginBatch();
+        model.fireTableRowsUpdated(3, 3, ALL_COLUMNS);
+        model.fireTableRowsUpdated(0, 1, ALL_COLUMNS);
+        assertEquals("[0:3-3, 0:0-1]", events.toString());
+        model.commitBatch();
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void testInsertScatteredRowsInBatch() throws Exception {
+        initialize();
+        List<String> events = recordEvents();
+        List<String> bulkEvents = recordBulkEvents();
+        invokeAndWait(() -> {
+            model.beginBatch();
+            model.fireTableRowsInserted(4, 4);
+            model.fireTableRowsInserted(1, 2);
+            model.commitBatch();
+        });
+        assertEquals("[1:1-2, 1:6-6]", events.toString());
+        assertEquals("[1:RangeSet{1=2, 6=6}]", bulkEvents.toString());
+    }
+
+    @Test
+    public void testMixedChangesInBatch() throws Exception {
+        initialize();
+        List<String> events = recordEvents();
+        invokeAndWait(() -> {
+            model.beginBatch();
+            model.fireTableRowsUpdated(0, 0, ALL_COLUMNS);
+            route.remove(3);
+            model.fireTableRowsDeleted(3, 3);
+            model.fireTableRowsInserted(2, 2);
+            model.commitBatch();
+        });
+        assertEquals("[-1:2-4, 1:2-3, 0:0-0]", events.toString());
+    }
 }
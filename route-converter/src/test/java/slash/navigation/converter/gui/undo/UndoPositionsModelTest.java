@@ -0,0 +1,238 @@
+/*
+    This file is part of RouteConverter.
+
+    RouteConverter is free software; you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation; either version 2 of the License, or
+    (at your option) any later version.
+
+    RouteConverter is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with RouteConverter; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA  02110-1301  USA
+
+    Copyright (C) 2007 Christian Pesch. All Rights Reserved.
+*/
+
+package slash.navigation.converter.gui.undo;
+
+import org.junit.Test;
+import slash.navigation.base.BaseRoute;
+import slash.navigation.base.RouteStatistics;
+import slash.navigation.bcr.BcrPosition;
+import slash.navigation.bcr.BcrRoute;
+import slash.navigation.bcr.MTP0607Format;
+import slash.navigation.common.NavigationPosition;
+import slash.navigation.converter.gui.models.FilteringPositionsModel;
+import slash.navigation.converter.gui.models.PositionColumnValues;
+import slash.navigation.gui.models.FilterPredicate;
+import slash.navigation.gui.undo.UndoManager;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.lang.Integer.MAX_VALUE;
+import static javax.swing.SwingUtilities.invokeAndWait;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static slash.navigation.converter.gui.models.PositionColumns.DESCRIPTION_COLUMN_INDEX;
+
+public class UndoPositionsModelTest {
+    UndoManager undoManager = new UndoManager();
+    UndoPositionsModel model = new UndoPositionsModel(undoManager);
+    BaseRoute route = new BcrRoute(new MTP0607Format(), "?", null, new ArrayList<BcrPosition>());
+    BcrPosition a = new BcrPosition(1, 1, 0, "a");
+    BcrPosition b = new BcrPosition(3, 3, 0, "b");
+    BcrPosition c = new BcrPosition(5, 5, 0, "c");
+    BcrPosition d = new BcrPosition(7, 7, 0, "d");
+    BcrPosition e = new BcrPosition(9, 9, 0, "e");
+
+    @SuppressWarnings("unchecked")
+    private void initialize() {
+        List<BcrPosition> positions = route.getPositions();
+        positions.clear();
+        positions.add(a);
+        positions.add(b);
+        positions.add(c);
+        positions.add(d);
+        positions.add(e);
+        model.setRoute(route);
+    }
+
+    private String getDescriptions() {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < model.getRowCount(); i++)
+            buffer.append(model.getPosition(i).getDescription());
+        return buffer.toString();
+    }
+
+    @Test
+    public void testRemoveScatteredRows() {
+        initialize();
+        model.remove(new int[]{3, 0, 2});
+        assertEquals("be", getDescriptions());
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+        undoManager.redo();
+        assertEquals("be", getDescriptions());
+    }
+
+    @Test
+    public void testRemoveFiresFinalEvent() {
+        initialize();
+        final List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+        model.remove(new int[]{3, 0, 2});
+
+        TableModelEvent last = events.get(events.size() - 1);
+        assertEquals(0, last.getFirstRow());
+        assertEquals(MAX_VALUE, last.getLastRow());
+        assertEquals(TableModelEvent.UPDATE, last.getType());
+    }
+
+    @Test
+    public void testRemoveFiresDeletionsInContinousRange() throws Exception {
+        initialize();
+        final List<Boolean> continousRanges = new ArrayList<>();
+        model.addTableModelListener(event -> {
+            if (event.getType() == TableModelEvent.DELETE)
+                continousRanges.add(model.isContinousRange());
+            else
+                assertFalse(model.isContinousRange());
+        });
+        invokeAndWait(() -> model.remove(new int[]{3, 0, 2}));
+
+        assertEquals(2, continousRanges.size());
+        for (Boolean continousRange : continousRanges)
+            assertTrue(continousRange);
+    }
+
+    @Test
+    public void testRemoveKeepsFilteredMapping() {
+        initialize();
+        FilteringPositionsModel<NavigationPosition> filtered = new FilteringPositionsModel<>(model, new FilterPredicate<NavigationPosition>() {
+            public String getName() {
+                return "Not c";
+            }
+
+            public boolean shouldInclude(NavigationPosition position) {
+                return !position.getDescription().equals("c");
+            }
+        });
+        final List<TableModelEvent> events = new ArrayList<>();
+        filtered.addTableModelListener(events::add);
+        model.remove(new int[]{3, 0});
+
+        assertEquals(2, filtered.getRowCount());
+        assertEquals("b", filtered.getPosition(0).getDescription());
+        assertEquals("e", filtered.getPosition(1).getDescription());
+        for (TableModelEvent event : events)
+            assertFalse(event.getType() == TableModelEvent.UPDATE && event.getColumn() == TableModelEvent.ALL_COLUMNS &&
+                    event.getLastRow() == MAX_VALUE);
+    }
+
+    @Test
+    public void testRemoveAndUndoPatchStatistics() {
+        initialize();
+        RouteStatistics statistics = model.getRouteStatistics();
+        model.remove(new int[]{3, 0});
+        assertSame(statistics, model.getRouteStatistics());
+        assertEquals(new RouteStatistics(route.getPositions()).getDistance(), statistics.getDistance(), 0.0000001);
+
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+        assertSame(statistics, model.getRouteStatistics());
+        assertEquals(new RouteStatistics(route.getPositions()).getDistance(), statistics.getDistance(), 0.0000001);
+    }
+
+    @Test
+    public void testRemoveRange() {
+        initialize();
+        model.remove(1, 4);
+        assertEquals("ae", getDescriptions());
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+    }
+
+    @Test
+    public void testAdd() {
+        initialize();
+        List<NavigationPosition> positions = new ArrayList<>();
+        positions.add(new BcrPosition(2, 2, 0, "x"));
+        positions.add(new BcrPosition(4, 4, 0, "y"));
+        model.add(1, positions, true, true);
+        assertEquals("axybcde", getDescriptions());
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+        undoManager.redo();
+        assertEquals("axybcde", getDescriptions());
+    }
+
+    @Test
+    public void testBulkEditsAreUndoneAtOnce() {
+        initialize();
+        for (int row : new int[]{0, 2, 4})
+            model.edit(row, new PositionColumnValues(DESCRIPTION_COLUMN_INDEX, "x"), false, true);
+        assertEquals("xbxdx", getDescriptions());
+
+        final List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+        for (TableModelEvent event : events)
+            assertEquals(DESCRIPTION_COLUMN_INDEX, event.getColumn());
+        undoManager.redo();
+        assertEquals("xbxdx", getDescriptions());
+    }
+
+    @Test
+    public void testSingleEditsAreUndoneOneByOne() {
+        initialize();
+        model.setValueAt("x", 0, DESCRIPTION_COLUMN_INDEX);
+        model.setValueAt("y", 1, DESCRIPTION_COLUMN_INDEX);
+        assertEquals("xycde", getDescriptions());
+
+        undoManager.undo();
+        assertEquals("xbcde", getDescriptions());
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+    }
+
+    @Test
+    public void testSizeOfRemovedPositions() {
+        initialize();
+        List<NavigationPosition> positions = new ArrayList<>();
+        positions.add(a);
+        long size = UndoPositionsModel.estimateSize(positions);
+        positions.add(new BcrPosition(1, 1, 0, "a much longer description"));
+        long longer = UndoPositionsModel.estimateSize(positions) - size;
+        assertTrue(size > 0);
+        assertTrue(longer > size);
+    }
+
+    @Test
+    public void testSort() {
+        initialize();
+        model.sort(new Comparator<NavigationPosition>() {
+            public int compare(NavigationPosition p1, NavigationPosition p2) {
+                return p2.getDescription().compareTo(p1.getDescription());
+            }
+        });
+        assertEquals("edcba", getDescriptions());
+        model.remove(new int[]{0});
+        assertEquals("dcba", getDescriptions());
+        undoManager.undo();
+        undoManager.undo();
+        assertEquals("abcde", getDescriptions());
+        undoManager.redo();
+        assertEquals("edcba", getDescriptions());
+    }
+}
@@ -20,7 +20,11 @@
 
 package slash.navigation.routing;
 
+import slash.navigation.common.NavigationPosition;
+
 import javax.swing.event.EventListenerList;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The base of all {@link RoutingService} implementations.
@@ -58,7 +62,24 @@ public abstract class BaseRoutingService implements RoutingService {
         }
     }
 
+    /**
+     * Routes pairwise between consecutive positions; implementations that can route along
+     * many waypoints in one run override this.
+     *
+     * @return one {@link RoutingResult} for each leg between consecutive positions
+     */
+    public List<RoutingResult> getRouteAlong(List<NavigationPosition> positions, TravelMode travelMode) {
+        List<RoutingResult> result = new ArrayList<>();
+        for (int i = 0; i < positions.size() - 1; i++) {
+            result.add(getRouteBetween(positions.get(i), positions.get(i + 1), travelMode));
+        }
+        return result;
+    }
+
     public void addRoutingServiceListener(RoutingServiceListener l) {
         listenerList.add(RoutingServiceListener.class, l);
     }
+
+    public void dispose() {
+    }
 }
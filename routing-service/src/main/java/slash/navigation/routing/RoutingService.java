@@ -46,10 +46,13 @@ public interface RoutingService {
     void setPath(String path);
 
     RoutingResult getRouteBetween(NavigationPosition from, NavigationPosition to, TravelMode travelMode);
+    List<RoutingResult> getRouteAlong(List<NavigationPosition> positions, TravelMode travelMode);
 
     DownloadFuture downloadRoutingDataFor(String mapIdentifier, List<LongitudeAndLatitude> longitudeAndLatitudes);
     long calculateRemainingDownloadSize(List<MapDescriptor> mapDescriptors);
     void downloadRoutingData(List<MapDescriptor> mapDescriptors);
 
     void addRoutingServiceListener(RoutingServiceListener routingServiceListener);
+
+    void dispose();
 }